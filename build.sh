@@ -39,6 +39,12 @@ for file in *.det; do
     fi
     java RandomDB ${tableName} 10000
     java ConvertTxtToTbl ${tableName}
+    # Builds a B+-tree index on each primary key.
+    for colName in `awk 'NR > 2 && $4 == "PK" {print $1}' ${file}`; do
+        java BuildIndex ${tableName} ${colName}
+    done
+    # Also stores the table column by column.
+    java ConvertTblToCol ${tableName}
     echo ""
 done
 
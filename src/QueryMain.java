@@ -87,10 +87,12 @@ public class QueryMain {
 
         /*
          * If there are joins, then assigns buffers to each join operator while preparing
-         * the plan. As buffer manager is not implemented, just input the number of buffers
-         * available.
+         * the plan. The other operators which need buffers (i.e., distinct, groupby, the
+         * aggregates and orderby) get them as well. As buffer manager is not implemented,
+         * just input the number of buffers available.
          */
-        if (numOfJoin != 0 || sqlQuery.getIsDistinct() || sqlQuery.isGroupby()) {
+        if (numOfJoin != 0 || sqlQuery.getIsDistinct() || sqlQuery.isGroupby() || sqlQuery.isAggregated()
+                || sqlQuery.isOrderBy()) {
             System.out.println("enter the number of buffers available");
 
             try {
@@ -195,7 +197,11 @@ public class QueryMain {
     private static void printSchema(Schema schema) {
         for (int i = 0; i < numOfAttrs; i++) {
             Attribute attr = schema.getAttribute(i);
-            out.print(attr.getTabName() + "." + attr.getColName() + "  ");
+            String name = attr.getTabName() + "." + attr.getColName();
+            if (attr.isAggregated()) {
+                name = attr.getAggName() + "(" + name + ")";
+            }
+            out.print(name + "  ");
         }
         out.println();
     }
@@ -0,0 +1,377 @@
+package qp.operators;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Vector;
+
+import qp.utils.Attribute;
+import qp.utils.Schema;
+import qp.utils.Tuple;
+
+/**
+ * Holds the running values of the aggregate functions for a number of groups. The values of each aggregate
+ * function are kept in a primitive array indexed by group, so that a group only takes one slot per array
+ * instead of one object per function. The accumulators are fed either with input tuples, or with partial
+ * aggregates (see {@link #getPartialSchema}) which are merged together. An input tuple may also carry the
+ * number of tuples it stands for, when it is joined with a partial aggregate (i.e., eager aggregation), in
+ * which case the aggregate functions on its other attributes are weighted by that number.
+ */
+public class Accumulators {
+    // The ways in which the running values of an aggregate function are stored.
+    private static final int LONG = 0;
+    private static final int DOUBLE = 1;
+    private static final int OBJECT = 2;
+
+    // The aggregate function of each aggregated attribute.
+    private final int[] functions;
+    // How the running values of each aggregate function are stored.
+    private final int[] kinds;
+    // The type of the values fed into each aggregate function.
+    private final int[] types;
+    // The index of each aggregated attribute (or its partial aggregate) in the input tuples.
+    private final int[] inIndices;
+    // Whether the input tuples hold the partial aggregate of each aggregate function.
+    private final boolean[] isPartial;
+    // The index of the number of tuples in the input tuples if they carry one; -1 otherwise.
+    private final int countIndex;
+
+    // The number of groups.
+    private int numOfGroups;
+    // The number of input tuples in each group.
+    private long[] counts;
+    // The running values of each aggregate function, in one of these arrays depending on how they are stored.
+    private final long[][] longValues;
+    private final double[][] doubleValues;
+    private final Object[][] objectValues;
+
+    /**
+     * Creates the accumulators for some input tuples. An aggregate function is fed with its partial aggregate
+     * if the input schema has one, or otherwise with the aggregated attribute itself.
+     *
+     * @param aggregates are the aggregated attributes.
+     * @param inSchema   is the schema of the input tuples.
+     */
+    public Accumulators(Vector<Attribute> aggregates, Schema inSchema) {
+        int numOfAggregates = aggregates.size();
+        functions = new int[numOfAggregates];
+        kinds = new int[numOfAggregates];
+        types = new int[numOfAggregates];
+        inIndices = new int[numOfAggregates];
+        isPartial = new boolean[numOfAggregates];
+        countIndex = inSchema.indexOf(getCountAttribute());
+
+        longValues = new long[numOfAggregates][];
+        doubleValues = new double[numOfAggregates][];
+        objectValues = new Object[numOfAggregates][];
+        for (int i = 0; i < numOfAggregates; i++) {
+            Attribute attr = aggregates.elementAt(i);
+            functions[i] = attr.getAggType();
+            inIndices[i] = inSchema.indexOf(attr);
+            isPartial[i] = inIndices[i] >= 0;
+            if (!isPartial[i]) {
+                inIndices[i] = inSchema.indexOf(attr.getBaseAttribute());
+            }
+            types[i] = inSchema.typeOf(inIndices[i]);
+            if (types[i] == Attribute.INT || functions[i] == Attribute.COUNT) {
+                kinds[i] = LONG;
+            } else if (types[i] == Attribute.REAL) {
+                kinds[i] = DOUBLE;
+            } else {
+                kinds[i] = OBJECT;
+            }
+            longValues[i] = kinds[i] == LONG ? new long[16] : null;
+            doubleValues[i] = kinds[i] == DOUBLE ? new double[16] : null;
+            objectValues[i] = kinds[i] == OBJECT ? new Object[16] : null;
+        }
+        counts = new long[16];
+        numOfGroups = 0;
+    }
+
+    /**
+     * Gets the schema of the partial aggregates of a number of groups, which consists of the attributes to
+     * group by, one partial aggregate per aggregated attribute, and lastly the number of tuples in the group.
+     * The partial aggregate of AVG is the sum of the attribute, and that of COUNT is the number of tuples.
+     *
+     * @param keys       are the attributes to group by.
+     * @param aggregates are the aggregated attributes.
+     * @param inSchema   is the schema of the input tuples.
+     * @return the schema of the partial aggregates.
+     */
+    public static Schema getPartialSchema(Vector keys, Vector<Attribute> aggregates, Schema inSchema) {
+        Vector<Attribute> attributes = new Vector<>();
+        for (int i = 0; i < keys.size(); i++) {
+            attributes.add(inSchema.getAttribute(inSchema.indexOf((Attribute) keys.elementAt(i))));
+        }
+        for (Attribute attr : aggregates) {
+            if (inSchema.contains(attr)) {
+                // The input tuples are partial aggregates already.
+                attributes.add(inSchema.getAttribute(inSchema.indexOf(attr)));
+                continue;
+            }
+            Attribute baseAttr = inSchema.getAttribute(inSchema.indexOf(attr.getBaseAttribute()));
+            Attribute partialAttr = attr.getAggType() == Attribute.COUNT
+                    ? baseAttr.getAggregated(Attribute.COUNT)
+                    : (Attribute) baseAttr.clone();
+            partialAttr.setAggType(attr.getAggType());
+            attributes.add(partialAttr);
+        }
+        attributes.add(getCountAttribute());
+
+        int tupleSize = 0;
+        for (Attribute attr : attributes) {
+            tupleSize += attr.getAttrSize();
+        }
+        Schema partialSchema = new Schema(attributes);
+        partialSchema.setTupleSize(tupleSize);
+        return partialSchema;
+    }
+
+    /**
+     * Gets the attribute holding the number of tuples in a partial aggregate. It does not belong to any table,
+     * so that it never clashes with the attributes of the tables it is joined with.
+     *
+     * @return the attribute of the number of tuples.
+     */
+    public static Attribute getCountAttribute() {
+        return new Attribute("", "", Attribute.INT, -1, Integer.BYTES);
+    }
+
+    /**
+     * @return the number of groups.
+     */
+    public int getNumOfGroups() {
+        return numOfGroups;
+    }
+
+    /**
+     * Removes all groups, while keeping the arrays allocated for reuse.
+     */
+    public void clear() {
+        numOfGroups = 0;
+    }
+
+    /**
+     * Adds a new group with no tuples. Until a tuple is added, the results of the group are those of an empty
+     * input: COUNT and SUM are 0, and since there are no null values, AVG, MIN and MAX are 0 too (or the
+     * empty string and the epoch for the other types).
+     *
+     * @return the index of the new group.
+     */
+    public int addGroup() {
+        if (numOfGroups == counts.length) {
+            int capacity = counts.length * 2;
+            counts = Arrays.copyOf(counts, capacity);
+            for (int i = 0; i < functions.length; i++) {
+                if (longValues[i] != null) {
+                    longValues[i] = Arrays.copyOf(longValues[i], capacity);
+                } else if (doubleValues[i] != null) {
+                    doubleValues[i] = Arrays.copyOf(doubleValues[i], capacity);
+                } else {
+                    objectValues[i] = Arrays.copyOf(objectValues[i], capacity);
+                }
+            }
+        }
+        counts[numOfGroups] = 0;
+        for (int i = 0; i < functions.length; i++) {
+            if (longValues[i] != null) {
+                longValues[i][numOfGroups] = 0;
+            } else if (doubleValues[i] != null) {
+                doubleValues[i][numOfGroups] = 0;
+            } else {
+                objectValues[i][numOfGroups] = types[i] == Attribute.TIME ? new Date(0) : "";
+            }
+        }
+        return numOfGroups++;
+    }
+
+    /**
+     * Adds an input tuple (or a partial aggregate) into a group.
+     *
+     * @param group is the index of the group.
+     * @param tuple is the input tuple.
+     */
+    public void add(int group, Tuple tuple) {
+        boolean isFirst = counts[group] == 0;
+        int weight = getWeight(tuple);
+        for (int i = 0; i < functions.length; i++) {
+            if (functions[i] == Attribute.COUNT) {
+                continue;
+            }
+            Object value = tuple.dataAt(inIndices[i]);
+            switch (kinds[i]) {
+                case LONG: {
+                    long v = (Integer) value * (isWeighted(i) ? weight : 1L);
+                    longValues[i][group] = isFirst ? v : combine(functions[i], longValues[i][group], v);
+                    break;
+                }
+                case DOUBLE: {
+                    double v = (Float) value * (isWeighted(i) ? weight : 1.0);
+                    doubleValues[i][group] = isFirst ? v : combine(functions[i], doubleValues[i][group], v);
+                    break;
+                }
+                default: {
+                    Object current = objectValues[i][group];
+                    if (isFirst || Tuple.compareValues(value, current) < 0 == (functions[i] == Attribute.MIN)) {
+                        objectValues[i][group] = value;
+                    }
+                    break;
+                }
+            }
+        }
+        counts[group] += weight;
+    }
+
+    /**
+     * Gets the number of tuples an input tuple stands for.
+     *
+     * @param tuple is the input tuple.
+     * @return the number of tuples.
+     */
+    private int getWeight(Tuple tuple) {
+        return countIndex < 0 ? 1 : (Integer) tuple.dataAt(countIndex);
+    }
+
+    /**
+     * Checks whether the value fed into an aggregate function has to be multiplied by the number of tuples an
+     * input tuple stands for, which is the case for the sums over the attributes not aggregated yet.
+     *
+     * @param index is the index of the aggregate function.
+     * @return true if the value is weighted.
+     */
+    private boolean isWeighted(int index) {
+        return !isPartial[index] && (functions[index] == Attribute.SUM || functions[index] == Attribute.AVG);
+    }
+
+    /**
+     * Combines two running values of an aggregate function.
+     *
+     * @param function is the aggregate function.
+     * @param value1   is the first value.
+     * @param value2   is the second value.
+     * @return the combined value.
+     */
+    private static long combine(int function, long value1, long value2) {
+        switch (function) {
+            case Attribute.MIN:
+                return Math.min(value1, value2);
+            case Attribute.MAX:
+                return Math.max(value1, value2);
+            default:
+                return value1 + value2;
+        }
+    }
+
+    /**
+     * Combines two running values of an aggregate function.
+     *
+     * @param function is the aggregate function.
+     * @param value1   is the first value.
+     * @param value2   is the second value.
+     * @return the combined value.
+     */
+    private static double combine(int function, double value1, double value2) {
+        switch (function) {
+            case Attribute.MIN:
+                return Math.min(value1, value2);
+            case Attribute.MAX:
+                return Math.max(value1, value2);
+            default:
+                return value1 + value2;
+        }
+    }
+
+    /**
+     * Gets the results of the aggregate functions for a group.
+     *
+     * @param group is the index of the group.
+     * @return the value of each aggregated attribute.
+     */
+    public Vector<Object> getResults(int group) {
+        Vector<Object> results = new Vector<>();
+        for (int i = 0; i < functions.length; i++) {
+            if (functions[i] == Attribute.AVG) {
+                double sum = kinds[i] == LONG ? longValues[i][group] : doubleValues[i][group];
+                results.add(counts[group] == 0 ? 0f : (float) (sum / counts[group]));
+            } else {
+                results.add(getPartial(i, group));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets the partial aggregates of a group, in the layout given by {@link #getPartialSchema}.
+     *
+     * @param group is the index of the group.
+     * @return the partial aggregates followed by the number of tuples.
+     */
+    public Vector<Object> getPartials(int group) {
+        Vector<Object> partials = new Vector<>();
+        for (int i = 0; i < functions.length; i++) {
+            partials.add(getPartial(i, group));
+        }
+        partials.add(toInt(counts[group]));
+        return partials;
+    }
+
+    /**
+     * Gets the partial aggregates of a single input tuple, in the layout given by {@link #getPartialSchema}.
+     *
+     * @param tuple is the input tuple.
+     * @return the partial aggregates followed by the number of tuples.
+     */
+    public Vector<Object> getPartials(Tuple tuple) {
+        int weight = getWeight(tuple);
+        Vector<Object> partials = new Vector<>();
+        for (int i = 0; i < functions.length; i++) {
+            if (functions[i] == Attribute.COUNT) {
+                partials.add(weight);
+            } else if (!isWeighted(i)) {
+                partials.add(tuple.dataAt(inIndices[i]));
+            } else if (kinds[i] == LONG) {
+                partials.add(toInt((long) (Integer) tuple.dataAt(inIndices[i]) * weight));
+            } else {
+                partials.add((Float) tuple.dataAt(inIndices[i]) * weight);
+            }
+        }
+        partials.add(weight);
+        return partials;
+    }
+
+    /**
+     * Gets the partial aggregate of an aggregate function for a group.
+     *
+     * @param index is the index of the aggregate function.
+     * @param group is the index of the group.
+     * @return the partial aggregate.
+     */
+    private Object getPartial(int index, int group) {
+        if (functions[index] == Attribute.COUNT) {
+            return toInt(counts[group]);
+        }
+        switch (kinds[index]) {
+            case LONG:
+                return toInt(longValues[index][group]);
+            case DOUBLE:
+                return (float) doubleValues[index][group];
+            default:
+                return objectValues[index][group];
+        }
+    }
+
+    /**
+     * Converts a running value into an INT attribute. The values are summed up in a long, but there is no
+     * wider type to hold the result of a SUM (or COUNT) over INT attributes, so the program exits when it
+     * does not fit rather than returning a wrapped-around value.
+     *
+     * @param value is the running value.
+     * @return the value as an INT.
+     */
+    private static int toInt(long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            System.err.println("Accumulators: the aggregate value " + value + " overflows an INT attribute");
+            System.exit(1);
+        }
+        return (int) value;
+    }
+}
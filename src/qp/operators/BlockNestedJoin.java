@@ -1,19 +1,18 @@
 package qp.operators;
 
-import java.io.EOFException;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Vector;
 
 import qp.utils.Attribute;
 import qp.utils.Batch;
 import qp.utils.Tuple;
 
 /**
- * Implements the block-based nested loop join algorithm.
+ * Implements the block-based nested loop join algorithm. Each block of (numOfBuffer - 2) left pages is loaded
+ * into a hash table on the join attribute, which is then probed by every tuple of the right pages. The I/O is
+ * the same as comparing the block against each right page, while the work per page is linear. If the right
+ * table fits into the buffers, it is kept in memory instead of being materialized into a file.
  */
 public class BlockNestedJoin extends Join {
     // The number of tuples per batch.
@@ -28,24 +27,17 @@ public class BlockNestedJoin extends Join {
     // Index of the join attribute in right table
     private int rightIndex;
 
-    // The file name where the right table is materialize
-    private String rightFileName;
-    // File pointer to the right hand materialized file
-    private ObjectInputStream in;
-    // To get unique fileNum for this operation
-    private static int fileNum = 0;
-
-    // The buffers for the left input stream.
-    private Batch[] leftBatches;
+    // The hash table on the join attribute over the current block of left pages.
+    private HashMap<Object, Vector<Tuple>> hashTable;
     // The buffer for the right input stream.
     private Batch rightBatch;
     // The output buffer.
     private Batch outBatch;
 
-    // Cursor for left side buffer
-    private int leftCursor;
     // Cursor for right side buffer
     private int rightCursor;
+    // Cursor for the left tuples matching the current right tuple
+    private int matchCursor;
     // Whether end of stream is reached for the left table
     private boolean eosLeft;
     // Whether end of stream is reached for the right table
@@ -66,7 +58,8 @@ public class BlockNestedJoin extends Join {
     /**
      * Opens this operator by performing the following operations:
      * 1. Finds the index of the join attributes;
-     * 2. Materializes the right hand side into a file;
+     * 2. Keeps the right hand side in memory if it fits, or otherwise materializes it into a file unless it can
+     * be rescanned directly;
      * 3. Opens the connections.
      *
      * @return true if the operator is opened successfully.
@@ -82,44 +75,18 @@ public class BlockNestedJoin extends Join {
         Attribute rightAttr = (Attribute) con.getRight();
         leftIndex = left.getSchema().indexOf(leftAttr);
         rightIndex = right.getSchema().indexOf(rightAttr);
-        Batch rightPage;
 
         // Initializes the cursors of input buffers for both sides.
-        leftCursor = 0;
+        rightBatch = null;
         rightCursor = 0;
+        matchCursor = 0;
         eosLeft = false;
         // Right stream would be repetitively scanned. If it reaches the end, we have to start new scan.
         eosRight = true;
 
         // Materializes the right table for the algorithm to perform.
-        if (!right.open()) {
+        if (!right.open() || !materializeRight("BNJtemp", "BlockNestedJoin")) {
             return false;
-        } else {
-            /*
-             * If the right operator is not a base table, then materializes the intermediate result
-             * from right into a file.
-             */
-            // if(right.getCondType() != OpType.SCAN){
-            fileNum++;
-            rightFileName = "BNJtemp-" + fileNum;
-            try {
-                ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(rightFileName));
-                rightPage = right.next();
-                while (rightPage != null) {
-                    out.writeObject(rightPage);
-                    rightPage = right.next();
-                }
-                out.close();
-            } catch (IOException io) {
-                System.out.println("BlockNestedJoin: writing the temporary file error");
-                return false;
-            }
-            // }
-
-            if (!right.close()) {
-                return false;
-            }
-
         }
         return left.open();
     }
@@ -140,24 +107,15 @@ public class BlockNestedJoin extends Join {
         outBatch = new Batch(batchSize);
         while (!outBatch.isFull()) {
             // Checks whether we need to read a new block of pages from the left table.
-            if (leftCursor == 0 && eosRight) {
-                leftBatches = new Batch[numOfBuffer - 2];
-                leftBatches[0] = left.next();
-                // Checks if there is no more pages from the left table.
-                if (leftBatches[0] == null) {
+            if (eosRight) {
+                if (!readLeftBlock()) {
                     eosLeft = true;
                     return outBatch;
                 }
-                for (int i = 1; i < leftBatches.length; i++) {
-                    leftBatches[i] = left.next();
-                    if (leftBatches[i] == null) {
-                        break;
-                    }
-                }
 
                 // Starts the scanning of right table whenever a new block of left pages comes.
                 try {
-                    in = new ObjectInputStream(new FileInputStream(rightFileName));
+                    openRight();
                     eosRight = false;
                 } catch (IOException io) {
                     System.err.println("BlockNestedJoin:error in reading the file");
@@ -165,83 +123,68 @@ public class BlockNestedJoin extends Join {
                 }
             }
 
-            int numOfLeftTuple = leftBatches[0].size();
-            for (int i = 1; i < leftBatches.length; i++) {
-                if (leftBatches[i] == null) {
-                    break;
-                }
-                numOfLeftTuple += leftBatches[i].size();
-            }
-
-            // Continuously probe the right table until we hit the end-of-stream.
-            while (!eosRight) {
+            // Reads the next right page once all tuples of the current one have probed the block.
+            if (rightBatch == null || rightCursor == rightBatch.size()) {
                 try {
-                    if (leftCursor == 0 && rightCursor == 0) {
-                        rightBatch = (Batch) in.readObject();
-                    }
-
-                    for (int i = leftCursor; i < numOfLeftTuple; i++) {
-                        int leftBatchIndex = i / leftBatches[0].size();
-                        int leftTupleIndex = i % leftBatches[0].size();
-                        Tuple leftTuple = leftBatches[leftBatchIndex].elementAt(leftTupleIndex);
-
-                        for (int j = rightCursor; j < rightBatch.size(); j++) {
-                            Tuple rightTuple = rightBatch.elementAt(j);
-
-                            // Adds the tuple if satisfying the join condition.
-                            if (leftTuple.checkJoin(rightTuple, leftIndex, rightIndex)) {
-                                Tuple outTuple = leftTuple.joinWith(rightTuple);
-                                outBatch.add(outTuple);
-
-                                // Checks whether the output buffer is full.
-                                if (outBatch.isFull()) {
-                                    if (i == numOfLeftTuple - 1 && j == rightBatch.size() - 1) {
-                                        leftCursor = 0;
-                                        rightCursor = 0;
-                                    } else if (i != numOfLeftTuple - 1 && j == rightBatch.size() - 1) {
-                                        leftCursor = i + 1;
-                                        rightCursor = 0;
-                                    } else {
-                                        leftCursor = i;
-                                        rightCursor = j + 1;
-                                    }
-
-                                    // Returns since we have already produced a complete page of matching tuples.
-                                    return outBatch;
-                                }
-                            }
-                        }
-                        rightCursor = 0;
+                    rightBatch = readRight();
+                    rightCursor = 0;
+                    matchCursor = 0;
+                    if (rightBatch == null) {
+                        eosRight = true;
                     }
-                    leftCursor = 0;
-                } catch (EOFException e) {
-                    try {
-                        in.close();
-                    } catch (IOException io) {
-                        System.out.println("BlockNestedJoin: error in temporary file reading");
-                    }
-                    eosRight = true;
-                } catch (ClassNotFoundException c) {
-                    System.out.println("BlockNestedJoin: some error in deserialization");
-                    System.exit(1);
                 } catch (IOException io) {
                     System.out.println("BlockNestedJoin: temporary file reading error");
                     System.exit(1);
                 }
+                continue;
+            }
+
+            // Probes the block for the left tuples matching the current right tuple.
+            Tuple rightTuple = rightBatch.elementAt(rightCursor);
+            Vector<Tuple> matches = hashTable.get(rightTuple.dataAt(rightIndex));
+            while (matches != null && matchCursor < matches.size() && !outBatch.isFull()) {
+                outBatch.add(matches.elementAt(matchCursor).joinWith(rightTuple));
+                matchCursor++;
+            }
+            if (matches == null || matchCursor == matches.size()) {
+                rightCursor++;
+                matchCursor = 0;
             }
         }
         return outBatch;
     }
 
     /**
-     * Closes this operator by deleting the file generated.
+     * Reads the next block of pages from the left table, and builds the hash table on the join attribute over
+     * them. The block takes (numOfBuffer - 2) pages, or the buffers left after the right pages if they are kept
+     * in memory.
+     *
+     * @return false if there is no more pages from the left table.
+     */
+    private boolean readLeftBlock() {
+        hashTable = new HashMap<>();
+        int blockSize = Math.max(rightPages != null ? numOfBuffer - 1 - rightPages.size() : numOfBuffer - 2, 1);
+        int numOfPages = 0;
+        for (; numOfPages < blockSize; numOfPages++) {
+            Batch leftBatch = left.next();
+            if (leftBatch == null) {
+                break;
+            }
+            for (int i = 0; i < leftBatch.size(); i++) {
+                Tuple leftTuple = leftBatch.elementAt(i);
+                hashTable.computeIfAbsent(leftTuple.dataAt(leftIndex), key -> new Vector<>()).add(leftTuple);
+            }
+        }
+        return numOfPages > 0;
+    }
+
+    /**
+     * Closes this operator by deleting the file generated, or closing the right table if it is rescanned.
      *
      * @return true if the operator is closed successfully.
      */
     @Override
     public boolean close() {
-        File f = new File(rightFileName);
-        f.delete();
-        return true;
+        return closeRight();
     }
 }
@@ -0,0 +1,250 @@
+package qp.operators;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Vector;
+
+import qp.utils.Attribute;
+import qp.utils.Batch;
+import qp.utils.ColumnBatch;
+import qp.utils.Schema;
+import qp.utils.TupleReader;
+
+/**
+ * Defines the columnar scan operator, which reads a table stored column by column. Each attribute of the table
+ * is stored in its own file <pre>XXXX.YYYY.col</pre> in the binary page format, and only the files of the
+ * attributes in the schema of this operator are read. The values are read straight into the primitive
+ * columns of a {@link ColumnBatch}, so that the operators above can be vectorized.
+ */
+public class ColumnarScan extends Operator {
+    // The name of the table
+    private final String tableName;
+    // The schema of the whole table
+    private final Schema tableSchema;
+
+    // The number of tuples per batch
+    private int batchSize;
+    // The readers of the column files, one for each attribute in the schema
+    private TupleReader[] in;
+
+    // To indicate whether end of stream reached or not
+    private boolean eos;
+
+    /**
+     * Creates a new columnar scan operator.
+     *
+     * @param tableName   is the name of the table.
+     * @param tableSchema is the schema of the whole table.
+     * @param attrList    are the attributes to be read.
+     */
+    public ColumnarScan(String tableName, Schema tableSchema, Vector<Attribute> attrList) {
+        super(OpType.COLUMNAR_SCAN);
+        this.tableName = tableName;
+        this.tableSchema = tableSchema;
+        schema = tableSchema.subSchema(attrList);
+    }
+
+    /**
+     * Provides the name of the file storing one attribute of a table.
+     *
+     * @param tableName is the name of the table.
+     * @param colName   is the name of the attribute.
+     * @return the name of the column file.
+     */
+    public static String getFileName(String tableName, String colName) {
+        return tableName + "." + colName + ".col";
+    }
+
+    /**
+     * Checks whether a table has been stored column by column.
+     *
+     * @param tableName   is the name of the table.
+     * @param tableSchema is the schema of the table.
+     * @return true if there is a column file for every attribute of the table.
+     */
+    public static boolean exists(String tableName, Schema tableSchema) {
+        for (int i = 0; i < tableSchema.getNumCols(); i++) {
+            if (!new File(getFileName(tableName, tableSchema.getAttribute(i).getColName())).exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Provides the schema of a column file.
+     *
+     * @param tableSchema is the schema of the table.
+     * @param attr        is the attribute stored in the column file.
+     * @return the schema with only the given attribute.
+     */
+    public static Schema getColumnSchema(Schema tableSchema, Attribute attr) {
+        Vector<Attribute> attrList = new Vector<>();
+        attrList.add(attr);
+        return tableSchema.subSchema(attrList);
+    }
+
+    /**
+     * Getter for tableName.
+     *
+     * @return the table name.
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Getter for tableSchema.
+     *
+     * @return the schema of the whole table.
+     */
+    public Schema getTableSchema() {
+        return tableSchema;
+    }
+
+    /**
+     * Opens the column files of the attributes in the schema.
+     *
+     * @return true if the operator is opened successfully.
+     */
+    @Override
+    public boolean open() {
+        // Gets the batch size from tuple size.
+        int tupleSize = schema.getTupleSize();
+        batchSize = Batch.getPageSize() / tupleSize;
+        eos = false;
+
+        in = new TupleReader[schema.getNumCols()];
+        for (int i = 0; i < in.length; i++) {
+            Attribute attr = schema.getAttribute(i);
+            String fileName = getFileName(tableName, attr.getColName());
+            try {
+                in[i] = new TupleReader(fileName, getColumnSchema(tableSchema, attr), true);
+            } catch (IOException e) {
+                System.err.println("ColumnarScan: error reading " + fileName);
+                close();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true since the pages are read column by column.
+     */
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    /**
+     * Reads the same number of values from each column file into a page.
+     *
+     * @return the next page of tuples in this relation, stored column by column.
+     */
+    @Override
+    public ColumnBatch nextColumns() {
+        if (eos) {
+            close();
+            return null;
+        }
+
+        ColumnBatch outBatch = new ColumnBatch(schema, batchSize);
+        int numOfRows = 0;
+        try {
+            for (int i = 0; i < in.length; i++) {
+                numOfRows = in[i].readColumn(outBatch, i, batchSize);
+            }
+        } catch (IOException e) {
+            System.err.printf("ColumnarScan: error reading %s due to %s\n", tableName, e.toString());
+            System.exit(1);
+        }
+        outBatch.setNumOfRows(numOfRows);
+
+        if (numOfRows < batchSize) {
+            eos = true;
+        }
+        if (numOfRows == 0) {
+            close();
+            return null;
+        }
+        return outBatch;
+    }
+
+    /**
+     * Stitches the values read from each column file into tuples.
+     *
+     * @return the next page of tuples in this relation.
+     */
+    @Override
+    public Batch next() {
+        ColumnBatch outBatch = nextColumns();
+        return outBatch == null ? null : outBatch.toBatch();
+    }
+
+    /**
+     * The column files are read again from the start when rewound.
+     *
+     * @return true since a columnar scan is always rewindable.
+     */
+    @Override
+    public boolean isRewindable() {
+        return true;
+    }
+
+    /**
+     * Moves back to the start of every column file, which are opened again if they have been closed at the
+     * end-of-stream.
+     *
+     * @return true if the operator is rewound successfully.
+     */
+    @Override
+    public boolean rewind() {
+        if (in == null) {
+            return open();
+        }
+        try {
+            for (TupleReader reader : in) {
+                reader.seekPage(0);
+            }
+        } catch (IOException e) {
+            System.err.println("ColumnarScan: error seeking the column files of " + tableName);
+            return false;
+        }
+        eos = false;
+        return true;
+    }
+
+    /**
+     * Closes the column files.
+     *
+     * @return true if the files are closed successfully.
+     */
+    @Override
+    public boolean close() {
+        if (in == null) {
+            return true;
+        }
+        boolean isClosed = true;
+        for (TupleReader reader : in) {
+            if (reader == null) {
+                continue;
+            }
+            try {
+                reader.close();
+            } catch (IOException e) {
+                System.err.println("ColumnarScan: error closing the column files of " + tableName);
+                isClosed = false;
+            }
+        }
+        in = null;
+        return isClosed;
+    }
+
+    @Override
+    public Object clone() {
+        ColumnarScan newScan = new ColumnarScan(tableName, tableSchema, schema.attributes);
+        newScan.setSchema((Schema) schema.clone());
+        return newScan;
+    }
+}
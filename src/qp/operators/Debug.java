@@ -21,7 +21,11 @@ public class Debug {
     public static void PPrint(Attribute attr) {
         String tabName = attr.getTabName();
         String colName = attr.getColName();
-        System.out.print(tabName + "." + colName);
+        if (attr.isAggregated()) {
+            System.out.print(attr.getAggName() + "(" + tabName + "." + colName + ")");
+        } else {
+            System.out.print(tabName + "." + colName);
+        }
     }
 
     /**
@@ -30,6 +34,19 @@ public class Debug {
      * @param con is the condition to be printed.
      */
     public static void PPrint(Condition con) {
+        // Prints the operands of a conjunction or disjunction in brackets.
+        if (con.isCompound()) {
+            System.out.print("(");
+            for (int i = 0; i < con.getChildren().size(); i++) {
+                if (i > 0) {
+                    System.out.print(con.getOperator() == Condition.AND ? " && " : " || ");
+                }
+                PPrint(con.getChildren().elementAt(i));
+            }
+            System.out.print(")");
+            return;
+        }
+
         Attribute lhs = con.getLeft();
         Object rhs = con.getRight();
         int expressionType = con.getOperator();
@@ -107,6 +124,9 @@ public class Debug {
                     case JoinType.HASH_JOIN:
                         System.out.print("HashJoin(");
                         break;
+                    case JoinType.HYBRID_HASH_JOIN:
+                        System.out.print("HybridHashJoin(");
+                        break;
                     case JoinType.INDEX_NESTED_JOIN:
                         System.out.print("IndexNestedJoin(");
                         break;
@@ -132,18 +152,37 @@ public class Debug {
                 System.out.print(")");
                 break;
             case OpType.DISTINCT:
-                System.out.print("Distinct(");
+                System.out.print(node instanceof HashDistinct ? "HashDistinct(" : "Distinct(");
                 PPrint(((Distinct) node).getBase());
                 System.out.print(")");
                 break;
             case OpType.GROUPBY:
-                System.out.print("GroupBy(");
+                System.out.print(((Groupby) node).isPartial() ? "Partial" : "");
+                System.out.print(node instanceof HashGroupby ? "HashGroupBy(" : "GroupBy(");
                 PPrint(((Groupby) node).getBase());
                 System.out.print(")");
                 break;
+            case OpType.TOP_N:
+                System.out.print("TopN(");
+                PPrint(((TopN) node).getBase());
+                System.out.print(")");
+                break;
             case OpType.SCAN:
                 System.out.print(((Scan) node).getTableName());
                 break;
+            case OpType.INDEX_SCAN:
+                System.out.print("IndexScan(");
+                System.out.print(((IndexScan) node).getTableName());
+                System.out.print("  '");
+                PPrint(((IndexScan) node).getCondition());
+                System.out.print("'  ");
+                System.out.print(")");
+                break;
+            case OpType.COLUMNAR_SCAN:
+                System.out.print("ColumnarScan(");
+                System.out.print(((ColumnarScan) node).getTableName());
+                System.out.print(")");
+                break;
         }
     }
 
@@ -5,32 +5,20 @@ import java.util.Vector;
 import qp.utils.Attribute;
 import qp.utils.Batch;
 import qp.utils.Schema;
-import qp.utils.Tuple;
 
 /**
- * Defines a distinct operator which eliminates duplicates from input.
+ * Defines a distinct operator which eliminates duplicates from input. The input is sorted in the distinct mode
+ * of {@link Sort}, which drops the duplicates while generating and merging the sorted runs.
  */
 public class Distinct extends Operator {
     // The project list (based on which we distinguish the duplicates).
     private final Vector projectList;
-    // The indices of all attributes in the projectList.
-    private Vector<Integer> projectIndices = new Vector<>();
     // The base operator.
     private Operator base;
     // The sort operator applied on the base operator.
     private Sort sortedBase;
-    // The number of tuples per batch.
-    private int batchSize;
     // The number of buffers available
     private int numOfBuffer;
-    // Records whether we have reached end-of-stream.
-    private boolean eos = false;
-    // The input batch.
-    private Batch inBatch = null;
-    // The index for the current element being read from input batch.
-    private int inIndex = 0;
-    // The last tuple being outputted.
-    private Tuple lastOutTuple = null;
 
     /**
      * Creates a new distinct operator.
@@ -45,63 +33,17 @@ public class Distinct extends Operator {
 
     @Override
     public boolean open() {
-        batchSize = Batch.getPageSize() / schema.getTupleSize();
-        for (int i = 0; i < projectList.size(); i++) {
-            Attribute attribute = (Attribute) projectList.elementAt(i);
-            projectIndices.add(schema.indexOf(attribute));
-        }
-
-        sortedBase = new Sort(base, projectList, numOfBuffer);
+        sortedBase = new Sort(base, getKeyList(), numOfBuffer);
+        sortedBase.setDistinct(true);
         return sortedBase.open();
     }
 
-    @Override
-    public Batch next() {
-        if (eos) {
-            close();
-            return null;
-        } else if (inBatch == null) {
-            inBatch = sortedBase.next();
-        }
-
-        Batch outBatch = new Batch(batchSize);
-        while (!outBatch.isFull()) {
-            if (inBatch == null || inBatch.size() <= inIndex) {
-                eos = true;
-                break;
-            }
-
-            Tuple current = inBatch.elementAt(inIndex);
-            if (lastOutTuple == null || checkTuplesNotEqual(lastOutTuple, current)) {
-                outBatch.add(current);
-                lastOutTuple = current;
-            }
-            inIndex++;
-
-            if (inIndex == batchSize) {
-                inBatch = sortedBase.next();
-                inIndex = 0;
-            }
-        }
-
-        return outBatch;
-    }
-
     /**
-     * Checks whether two tuples are not equal.
-     *
-     * @param tuple1 is the first tuple.
-     * @param tuple2 is the second tuple.
-     * @return true if they are not equal.
+     * @return the next page of distinct tuples, since the duplicates have been dropped while sorting.
      */
-    private boolean checkTuplesNotEqual(Tuple tuple1, Tuple tuple2) {
-        for (int index: projectIndices) {
-            int result = Tuple.compareTuples(tuple1, tuple2, index);
-            if (result != 0) {
-                return true;
-            }
-        }
-        return false;
+    @Override
+    public Batch next() {
+        return sortedBase.next();
     }
 
     @Override
@@ -118,6 +60,34 @@ public class Distinct extends Operator {
         this.numOfBuffer = numOfBuffer;
     }
 
+    /**
+     * Getter for numOfBuffer.
+     *
+     * @return the number of buffer pages available.
+     */
+    public int getNumOfBuffer() {
+        return numOfBuffer;
+    }
+
+    /**
+     * Getter for projectList.
+     *
+     * @return the attributes based on which the duplicates are distinguished.
+     */
+    public Vector getProjectList() {
+        return projectList;
+    }
+
+    /**
+     * Gets the attributes based on which the duplicates are distinguished, which are all the attributes
+     * if the project list is empty (i.e., SELECT DISTINCT *).
+     *
+     * @return the attributes based on which the duplicates are distinguished.
+     */
+    public Vector getKeyList() {
+        return projectList.isEmpty() ? schema.attributes : projectList;
+    }
+
     /**
      * Getter for base.
      *
@@ -5,17 +5,308 @@ import java.util.Vector;
 import qp.utils.Attribute;
 import qp.utils.Batch;
 import qp.utils.Schema;
+import qp.utils.Tuple;
 
 /**
- * Defines a groupby operator which groups the table records by attribute(s).
+ * Defines a groupby operator which groups the table records by attribute(s), and computes the aggregate
+ * functions for each group. The input is sorted on the attributes to group by, so that the tuples of each group
+ * come together and only the accumulators of the current group are kept in memory. If there is no attribute to
+ * group by, the whole input forms one group and is not sorted.
+ * <p>
+ * A partial groupby only computes the partial aggregates of each group (see {@link Accumulators#getPartialSchema}),
+ * so that it can be placed below a join to shrink the join input, while another groupby above the join merges the
+ * partial aggregates into the final results.
  */
-public class Groupby extends Distinct {
+public class Groupby extends Operator {
+    // The attributes to group by, which may be empty.
+    private final Vector groupbyList;
+    // The aggregated attributes to be computed for each group.
+    private final Vector<Attribute> aggregateList;
+    // The base operator.
+    private Operator base;
+    // The number of buffers available.
+    private int numOfBuffer;
+    // Whether this groupby only computes the partial aggregates.
+    private boolean isPartial = false;
+
+    // The number of tuples per batch.
+    private int batchSize;
+    // The indices of the attributes to group by in the input.
+    private int[] keyIndices;
+    // The operator from which the tuples are read, i.e., the sort operator applied on the base operator.
+    private Operator input;
+    // The accumulators of the current group.
+    private Accumulators accumulators;
+    // The input batch, and the position of the next tuple in it.
+    private Batch inBatch;
+    private int inCursor;
+    // The first tuple of the current group, or null if there is no current group.
+    private Tuple groupTuple;
+    // Whether no input tuple has been read yet.
+    private boolean isEmptyInput;
+    // Records whether we have reached end-of-stream.
+    private boolean eos;
+
     /**
      * Creates a new GROUP_BY operator.
      *
+     * @param base          is the base operator.
+     * @param groupbyList   are the attributes to group by.
+     * @param aggregateList are the aggregated attributes.
+     */
+    public Groupby(Operator base, Vector groupbyList, Vector<Attribute> aggregateList) {
+        super(OpType.GROUPBY);
+        this.base = base;
+        this.groupbyList = groupbyList;
+        this.aggregateList = aggregateList;
+    }
+
+    /**
+     * Gets the schema of the result, which consists of the attributes to group by followed by the aggregated
+     * attributes, or by the partial aggregates if this groupby is partial.
+     *
+     * @param baseSchema is the schema of the base operator.
+     * @return the schema of the result.
+     */
+    public Schema getGroupSchema(Schema baseSchema) {
+        if (isPartial) {
+            return Accumulators.getPartialSchema(groupbyList, aggregateList, baseSchema);
+        }
+
+        Vector<Attribute> attributes = new Vector<>();
+        for (int i = 0; i < groupbyList.size(); i++) {
+            attributes.add(baseSchema.getAttribute(baseSchema.indexOf((Attribute) groupbyList.elementAt(i))));
+        }
+        for (Attribute attr : aggregateList) {
+            // The attribute may have been partially aggregated below a join.
+            int index = baseSchema.indexOf(attr);
+            Attribute baseAttr = baseSchema.getAttribute(index >= 0 ? index : baseSchema.indexOf(attr.getBaseAttribute()));
+            Attribute aggAttr = baseAttr.getAggregated(attr.getAggType());
+            if (aggAttr == null) {
+                System.err.printf("Groupby: %s cannot be applied on attribute %s\n", attr.getAggName(), attr.getColName());
+                System.exit(1);
+            }
+            attributes.add(aggAttr);
+        }
+
+        int tupleSize = 0;
+        for (Attribute attr : attributes) {
+            tupleSize += attr.getAttrSize();
+        }
+        Schema groupSchema = new Schema(attributes);
+        groupSchema.setTupleSize(tupleSize);
+        return groupSchema;
+    }
+
+    /**
+     * Opens the operator, and sorts the input on the attributes to group by.
+     *
+     * @return true if the operator is opened successfully.
+     */
+    @Override
+    public boolean open() {
+        batchSize = Batch.getPageSize() / schema.getTupleSize();
+        Schema baseSchema = base.getSchema();
+        keyIndices = new int[groupbyList.size()];
+        for (int i = 0; i < groupbyList.size(); i++) {
+            keyIndices[i] = baseSchema.indexOf((Attribute) groupbyList.elementAt(i));
+        }
+        accumulators = new Accumulators(aggregateList, baseSchema);
+        inBatch = null;
+        groupTuple = null;
+        isEmptyInput = true;
+        eos = false;
+
+        input = groupbyList.isEmpty() ? base : new Sort(base, groupbyList, numOfBuffer);
+        return input.open();
+    }
+
+    /**
+     * @return the next page of groups.
+     */
+    @Override
+    public Batch next() {
+        if (eos) {
+            close();
+            return null;
+        }
+
+        Batch outBatch = new Batch(batchSize);
+        while (!outBatch.isFull()) {
+            Tuple tuple = nextInputTuple();
+            if (groupTuple != null && (tuple == null || !checkSameGroup(groupTuple, tuple))) {
+                outBatch.add(makeGroupTuple(groupTuple, isPartial ? accumulators.getPartials(0) : accumulators.getResults(0)));
+                groupTuple = null;
+            }
+            if (tuple == null) {
+                if (isEmptyInput && keyIndices.length == 0 && !isPartial) {
+                    // Without attributes to group by, an empty input still has one group, e.g., with COUNT = 0.
+                    accumulators.clear();
+                    outBatch.add(makeGroupTuple(null, accumulators.getResults(accumulators.addGroup())));
+                }
+                eos = true;
+                break;
+            }
+            isEmptyInput = false;
+
+            if (groupTuple == null) {
+                groupTuple = tuple;
+                accumulators.clear();
+                accumulators.addGroup();
+            }
+            accumulators.add(0, tuple);
+        }
+
+        if (outBatch.isEmpty()) {
+            close();
+            return null;
+        }
+        return outBatch;
+    }
+
+    /**
+     * @return the next input tuple, or null if the end of the input is reached.
+     */
+    private Tuple nextInputTuple() {
+        while (inBatch == null || inCursor == inBatch.size()) {
+            inBatch = input.next();
+            inCursor = 0;
+            if (inBatch == null) {
+                return null;
+            }
+        }
+        return inBatch.elementAt(inCursor++);
+    }
+
+    /**
+     * Checks whether two tuples belong to the same group.
+     *
+     * @param tuple1 is the first tuple.
+     * @param tuple2 is the second tuple.
+     * @return true if they are equal on all attributes to group by.
+     */
+    private boolean checkSameGroup(Tuple tuple1, Tuple tuple2) {
+        for (int index : keyIndices) {
+            if (Tuple.compareTuples(tuple1, tuple2, index) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the result tuple of a group.
+     *
+     * @param tuple   is a tuple in the group.
+     * @param results are the results of the aggregate functions for the group.
+     * @return the result tuple.
+     */
+    private Tuple makeGroupTuple(Tuple tuple, Vector<Object> results) {
+        Vector<Object> data = new Vector<>();
+        for (int index : keyIndices) {
+            data.add(tuple.dataAt(index));
+        }
+        data.addAll(results);
+        return new Tuple(data);
+    }
+
+    @Override
+    public boolean close() {
+        if (input != null) {
+            Operator opened = input;
+            input = null;
+            return opened.close();
+        }
+        return true;
+    }
+
+    /**
+     * Setter for numOfBuffer.
+     *
+     * @param numOfBuffer is the number of buffer pages available.
+     */
+    public void setNumOfBuffer(int numOfBuffer) {
+        this.numOfBuffer = numOfBuffer;
+    }
+
+    /**
+     * Getter for numOfBuffer.
+     *
+     * @return the number of buffer pages available.
+     */
+    public int getNumOfBuffer() {
+        return numOfBuffer;
+    }
+
+    /**
+     * Setter for isPartial.
+     *
+     * @param isPartial is whether this groupby only computes the partial aggregates.
+     */
+    public void setPartial(boolean isPartial) {
+        this.isPartial = isPartial;
+    }
+
+    /**
+     * Getter for isPartial.
+     *
+     * @return true if this groupby only computes the partial aggregates.
+     */
+    public boolean isPartial() {
+        return isPartial;
+    }
+
+    /**
+     * Getter for groupbyList.
+     *
+     * @return the attributes to group by.
+     */
+    public Vector getGroupbyList() {
+        return groupbyList;
+    }
+
+    /**
+     * Getter for aggregateList.
+     *
+     * @return the aggregated attributes.
+     */
+    public Vector<Attribute> getAggregateList() {
+        return aggregateList;
+    }
+
+    /**
+     * Getter for base.
+     *
+     * @return the base operator.
+     */
+    public Operator getBase() {
+        return base;
+    }
+
+    /**
+     * Setter for base.
+     *
      * @param base is the base operator.
      */
-    public Groupby(Operator base, Vector groupbyList) {
-        super(base, groupbyList);
+    public void setBase(Operator base) {
+        this.base = base;
+    }
+
+    @Override
+    public Object clone() {
+        Operator newBase = (Operator) base.clone();
+        Vector<Attribute> newGroupbyList = new Vector<>();
+        for (int i = 0; i < groupbyList.size(); i++) {
+            newGroupbyList.add((Attribute) ((Attribute) groupbyList.elementAt(i)).clone());
+        }
+        Vector<Attribute> newAggregateList = new Vector<>();
+        for (Attribute attr : aggregateList) {
+            newAggregateList.add((Attribute) attr.clone());
+        }
+
+        Groupby newGroupby = new Groupby(newBase, newGroupbyList, newAggregateList);
+        newGroupby.setPartial(isPartial);
+        newGroupby.setSchema(newGroupby.getGroupSchema(newBase.getSchema()));
+        return newGroupby;
     }
 }
@@ -0,0 +1,365 @@
+package qp.operators;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Vector;
+
+import qp.utils.Attribute;
+import qp.utils.Batch;
+import qp.utils.SpillPartitions;
+import qp.utils.SpillPartitions.Partition;
+import qp.utils.Tuple;
+import qp.utils.TupleReader;
+
+/**
+ * Defines a distinct operator which eliminates duplicates by hashing instead of sorting. The distinct tuples are
+ * kept in an open-addressing hash set of at most (numOfBuffer - 2) pages, since one buffer is reserved for the
+ * input and one for the output. Once the set overflows, it is spilled together with the rest of the input into
+ * (numOfBuffer - 1) partitions by hashing, and each partition is then deduplicated in the same way.
+ */
+public class HashDistinct extends Distinct {
+    // The maximum number of times a partition would be re-partitioned before we give up splitting it.
+    private static final int MAX_PARTITION_DEPTH = 3;
+    // The name of this operator in the error messages.
+    private static final String NAME = "HashDistinct";
+    // To get unique fileNum for this operation
+    private static int fileNum = 0;
+
+    // The indices of all attributes in the project list.
+    private int[] projectIndices;
+    // The number of tuples per batch.
+    private int batchSize;
+
+    // The prefix of all spill files generated by this operator.
+    private String filePrefix;
+    // The number of times the tuples have been spilled so far (used to give each spill file a unique name).
+    private int numOfSpills = 0;
+    // The partitions which are still waiting to be deduplicated.
+    private Deque<Partition> pendingPartitions;
+    // The hash set of the distinct tuples in the input (or in the current partition).
+    private DistinctSet distinctSet;
+    // The distinct tuples to be returned, and the position of the next one.
+    private Tuple[] outTuples;
+    private int outCursor;
+    // Records whether we have reached end-of-stream.
+    private boolean eos;
+
+    /**
+     * Instantiates a new distinct operator using hashing.
+     *
+     * @param distinct is the base distinct operator.
+     */
+    public HashDistinct(Distinct distinct) {
+        super(distinct.getBase(), distinct.getProjectList());
+        schema = distinct.getSchema();
+        setNumOfBuffer(distinct.getNumOfBuffer());
+    }
+
+    /**
+     * Opens this operator, and deduplicates the input in one pass if its distinct tuples fit into memory.
+     * Otherwise, the input is partitioned into spill files, which are deduplicated one by one in {@link #next()}.
+     *
+     * @return true if the operator is opened successfully.
+     */
+    @Override
+    public boolean open() {
+        batchSize = Batch.getPageSize() / schema.getTupleSize();
+        Vector keyList = getKeyList();
+        projectIndices = new int[keyList.size()];
+        for (int i = 0; i < keyList.size(); i++) {
+            projectIndices[i] = schema.indexOf((Attribute) keyList.elementAt(i));
+        }
+
+        fileNum++;
+        filePrefix = "HDtemp-" + fileNum;
+        pendingPartitions = new ArrayDeque<>();
+        outTuples = null;
+        eos = false;
+
+        Operator base = getBase();
+        if (!base.open()) {
+            return false;
+        }
+        distinctSet = new DistinctSet(0);
+        SpillPartitions writer = null;
+        for (Batch inBatch = base.next(); inBatch != null; inBatch = base.next()) {
+            for (int i = 0; i < inBatch.size(); i++) {
+                writer = add(inBatch.elementAt(i), writer, 0);
+            }
+        }
+        base.close();
+        finishPass(writer, 0);
+        return true;
+    }
+
+    /**
+     * @return the next page of distinct tuples.
+     */
+    @Override
+    public Batch next() {
+        if (eos) {
+            close();
+            return null;
+        }
+
+        Batch outBatch = new Batch(batchSize);
+        while (!outBatch.isFull()) {
+            if (outTuples != null && outCursor < outTuples.length) {
+                outBatch.add(outTuples[outCursor++]);
+            } else if (!advancePartition()) {
+                eos = true;
+                break;
+            }
+        }
+
+        if (outBatch.isEmpty()) {
+            close();
+            return null;
+        }
+        return outBatch;
+    }
+
+    /**
+     * Adds a tuple into the hash set, or into its partition if the hash set has overflowed.
+     *
+     * @param tuple  is the tuple.
+     * @param writer is the partition writer, or null if the hash set has not overflowed.
+     * @param depth  is the number of times the tuple has been partitioned.
+     * @return the partition writer, or null if the hash set has not overflowed.
+     */
+    private SpillPartitions add(Tuple tuple, SpillPartitions writer, int depth) {
+        if (writer == null) {
+            if (distinctSet.add(tuple)) {
+                return null;
+            }
+            // The distinct tuples do not fit into memory, so those seen so far are spilled as well.
+            numOfSpills++;
+            writer = new SpillPartitions(NAME, filePrefix + "-" + numOfSpills, schema,
+                    Math.max(getNumOfBuffer() - 1, 2));
+            distinctSet.spillTo(writer);
+            distinctSet = null;
+        }
+        spill(tuple, writer, depth);
+        return writer;
+    }
+
+    /**
+     * Adds a tuple into its partition by hashing.
+     *
+     * @param tuple  is the tuple.
+     * @param writer is the partition writer.
+     * @param depth  is the number of times the tuple has been partitioned.
+     */
+    private void spill(Tuple tuple, SpillPartitions writer, int depth) {
+        writer.add(tuple, Math.floorMod(hashOf(tuple, depth), writer.getNumOfPartitions()));
+    }
+
+    /**
+     * Finishes a pass over the input (or a partition), after which either the distinct tuples are ready to be
+     * returned, or the partitions written are added to the pending list.
+     *
+     * @param writer is the partition writer, or null if the hash set has not overflowed.
+     * @param depth  is the number of times the input of this pass has been partitioned.
+     */
+    private void finishPass(SpillPartitions writer, int depth) {
+        if (writer == null) {
+            outTuples = distinctSet.toArray();
+            outCursor = 0;
+            distinctSet = null;
+            return;
+        }
+
+        writer.finish();
+        writer.addTo(pendingPartitions, depth + 1);
+    }
+
+    /**
+     * Deduplicates the next pending partition.
+     *
+     * @return false if there is no more partition left.
+     */
+    private boolean advancePartition() {
+        outTuples = null;
+        while (outTuples == null) {
+            if (pendingPartitions.isEmpty()) {
+                return false;
+            }
+            Partition partition = pendingPartitions.pop();
+
+            int depth = partition.getDepth();
+            distinctSet = new DistinctSet(depth);
+            SpillPartitions writer = null;
+            TupleReader in = SpillPartitions.openStream(NAME, partition.getFileName(), schema);
+            for (Batch inBatch = SpillPartitions.readBatch(NAME, in, schema); inBatch != null; inBatch = SpillPartitions.readBatch(NAME, in, schema)) {
+                for (int i = 0; i < inBatch.size(); i++) {
+                    writer = add(inBatch.elementAt(i), writer, depth);
+                }
+            }
+            SpillPartitions.closeStream(NAME, in);
+            partition.delete();
+            finishPass(writer, depth);
+        }
+        return true;
+    }
+
+    /**
+     * Computes the hash value of a tuple on the project list. A different hash function is used at each depth,
+     * so that the tuples of an oversized partition can be split further.
+     *
+     * @param tuple is the tuple.
+     * @param depth is the number of times the tuple has been partitioned.
+     * @return the hash value.
+     */
+    private int hashOf(Tuple tuple, int depth) {
+        int hash = depth * 0x9E3779B9;
+        for (int index : projectIndices) {
+            hash = 31 * hash + tuple.dataAt(index).hashCode();
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    /**
+     * Checks whether two tuples are equal on the project list.
+     *
+     * @param tuple1 is the first tuple.
+     * @param tuple2 is the second tuple.
+     * @return true if they are equal.
+     */
+    private boolean checkTuplesEqual(Tuple tuple1, Tuple tuple2) {
+        for (int index : projectIndices) {
+            if (Tuple.compareTuples(tuple1, tuple2, index) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes this operator by deleting all the spill files which have not been deduplicated.
+     *
+     * @return true if the operator is closed successfully.
+     */
+    @Override
+    public boolean close() {
+        distinctSet = null;
+        outTuples = null;
+        SpillPartitions.deleteAll(pendingPartitions);
+        return true;
+    }
+
+    @Override
+    public Object clone() {
+        Distinct newDistinct = (Distinct) super.clone();
+        HashDistinct newHashDistinct = new HashDistinct(newDistinct);
+        newHashDistinct.setNumOfBuffer(getNumOfBuffer());
+        return newHashDistinct;
+    }
+
+    /**
+     * Defines a hash set of tuples using open addressing with linear probing, which holds at most
+     * (numOfBuffer - 2) pages of tuples. The limit is lifted once a partition cannot be split any further.
+     */
+    private class DistinctSet {
+        // The number of times the tuples in this set have been partitioned.
+        private final int depth;
+        // The maximum number of tuples in this set.
+        private final int maxSize;
+        // The tuple in each slot (null if the slot is empty), and its hash value.
+        private Tuple[] slots;
+        private int[] hashes;
+        // The number of tuples in this set.
+        private int size;
+
+        private DistinctSet(int depth) {
+            this.depth = depth;
+            this.maxSize = depth < MAX_PARTITION_DEPTH
+                    ? Math.max(getNumOfBuffer() - 2, 1) * batchSize
+                    : Integer.MAX_VALUE;
+            slots = new Tuple[16];
+            hashes = new int[16];
+            size = 0;
+        }
+
+        /**
+         * Adds a tuple into this set unless an equal tuple is present.
+         *
+         * @param tuple is the tuple.
+         * @return false if the tuple is not present but this set is full.
+         */
+        private boolean add(Tuple tuple) {
+            int hash = hashOf(tuple, depth);
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (slots[slot] != null) {
+                if (hashes[slot] == hash && checkTuplesEqual(slots[slot], tuple)) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size >= maxSize) {
+                return false;
+            }
+
+            slots[slot] = tuple;
+            hashes[slot] = hash;
+            size++;
+            // Keeps the load factor below 1/2, so that the probe sequences stay short.
+            if (size * 2 > slots.length) {
+                resize();
+            }
+            return true;
+        }
+
+        /**
+         * Doubles the number of slots and re-inserts all tuples.
+         */
+        private void resize() {
+            Tuple[] oldSlots = slots;
+            int[] oldHashes = hashes;
+            slots = new Tuple[oldSlots.length * 2];
+            hashes = new int[oldSlots.length * 2];
+            int mask = slots.length - 1;
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] == null) {
+                    continue;
+                }
+                int slot = oldHashes[i] & mask;
+                while (slots[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+
+        /**
+         * Writes all tuples in this set into their partitions.
+         *
+         * @param writer is the partition writer.
+         */
+        private void spillTo(SpillPartitions writer) {
+            for (Tuple tuple : slots) {
+                if (tuple != null) {
+                    spill(tuple, writer, depth);
+                }
+            }
+        }
+
+        /**
+         * @return all tuples in this set.
+         */
+        private Tuple[] toArray() {
+            Tuple[] tuples = new Tuple[size];
+            int count = 0;
+            for (Tuple tuple : slots) {
+                if (tuple != null) {
+                    tuples[count++] = tuple;
+                }
+            }
+            return tuples;
+        }
+    }
+}
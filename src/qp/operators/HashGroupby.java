@@ -0,0 +1,405 @@
+package qp.operators;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Vector;
+
+import qp.utils.Attribute;
+import qp.utils.Batch;
+import qp.utils.Schema;
+import qp.utils.SpillPartitions;
+import qp.utils.SpillPartitions.Partition;
+import qp.utils.Tuple;
+import qp.utils.TupleReader;
+
+/**
+ * Defines a groupby operator which groups the tuples by hashing instead of sorting. The groups are kept in an
+ * open-addressing hash table, with their accumulators in primitive arrays, for at most (numOfBuffer - 2) pages
+ * of groups. Once the table overflows, the partial aggregates of the groups are spilled together with the rest
+ * of the input into (numOfBuffer - 1) partitions by hashing, and each partition is then aggregated in the same
+ * way by merging the partial aggregates.
+ */
+public class HashGroupby extends Groupby {
+    // The maximum number of times a partition would be re-partitioned before we give up splitting it.
+    private static final int MAX_PARTITION_DEPTH = 3;
+    // The name of this operator in the error messages.
+    private static final String NAME = "HashGroupby";
+    // To get unique fileNum for this operation
+    private static int fileNum = 0;
+
+    // The number of tuples per batch.
+    private int batchSize;
+    // The schema of the partial aggregates spilled to disk.
+    private Schema partialSchema;
+    // The indices of the attributes to group by in the tuples of the current pass.
+    private int[] keyIndices;
+    // The indices of the attributes to group by in the partial aggregates, which come first.
+    private int[] partialKeyIndices;
+    // The accumulators of the groups in the current pass.
+    private Accumulators accumulators;
+    // The hash table of the groups in the current pass.
+    private GroupTable groupTable;
+
+    // The prefix of all spill files generated by this operator.
+    private String filePrefix;
+    // The number of times the groups have been spilled so far (used to give each spill file a unique name).
+    private int numOfSpills = 0;
+    // The partitions which are still waiting to be aggregated.
+    private Deque<Partition> pendingPartitions;
+    // The result tuples of the groups to be returned, and the position of the next one.
+    private Tuple[] outTuples;
+    private int outCursor;
+    // Records whether we have reached end-of-stream.
+    private boolean eos;
+
+    /**
+     * Instantiates a new groupby operator using hashing.
+     *
+     * @param groupby is the base groupby operator.
+     */
+    public HashGroupby(Groupby groupby) {
+        super(groupby.getBase(), groupby.getGroupbyList(), groupby.getAggregateList());
+        schema = groupby.getSchema();
+        setNumOfBuffer(groupby.getNumOfBuffer());
+        setPartial(groupby.isPartial());
+    }
+
+    /**
+     * Opens this operator, and aggregates the input in one pass if its groups fit into memory. Otherwise, the
+     * input is partitioned into spill files, which are aggregated one by one in {@link #next()}.
+     *
+     * @return true if the operator is opened successfully.
+     */
+    @Override
+    public boolean open() {
+        batchSize = Batch.getPageSize() / schema.getTupleSize();
+        Operator base = getBase();
+        Schema baseSchema = base.getSchema();
+        partialSchema = Accumulators.getPartialSchema(getGroupbyList(), getAggregateList(), baseSchema);
+        partialKeyIndices = new int[getGroupbyList().size()];
+        for (int i = 0; i < partialKeyIndices.length; i++) {
+            partialKeyIndices[i] = i;
+        }
+
+        fileNum++;
+        filePrefix = "HGtemp-" + fileNum;
+        pendingPartitions = new ArrayDeque<>();
+        outTuples = null;
+        eos = false;
+
+        if (!base.open()) {
+            return false;
+        }
+        Vector groupbyList = getGroupbyList();
+        keyIndices = new int[groupbyList.size()];
+        for (int i = 0; i < groupbyList.size(); i++) {
+            keyIndices[i] = baseSchema.indexOf((Attribute) groupbyList.elementAt(i));
+        }
+        accumulators = new Accumulators(getAggregateList(), baseSchema);
+        groupTable = new GroupTable(0);
+
+        SpillPartitions writer = null;
+        for (Batch inBatch = base.next(); inBatch != null; inBatch = base.next()) {
+            for (int i = 0; i < inBatch.size(); i++) {
+                writer = add(inBatch.elementAt(i), writer, 0, false);
+            }
+        }
+        base.close();
+        finishPass(writer, 0);
+        return true;
+    }
+
+    /**
+     * @return the next page of groups.
+     */
+    @Override
+    public Batch next() {
+        if (eos) {
+            close();
+            return null;
+        }
+
+        Batch outBatch = new Batch(batchSize);
+        while (!outBatch.isFull()) {
+            if (outTuples != null && outCursor < outTuples.length) {
+                outBatch.add(outTuples[outCursor++]);
+            } else if (!advancePartition()) {
+                eos = true;
+                break;
+            }
+        }
+
+        if (outBatch.isEmpty()) {
+            close();
+            return null;
+        }
+        return outBatch;
+    }
+
+    /**
+     * Adds a tuple into its group in the hash table, or into its partition if the hash table has overflowed.
+     *
+     * @param tuple     is the input tuple (or partial aggregate).
+     * @param writer    is the partition writer, or null if the hash table has not overflowed.
+     * @param depth     is the number of times the tuple has been partitioned.
+     * @param isPartial is whether the tuple is a partial aggregate.
+     * @return the partition writer, or null if the hash table has not overflowed.
+     */
+    private SpillPartitions add(Tuple tuple, SpillPartitions writer, int depth, boolean isPartial) {
+        if (writer == null) {
+            int group = groupTable.findOrAdd(tuple);
+            if (group >= 0) {
+                accumulators.add(group, tuple);
+                return null;
+            }
+            // The groups do not fit into memory, so the partial aggregates of those seen so far are spilled.
+            numOfSpills++;
+            writer = new SpillPartitions(NAME, filePrefix + "-" + numOfSpills, partialSchema,
+                    Math.max(getNumOfBuffer() - 1, 2));
+            for (int i = 0; i < accumulators.getNumOfGroups(); i++) {
+                spill(makeTuple(groupTable.groupTuples[i], accumulators.getPartials(i)), writer, depth);
+            }
+            groupTable = null;
+        }
+        spill(isPartial ? tuple : makeTuple(tuple, accumulators.getPartials(tuple)), writer, depth);
+        return writer;
+    }
+
+    /**
+     * Adds a partial aggregate into its partition by hashing.
+     *
+     * @param tuple  is the partial aggregate.
+     * @param writer is the partition writer.
+     * @param depth  is the number of times the tuple has been partitioned.
+     */
+    private void spill(Tuple tuple, SpillPartitions writer, int depth) {
+        int partition = Math.floorMod(hashOf(tuple, partialKeyIndices, depth), writer.getNumOfPartitions());
+        writer.add(tuple, partition);
+    }
+
+    /**
+     * Finishes a pass over the input (or a partition), after which either the groups are ready to be returned,
+     * or the partitions written are added to the pending list.
+     *
+     * @param writer is the partition writer, or null if the hash table has not overflowed.
+     * @param depth  is the number of times the input of this pass has been partitioned.
+     */
+    private void finishPass(SpillPartitions writer, int depth) {
+        if (writer == null) {
+            if (depth == 0 && keyIndices.length == 0 && accumulators.getNumOfGroups() == 0 && !isPartial()) {
+                // Without attributes to group by, an empty input still has one group, e.g., with COUNT = 0.
+                groupTable.findOrAdd(new Tuple(new Vector<>()));
+            }
+            outTuples = new Tuple[accumulators.getNumOfGroups()];
+            for (int i = 0; i < outTuples.length; i++) {
+                outTuples[i] = makeTuple(groupTable.groupTuples[i],
+                        isPartial() ? accumulators.getPartials(i) : accumulators.getResults(i));
+            }
+            outCursor = 0;
+            groupTable = null;
+            accumulators = null;
+            return;
+        }
+
+        writer.finish();
+        accumulators = null;
+        writer.addTo(pendingPartitions, depth + 1);
+    }
+
+    /**
+     * Aggregates the next pending partition by merging its partial aggregates.
+     *
+     * @return false if there is no more partition left.
+     */
+    private boolean advancePartition() {
+        outTuples = null;
+        while (outTuples == null) {
+            if (pendingPartitions.isEmpty()) {
+                return false;
+            }
+            Partition partition = pendingPartitions.pop();
+
+            keyIndices = partialKeyIndices;
+            accumulators = new Accumulators(getAggregateList(), partialSchema);
+            int depth = partition.getDepth();
+            groupTable = new GroupTable(depth);
+
+            SpillPartitions writer = null;
+            TupleReader in = SpillPartitions.openStream(NAME, partition.getFileName(), partialSchema);
+            for (Batch inBatch = SpillPartitions.readBatch(NAME, in, partialSchema); inBatch != null; inBatch = SpillPartitions.readBatch(NAME, in, partialSchema)) {
+                for (int i = 0; i < inBatch.size(); i++) {
+                    writer = add(inBatch.elementAt(i), writer, depth, true);
+                }
+            }
+            SpillPartitions.closeStream(NAME, in);
+            partition.delete();
+            finishPass(writer, depth);
+        }
+        return true;
+    }
+
+    /**
+     * Creates a tuple with the attributes to group by from a tuple in a group, followed by some given values.
+     *
+     * @param tuple  is a tuple in the group.
+     * @param values are the values to be appended.
+     * @return the new tuple.
+     */
+    private Tuple makeTuple(Tuple tuple, Vector<Object> values) {
+        Vector<Object> data = new Vector<>();
+        for (int index : keyIndices) {
+            data.add(tuple.dataAt(index));
+        }
+        data.addAll(values);
+        return new Tuple(data);
+    }
+
+    /**
+     * Computes the hash value of a tuple on the attributes to group by. A different hash function is used at
+     * each depth, so that the tuples of an oversized partition can be split further.
+     *
+     * @param tuple   is the tuple.
+     * @param indices are the indices of the attributes to group by in the tuple.
+     * @param depth   is the number of times the tuple has been partitioned.
+     * @return the hash value.
+     */
+    private static int hashOf(Tuple tuple, int[] indices, int depth) {
+        int hash = depth * 0x9E3779B9;
+        for (int index : indices) {
+            hash = 31 * hash + tuple.dataAt(index).hashCode();
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    /**
+     * Checks whether two tuples belong to the same group.
+     *
+     * @param tuple1 is the first tuple.
+     * @param tuple2 is the second tuple.
+     * @return true if they are equal on all attributes to group by.
+     */
+    private boolean checkSameGroup(Tuple tuple1, Tuple tuple2) {
+        for (int index : keyIndices) {
+            if (Tuple.compareTuples(tuple1, tuple2, index) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes this operator by deleting all the spill files which have not been aggregated.
+     *
+     * @return true if the operator is closed successfully.
+     */
+    @Override
+    public boolean close() {
+        groupTable = null;
+        accumulators = null;
+        outTuples = null;
+        SpillPartitions.deleteAll(pendingPartitions);
+        return true;
+    }
+
+    @Override
+    public Object clone() {
+        Groupby newGroupby = (Groupby) super.clone();
+        HashGroupby newHashGroupby = new HashGroupby(newGroupby);
+        newHashGroupby.setNumOfBuffer(getNumOfBuffer());
+        return newHashGroupby;
+    }
+
+    /**
+     * Defines a hash table from the attributes to group by to the index of the group (in the accumulators),
+     * using open addressing with linear probing. It holds at most (numOfBuffer - 2) pages of groups, measured by
+     * the size of their partial aggregates. The limit is lifted once a partition cannot be split any further.
+     */
+    private class GroupTable {
+        // The number of times the tuples in this table have been partitioned.
+        private final int depth;
+        // The maximum number of groups in this table.
+        private final int maxSize;
+        // The index of the group in each slot (-1 if the slot is empty), and its hash value.
+        private int[] slots;
+        private int[] hashes;
+        // The first tuple of each group.
+        private Tuple[] groupTuples;
+        // The number of groups in this table.
+        private int size;
+
+        private GroupTable(int depth) {
+            this.depth = depth;
+            this.maxSize = depth < MAX_PARTITION_DEPTH
+                    ? Math.max(getNumOfBuffer() - 2, 1) * (Batch.getPageSize() / partialSchema.getTupleSize())
+                    : Integer.MAX_VALUE;
+            slots = new int[16];
+            Arrays.fill(slots, -1);
+            hashes = new int[16];
+            groupTuples = new Tuple[16];
+            size = 0;
+        }
+
+        /**
+         * Finds the group of a tuple, and adds a new group for it if there is none.
+         *
+         * @param tuple is the tuple.
+         * @return the index of the group, or -1 if the group is new but this table is full.
+         */
+        private int findOrAdd(Tuple tuple) {
+            int hash = hashOf(tuple, keyIndices, depth);
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (slots[slot] >= 0) {
+                int group = slots[slot];
+                if (hashes[slot] == hash && checkSameGroup(groupTuples[group], tuple)) {
+                    return group;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size >= maxSize) {
+                return -1;
+            }
+
+            int group = accumulators.addGroup();
+            if (group == groupTuples.length) {
+                groupTuples = Arrays.copyOf(groupTuples, group * 2);
+            }
+            groupTuples[group] = tuple;
+            slots[slot] = group;
+            hashes[slot] = hash;
+            size++;
+            // Keeps the load factor below 1/2, so that the probe sequences stay short.
+            if (size * 2 > slots.length) {
+                resize();
+            }
+            return group;
+        }
+
+        /**
+         * Doubles the number of slots and re-inserts all groups.
+         */
+        private void resize() {
+            int[] oldSlots = slots;
+            int[] oldHashes = hashes;
+            slots = new int[oldSlots.length * 2];
+            Arrays.fill(slots, -1);
+            hashes = new int[oldSlots.length * 2];
+            int mask = slots.length - 1;
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] < 0) {
+                    continue;
+                }
+                int slot = oldHashes[i] & mask;
+                while (slots[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+}
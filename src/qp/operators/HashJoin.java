@@ -0,0 +1,589 @@
+package qp.operators;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Vector;
+
+import qp.utils.Attribute;
+import qp.utils.Batch;
+import qp.utils.Schema;
+import qp.utils.SpillPartitions;
+import qp.utils.Tuple;
+import qp.utils.TupleReader;
+
+/**
+ * Implements the (grace) hash join algorithm. Both inputs are first partitioned into (numOfBuffer - 1)
+ * spill files by hashing the join attribute. Each pair of partitions is then joined by building an
+ * in-memory hash table on the left partition and probing it with the tuples of the right partition.
+ *
+ * In hybrid mode, the left tuples of one partition are kept resident in memory instead of being spilled.
+ * The right input is then partitioned lazily in {@link #next()}, so that right tuples belonging to the
+ * resident partition are probed immediately and never written to disk.
+ */
+public class HashJoin extends Join {
+    // The maximum number of times a partition would be re-partitioned before we give up splitting it.
+    private static final int MAX_PARTITION_DEPTH = 3;
+    // The name of this operator in the error messages.
+    private static final String NAME = "HashJoin";
+    // To get unique fileNum for this operation
+    private static int fileNum = 0;
+
+    // The number of tuples per output batch.
+    private int batchSize;
+
+    // Index of the join attribute in left table
+    private int leftIndex;
+    // Index of the join attribute in right table
+    private int rightIndex;
+
+    // The prefix of all spill files generated by this operator.
+    private String filePrefix;
+    // The number of times the inputs have been partitioned so far (used to give each spill file a unique name).
+    private int numOfSpills = 0;
+
+    // The partition pairs which are still waiting to be joined.
+    private Deque<PartitionPair> pendingPartitions;
+    // The partition pair which is currently being joined.
+    private PartitionPair currentPartition;
+    // The in-memory hash table built on (a chunk of) the current left partition.
+    private HashMap<Object, Vector<Tuple>> hashTable;
+    // The input stream of the current left partition, which is non-null if it has not been fully loaded.
+    private TupleReader buildStream;
+    // The input stream of the current right partition.
+    private TupleReader probeStream;
+
+    // The buffer for the right partition.
+    private Batch probeBatch;
+    // Cursor for the right partition buffer.
+    private int probeCursor;
+    // The right tuple which is currently being probed.
+    private Tuple probeTuple;
+    // The left tuples matching with the current right tuple.
+    private Vector<Tuple> matches;
+    // Cursor for the matching left tuples.
+    private int matchCursor;
+    // Whether end of stream is reached for the join result.
+    private boolean eos;
+
+    // Whether one partition of the left input is kept resident in memory (i.e., hybrid hash join).
+    private boolean isHybrid = false;
+    // The estimated number of pages in the left input, which decides the size of the resident partition.
+    private int numOfLeftPages = 0;
+    // The number of partitions spilled to disk in hybrid mode.
+    private int numOfSpilledPartitions;
+    // The number of hash buckets in hybrid mode.
+    private int numOfBuckets;
+    // The number of hash buckets belonging to the resident partition in hybrid mode.
+    private int numOfResidentBuckets;
+    // Whether the resident partition has overflowed its memory budget and been spilled to disk.
+    private boolean isResidentSpilled;
+    // Whether the right input is still being partitioned (and probed against the resident partition).
+    private boolean isProbingResident;
+    // The partition writers used in hybrid mode, in which the right input is partitioned in next().
+    private SpillPartitions leftWriter;
+    private SpillPartitions rightWriter;
+
+    /**
+     * Instantiates a new join operator using the hash join algorithm.
+     *
+     * @param jn is the base join operator.
+     */
+    public HashJoin(Join jn) {
+        super(jn.getLeft(), jn.getRight(), jn.getCondition(), jn.getOpType());
+        schema = jn.getSchema();
+        joinType = jn.getJoinType();
+        numOfBuffer = jn.getNumOfBuffer();
+    }
+
+    /**
+     * Setter for isHybrid.
+     *
+     * @param isHybrid is whether one partition of the left input should be kept resident in memory.
+     */
+    public void setHybrid(boolean isHybrid) {
+        this.isHybrid = isHybrid;
+    }
+
+    /**
+     * Setter for numOfLeftPages.
+     *
+     * @param numOfLeftPages is the estimated number of pages in the left input.
+     */
+    public void setNumOfLeftPages(int numOfLeftPages) {
+        this.numOfLeftPages = numOfLeftPages;
+    }
+
+    /**
+     * Decides the number of partitions to be spilled to disk in hybrid mode. Besides one input buffer and
+     * one output buffer, each spilled partition needs one output buffer while partitioning, and the rest
+     * of the buffers hold the resident partition. We spill just enough partitions such that each of them
+     * can still fit in memory when it is joined later.
+     *
+     * @param numOfLeftPages is the (estimated) number of pages in the left input.
+     * @param numOfBuffer    is the number of buffer pages available.
+     * @return the number of spilled partitions; 0 if the whole left input fits in memory.
+     */
+    public static int getNumOfSpilledPartitions(int numOfLeftPages, int numOfBuffer) {
+        if (numOfLeftPages <= numOfBuffer - 2) {
+            return 0;
+        } else if (numOfBuffer <= 3) {
+            return 1;
+        }
+        int numOfSpilled = (int) Math.ceil(1.0 * (numOfLeftPages - numOfBuffer + 2) / (numOfBuffer - 3));
+        return Math.min(numOfSpilled, numOfBuffer - 2);
+    }
+
+    /**
+     * Opens this operator by performing the following operations:
+     * 1. Finds the index of the join attributes;
+     * 2. Partitions both the left & right input into spill files;
+     * 3. Builds the hash table for the first pair of partitions.
+     *
+     * @return true if the operator is opened successfully.
+     */
+    @Override
+    public boolean open() {
+        // Selects the number of tuples per page based tuple size.
+        int tupleSize = schema.getTupleSize();
+        batchSize = Batch.getPageSize() / tupleSize;
+
+        // Gets the join attribute from left & right table.
+        Attribute leftAttr = con.getLeft();
+        Attribute rightAttr = (Attribute) con.getRight();
+        leftIndex = left.getSchema().indexOf(leftAttr);
+        rightIndex = right.getSchema().indexOf(rightAttr);
+
+        fileNum++;
+        filePrefix = "HJtemp-" + fileNum;
+        pendingPartitions = new ArrayDeque<>();
+        eos = false;
+
+        if (isHybrid) {
+            return openHybrid();
+        }
+
+        // Partitions phase: both sides are partitioned using the same hash function.
+        if (!left.open()) {
+            return false;
+        }
+        int numOfPartitions = Math.max(numOfBuffer - 1, 1);
+        SpillPartitions leftWriter = createPartitions("left", left.getSchema(), numOfPartitions);
+        for (Batch inBatch = left.next(); inBatch != null; inBatch = left.next()) {
+            spill(inBatch, leftWriter, leftIndex, 0);
+        }
+        left.close();
+
+        if (!right.open()) {
+            return false;
+        }
+        SpillPartitions rightWriter = createPartitions("right", right.getSchema(), numOfPartitions);
+        for (Batch inBatch = right.next(); inBatch != null; inBatch = right.next()) {
+            spill(inBatch, rightWriter, rightIndex, 0);
+        }
+        right.close();
+
+        leftWriter.finish();
+        rightWriter.finish();
+        addPartitionPairs(leftWriter, rightWriter, 0);
+        return true;
+    }
+
+    /**
+     * Opens this operator in hybrid mode. The left input is partitioned such that the resident partition is
+     * loaded into the in-memory hash table directly, while the other partitions are spilled to disk. The right
+     * input is only opened here, and would be partitioned on the fly in {@link #next()}.
+     *
+     * @return true if the operator is opened successfully.
+     */
+    private boolean openHybrid() {
+        numOfSpilledPartitions = getNumOfSpilledPartitions(numOfLeftPages, numOfBuffer);
+        int numOfResidentPages = Math.max(numOfBuffer - 2 - numOfSpilledPartitions, 0);
+        if (numOfSpilledPartitions == 0) {
+            numOfBuckets = 1;
+            numOfResidentBuckets = 1;
+        } else {
+            // Assigns the hash buckets such that the resident partition receives its share of the left input.
+            numOfBuckets = Math.max(numOfLeftPages, numOfResidentPages + numOfSpilledPartitions);
+            numOfResidentBuckets = numOfResidentPages;
+        }
+        isResidentSpilled = false;
+        hashTable = new HashMap<>();
+
+        // The last partition is reserved for the resident partition, in case it has to be spilled.
+        if (!left.open()) {
+            return false;
+        }
+        int maxResidentTuples = numOfResidentPages * (Batch.getPageSize() / left.getSchema().getTupleSize());
+        int numOfResidentTuples = 0;
+        leftWriter = createPartitions("left", left.getSchema(), numOfSpilledPartitions + 1);
+        for (Batch inBatch = left.next(); inBatch != null; inBatch = left.next()) {
+            for (int i = 0; i < inBatch.size(); i++) {
+                Tuple tuple = inBatch.elementAt(i);
+                int partition = hybridPartitionOf(tuple.dataAt(leftIndex));
+                if (partition != numOfSpilledPartitions || isResidentSpilled) {
+                    leftWriter.add(tuple, partition);
+                    continue;
+                }
+
+                // Spills the resident partition if the estimation turns out to be too small.
+                if (numOfResidentTuples == maxResidentTuples) {
+                    for (Vector<Tuple> bucket : hashTable.values()) {
+                        for (Tuple residentTuple : bucket) {
+                            leftWriter.add(residentTuple, partition);
+                        }
+                    }
+                    hashTable.clear();
+                    isResidentSpilled = true;
+                    leftWriter.add(tuple, partition);
+                    continue;
+                }
+                hashTable.computeIfAbsent(tuple.dataAt(leftIndex), k -> new Vector<>()).add(tuple);
+                numOfResidentTuples++;
+            }
+        }
+        left.close();
+        leftWriter.finish();
+
+        rightWriter = createPartitions("right", right.getSchema(), numOfSpilledPartitions + 1);
+        isProbingResident = true;
+        return right.open();
+    }
+
+    /**
+     * Computes the partition which a given join attribute value belongs to in hybrid mode.
+     *
+     * @param value is the value of the join attribute.
+     * @return the index of the partition, where numOfSpilledPartitions stands for the resident partition.
+     */
+    private int hybridPartitionOf(Object value) {
+        int bucket = partitionOf(value, 0, numOfBuckets);
+        if (bucket < numOfResidentBuckets) {
+            return numOfSpilledPartitions;
+        }
+        return (bucket - numOfResidentBuckets) % numOfSpilledPartitions;
+    }
+
+    /**
+     * Finishes partitioning the right input in hybrid mode, after which the spilled partitions are joined
+     * in the same way as the grace hash join.
+     */
+    private void finishResidentPhase() {
+        right.close();
+        rightWriter.finish();
+        addPartitionPairs(leftWriter, rightWriter, 0);
+        leftWriter = null;
+        rightWriter = null;
+        hashTable = null;
+        isProbingResident = false;
+    }
+
+    /**
+     * Probes the in-memory hash table with tuples from the right partition and returns the matches.
+     *
+     * @return the next page of output tuples.
+     */
+    @Override
+    public Batch next() {
+        if (eos) {
+            close();
+            return null;
+        }
+
+        Batch outBatch = new Batch(batchSize);
+        while (!outBatch.isFull()) {
+            // Outputs the remaining matches of the current right tuple first.
+            if (matches != null) {
+                while (matchCursor < matches.size() && !outBatch.isFull()) {
+                    outBatch.add(matches.elementAt(matchCursor).joinWith(probeTuple));
+                    matchCursor++;
+                }
+                if (matchCursor < matches.size()) {
+                    break;
+                }
+                matches = null;
+            }
+
+            probeTuple = readNextProbeTuple();
+            if (probeTuple == null) {
+                eos = true;
+                break;
+            }
+            matches = hashTable.get(probeTuple.dataAt(rightIndex));
+            matchCursor = 0;
+        }
+        return outBatch;
+    }
+
+    /**
+     * Reads the next tuple from the current right partition. Moves on to the next chunk of the left
+     * partition or the next pair of partitions when the current right partition is exhausted.
+     *
+     * @return the next tuple to probe with; null if all partitions have been joined.
+     */
+    private Tuple readNextProbeTuple() {
+        while (true) {
+            if (probeBatch != null && probeCursor < probeBatch.size()) {
+                Tuple next = probeBatch.elementAt(probeCursor);
+                probeCursor++;
+                if (!isProbingResident) {
+                    return next;
+                }
+
+                // Probes the resident partition immediately, and spills the tuples of the other partitions.
+                int partition = hybridPartitionOf(next.dataAt(rightIndex));
+                if (partition == numOfSpilledPartitions && !isResidentSpilled) {
+                    return next;
+                }
+                rightWriter.add(next, partition);
+                continue;
+            }
+
+            probeBatch = null;
+            probeCursor = 0;
+            if (isProbingResident) {
+                probeBatch = right.next();
+                if (probeBatch == null) {
+                    finishResidentPhase();
+                }
+                continue;
+            }
+            if (probeStream != null) {
+                probeBatch = SpillPartitions.readBatch(NAME, probeStream, right.getSchema());
+                if (probeBatch != null) {
+                    continue;
+                }
+                SpillPartitions.closeStream(NAME, probeStream);
+                probeStream = null;
+            }
+
+            if (!advancePartition()) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Loads the next chunk of the current left partition into memory, or proceeds to the next pair of
+     * partitions if the current left partition has been fully processed.
+     *
+     * @return false if there is no more partition to be joined.
+     */
+    private boolean advancePartition() {
+        // Re-scans the right partition if the left partition is too large to fit in memory at once.
+        if (buildStream != null && loadBuildChunk()) {
+            probeStream = SpillPartitions.openStream(NAME, currentPartition.rightFile, right.getSchema());
+            return true;
+        }
+        if (currentPartition != null) {
+            currentPartition.delete();
+            currentPartition = null;
+        }
+
+        while (!pendingPartitions.isEmpty()) {
+            PartitionPair pair = pendingPartitions.pop();
+            // Skips the partition pair since there cannot be any match.
+            if (pair.leftPages == 0 || pair.rightPages == 0) {
+                pair.delete();
+                continue;
+            }
+
+            // Partitions again with a different hash function if the left partition does not fit in memory.
+            if (pair.leftPages > numOfBuffer - 2 && pair.depth < MAX_PARTITION_DEPTH) {
+                repartition(pair);
+                continue;
+            }
+
+            currentPartition = pair;
+            buildStream = SpillPartitions.openStream(NAME, pair.leftFile, left.getSchema());
+            loadBuildChunk();
+            probeStream = SpillPartitions.openStream(NAME, pair.rightFile, right.getSchema());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Builds the in-memory hash table using at most (numOfBuffer - 2) pages from the current left
+     * partition, since one buffer is reserved for the right input and one for the output.
+     *
+     * @return true if at least one page has been loaded.
+     */
+    private boolean loadBuildChunk() {
+        hashTable = new HashMap<>();
+        int numOfPages = 0;
+        while (numOfPages < Math.max(numOfBuffer - 2, 1)) {
+            Batch inBatch = SpillPartitions.readBatch(NAME, buildStream, left.getSchema());
+            if (inBatch == null) {
+                SpillPartitions.closeStream(NAME, buildStream);
+                buildStream = null;
+                break;
+            }
+            for (int i = 0; i < inBatch.size(); i++) {
+                Tuple tuple = inBatch.elementAt(i);
+                hashTable.computeIfAbsent(tuple.dataAt(leftIndex), k -> new Vector<>()).add(tuple);
+            }
+            numOfPages++;
+        }
+        return numOfPages > 0;
+    }
+
+    /**
+     * Splits a pair of partitions which is too large into (numOfBuffer - 1) pairs of smaller partitions.
+     *
+     * @param pair is the pair of partitions to be split.
+     */
+    private void repartition(PartitionPair pair) {
+        int depth = pair.depth + 1;
+        int numOfPartitions = Math.max(numOfBuffer - 1, 1);
+        SpillPartitions leftWriter = createPartitions("left", left.getSchema(), numOfPartitions);
+        copyToWriter(pair.leftFile, leftWriter, leftIndex, depth);
+        SpillPartitions rightWriter = createPartitions("right", right.getSchema(), numOfPartitions);
+        copyToWriter(pair.rightFile, rightWriter, rightIndex, depth);
+        pair.delete();
+
+        leftWriter.finish();
+        rightWriter.finish();
+        addPartitionPairs(leftWriter, rightWriter, depth);
+    }
+
+    /**
+     * Pairs up the partitions from both sides and adds them to the pending list.
+     *
+     * @param leftWriter  has written the partitions of the left input.
+     * @param rightWriter has written the partitions of the right input.
+     * @param depth       is the number of times the partitions have been re-partitioned.
+     */
+    private void addPartitionPairs(SpillPartitions leftWriter, SpillPartitions rightWriter, int depth) {
+        for (int i = 0; i < leftWriter.getNumOfPartitions(); i++) {
+            pendingPartitions.push(new PartitionPair(leftWriter.getFileName(i), leftWriter.getNumOfPages(i),
+                    rightWriter.getFileName(i), rightWriter.getNumOfPages(i), depth));
+        }
+    }
+
+    /**
+     * Creates the spill files for partitioning one of the inputs.
+     *
+     * @param side            is the side of the input (i.e., left or right).
+     * @param schema          is the schema of the input.
+     * @param numOfPartitions is the number of partitions.
+     * @return the partition writer.
+     */
+    private SpillPartitions createPartitions(String side, Schema schema, int numOfPartitions) {
+        numOfSpills++;
+        return new SpillPartitions(NAME, filePrefix + "-" + side + "-" + numOfSpills, schema, numOfPartitions);
+    }
+
+    /**
+     * Adds all tuples in a page into their corresponding partitions.
+     *
+     * @param inBatch   is the input page.
+     * @param writer    is the partition writer.
+     * @param attrIndex is the index of the attribute to be hashed.
+     * @param depth     is the number of times the input has been re-partitioned.
+     */
+    private void spill(Batch inBatch, SpillPartitions writer, int attrIndex, int depth) {
+        for (int i = 0; i < inBatch.size(); i++) {
+            Tuple tuple = inBatch.elementAt(i);
+            writer.add(tuple, partitionOf(tuple.dataAt(attrIndex), depth, writer.getNumOfPartitions()));
+        }
+    }
+
+    /**
+     * Feeds all pages in a spill file to a partition writer.
+     *
+     * @param fileName  is the name of the spill file.
+     * @param writer    is the partition writer.
+     * @param attrIndex is the index of the attribute to be hashed.
+     * @param depth     is the number of times the input has been re-partitioned.
+     */
+    private void copyToWriter(String fileName, SpillPartitions writer, int attrIndex, int depth) {
+        Schema schema = writer.getSchema();
+        TupleReader in = SpillPartitions.openStream(NAME, fileName, schema);
+        for (Batch inBatch = SpillPartitions.readBatch(NAME, in, schema); inBatch != null; inBatch = SpillPartitions.readBatch(NAME, in, schema)) {
+            spill(inBatch, writer, attrIndex, depth);
+        }
+        SpillPartitions.closeStream(NAME, in);
+    }
+
+    /**
+     * Computes the partition which a given join attribute value belongs to. A different hash function
+     * is used at each depth, so that the tuples of an oversized partition can be split further.
+     *
+     * @param value           is the value of the join attribute.
+     * @param depth           is the number of times the input has been re-partitioned.
+     * @param numOfPartitions is the number of partitions.
+     * @return the index of the partition.
+     */
+    static int partitionOf(Object value, int depth, int numOfPartitions) {
+        int hash = value.hashCode() + depth * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return Math.floorMod(hash, numOfPartitions);
+    }
+
+    /**
+     * Closes this operator by deleting all the spill files generated.
+     *
+     * @return true if the operator is closed successfully.
+     */
+    @Override
+    public boolean close() {
+        if (isProbingResident) {
+            finishResidentPhase();
+        }
+        if (buildStream != null) {
+            SpillPartitions.closeStream(NAME, buildStream);
+            buildStream = null;
+        }
+        if (probeStream != null) {
+            SpillPartitions.closeStream(NAME, probeStream);
+            probeStream = null;
+        }
+        if (currentPartition != null) {
+            currentPartition.delete();
+            currentPartition = null;
+        }
+        if (pendingPartitions != null) {
+            for (PartitionPair pair : pendingPartitions) {
+                pair.delete();
+            }
+            pendingPartitions.clear();
+        }
+        return true;
+    }
+
+    /**
+     * Defines a pair of partitions (from the left & right input respectively) which share the same hash value.
+     */
+    private static class PartitionPair {
+        // The spill file of the left partition.
+        private final String leftFile;
+        // The number of pages in the left partition.
+        private final int leftPages;
+        // The spill file of the right partition.
+        private final String rightFile;
+        // The number of pages in the right partition.
+        private final int rightPages;
+        // The number of times this pair has been re-partitioned.
+        private final int depth;
+
+        private PartitionPair(String leftFile, int leftPages, String rightFile, int rightPages, int depth) {
+            this.leftFile = leftFile;
+            this.leftPages = leftPages;
+            this.rightFile = rightFile;
+            this.rightPages = rightPages;
+            this.depth = depth;
+        }
+
+        /**
+         * Deletes the spill files of this pair.
+         */
+        private void delete() {
+            new File(leftFile).delete();
+            new File(rightFile).delete();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package qp.operators;
+
+import java.io.IOException;
+import java.util.Vector;
+
+import qp.utils.Attribute;
+import qp.utils.BPlusTree;
+import qp.utils.Batch;
+import qp.utils.Schema;
+import qp.utils.Tuple;
+import qp.utils.TupleReader;
+
+/**
+ * Implements the index nested loop join algorithm. The right input must be a scan (or a columnar scan) on a base
+ * table which has a B+-tree index on the join attribute. For each tuple from the left input, the index is probed to find the
+ * matching entries, whose tuples are then read from the right table by their rids, so that the right table never
+ * has to be scanned.
+ */
+public class IndexNestedJoin extends Join {
+    // The number of tuples per batch.
+    private int batchSize;
+
+    // Index of the join attribute in left table
+    private int leftIndex;
+    // The index on the join attribute of the right table.
+    private BPlusTree index;
+    // The right table file which the rids in the index point into.
+    private TupleReader table;
+    // The indices of the attributes of the right input in the right table, or null if they are the same.
+    private int[] rightAttrIndex;
+
+    // The buffer for the left input stream.
+    private Batch leftBatch;
+    // Cursor for left side buffer
+    private int leftCursor;
+    // The current left tuple and the rids of its matching right tuples.
+    private Tuple leftTuple;
+    private Vector<Long> matches;
+    // Cursor for the matching right tuples
+    private int matchCursor;
+    // Whether end of stream is reached for the left table
+    private boolean eosLeft;
+
+    /**
+     * Instantiates a new join operator using index nested loop algorithm.
+     *
+     * @param jn is the base join operator.
+     */
+    public IndexNestedJoin(Join jn) {
+        super(jn.getLeft(), jn.getRight(), jn.getCondition(), jn.getOpType());
+        schema = jn.getSchema();
+        joinType = jn.getJoinType();
+        numOfBuffer = jn.getNumOfBuffer();
+    }
+
+    /**
+     * Checks whether the index nested loop join can be applied on a given right input.
+     *
+     * @param right     is the right input.
+     * @param rightAttr is the join attribute of the right input.
+     * @return true if the right input is a scan or a columnar scan on a base table with an index on the join
+     * attribute.
+     */
+    public static boolean isApplicable(Operator right, Attribute rightAttr) {
+        String tableName;
+        if (right.getOpType() == OpType.SCAN) {
+            tableName = ((Scan) right).getTableName();
+        } else if (right.getOpType() == OpType.COLUMNAR_SCAN) {
+            tableName = ((ColumnarScan) right).getTableName();
+        } else {
+            return false;
+        }
+        return tableName.equals(rightAttr.getTabName()) && BPlusTree.exists(tableName, rightAttr.getColName());
+    }
+
+    /**
+     * Opens this operator by opening the index on the right table, the right table file and the left input.
+     *
+     * @return true if the operator is opened successfully.
+     */
+    @Override
+    public boolean open() {
+        // Selects the number of tuples per page based tuple size.
+        int tupleSize = schema.getTupleSize();
+        batchSize = Batch.getPageSize() / tupleSize;
+
+        // Gets the join attribute from left & right table.
+        Attribute leftAttr = con.getLeft();
+        Attribute rightAttr = (Attribute) con.getRight();
+        leftIndex = left.getSchema().indexOf(leftAttr);
+        if (!isApplicable(right, rightAttr)) {
+            System.err.println("IndexNestedJoin: no index on " + rightAttr.getTabName() + "." + rightAttr.getColName());
+            return false;
+        }
+
+        // A columnar scan only reads some of the attributes, which are picked out of the tuples of the table.
+        Schema tableSchema = right.getSchema();
+        rightAttrIndex = null;
+        if (right.getOpType() == OpType.COLUMNAR_SCAN) {
+            tableSchema = ((ColumnarScan) right).getTableSchema();
+            rightAttrIndex = new int[right.getSchema().getNumCols()];
+            for (int i = 0; i < rightAttrIndex.length; i++) {
+                rightAttrIndex[i] = tableSchema.indexOf(right.getSchema().getAttribute(i));
+            }
+        }
+
+        // Opens the index and the table file instead of the right input.
+        try {
+            index = BPlusTree.open(rightAttr.getTabName(), rightAttr.getColName());
+            table = new TupleReader(rightAttr.getTabName() + ".tbl", tableSchema);
+        } catch (IOException e) {
+            System.err.printf("IndexNestedJoin: error opening index due to %s\n", e.toString());
+            return false;
+        }
+
+        leftBatch = null;
+        leftCursor = 0;
+        matches = null;
+        matchCursor = 0;
+        eosLeft = false;
+        return left.open();
+    }
+
+    /**
+     * Probes the index with the left tuples, and returns the joined tuples.
+     *
+     * @return the next page of output tuples.
+     */
+    @Override
+    public Batch next() {
+        // Returns empty if the left table reaches end-of-stream.
+        if (eosLeft) {
+            close();
+            return null;
+        }
+
+        Batch outBatch = new Batch(batchSize);
+        while (!outBatch.isFull()) {
+            // Emits the remaining matches of the current left tuple.
+            if (matches != null && matchCursor < matches.size()) {
+                try {
+                    table.seekPosition(matches.elementAt(matchCursor));
+                    outBatch.add(leftTuple.joinWith(readRightTuple()));
+                } catch (IOException e) {
+                    System.err.printf("IndexNestedJoin: error reading right table due to %s\n", e.toString());
+                    System.exit(1);
+                }
+                matchCursor++;
+                continue;
+            }
+
+            // Reads the next left page if the current one is exhausted.
+            if (leftBatch == null || leftCursor == leftBatch.size()) {
+                leftBatch = left.next();
+                leftCursor = 0;
+                if (leftBatch == null) {
+                    eosLeft = true;
+                    return outBatch.isEmpty() ? null : outBatch;
+                }
+                continue;
+            }
+
+            // Probes the index with the next left tuple.
+            leftTuple = leftBatch.elementAt(leftCursor);
+            leftCursor++;
+            try {
+                matches = index.search(leftTuple.dataAt(leftIndex));
+            } catch (IOException e) {
+                System.err.printf("IndexNestedJoin: error reading index due to %s\n", e.toString());
+                System.exit(1);
+            }
+            matchCursor = 0;
+        }
+        return outBatch;
+    }
+
+    /**
+     * Reads the right tuple at the current position of the right table file.
+     *
+     * @return the tuple with the attributes of the right input.
+     * @throws IOException if the right table file cannot be read.
+     */
+    private Tuple readRightTuple() throws IOException {
+        Tuple tuple = table.read();
+        if (rightAttrIndex == null) {
+            return tuple;
+        }
+        Vector<Object> present = new Vector<>();
+        for (int index : rightAttrIndex) {
+            present.add(tuple.dataAt(index));
+        }
+        return new Tuple(present);
+    }
+
+    /**
+     * Closes this operator by closing the index and the right table file.
+     *
+     * @return true if the operator is closed successfully.
+     */
+    @Override
+    public boolean close() {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+        if (table != null) {
+            try {
+                table.close();
+            } catch (IOException e) {
+                System.err.println("IndexNestedJoin: error closing the right table file");
+                return false;
+            }
+            table = null;
+        }
+        return true;
+    }
+}
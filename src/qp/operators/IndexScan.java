@@ -0,0 +1,206 @@
+package qp.operators;
+
+import java.io.IOException;
+import java.util.Date;
+
+import qp.utils.Attribute;
+import qp.utils.BPlusTree;
+import qp.utils.Batch;
+import qp.utils.Condition;
+import qp.utils.Schema;
+import qp.utils.Tuple;
+import qp.utils.TupleReader;
+
+/**
+ * Defines the index scan operator, which reads only the tuples satisfying a select condition from a table
+ * through the B+-tree index on the selected attribute. Both equality and range conditions are supported. Each
+ * entry found in the index is followed to its tuple in the table file, which is read unless it is on the page
+ * read last.
+ */
+public class IndexScan extends Operator {
+    // The name of the table
+    private final String tableName;
+    // The select condition on the indexed attribute.
+    private final Condition con;
+
+    // The number of tuples per batch
+    private int batchSize;
+    // The index being scanned
+    private BPlusTree index;
+    // The cursor on the leaves of the index
+    private BPlusTree.Cursor cursor;
+    // The table file which the rids in the index point into
+    private TupleReader table;
+    // The value in the select condition, converted to the type of the attribute
+    private Object value;
+
+    // To indicate whether end of stream reached or not
+    private boolean eos;
+
+    /**
+     * Creates a new index scan operator.
+     *
+     * @param tableName is the name of the table.
+     * @param con       is the select condition on the indexed attribute.
+     */
+    public IndexScan(String tableName, Condition con) {
+        super(OpType.INDEX_SCAN);
+        this.tableName = tableName;
+        this.con = con;
+    }
+
+    /**
+     * Checks whether a select condition can be answered by an index scan.
+     *
+     * @param con is the select condition.
+     * @return true if there is an index on the selected attribute and the condition is a simple comparison
+     * other than an inequality.
+     */
+    public static boolean isApplicable(Condition con) {
+        if (con.getCondType() != Condition.SELECT || con.getOperator() == Condition.NOTEQUAL || con.isCompound()) {
+            return false;
+        }
+        Attribute attr = con.getLeft();
+        return BPlusTree.exists(attr.getTabName(), attr.getColName());
+    }
+
+    /**
+     * Getter for tableName.
+     *
+     * @return the table name.
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Getter for condition.
+     *
+     * @return the select condition.
+     */
+    public Condition getCondition() {
+        return con;
+    }
+
+    /**
+     * Opens the index and the table file, and positions the cursor at the first entry which may satisfy the
+     * condition.
+     *
+     * @return true if the operator is opened successfully.
+     */
+    @Override
+    public boolean open() {
+        // Gets the batch size from tuple size.
+        int tupleSize = schema.getTupleSize();
+        batchSize = Batch.getPageSize() / tupleSize;
+        eos = false;
+
+        Attribute attr = con.getLeft();
+        value = parseValue((String) con.getRight(), schema.typeOf(attr));
+        try {
+            index = BPlusTree.open(attr.getTabName(), attr.getColName());
+            table = new TupleReader(tableName + ".tbl", schema);
+            switch (con.getOperator()) {
+                case Condition.LESS_THAN:
+                case Condition.LTOE:
+                    cursor = index.seek(null);
+                    break;
+                default:
+                    cursor = index.seek(value);
+            }
+        } catch (IOException e) {
+            System.err.printf("IndexScan: error reading index of %s due to %s\n", tableName, e.toString());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the next page of tuples satisfying the select condition.
+     */
+    @Override
+    public Batch next() {
+        if (eos) {
+            close();
+            return null;
+        }
+
+        Batch outBatch = new Batch(batchSize);
+        while (!outBatch.isFull()) {
+            try {
+                long rid = cursor.next();
+                if (rid < 0) {
+                    eos = true;
+                    break;
+                }
+
+                // Stops as soon as the keys go beyond the upper bound, since the leaves are sorted.
+                int flag = Tuple.compareValues(cursor.getKey(), value);
+                int expressionType = con.getOperator();
+                if (expressionType == Condition.GREATER_THAN && flag == 0) {
+                    continue;
+                } else if (((expressionType == Condition.EQUAL || expressionType == Condition.LTOE) && flag > 0)
+                        || (expressionType == Condition.LESS_THAN && flag >= 0)) {
+                    eos = true;
+                    break;
+                }
+                table.seekPosition(rid);
+                outBatch.add(table.read());
+            } catch (IOException e) {
+                System.err.printf("IndexScan: error reading index of %s due to %s\n", tableName, e.toString());
+                System.exit(1);
+            }
+        }
+        return outBatch;
+    }
+
+    /**
+     * Closes the index and the table file.
+     *
+     * @return true if the index is closed successfully.
+     */
+    @Override
+    public boolean close() {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+        if (table != null) {
+            try {
+                table.close();
+            } catch (IOException e) {
+                System.err.println("IndexScan: error closing " + tableName + ".tbl");
+                return false;
+            }
+            table = null;
+        }
+        return true;
+    }
+
+    /**
+     * Converts a constant in a select condition to the type of the attribute.
+     *
+     * @param value    is the constant.
+     * @param dataType is the type of the attribute.
+     * @return the converted value.
+     */
+    private static Object parseValue(String value, int dataType) {
+        switch (dataType) {
+            case Attribute.INT:
+                return Integer.parseInt(value);
+            case Attribute.REAL:
+                return Float.parseFloat(value);
+            case Attribute.TIME:
+                return new Date((long) Integer.parseInt(value));
+            default:
+                return value;
+        }
+    }
+
+    @Override
+    public Object clone() {
+        IndexScan newScan = new IndexScan(tableName, (Condition) con.clone());
+        newScan.setSchema((Schema) schema.clone());
+        return newScan;
+    }
+}
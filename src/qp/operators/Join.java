@@ -1,7 +1,14 @@
 package qp.operators;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Vector;
+
+import qp.utils.Batch;
 import qp.utils.Condition;
 import qp.utils.Schema;
+import qp.utils.TupleReader;
+import qp.utils.TupleWriter;
 
 /**
  * Defines the base class for all join operators.
@@ -21,6 +28,17 @@ public class Join extends Operator {
     // The index of the current join node.
     private int nodeIndex;
 
+    // The pages of the right table if they are kept in memory, or null if they are read from a file or rescanned
+    Vector<Batch> rightPages;
+    // Index of the next page to be read from the right pages kept in memory
+    private int rightPageIndex;
+    // The file name where the right table is materialized, or null if it is kept in memory or rescanned
+    private String rightFileName;
+    // File pointer to the right hand materialized file
+    private TupleReader in;
+    // To get unique fileNum for the materialized right tables
+    private static int fileNum = 0;
+
     /**
      * Creates a new join operator.
      *
@@ -54,6 +72,119 @@ public class Join extends Operator {
         return numOfBuffer;
     }
 
+    /**
+     * Checks whether the right input of a nested loop join can be kept in memory instead of being materialized
+     * into a file, which is the case if it fits into the buffers left after one page for the left input and one
+     * page for the output.
+     *
+     * @param numOfRightPages is the number of pages in the right input.
+     * @param numOfBuffer     is the number of buffers available to the join.
+     * @return true if the right input can be kept in memory.
+     */
+    public static boolean canCacheInner(int numOfRightPages, int numOfBuffer) {
+        return numOfRightPages <= numOfBuffer - 2;
+    }
+
+    /**
+     * Reads the right table of a nested loop join and keeps its pages in memory as long as they fit into the
+     * buffers (see {@link #canCacheInner}). Once they do not fit, the right table is rescanned directly for every
+     * left page (or block) if it is rewindable (see {@link Operator#isRewindable}), such as a scan on a base
+     * table, in which case it is kept open. Otherwise, the pages read so far and the remaining ones are written
+     * into a file instead. The right table must have been opened.
+     *
+     * @param filePrefix is the prefix of the file the right table is materialized into.
+     * @param name       is the name of the join operator, which is used in the error messages.
+     * @return true if the right table is read successfully.
+     */
+    boolean materializeRight(String filePrefix, String name) {
+        rightPages = new Vector<>();
+        rightFileName = null;
+        TupleWriter out = null;
+        try {
+            for (Batch rightPage = right.next(); rightPage != null; rightPage = right.next()) {
+                if (out == null && canCacheInner(rightPages.size() + 1, numOfBuffer)) {
+                    rightPages.add(rightPage);
+                    continue;
+                }
+                if (out == null && right.isRewindable()) {
+                    rightPages = null;
+                    return true;
+                }
+                if (out == null) {
+                    fileNum++;
+                    rightFileName = filePrefix + "-" + fileNum;
+                    out = new TupleWriter(rightFileName, right.getSchema());
+                    for (Batch page : rightPages) {
+                        out.write(page);
+                    }
+                    rightPages = null;
+                }
+                out.write(rightPage);
+            }
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException io) {
+            System.out.println(name + ": writing the temporary file error");
+            return false;
+        }
+        return right.close();
+    }
+
+    /**
+     * Starts a new scan of the right table, over the pages kept in memory, the materialized file, or the right
+     * operator itself.
+     *
+     * @throws IOException if the right table cannot be read again.
+     */
+    void openRight() throws IOException {
+        if (rightPages != null) {
+            rightPageIndex = 0;
+        } else if (rightFileName == null) {
+            if (!right.rewind()) {
+                throw new IOException("cannot rewind the right table");
+            }
+        } else {
+            in = new TupleReader(rightFileName, right.getSchema());
+        }
+    }
+
+    /**
+     * Reads the next page of the current scan of the right table.
+     *
+     * @return the next right page, or null if the end of the right table is reached.
+     * @throws IOException if the materialized file cannot be read.
+     */
+    Batch readRight() throws IOException {
+        if (rightPages != null) {
+            return rightPageIndex < rightPages.size() ? rightPages.elementAt(rightPageIndex++) : null;
+        }
+        if (rightFileName == null) {
+            return right.next();
+        }
+        Batch rightBatch = in.readBatch(Batch.getPageSize() / right.getSchema().getTupleSize());
+        if (rightBatch == null) {
+            in.close();
+        }
+        return rightBatch;
+    }
+
+    /**
+     * Releases the right table read by {@link #materializeRight}, by deleting the file generated, or closing
+     * the right table if it is rescanned.
+     *
+     * @return true if the right table is released successfully.
+     */
+    boolean closeRight() {
+        if (rightFileName != null) {
+            File f = new File(rightFileName);
+            f.delete();
+        } else if (rightPages == null) {
+            return right.close();
+        }
+        return true;
+    }
+
     /**
      * Getter for nodeIndex.
      *
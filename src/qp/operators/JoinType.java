@@ -9,12 +9,13 @@ public class JoinType {
     public static final int BLOCK_NESTED_JOIN = 1;
     public static final int SORT_MERGE_JOIN = 2;
     public static final int HASH_JOIN = 3;
-    public static final int INDEX_NESTED_JOIN = 4;
+    public static final int HYBRID_HASH_JOIN = 4;
+    public static final int INDEX_NESTED_JOIN = 5;
 
     /**
      * @return the number of join types.
      */
     public static int numJoinTypes() {
-        return 3;
+        return 6;
     }
 }
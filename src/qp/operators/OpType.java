@@ -11,4 +11,7 @@ public class OpType {
     public static final int SORT = 4;
     public static final int DISTINCT = 5;
     public static final int GROUPBY = 6;
+    public static final int INDEX_SCAN = 7;
+    public static final int COLUMNAR_SCAN = 8;
+    public static final int TOP_N = 9;
 }
@@ -1,6 +1,7 @@
 package qp.operators;
 
 import qp.utils.Batch;
+import qp.utils.ColumnBatch;
 import qp.utils.Schema;
 
 /**
@@ -65,6 +66,67 @@ public class Operator {
         return null;
     }
 
+    /**
+     * Checks whether this operator produces its pages column by column, in which case {@link #nextColumns()}
+     * is cheaper than {@link #next()}.
+     *
+     * @return true if this operator is vectorized.
+     */
+    public boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * Reads the next page column by column. By default, the page from {@link #next()} is converted.
+     *
+     * @return the next page of tuples stored column by column.
+     */
+    public ColumnBatch nextColumns() {
+        Batch batch = next();
+        return batch == null ? null : ColumnBatch.fromBatch(batch, schema);
+    }
+
+    /**
+     * Checks whether this operator can be rewound cheaply, i.e., whether {@link #rewind()} reads its output from
+     * the start again without computing it again (such as a scan on a base table).
+     *
+     * @return true if this operator is rewindable.
+     */
+    public boolean isRewindable() {
+        return false;
+    }
+
+    /**
+     * Restarts the output of this operator, so that the next page is its first page again. By default, the
+     * operator is reopened.
+     *
+     * @return true if the operator is rewound successfully.
+     */
+    public boolean rewind() {
+        return close() && open();
+    }
+
+    /**
+     * Marks the current position in the output of this operator, i.e., the page to be returned by the next call
+     * of {@link #next()}, so that the output can be read again from there by {@link #restore()}. A new mark
+     * replaces the previous one. By default, marking is not supported.
+     *
+     * @return true if the position is marked successfully.
+     */
+    public boolean mark() {
+        return false;
+    }
+
+    /**
+     * Moves back to the position marked by {@link #mark()}, so that the next page is the one which followed
+     * the mark. The mark is kept, and can be restored again.
+     *
+     * @return true if the position is restored successfully.
+     */
+    public boolean restore() {
+        return false;
+    }
+
     /**
      * Closes the operator.
      *
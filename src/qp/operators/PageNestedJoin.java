@@ -1,19 +1,15 @@
 package qp.operators;
 
-import java.io.EOFException;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 import qp.utils.Attribute;
 import qp.utils.Batch;
+import qp.utils.ColumnBatch;
 import qp.utils.Tuple;
 
 /**
- * Implements the page-based nested loop join algorithm.
+ * Implements the page-based nested loop join algorithm. If the right table fits into the buffers, it is kept in
+ * memory instead of being materialized into a file.
  */
 public class PageNestedJoin extends Join {
     // The number of tuples per batch.
@@ -28,17 +24,12 @@ public class PageNestedJoin extends Join {
     // Index of the join attribute in right table
     private int rightIndex;
 
-    // The file name where the right table is materialize
-    private String rightFileName;
-    // File pointer to the right hand materialized file
-    private ObjectInputStream in;
-    // To get unique fileNum for this operation
-    private static int fileNum = 0;
-
     // The buffer for the left input stream.
     private Batch leftBatch;
     // The buffer for the right input stream.
     private Batch rightBatch;
+    // The buffer for the right input stream stored column by column, which is probed by the left tuples.
+    private ColumnBatch rightColumns;
     // The output buffer.
     private Batch outBatch;
 
@@ -66,7 +57,8 @@ public class PageNestedJoin extends Join {
     /**
      * Opens this operator by performing the following operations:
      * 1. Finds the index of the join attributes;
-     * 2. Materializes the right hand side into a file;
+     * 2. Keeps the right hand side in memory if it fits, or otherwise materializes it into a file unless it can
+     * be rescanned directly;
      * 3. Opens the connections.
      *
      * @return true if the operator is opened successfully.
@@ -82,7 +74,6 @@ public class PageNestedJoin extends Join {
         Attribute rightAttr = (Attribute) con.getRight();
         leftIndex = left.getSchema().indexOf(leftAttr);
         rightIndex = right.getSchema().indexOf(rightAttr);
-        Batch rightPage;
 
         // Initializes the cursors of input buffers for both sides.
         leftCursor = 0;
@@ -92,34 +83,8 @@ public class PageNestedJoin extends Join {
         eosRight = true;
 
         // Materializes the right table for the algorithm to perform.
-        if (!right.open()) {
+        if (!right.open() || !materializeRight("PNJtemp", "PageNestedJoin")) {
             return false;
-        } else {
-            /*
-             * If the right operator is not a base table, then materializes the intermediate result
-             * from right into a file.
-             */
-            // if(right.getCondType() != OpType.SCAN){
-            fileNum++;
-            rightFileName = "PNJtemp-" + fileNum;
-            try {
-                ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(rightFileName));
-                rightPage = right.next();
-                while (rightPage != null) {
-                    out.writeObject(rightPage);
-                    rightPage = right.next();
-                }
-                out.close();
-            } catch (IOException io) {
-                System.out.println("PageNestedJoin: writing the temporary file error");
-                return false;
-            }
-            // }
-
-            if (!right.close()) {
-                return false;
-            }
-
         }
         return left.open();
     }
@@ -150,7 +115,7 @@ public class PageNestedJoin extends Join {
 
                 // Starts the scanning of right table whenever a new left page comes.
                 try {
-                    in = new ObjectInputStream(new FileInputStream(rightFileName));
+                    openRight();
                     eosRight = false;
                 } catch (IOException io) {
                     System.err.println("PageNestedJoin:error in reading the file");
@@ -162,50 +127,45 @@ public class PageNestedJoin extends Join {
             while (!eosRight) {
                 try {
                     if (leftCursor == 0 && rightCursor == 0) {
-                        rightBatch = (Batch) in.readObject();
+                        rightBatch = readRight();
+                        if (rightBatch == null) {
+                            eosRight = true;
+                            continue;
+                        }
+                        rightColumns = ColumnBatch.fromBatch(rightBatch, right.getSchema());
                     }
 
                     for (int i = leftCursor; i < leftBatch.size(); i++) {
-                        for (int j = rightCursor; j < rightBatch.size(); j++) {
-                            Tuple leftTuple = leftBatch.elementAt(i);
-                            Tuple rightTuple = rightBatch.elementAt(j);
+                        Tuple leftTuple = leftBatch.elementAt(i);
 
-                            // Adds the tuple if satisfying the join condition.
-                            if (leftTuple.checkJoin(rightTuple, leftIndex, rightIndex)) {
-                                Tuple outTuple = leftTuple.joinWith(rightTuple);
-                                outBatch.add(outTuple);
-
-                                // Checks whether the output buffer is full.
-                                if (outBatch.isFull()) {
-                                    if (i == leftBatch.size() - 1 && j == rightBatch.size() - 1) {
-                                        leftCursor = 0;
-                                        rightCursor = 0;
-                                    } else if (i != leftBatch.size() - 1 && j == rightBatch.size() - 1) {
-                                        leftCursor = i + 1;
-                                        rightCursor = 0;
-                                    } else {
-                                        leftCursor = i;
-                                        rightCursor = j + 1;
-                                    }
-
-                                    // Returns since we have already produced a complete page of matching tuples.
-                                    return outBatch;
+                        // Probes the right page for the tuples satisfying the join condition.
+                        Object key = leftTuple.dataAt(leftIndex);
+                        int j = rightColumns.nextMatch(rightIndex, key, rightCursor);
+                        for (; j >= 0; j = rightColumns.nextMatch(rightIndex, key, j + 1)) {
+                            Tuple rightTuple = rightBatch.elementAt(j);
+                            Tuple outTuple = leftTuple.joinWith(rightTuple);
+                            outBatch.add(outTuple);
+
+                            // Checks whether the output buffer is full.
+                            if (outBatch.isFull()) {
+                                if (i == leftBatch.size() - 1 && j == rightBatch.size() - 1) {
+                                    leftCursor = 0;
+                                    rightCursor = 0;
+                                } else if (i != leftBatch.size() - 1 && j == rightBatch.size() - 1) {
+                                    leftCursor = i + 1;
+                                    rightCursor = 0;
+                                } else {
+                                    leftCursor = i;
+                                    rightCursor = j + 1;
                                 }
+
+                                // Returns since we have already produced a complete page of matching tuples.
+                                return outBatch;
                             }
                         }
                         rightCursor = 0;
                     }
                     leftCursor = 0;
-                } catch (EOFException e) {
-                    try {
-                        in.close();
-                    } catch (IOException io) {
-                        System.out.println("PageNestedJoin: error in temporary file reading");
-                    }
-                    eosRight = true;
-                } catch (ClassNotFoundException c) {
-                    System.out.println("PageNestedJoin: some error in deserialization");
-                    System.exit(1);
                 } catch (IOException io) {
                     System.out.println("PageNestedJoin: temporary file reading error");
                     System.exit(1);
@@ -216,14 +176,12 @@ public class PageNestedJoin extends Join {
     }
 
     /**
-     * Closes this operator by deleting the file generated.
+     * Closes this operator by deleting the file generated, or closing the right table if it is rescanned.
      *
      * @return true if the operator is closed successfully.
      */
     @Override
     public boolean close() {
-        File f = new File(rightFileName);
-        f.delete();
-        return true;
+        return closeRight();
     }
 }
@@ -4,6 +4,7 @@ import java.util.Vector;
 
 import qp.utils.Attribute;
 import qp.utils.Batch;
+import qp.utils.ColumnBatch;
 import qp.utils.Schema;
 import qp.utils.Tuple;
 
@@ -89,6 +90,12 @@ public class Project extends Operator {
      * @return the next page of tuples produced by the project operator.
      */
     public Batch next() {
+        // Only materializes the projected columns if the base operator is vectorized.
+        if (base.isVectorized()) {
+            ColumnBatch inColumns = nextColumns();
+            return inColumns == null ? null : inColumns.toBatch();
+        }
+
         // Creates a new output buffer.
         Batch outBatch = new Batch(batchSize);
 
@@ -114,6 +121,60 @@ public class Project extends Operator {
         return outBatch;
     }
 
+    /**
+     * @return true if the base operator is vectorized.
+     */
+    @Override
+    public boolean isVectorized() {
+        return base.isVectorized();
+    }
+
+    /**
+     * Projects the pages from the base operator by sharing the required columns.
+     *
+     * @return the next page of projected tuples stored column by column.
+     */
+    @Override
+    public ColumnBatch nextColumns() {
+        if (!base.isVectorized()) {
+            return super.nextColumns();
+        }
+        ColumnBatch inColumns = base.nextColumns();
+        return inColumns == null ? null : inColumns.project(schema, attrIndex);
+    }
+
+    /**
+     * @return true if the base operator is rewindable, since the projection is performed page by page.
+     */
+    @Override
+    public boolean isRewindable() {
+        return base.isRewindable();
+    }
+
+    /**
+     * @return true if the base operator is rewound successfully.
+     */
+    @Override
+    public boolean rewind() {
+        return base.rewind();
+    }
+
+    /**
+     * @return true if the position in the base operator is marked successfully.
+     */
+    @Override
+    public boolean mark() {
+        return base.mark();
+    }
+
+    /**
+     * @return true if the marked position in the base operator is restored successfully.
+     */
+    @Override
+    public boolean restore() {
+        return base.restore();
+    }
+
     /**
      * Closes the operator.
      *
@@ -1,18 +1,18 @@
 package qp.operators;
 
-import java.io.EOFException;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 
 import qp.utils.Batch;
 import qp.utils.Schema;
-import qp.utils.Tuple;
+import qp.utils.TupleReader;
 
 /**
  * Defines the scan operator, which reads getData from a file by scanning.
  */
 public class Scan extends Operator {
+    // Whether the files are memory-mapped, so that the pages are served without copying.
+    private static boolean isMemoryMapped = true;
+
     // The name of the file being scanned
     private String fileName;
     // The name of the table
@@ -21,11 +21,13 @@ public class Scan extends Operator {
     // The number of tuples per batch
     private int batchSize;
 
-    // The input file stream
-    private ObjectInputStream in;
+    // The reader of the input file
+    private TupleReader in;
 
     // To indicate whether end of stream reached or not
     private boolean eos;
+    // The position of the tuple marked in the file, or -1 if the mark is at the end of the file
+    private long markPosition;
 
     /**
      * Creates a new scan operator.
@@ -38,6 +40,15 @@ public class Scan extends Operator {
         fileName = tableName + ".tbl";
     }
 
+    /**
+     * Setter for isMemoryMapped.
+     *
+     * @param isMemoryMapped is whether the scanned files should be memory-mapped.
+     */
+    public static void setMemoryMapped(boolean isMemoryMapped) {
+        Scan.isMemoryMapped = isMemoryMapped;
+    }
+
     /**
      * Getter for tableName.
      *
@@ -61,8 +72,8 @@ public class Scan extends Operator {
 
         // Tries to open the input stream.
         try {
-            in = new ObjectInputStream(new FileInputStream(fileName));
-        } catch (Exception e) {
+            in = new TupleReader(fileName, schema, isMemoryMapped);
+        } catch (IOException e) {
             System.err.println(" Scan: error reading " + fileName);
             return false;
         }
@@ -79,37 +90,104 @@ public class Scan extends Operator {
             return null;
         }
 
-        Batch outBatch = new Batch(batchSize);
-        while (!outBatch.isFull()) {
-            try {
-                Tuple data = (Tuple) in.readObject();
-                outBatch.add(data);
-            } catch (ClassNotFoundException cnf) {
-                System.err.println("Scan: class not found for reading file  " + fileName);
-                System.exit(1);
-            } catch (EOFException EOF) {
-                // Sends the incomplete page and close in the next call.
-                eos = true;
-                return outBatch;
-            } catch (IOException e) {
-                System.err.printf("Scan: error reading %s due to %s\n", fileName, e.toString());
-                System.exit(1);
-            }
+        Batch outBatch = null;
+        try {
+            outBatch = in.readBatch(batchSize);
+        } catch (IOException e) {
+            System.err.printf("Scan: error reading %s due to %s\n", fileName, e.toString());
+            System.exit(1);
+        }
+
+        if (outBatch == null) {
+            eos = true;
+            close();
+        } else if (!outBatch.isFull()) {
+            // Sends the incomplete page and close in the next call.
+            eos = true;
         }
         return outBatch;
     }
 
+    /**
+     * The table is read from its file again when rewound.
+     *
+     * @return true since a scan is always rewindable.
+     */
+    @Override
+    public boolean isRewindable() {
+        return true;
+    }
+
+    /**
+     * Moves back to the start of the file.
+     *
+     * @return true if the operator is rewound successfully.
+     */
+    @Override
+    public boolean rewind() {
+        return seek(0);
+    }
+
+    /**
+     * Marks the position of the next tuple in the file.
+     *
+     * @return true since the position is always marked.
+     */
+    @Override
+    public boolean mark() {
+        markPosition = in == null ? -1 : in.getPosition();
+        return true;
+    }
+
+    /**
+     * Moves back to the position of the tuple marked in the file.
+     *
+     * @return true if the position is restored successfully.
+     */
+    @Override
+    public boolean restore() {
+        if (markPosition < 0) {
+            eos = true;
+            return true;
+        }
+        return seek(markPosition);
+    }
+
+    /**
+     * Moves to a given tuple in the file, which is opened again if it has been closed at the end of the file.
+     *
+     * @param position is the index of the tuple in the file.
+     * @return true if the file is read from that tuple onwards.
+     */
+    private boolean seek(long position) {
+        try {
+            if (in == null) {
+                in = new TupleReader(fileName, schema, isMemoryMapped);
+            }
+            in.seekPosition(position);
+        } catch (IOException e) {
+            System.err.println("Scan: error seeking " + fileName);
+            return false;
+        }
+        eos = false;
+        return true;
+    }
+
     /**
      * Closes the connection.
      * @return true if the connection is closed successfully.
      */
     public boolean close() {
+        if (in == null) {
+            return true;
+        }
         try {
             in.close();
         } catch (IOException e) {
             System.err.println("Scan: error closing " + fileName);
             return false;
         }
+        in = null;
         return true;
     }
 
@@ -1,14 +1,16 @@
 package qp.operators;
 
-import java.util.Date;
+import java.util.Vector;
+import java.util.function.Predicate;
 
-import qp.utils.Attribute;
 import qp.utils.Batch;
+import qp.utils.ColumnBatch;
 import qp.utils.Condition;
 import qp.utils.Tuple;
 
 /**
- * Defines the scan operator.
+ * Defines the select operator, which evaluates a select condition on every tuple in one pass. The condition
+ * may be a conjunction or disjunction of simple conditions, which are tested in order until the result is known.
  */
 public class Select extends Operator {
     // The base operator.
@@ -28,6 +30,23 @@ public class Select extends Operator {
     // The position of the cursor in the input buffer
     private int start;
 
+    // The input buffer stored column by column, when the base operator is vectorized
+    private ColumnBatch inColumns;
+    // The simple conditions applied in turn by the vectorized kernel
+    private Vector<Condition> conjuncts;
+    // The index of the selected attribute in each simple condition
+    private int[] attrIndices;
+    // The constant in each simple condition, converted to the type used by the columns
+    private Object[] values;
+    // The select condition compiled for the schema of the input
+    private Predicate<Tuple> predicate;
+
+    // The input buffers, the position of the cursor in them, and the end-of-stream flag at the marked position
+    private Batch markBatch;
+    private ColumnBatch markColumns;
+    private int markStart;
+    private boolean markEos;
+
     /**
      * Creates a new select operator.
      *
@@ -93,6 +112,20 @@ public class Select extends Operator {
         int tupleSize = schema.getTupleSize();
         batchSize = Batch.getPageSize() / tupleSize;
 
+        // Compiles the select condition once, and prepares it for the vectorized kernel.
+        predicate = con.compile(schema);
+        inColumns = null;
+        if (isConjunctive()) {
+            conjuncts = getConjuncts();
+            attrIndices = new int[conjuncts.size()];
+            values = new Object[conjuncts.size()];
+            for (int i = 0; i < conjuncts.size(); i++) {
+                Condition conjunct = conjuncts.elementAt(i);
+                attrIndices[i] = schema.indexOf(conjunct.getLeft());
+                values[i] = ColumnBatch.parseValue((String) conjunct.getRight(), schema.typeOf(attrIndices[i]));
+            }
+        }
+
         // Opens the base operator as well.
         return base.open();
     }
@@ -111,6 +144,9 @@ public class Select extends Operator {
 
         // Initiates an output buffer.
         outBatch = new Batch(batchSize);
+        if (isVectorized()) {
+            return nextFromColumns();
+        }
 
         // Continues until the the output buffer is full.
         while (!outBatch.isFull()) {
@@ -129,7 +165,7 @@ public class Select extends Operator {
             for (i = start; i < inBatch.size() && !outBatch.isFull(); i++) {
                 Tuple present = inBatch.elementAt(i);
                 // Adds the current tuple to the output buffer if satisfying the select condition.
-                if (checkCondition(present)) {
+                if (predicate.test(present)) {
                     outBatch.add(present);
                 }
             }
@@ -145,109 +181,140 @@ public class Select extends Operator {
     }
 
     /**
-     * Closes the output connection when there is no more page to output.
+     * Fills up the output buffer with the selected rows of the filtered pages from the vectorized base operator.
      *
-     * @return true if the connection is closed successfully.
+     * @return the next page of tuples.
      */
-    public boolean close() {
+    private Batch nextFromColumns() {
+        while (!outBatch.isFull()) {
+            if (inColumns == null || start == inColumns.size()) {
+                inColumns = nextColumns();
+                start = 0;
+                if (inColumns == null) {
+                    eos = true;
+                    return outBatch;
+                }
+            }
+            for (; start < inColumns.size() && !outBatch.isFull(); start++) {
+                outBatch.add(inColumns.elementAt(start));
+            }
+        }
+        return outBatch;
+    }
+
+    /**
+     * @return the simple conditions in the select condition if it is a conjunction, or the condition itself.
+     */
+    private Vector<Condition> getConjuncts() {
+        if (con.getOperator() == Condition.AND) {
+            return con.getChildren();
+        }
+        Vector<Condition> conditions = new Vector<>();
+        conditions.add(con);
+        return conditions;
+    }
+
+    /**
+     * @return true if the select condition is a conjunction of simple conditions, which the vectorized kernel supports.
+     */
+    private boolean isConjunctive() {
+        for (Condition conjunct : getConjuncts()) {
+            if (conjunct.isCompound()) {
+                return false;
+            }
+        }
         return true;
-        // return base.close();
     }
 
     /**
-     * Checks whether the selection condition is satisfied for the current tuple.
+     * @return true if the base operator is vectorized, and the select condition has no disjunction.
+     */
+    @Override
+    public boolean isVectorized() {
+        return base.isVectorized() && isConjunctive();
+    }
+
+    /**
+     * Filters the pages from the base operator with the vectorized select kernel, skipping the pages in which
+     * no row is selected.
      *
-     * @param tuple is the tuple to be checked.
-     * @return true if the condition is satisfied.
+     * @return the next page of selected tuples stored column by column.
      */
-    private boolean checkCondition(Tuple tuple) {
-        Attribute attr = con.getLeft();
-        int index = schema.indexOf(attr);
-        int dataType = schema.typeOf(attr);
-        Object srcValue = tuple.dataAt(index);
-        String checkValue = (String) con.getRight();
-        int expressionType = con.getOperator();
-
-        if (dataType == Attribute.INT) {
-            int srcVal = (Integer) srcValue;
-            int checkVal = Integer.parseInt(checkValue);
-
-            if (expressionType == Condition.LESS_THAN) {
-                return srcVal < checkVal;
-            } else if (expressionType == Condition.GREATER_THAN) {
-                return srcVal > checkVal;
-            } else if (expressionType == Condition.LTOE) {
-                return srcVal <= checkVal;
-            } else if (expressionType == Condition.GTOE) {
-                return srcVal >= checkVal;
-            } else if (expressionType == Condition.EQUAL) {
-                return srcVal == checkVal;
-            } else if (expressionType == Condition.NOTEQUAL) {
-                return srcVal != checkVal;
-            } else {
-                System.out.println("Select:incorrect condition operator");
-            }
-        } else if (dataType == Attribute.STRING) {
-            String srcVal = (String) srcValue;
-            int flag = srcVal.compareTo(checkValue);
-
-            if (expressionType == Condition.LESS_THAN) {
-                return flag < 0;
-            } else if (expressionType == Condition.GREATER_THAN) {
-                return flag > 0;
-            } else if (expressionType == Condition.LTOE) {
-                return flag <= 0;
-            } else if (expressionType == Condition.GTOE) {
-                return flag >= 0;
-            } else if (expressionType == Condition.EQUAL) {
-                return flag == 0;
-            } else if (expressionType == Condition.NOTEQUAL) {
-                return flag != 0;
-            } else {
-                System.out.println("Select: incorrect condition operator");
-            }
-        } else if (dataType == Attribute.REAL) {
-            float srcVal = (Float) srcValue;
-            float checkVal = Float.parseFloat(checkValue);
-
-            if (expressionType == Condition.LESS_THAN) {
-                return srcVal < checkVal;
-            } else if (expressionType == Condition.GREATER_THAN) {
-                return srcVal > checkVal;
-            } else if (expressionType == Condition.LTOE) {
-                return srcVal <= checkVal;
-            } else if (expressionType == Condition.GTOE) {
-                return srcVal >= checkVal;
-            } else if (expressionType == Condition.EQUAL) {
-                return srcVal == checkVal;
-            } else if (expressionType == Condition.NOTEQUAL) {
-                return srcVal != checkVal;
-            } else {
-                System.out.println("Select: incorrect condition operator");
+    @Override
+    public ColumnBatch nextColumns() {
+        if (!isVectorized()) {
+            return super.nextColumns();
+        }
+        ColumnBatch columns = base.nextColumns();
+        while (columns != null) {
+            for (int i = 0; i < attrIndices.length && !columns.isEmpty(); i++) {
+                columns.select(attrIndices[i], conjuncts.elementAt(i).getOperator(), values[i]);
             }
-        } else if (dataType == Attribute.TIME) {
-            Date srcVal = (Date) srcValue;
-            int checkMillis = Integer.parseInt(checkValue);
-            Date checkVal = new Date((long) checkMillis);
-            int comparisionResult = srcVal.compareTo(checkVal);
-
-            if (expressionType == Condition.LESS_THAN) {
-                return comparisionResult < 0;
-            } else if (expressionType == Condition.GREATER_THAN) {
-                return comparisionResult > 0;
-            } else if (expressionType == Condition.LTOE) {
-                return comparisionResult <= 0;
-            } else if (expressionType == Condition.GTOE) {
-                return comparisionResult >= 0;
-            } else if (expressionType == Condition.EQUAL) {
-                return comparisionResult == 0;
-            } else if (expressionType == Condition.NOTEQUAL) {
-                return comparisionResult != 0;
-            } else {
-                System.out.println("Select:incorrect condition operator");
+            if (!columns.isEmpty()) {
+                return columns;
             }
+            columns = base.nextColumns();
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * @return true if the base operator is rewindable, since the selection is performed on the fly.
+     */
+    @Override
+    public boolean isRewindable() {
+        return base.isRewindable();
+    }
+
+    /**
+     * Restarts the selection from the first page of the base operator.
+     *
+     * @return true if the operator is rewound successfully.
+     */
+    @Override
+    public boolean rewind() {
+        eos = false;
+        start = 0;
+        inColumns = null;
+        return base.rewind();
+    }
+
+    /**
+     * Marks the position in the base operator, together with the input page being filtered.
+     *
+     * @return true if the base operator is marked successfully.
+     */
+    @Override
+    public boolean mark() {
+        markBatch = inBatch;
+        markColumns = inColumns;
+        markStart = start;
+        markEos = eos;
+        return base.mark();
+    }
+
+    /**
+     * Moves back to the marked position in the base operator, and to the input page being filtered there.
+     *
+     * @return true if the base operator is restored successfully.
+     */
+    @Override
+    public boolean restore() {
+        inBatch = markBatch;
+        inColumns = markColumns;
+        start = markStart;
+        eos = markEos;
+        return base.restore();
+    }
+
+    /**
+     * Closes the output connection when there is no more page to output.
+     *
+     * @return true if the connection is closed successfully.
+     */
+    public boolean close() {
+        return true;
+        // return base.close();
     }
 
     @Override
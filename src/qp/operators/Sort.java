@@ -1,38 +1,86 @@
 package qp.operators;
 
-import java.io.EOFException;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.PriorityQueue;
 import java.util.UUID;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import qp.utils.Attribute;
 import qp.utils.Batch;
+import qp.utils.LoserTree;
+import qp.utils.RunReader;
 import qp.utils.Tuple;
 import qp.utils.TupleInRun;
+import qp.utils.TupleReader;
+import qp.utils.TupleWriter;
 
 /**
- * Applies external sort on a given relation.
+ * Applies external sort on a given relation. In the parallel mode (off by default, and turned on by the system
+ * property <pre>qp.sort.parallel</pre>), the sorted runs are sorted and merged by the threads of the common
+ * {@link ForkJoinPool}. The chunks sorted into runs share the B buffer pages, and so do the merges running at
+ * the same time. In the distinct mode, only the first of the tuples with equal sort keys is kept, and the
+ * duplicates are dropped as early as the sorted runs are generated, so that the runs shrink pass by pass.
  */
 public class Sort extends Operator {
+    // Whether the sorted runs are read ahead in the background while merging.
+    private static boolean isPrefetching = true;
+    // Whether the sorted runs are generated and merged by multiple threads.
+    private static boolean isParallel = Boolean.getBoolean("qp.sort.parallel");
+
     // The base operator (i.e., the unsorted relation).
     private final Operator base;
     // A random UUID to avoid conflicts between different instances of Sort operators.
     private final String uuid = UUID.randomUUID().toString();
     // The number of buffer pages available.
     private final int numOfBuffers;
+    // The number of buffer pages available to the last pass merged on the fly, which may be fewer.
+    private int numOfMergeBuffers;
     // The index of the attribute to sort based on.
     private final Vector<Integer> sortKeyIndices = new Vector<>();
+    // Whether to sort in descending order.
+    private final boolean isDescending;
+    // Whether to eliminate the tuples with equal sort keys.
+    private boolean isDistinct = false;
     // The number of tuples per batch.
     private final int batchSize;
+    // The files storing the sorted result (in order), and the index of the one being read.
+    private Vector<String> sortedFileNames = new Vector<>();
+    private int sortedFileIndex;
     // The input stream from which we read the sorted result.
-    private ObjectInputStream sortedStream;
+    private TupleReader sortedStream;
+    // The streams of the sorted runs in the last pass, which are merged on the fly by a tree of losers.
+    private RunReader[] mergeStreams;
+    private LoserTree mergeTree;
+    // The upper bound (exclusive) of the tuples merged on the fly, or null if there is no upper bound.
+    private Tuple mergeUpper;
+    // The last tuple merged on the fly, or null if there is none.
+    private Tuple mergeLast;
+    // The ID of the last pass, and the number of sorted runs merged in it.
+    private int mergePassID;
+    private int numOfMergeRuns;
+    // The key ranges of the last pass being merged in the background (only in the parallel mode).
+    private Vector<Future<Vector<Tuple>>> rangeTasks = new Vector<>();
     // Records whether we have reached out-of-stream for the sorted result.
     private boolean eos = false;
+    // The input buffer while generating sorted runs, and the position of the next tuple in it.
+    private Batch inBatch;
+    private int inCursor;
+    // The first tuple of every page in each sorted run of the current pass (only kept in the parallel mode).
+    private Vector<Vector<Tuple>> runFences = new Vector<>();
+    // Whether the sorted result is kept until the operator is closed, so that it can be read again from a mark.
+    private boolean isKept = false;
+    // The marked position: the index of the file being read (or -1 if it is in the merge on the fly), and the
+    // position of the next tuple in that file or in each sorted run being merged.
+    private int markFileIndex;
+    private long[] markPositions;
+    // The heads of the sorted runs being merged, and the last tuple merged, at the marked position.
+    private Tuple[] markHeads;
+    private Tuple markLast;
 
     /**
      * Creates a new sort operator.
@@ -41,11 +89,24 @@ public class Sort extends Operator {
      * @param numOfBuffers is the number of buffers (in pages) available.
      */
     public Sort(Operator base, Vector attrList, int numOfBuffers) {
+        this(base, attrList, numOfBuffers, false);
+    }
+
+    /**
+     * Creates a new sort operator.
+     *
+     * @param base         is the base operator.
+     * @param numOfBuffers is the number of buffers (in pages) available.
+     * @param isDescending is whether to sort in descending order.
+     */
+    public Sort(Operator base, Vector attrList, int numOfBuffers, boolean isDescending) {
         super(OpType.SORT);
         this.schema = base.schema;
 
         this.base = base;
         this.numOfBuffers = numOfBuffers;
+        this.numOfMergeBuffers = numOfBuffers;
+        this.isDescending = isDescending;
         this.batchSize = Batch.getPageSize() / schema.getTupleSize();
 
         for (int i = 0; i < attrList.size(); i++) {
@@ -55,9 +116,29 @@ public class Sort extends Operator {
     }
 
     /**
-     * Opens the operator to prepare all the necessary resources. In the current implementation,
-     * the {@link Sort} operator is not iterator-based. We would materialize it by finishing the
-     * whole sorting when we open it.
+     * Sets whether to eliminate the tuples with equal sort keys (i.e., duplicates) while sorting.
+     *
+     * @param isDistinct is whether to eliminate duplicates.
+     */
+    public void setDistinct(boolean isDistinct) {
+        this.isDistinct = isDistinct;
+    }
+
+    /**
+     * Sets the number of buffers available to the last pass, which is merged on the fly while the sorted result
+     * is read. It is fewer than the number of buffers for the other passes if the sorted result is read at the
+     * same time as another one (e.g., in a sort-merge join), in which case more runs are merged beforehand.
+     *
+     * @param numOfMergeBuffers is the number of buffer pages available to the last pass.
+     */
+    public void setNumOfMergeBuffers(int numOfMergeBuffers) {
+        this.numOfMergeBuffers = numOfMergeBuffers;
+    }
+
+    /**
+     * Opens the operator to prepare all the necessary resources. The sorted runs are generated and
+     * merged until they can be merged in one pass, and the last pass is then pipelined into
+     * {@link #next()} instead of being written out.
      *
      * @return true if the operator is open successfully.
      */
@@ -67,196 +148,579 @@ public class Sort extends Operator {
         if (!base.open()) {
             return false;
         }
+        isKept = false;
+        markPositions = null;
+        numOfMergeRuns = 0;
 
         // Phase 1: generate sorted runs using in-memory sorting algorithms.
-        int numOfRuns = generateSortedRuns();
+        int numOfRuns = isParallel ? generateSortedRunsInParallel() : generateSortedRuns();
         // Phase 2: merge sorted runs together (could be in multiple passes).
-        return mergeRuns(numOfRuns, 1) == 1;
+        return mergeRuns(numOfRuns, 1) >= 1;
     }
 
     /**
-     * Generates sorted runs and stores them to disk. Currently, we utilize all buffer pages available
-     * and thus minimizes the number of runs generated.
+     * Generates sorted runs and stores them to disk using replacement selection. The tuples stream through
+     * a heap filling up all buffer pages except one input and one output page. The smallest tuple in the
+     * heap which can still extend the current run is written out, and is replaced by the next input tuple.
+     * An input tuple smaller than the last tuple written is held back for the next run. The runs are thus
+     * twice as long as the buffer on average, and a sorted input results in a single run. In the distinct mode,
+     * a tuple equal to the last tuple written to the current run is dropped instead.
      *
      * @return the number of sorted runs generated.
      */
     private int generateSortedRuns() {
-        // Reads in the next page from base operator.
-        Batch inBatch = base.next();
-
-        int numOfRuns = 0;
-        while (inBatch != null) {
-            // Stores the tuples that will be in the current run.
-            Vector<Tuple> tuplesInRun = new Vector<>();
-
-            // Reads in as many tuples as possible (until either there is no more tuples or reaches buffer limit).
-            for (int i = 0; i < numOfBuffers && inBatch != null; i++) {
-                tuplesInRun.addAll(inBatch.getTuples());
-                // Do NOT read a new page if the current page is the last page of the current sorted run
-                // (because we do not have any more memory buffer).
-                if (i != numOfBuffers - 1) {
-                    inBatch = base.next();
-                }
+        int capacity = Math.max(numOfBuffers - 2, 1) * batchSize;
+        // A min-heap of the tuples in memory, ordered by the run they belong to first.
+        PriorityQueue<TupleInRun> heap = new PriorityQueue<>(capacity, (o1, o2) -> {
+            if (o1.runID != o2.runID) {
+                return Integer.compare(o1.runID, o2.runID);
             }
+            return compareTuples(o1.tuple, o2.tuple);
+        });
+
+        // Fills up the heap with the first tuples from the base operator.
+        inBatch = base.next();
+        inCursor = 0;
+        while (heap.size() < capacity) {
+            Tuple tuple = nextInputTuple();
+            if (tuple == null) {
+                break;
+            }
+            heap.add(new TupleInRun(tuple, 0, 0));
+        }
 
-            // Sorts the tuples using in-memory sorting algorithms.
-            tuplesInRun.sort(this::compareTuples);
-
+        int currentRunID = 0;
+        try {
             // Stores the sorted result into disk (phase 1 is the 0th pass).
-            String fileName = getSortedRunFileName(0, numOfRuns);
-            try {
-                ObjectOutputStream stream = new ObjectOutputStream(new FileOutputStream(fileName));
-                // TODO: do we need to write each batch to a single file?
-                for (Tuple tuple : tuplesInRun) {
-                    stream.writeObject(tuple);
+            TupleWriter stream = new TupleWriter(getSortedRunFileName(0, currentRunID), schema);
+            Tuple lastTuple = null;
+            while (!heap.isEmpty()) {
+                TupleInRun outTuple = heap.poll();
+                if (outTuple.runID != currentRunID) {
+                    stream.close();
+                    currentRunID = outTuple.runID;
+                    stream = new TupleWriter(getSortedRunFileName(0, currentRunID), schema);
+                    lastTuple = null;
+                }
+                if (!isDuplicate(outTuple.tuple, lastTuple)) {
+                    stream.write(outTuple.tuple);
+                    lastTuple = outTuple.tuple;
+                }
+
+                // Replaces the tuple written with the next input tuple, skipping those equal to it.
+                Tuple inTuple = nextInputTuple();
+                while (inTuple != null && isDuplicate(inTuple, lastTuple)) {
+                    inTuple = nextInputTuple();
+                }
+                if (inTuple != null) {
+                    int runID = compareTuples(inTuple, outTuple.tuple) >= 0 ? currentRunID : currentRunID + 1;
+                    heap.add(new TupleInRun(inTuple, runID, 0));
                 }
-                stream.close();
-            } catch (IOException e) {
-                System.err.printf("Sort: unable to write sortedRun with ID=%d due to %s\n", numOfRuns, e.toString());
-                System.exit(1);
             }
+            stream.close();
+        } catch (IOException e) {
+            System.err.printf("Sort: unable to write sortedRun with ID=%d due to %s\n", currentRunID, e.toString());
+            System.exit(1);
+        }
 
-            // Reads in another page and prepares for the next iteration.
+        return currentRunID + 1;
+    }
+
+    /**
+     * Generates sorted runs in the parallel mode. The calling thread keeps reading the input into chunks, and
+     * each chunk is sorted and written out as a run by the fork-join pool in the meantime. The (B - 2) pages
+     * are split evenly across the chunks held in memory at a time, so that they stay within the buffer.
+     *
+     * @return the number of sorted runs generated.
+     */
+    private int generateSortedRunsInParallel() {
+        int maxInFlight = getNumOfChunks(numOfBuffers);
+        int capacity = getRunLength(numOfBuffers) * batchSize;
+        Vector<Future<Vector<Tuple>>> tasks = new Vector<>();
+
+        inBatch = base.next();
+        inCursor = 0;
+        Tuple tuple = nextInputTuple();
+        do {
+            // Fills up the next chunk from the base operator.
+            Tuple[] chunk = new Tuple[capacity];
+            int size = 0;
+            while (tuple != null && size < capacity) {
+                chunk[size++] = tuple;
+                tuple = nextInputTuple();
+            }
+
+            // Waits for an earlier chunk to be written out if there are too many chunks in memory.
+            if (tasks.size() >= maxInFlight) {
+                awaitTask(tasks.elementAt(tasks.size() - maxInFlight));
+            }
+            int runID = tasks.size();
+            int numOfTuples = size;
+            tasks.add(ForkJoinPool.commonPool().submit(() -> writeSortedRun(chunk, numOfTuples, runID)));
+        } while (tuple != null);
+
+        runFences = new Vector<>();
+        for (Future<Vector<Tuple>> task : tasks) {
+            runFences.add(awaitTask(task));
+        }
+        return tasks.size();
+    }
+
+    /**
+     * Sorts a chunk of tuples in memory, and writes it out as a sorted run (phase 1 is the 0th pass).
+     *
+     * @param chunk       is the chunk of tuples.
+     * @param numOfTuples is the number of tuples in the chunk.
+     * @param runID       is the ID of the sorted run.
+     * @return the first tuple of every page in the sorted run.
+     */
+    private Vector<Tuple> writeSortedRun(Tuple[] chunk, int numOfTuples, int runID) throws IOException {
+        Arrays.parallelSort(chunk, 0, numOfTuples, this::compareTuples);
+
+        Vector<Tuple> fences = new Vector<>();
+        TupleWriter stream = new TupleWriter(getSortedRunFileName(0, runID), schema);
+        int numOfWritten = 0;
+        for (int i = 0; i < numOfTuples; i++) {
+            if (i > 0 && isDuplicate(chunk[i], chunk[i - 1])) {
+                continue;
+            }
+            if (numOfWritten % batchSize == 0) {
+                fences.add(chunk[i]);
+            }
+            stream.write(chunk[i]);
+            numOfWritten++;
+        }
+        stream.close();
+        return fences;
+    }
+
+    /**
+     * Reads the next tuple from the base operator.
+     *
+     * @return the next tuple, or null if the base operator reaches its end-of-stream.
+     */
+    private Tuple nextInputTuple() {
+        while (inBatch != null && inCursor == inBatch.size()) {
             inBatch = base.next();
-            numOfRuns++;
+            inCursor = 0;
+        }
+        if (inBatch == null) {
+            return null;
         }
+        return inBatch.elementAt(inCursor++);
+    }
 
-        return numOfRuns;
+    /**
+     * Provides the number of sorted runs merged at a time. With read-ahead, every input run takes up 2 buffer
+     * pages (one being merged, one being read in the background) and one page is left for the output.
+     *
+     * @param numOfBuffers is the number of buffer pages available.
+     * @return the fan-in of each merge.
+     */
+    public static int getMergeFanIn(int numOfBuffers) {
+        if (isPrefetching && numOfBuffers >= 5) {
+            return (numOfBuffers - 1) / 2;
+        }
+        return Math.max(numOfBuffers - 1, 2);
+    }
+
+    /**
+     * Provides the number of chunks sorted into runs at the same time in the parallel mode, which is one per
+     * thread of the fork-join pool as long as each chunk has at least one of the (B - 2) pages.
+     *
+     * @param numOfBuffers is the number of buffer pages available.
+     * @return the number of chunks held in memory at a time.
+     */
+    public static int getNumOfChunks(int numOfBuffers) {
+        return Math.max(Math.min(getParallelism(), numOfBuffers - 2), 1);
+    }
+
+    /**
+     * Provides the number of merges running at the same time in the parallel mode. Each merge takes one page per
+     * run (or two with read-ahead, see {@link #getMergeFanIn(int)}) and one output page, and the merges running
+     * together share the B buffer pages, so that there are at most B / (pages per merge) of them.
+     *
+     * @param numOfBuffers is the number of buffer pages available.
+     * @param numOfRuns    is the number of runs in each merge.
+     * @return the number of merges running at the same time.
+     */
+    public static int getNumOfMerges(int numOfBuffers, int numOfRuns) {
+        int pagesPerRun = isPrefetching && numOfBuffers >= 5 ? 2 : 1;
+        return Math.max(Math.min(getParallelism(), numOfBuffers / (pagesPerRun * numOfRuns + 1)), 1);
+    }
+
+    /**
+     * Provides the average number of pages in a sorted run generated from the input. Replacement selection
+     * generates runs twice as long as the (B - 2) pages of tuples in memory, while each chunk of the parallel
+     * mode is sorted into a run of its own share of those pages.
+     *
+     * @param numOfBuffers is the number of buffer pages available.
+     * @return the number of pages per sorted run.
+     */
+    public static int getRunLength(int numOfBuffers) {
+        if (isParallel) {
+            return Math.max((numOfBuffers - 2) / getNumOfChunks(numOfBuffers), 1);
+        }
+        return 2 * Math.max(numOfBuffers - 2, 1);
+    }
+
+    /**
+     * @return the number of threads sorting and merging in the parallel mode, or 1 if it is off.
+     */
+    public static int getParallelism() {
+        return isParallel ? Math.max(ForkJoinPool.getCommonPoolParallelism(), 1) : 1;
+    }
+
+    /**
+     * Sets whether the sorted runs are read ahead in the background while merging.
+     *
+     * @param isPrefetching is whether to prefetch the pages of the sorted runs.
+     */
+    public static void setPrefetching(boolean isPrefetching) {
+        Sort.isPrefetching = isPrefetching;
+    }
+
+    /**
+     * @return true if the sorted runs are generated and merged by multiple threads.
+     */
+    public static boolean isParallel() {
+        return isParallel;
+    }
+
+    /**
+     * Sets whether the sorted runs are generated and merged by multiple threads.
+     *
+     * @param isParallel is whether to sort in the parallel mode.
+     */
+    public static void setParallel(boolean isParallel) {
+        Sort.isParallel = isParallel;
     }
 
     /**
      * Merges a given number of sorted runs in a manner similar to merge-sort. Here we use all available
-     * buffers to minimize the number of passes.
+     * buffers to minimize the number of passes. In the parallel mode, the groups of runs in a pass are
+     * merged at the same time, and the last pass is split into key ranges which are merged at the same time,
+     * as many as the buffers allow (see {@link #getNumOfMerges(int, int)}).
      *
      * @param numOfRuns is the number of sorted runs to be merged.
      * @param passID    is the ID of the current pass.
-     * @return the number of sorted runs after one round of merge.
+     * @return the number of sorted runs in the last pass.
      */
     private int mergeRuns(int numOfRuns, int passID) {
         // Exits if there is no more than 1 run (which means there is no need to merge anymore).
         if (numOfRuns <= 1) {
-            try {
-                String fileName = getSortedRunFileName(passID - 1, numOfRuns - 1);
-                sortedStream = new ObjectInputStream(new FileInputStream(fileName));
-            } catch (IOException e) {
-                System.err.printf("Sort: cannot create sortedStream due to %s\n", e.toString());
+            sortedFileNames = new Vector<>();
+            sortedFileNames.add(getSortedRunFileName(passID - 1, numOfRuns - 1));
+            return openSortedFiles();
+        }
+
+        // Uses the input buffers for (fanIn) runs at a time, and the left one as output buffer.
+        int fanIn = getMergeFanIn(numOfBuffers);
+        if (numOfRuns <= getMergeFanIn(numOfMergeBuffers)) {
+            if (isParallel) {
+                return mergeRunsByRange(numOfRuns, passID);
             }
-            return numOfRuns;
+            sortedFileNames = new Vector<>();
+            rangeTasks = new Vector<>();
+            return startMerge(numOfRuns, passID, null);
         }
 
-        // Uses (numOfBuffers - 1) as input buffers, and the left one as output buffer.
+        int maxInFlight = getNumOfMerges(numOfBuffers, fanIn);
+        Vector<Future<Vector<Tuple>>> tasks = new Vector<>();
         int numOfOutputRuns = 0;
-        for (int startRunID = 0; startRunID < numOfRuns; startRunID = startRunID + numOfBuffers - 1) {
-            int endRunID = Math.min(startRunID + numOfBuffers - 1, numOfRuns);
-            try {
-                mergeRunsBetween(startRunID, endRunID, passID, numOfOutputRuns);
-            } catch (IOException e) {
-                System.err.printf("Sort: cannot mergeRuns on passID=%d for [%d, %d) due to %s\n", passID, startRunID, endRunID, e.toString());
-                System.exit(1);
-            } catch (ClassNotFoundException e) {
-                System.err.printf("Sort: class not found on passID=%d for [%d, %d) due to %s\n", passID, startRunID, endRunID, e.toString());
-                System.exit(1);
+        for (int startRunID = 0; startRunID < numOfRuns; startRunID = startRunID + fanIn) {
+            int fromRunID = startRunID;
+            int endRunID = Math.min(startRunID + fanIn, numOfRuns);
+            int outID = numOfOutputRuns;
+            if (isParallel) {
+                // Waits for an earlier group to be merged if there are too many merges sharing the buffers.
+                if (tasks.size() >= maxInFlight) {
+                    awaitTask(tasks.elementAt(tasks.size() - maxInFlight));
+                }
+                tasks.add(ForkJoinPool.commonPool().submit(() -> mergeRunsBetween(fromRunID, endRunID, passID, outID)));
+            } else {
+                try {
+                    mergeRunsBetween(startRunID, endRunID, passID, outID);
+                } catch (IOException e) {
+                    System.err.printf("Sort: cannot mergeRuns on passID=%d for [%d, %d) due to %s\n", passID, startRunID, endRunID, e.toString());
+                    System.exit(1);
+                }
             }
             numOfOutputRuns++;
         }
 
+        // Waits for the groups merged in parallel.
+        if (isParallel) {
+            runFences = new Vector<>();
+            for (Future<Vector<Tuple>> task : tasks) {
+                runFences.add(awaitTask(task));
+            }
+        }
+
         // Continues to the next round using a recursive call.
         return mergeRuns(numOfOutputRuns, passID + 1);
     }
 
     /**
-     * Merges the sorted runs in the range of [startRunID, endRunID). Since we have a fix number of buffer
-     * pages, we assume endRunID - startRunID <= numOfBuffers - 1.
+     * Merges the sorted runs in the last pass by splitting them into key ranges. The first range is merged on
+     * the fly, while each of the others is merged by its own thread into its own file in the meantime. The
+     * splitters are sampled from the first tuples of the pages in the runs, so that each range covers about the
+     * same number of pages.
+     *
+     * @param numOfRuns is the number of sorted runs to be merged.
+     * @param passID    is the ID of the current pass.
+     * @return the number of sorted runs in the last pass.
+     */
+    private int mergeRunsByRange(int numOfRuns, int passID) {
+        Vector<Tuple> samples = new Vector<>();
+        for (Vector<Tuple> fences : runFences) {
+            samples.addAll(fences);
+        }
+        samples.sort(this::compareTuples);
+
+        // Picks the splitters, where the unbounded ends of the key range are left as null.
+        int numOfRanges = Math.max(Math.min(getNumOfMerges(numOfMergeBuffers, numOfRuns), samples.size()), 1);
+        Tuple[] splitters = new Tuple[numOfRanges + 1];
+        for (int i = 1; i < numOfRanges; i++) {
+            splitters[i] = samples.elementAt(i * samples.size() / numOfRanges);
+        }
+
+        rangeTasks = new Vector<>();
+        sortedFileNames = new Vector<>();
+        for (int i = 1; i < numOfRanges; i++) {
+            Tuple lower = splitters[i];
+            Tuple upper = splitters[i + 1];
+            String outputFileName = getSortedRunFileName(passID, i);
+            int[] startPages = getStartPages(numOfRuns, lower);
+            rangeTasks.add(ForkJoinPool.commonPool().submit(() -> mergeRange(0, numOfRuns, passID, outputFileName, lower, upper, startPages)));
+            sortedFileNames.add(outputFileName);
+        }
+        return startMerge(numOfRuns, passID, splitters[1]);
+    }
+
+    /**
+     * Opens the sorted runs of the last pass to be merged on the fly.
+     *
+     * @param numOfRuns is the number of sorted runs to be merged.
+     * @param passID    is the ID of the current pass.
+     * @param upper     is the largest tuple to be merged (exclusive), or null if there is no upper bound.
+     * @return the number of sorted runs in the last pass.
+     */
+    private int startMerge(int numOfRuns, int passID, Tuple upper) {
+        mergePassID = passID;
+        numOfMergeRuns = numOfRuns;
+        mergeUpper = upper;
+        mergeLast = null;
+        mergeStreams = new RunReader[numOfRuns];
+        try {
+            mergeTree = openRuns(mergeStreams, 0, passID, null, upper, null);
+        } catch (IOException e) {
+            System.err.printf("Sort: cannot mergeRuns on passID=%d due to %s\n", passID, e.toString());
+            System.exit(1);
+        }
+        return numOfRuns;
+    }
+
+    /**
+     * Finishes the merge on the fly, and deletes the sorted runs of the last pass once all the key ranges
+     * being merged in the background are done.
+     */
+    private void finishMerge() throws IOException {
+        for (RunReader inStream : mergeStreams) {
+            if (inStream != null) {
+                inStream.close();
+            }
+        }
+        mergeStreams = null;
+        mergeTree = null;
+        mergeLast = null;
+
+        for (Future<Vector<Tuple>> task : rangeTasks) {
+            awaitTask(task);
+        }
+        rangeTasks = new Vector<>();
+        if (!isKept) {
+            deleteRuns(0, numOfMergeRuns, mergePassID - 1);
+        }
+    }
+
+    /**
+     * Finds the page in each sorted run from which the tuples no smaller than a given lower bound may start.
+     *
+     * @param numOfRuns is the number of sorted runs.
+     * @param lower     is the lower bound, or null if there is none.
+     * @return the index of the page to start reading from in each sorted run.
+     */
+    private int[] getStartPages(int numOfRuns, Tuple lower) {
+        int[] startPages = new int[numOfRuns];
+        if (lower == null) {
+            return startPages;
+        }
+        for (int i = 0; i < numOfRuns; i++) {
+            // Binary searches for the number of pages starting with a tuple smaller than the lower bound.
+            Vector<Tuple> fences = runFences.elementAt(i);
+            int low = 0;
+            int high = fences.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareTuples(fences.elementAt(mid), lower) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            startPages[i] = Math.max(low - 1, 0);
+        }
+        return startPages;
+    }
+
+    /**
+     * Merges the sorted runs in the range of [startRunID, endRunID), and deletes them afterwards. Since we have
+     * a fix number of buffer pages, we assume endRunID - startRunID <= getMergeFanIn(numOfBuffers).
      *
      * @param startRunID is the sorted run ID of the lower bound (inclusive).
      * @param endRunID   is the sorted run ID of the upper bound (exclusive).
      * @param passID     is the ID of the current pass.
      * @param outID      is the sorted run ID of the output.
-     * @implNote we effectively implement a k-way merge sort here.
-     */
-    private void mergeRunsBetween(int startRunID, int endRunID, int passID, int outID) throws IOException, ClassNotFoundException {
-        // Each input sorted run has 1 buffer page.
-        Batch[] inBatches = new Batch[endRunID - startRunID];
-        // Records whether a certain input sorted run has reached its end-of-stream.
-        boolean[] inEos = new boolean[endRunID - startRunID];
-        // Each input sorted run has one stream to read from.
-        ObjectInputStream[] inStreams = new ObjectInputStream[endRunID - startRunID];
-        for (int i = startRunID; i < endRunID; i++) {
-            String inputFileName = getSortedRunFileName(passID - 1, i);
-            ObjectInputStream inStream = new ObjectInputStream(new FileInputStream(inputFileName));
-            inStreams[i - startRunID] = inStream;
+     * @return the first tuple of every page in the output run.
+     */
+    private Vector<Tuple> mergeRunsBetween(int startRunID, int endRunID, int passID, int outID) throws IOException {
+        Vector<Tuple> fences = mergeRange(startRunID, endRunID, passID, getSortedRunFileName(passID, outID), null, null, null);
+        deleteRuns(startRunID, endRunID, passID - 1);
+        return fences;
+    }
 
-            // Fills in the data from an input run.
-            Batch inBatch = new Batch(batchSize);
-            while (!inBatch.isFull()) {
-                try {
-                    Tuple data = (Tuple) inStream.readObject();
-                    inBatch.add(data);
-                } catch (EOFException eof) {
-                    break;
-                }
-            }
-            inBatches[i - startRunID] = inBatch;
-        }
+    /**
+     * Merges the tuples within a key range from the sorted runs in the range of [startRunID, endRunID).
+     *
+     * @param startRunID     is the sorted run ID of the lower bound (inclusive).
+     * @param endRunID       is the sorted run ID of the upper bound (exclusive).
+     * @param passID         is the ID of the current pass.
+     * @param outputFileName is the name of the output file.
+     * @param lower          is the smallest tuple to be merged (inclusive), or null if there is no lower bound.
+     * @param upper          is the largest tuple to be merged (exclusive), or null if there is no upper bound.
+     * @param startPages     is the page to start reading from in each sorted run, or null to read them all.
+     * @return the first tuple of every page in the output.
+     * @implNote we effectively implement a k-way merge sort here, using a tree of losers.
+     */
+    private Vector<Tuple> mergeRange(int startRunID, int endRunID, int passID, String outputFileName,
+                                     Tuple lower, Tuple upper, int[] startPages) throws IOException {
+        // Each input sorted run has one (double-buffered) stream to read from.
+        RunReader[] inStreams = new RunReader[endRunID - startRunID];
+        LoserTree tree = openRuns(inStreams, startRunID, passID, lower, upper, startPages);
 
-        // A min-heap used later for k-way merge (representing the 1 page used for output buffer).
-        PriorityQueue<TupleInRun> outHeap = new PriorityQueue<>(batchSize, (o1, o2) -> compareTuples(o1.tuple, o2.tuple));
         // The stream for output buffer.
-        String outputFileName = getSortedRunFileName(passID, outID);
-        ObjectOutputStream outStream = new ObjectOutputStream(new FileOutputStream(outputFileName));
-
-        // Inserts the 1st element (i.e., the smallest element) from each input buffer into the output heap.
-        for (int i = 0; i < endRunID - startRunID; i++) {
-            Batch inBatch = inBatches[i];
-            if (inBatch == null || inBatch.isEmpty()) {
-                inEos[i] = true;
-                continue;
-            }
-            Tuple current = inBatch.elementAt(0);
-            outHeap.add(new TupleInRun(current, i, 0));
-        }
-
-        // Continues until the output heap is empty (which means we have sorted and outputted everything).
-        while (!outHeap.isEmpty()) {
-            // Extracts and writes out the root of the output heap (which is the smallest element among all input runs).
-            TupleInRun outTuple = outHeap.poll();
-            outStream.writeObject(outTuple.tuple);
-
-            // Attempts to retrieve the next element from the same input buffer.
-            int nextBatchID = outTuple.runID;
-            int nextIndex = outTuple.tupleID + 1;
-            // Reads in the next page from the same input stream if that input buffer has been exhausted.
-            if (nextIndex == batchSize) {
-                Batch inBatch = new Batch(batchSize);
-                while (!inBatch.isFull()) {
-                    try {
-                        Tuple data = (Tuple) inStreams[nextBatchID].readObject();
-                        inBatch.add(data);
-                    } catch (EOFException eof) {
-                        break;
-                    }
+        TupleWriter outStream = new TupleWriter(outputFileName, schema);
+        Vector<Tuple> fences = new Vector<>();
+        int numOfTuples = 0;
+
+        // Repeatedly writes out the smallest head, and replaces it with the next tuple from the same run.
+        Tuple lastTuple = null;
+        while (!tree.isEmpty()) {
+            Tuple outTuple = tree.peek();
+            if (!isDuplicate(outTuple, lastTuple)) {
+                if (numOfTuples % batchSize == 0) {
+                    fences.add(outTuple);
                 }
-                inBatches[nextBatchID] = inBatch;
-
-                // Resets the index for that input buffer to be 0.
-                nextIndex = 0;
+                outStream.write(outTuple);
+                numOfTuples++;
+                lastTuple = outTuple;
             }
 
-            // Inserts the next element into the output heap if that input buffer is not empty.
-            Batch inBatch = inBatches[nextBatchID];
-            if (inBatch == null || inBatch.size() <= nextIndex) {
-                inEos[nextBatchID] = true;
-                continue;
-            }
-            Tuple nextTuple = inBatch.elementAt(nextIndex);
-            outHeap.add(new TupleInRun(nextTuple, nextBatchID, nextIndex));
+            Tuple next = inStreams[tree.getWinner()].next();
+            tree.replaceWinner(isBelow(next, upper) ? next : null);
         }
 
         // Closes the resources used.
-        for (ObjectInputStream inStream : inStreams) {
+        for (RunReader inStream : inStreams) {
             inStream.close();
         }
         outStream.close();
+        return fences;
+    }
+
+    /**
+     * Opens a number of consecutive sorted runs, and builds a tree of losers over their first tuples within
+     * a key range.
+     *
+     * @param inStreams  are the streams to be opened, one for each sorted run.
+     * @param startRunID is the ID of the first sorted run.
+     * @param passID     is the ID of the current pass.
+     * @param lower      is the smallest tuple to be merged (inclusive), or null if there is no lower bound.
+     * @param upper      is the largest tuple to be merged (exclusive), or null if there is no upper bound.
+     * @param startPages is the page to start reading from in each sorted run, or null to read them all.
+     * @return the tree of losers over the sorted runs.
+     */
+    private LoserTree openRuns(RunReader[] inStreams, int startRunID, int passID, Tuple lower, Tuple upper,
+                               int[] startPages) throws IOException {
+        // The head of each input sorted run.
+        Tuple[] heads = new Tuple[inStreams.length];
+        for (int i = 0; i < inStreams.length; i++) {
+            String inputFileName = getSortedRunFileName(passID - 1, startRunID + i);
+            // The fences are taken every batchSize tuples, so the page p of a run starts at the tuple p * batchSize.
+            long startPosition = startPages == null ? 0 : (long) startPages[i] * batchSize;
+            inStreams[i] = new RunReader(inputFileName, schema, batchSize, isPrefetching, startPosition);
+        }
+        for (int i = 0; i < inStreams.length; i++) {
+            Tuple head = inStreams[i].next();
+            while (head != null && lower != null && compareTuples(head, lower) < 0) {
+                head = inStreams[i].next();
+            }
+            heads[i] = isBelow(head, upper) ? head : null;
+        }
+        return new LoserTree(heads, this::compareTuples);
+    }
+
+    /**
+     * Checks whether a tuple is below an upper bound.
+     *
+     * @param tuple is the tuple, or null if there is none.
+     * @param upper is the upper bound (exclusive), or null if there is no upper bound.
+     * @return true if the tuple exists and is smaller than the upper bound.
+     */
+    private boolean isBelow(Tuple tuple, Tuple upper) {
+        return tuple != null && (upper == null || compareTuples(tuple, upper) < 0);
+    }
+
+    /**
+     * Checks whether a tuple is dropped as a duplicate of the last tuple kept, which only happens in the
+     * distinct mode.
+     *
+     * @param tuple     is the tuple.
+     * @param lastTuple is the last tuple kept, or null if there is none.
+     * @return true if the tuple is a duplicate.
+     */
+    private boolean isDuplicate(Tuple tuple, Tuple lastTuple) {
+        return isDistinct && lastTuple != null && compareTuples(tuple, lastTuple) == 0;
+    }
+
+    /**
+     * Deletes the sorted runs in the range of [startRunID, endRunID) which are no longer needed.
+     *
+     * @param startRunID is the sorted run ID of the lower bound (inclusive).
+     * @param endRunID   is the sorted run ID of the upper bound (exclusive).
+     * @param passID     is the ID of the pass which generated the sorted runs.
+     */
+    private void deleteRuns(int startRunID, int endRunID, int passID) {
+        for (int i = startRunID; i < endRunID; i++) {
+            new File(getSortedRunFileName(passID, i)).delete();
+        }
+    }
+
+    /**
+     * Waits for a task submitted to the fork-join pool.
+     *
+     * @param task is the task.
+     * @return the result of the task.
+     */
+    private <T> T awaitTask(Future<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            System.err.printf("Sort: unable to sort in parallel due to %s\n", e.toString());
+            System.exit(1);
+            return null;
+        }
     }
 
     /**
@@ -270,7 +734,7 @@ public class Sort extends Operator {
         for (int sortKeyIndex: sortKeyIndices) {
             int result = Tuple.compareTuples(tuple1, tuple2, sortKeyIndex);
             if (result != 0) {
-                return result;
+                return isDescending ? -result : result;
             }
         }
         return 0;
@@ -286,39 +750,194 @@ public class Sort extends Operator {
         return "Sort-run-" + uuid + "-" + passID + "-" + runID;
     }
 
+    /**
+     * Opens the first of the files making up the sorted result.
+     *
+     * @return the number of files making up the sorted result.
+     */
+    private int openSortedFiles() {
+        sortedFileIndex = 0;
+        try {
+            sortedStream = new TupleReader(sortedFileNames.elementAt(0), schema);
+        } catch (IOException e) {
+            System.err.printf("Sort: cannot create sortedStream due to %s\n", e.toString());
+        }
+        return sortedFileNames.size();
+    }
+
+    /**
+     * Closes the file of the sorted result being read and deletes it unless it is kept, and opens the next one.
+     *
+     * @return true if there is a next file.
+     */
+    private boolean openNextSortedFile() throws IOException {
+        sortedStream.close();
+        sortedStream = null;
+        if (!isKept) {
+            new File(sortedFileNames.elementAt(sortedFileIndex)).delete();
+        }
+
+        sortedFileIndex++;
+        if (sortedFileIndex == sortedFileNames.size()) {
+            return false;
+        }
+        sortedStream = new TupleReader(sortedFileNames.elementAt(sortedFileIndex), schema);
+        return true;
+    }
+
+    /**
+     * Reads the next tuple of the sorted result, which comes from the merge on the fly first, and then from
+     * the files of the key ranges merged in the background (if any). Since the key ranges are disjoint, the
+     * duplicates only need to be dropped within each of them.
+     *
+     * @return the next tuple, or null if the sorted result reaches its end-of-stream.
+     */
+    private Tuple nextSortedTuple() throws IOException {
+        if (mergeTree != null) {
+            while (!mergeTree.isEmpty()) {
+                Tuple outTuple = mergeTree.peek();
+                Tuple next = mergeStreams[mergeTree.getWinner()].next();
+                mergeTree.replaceWinner(isBelow(next, mergeUpper) ? next : null);
+                if (!isDuplicate(outTuple, mergeLast)) {
+                    mergeLast = outTuple;
+                    return outTuple;
+                }
+            }
+            finishMerge();
+            if (sortedFileNames.isEmpty()) {
+                return null;
+            }
+            openSortedFiles();
+        }
+
+        while (sortedStream != null) {
+            Tuple tuple = sortedStream.read();
+            if (tuple != null) {
+                return tuple;
+            } else if (!openNextSortedFile()) {
+                return null;
+            }
+        }
+        return null;
+    }
+
     /**
      * @return the next sorted page of tuples from the sorting result.
      */
     @Override
     public Batch next() {
-        if (eos) {
-            close();
+        // The sorted result is not closed at its end-of-stream if it is kept for a mark.
+        if (eos || (mergeTree == null && sortedStream == null)) {
+            if (!isKept) {
+                close();
+            }
             return null;
         }
 
         Batch outBatch = new Batch(batchSize);
-        while (!outBatch.isFull()) {
-            try {
-                Tuple data = (Tuple) sortedStream.readObject();
-                outBatch.add(data);
-            } catch (ClassNotFoundException cnf) {
-                System.err.printf("Sort: class not found for reading from sortedStream due to %s\n", cnf.toString());
-                System.exit(1);
-            } catch (EOFException EOF) {
-                // Sends the incomplete page and close in the next call.
-                eos = true;
-                return outBatch;
-            } catch (IOException e) {
-                System.err.printf("Sort: error reading from sortedStream due to %s\n", e.toString());
-                System.exit(1);
+        try {
+            while (!outBatch.isFull()) {
+                Tuple tuple = nextSortedTuple();
+                if (tuple == null) {
+                    // Sends the incomplete page and close in the next call.
+                    eos = true;
+                    break;
+                }
+                outBatch.add(tuple);
+            }
+        } catch (IOException e) {
+            System.err.printf("Sort: error reading from sortedStream due to %s\n", e.toString());
+            System.exit(1);
+        }
+
+        if (outBatch.isEmpty()) {
+            if (!isKept) {
+                close();
             }
+            return null;
         }
         return outBatch;
     }
 
     /**
-     * Closes the operator by gracefully closing the resources opened.
-     * TODO: delete generated files when closing.
+     * Marks the position of the next tuple in the sorted result, which is the position of each sorted run in
+     * the merge on the fly, or the position in the file being read. From now on, the sorted runs and files are
+     * kept until the operator is closed, instead of being deleted once they are read.
+     *
+     * @return true since the position is always marked.
+     */
+    @Override
+    public boolean mark() {
+        isKept = true;
+        if (mergeTree != null) {
+            markFileIndex = -1;
+            markHeads = new Tuple[mergeStreams.length];
+            markPositions = new long[mergeStreams.length];
+            for (int i = 0; i < mergeStreams.length; i++) {
+                markHeads[i] = mergeTree.getHead(i);
+                markPositions[i] = mergeStreams[i] == null ? 0 : mergeStreams[i].getPosition();
+            }
+            markLast = mergeLast;
+        } else {
+            markFileIndex = sortedStream == null ? sortedFileNames.size() : sortedFileIndex;
+            markPositions = new long[]{sortedStream == null ? 0 : sortedStream.getPosition()};
+        }
+        return true;
+    }
+
+    /**
+     * Moves back to the marked position in the sorted result. The sorted runs in the merge on the fly are
+     * opened again at their marked positions with their marked heads, or the marked file is opened again.
+     *
+     * @return true if the position is restored successfully.
+     */
+    @Override
+    public boolean restore() {
+        if (markPositions == null) {
+            return false;
+        }
+        try {
+            if (mergeStreams != null) {
+                for (RunReader inStream : mergeStreams) {
+                    if (inStream != null) {
+                        inStream.close();
+                    }
+                }
+            }
+            if (sortedStream != null) {
+                sortedStream.close();
+                sortedStream = null;
+            }
+
+            if (markFileIndex < 0) {
+                mergeStreams = new RunReader[markHeads.length];
+                for (int i = 0; i < markHeads.length; i++) {
+                    if (markHeads[i] != null) {
+                        String inputFileName = getSortedRunFileName(mergePassID - 1, i);
+                        mergeStreams[i] = new RunReader(inputFileName, schema, batchSize, isPrefetching, markPositions[i]);
+                    }
+                }
+                mergeTree = new LoserTree(markHeads.clone(), this::compareTuples);
+                mergeLast = markLast;
+            } else {
+                mergeStreams = null;
+                mergeTree = null;
+                sortedFileIndex = markFileIndex;
+                if (sortedFileIndex < sortedFileNames.size()) {
+                    sortedStream = new TupleReader(sortedFileNames.elementAt(sortedFileIndex), schema);
+                    sortedStream.seekPosition(markPositions[0]);
+                }
+            }
+        } catch (IOException e) {
+            System.err.printf("Sort: cannot restore the marked position due to %s\n", e.toString());
+            return false;
+        }
+        eos = false;
+        return true;
+    }
+
+    /**
+     * Closes the operator by gracefully closing the resources opened, and deletes the sorted result.
      *
      * @return true if the operator is closed successfully.
      */
@@ -327,13 +946,35 @@ public class Sort extends Operator {
         // Calls the close method in super-class for compatibility.
         super.close();
 
+        // Stops the merge on the fly if the sorted result has not been fully read.
+        if (mergeStreams != null) {
+            try {
+                finishMerge();
+            } catch (IOException e) {
+                System.err.printf("Sort: unable to close the sorted runs due to %s\n", e.toString());
+                return false;
+            }
+        }
+
         // Closes the sorted stream previously opened.
-        try {
-            sortedStream.close();
-        } catch (IOException e) {
-            System.err.printf("Sort: unable to close sortedStream due to %s\n", e.toString());
-            return false;
+        if (sortedStream != null) {
+            try {
+                sortedStream.close();
+            } catch (IOException e) {
+                System.err.printf("Sort: unable to close sortedStream due to %s\n", e.toString());
+                return false;
+            }
+            sortedStream = null;
+        }
+        // Deletes the sorted result, including the parts kept after being read.
+        if (isKept) {
+            deleteRuns(0, numOfMergeRuns, mergePassID - 1);
+        }
+        for (int i = isKept ? 0 : sortedFileIndex; i < sortedFileNames.size(); i++) {
+            new File(sortedFileNames.elementAt(i)).delete();
         }
+        sortedFileNames = new Vector<>();
+        numOfMergeRuns = 0;
         return true;
     }
 }
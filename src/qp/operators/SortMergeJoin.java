@@ -1,12 +1,22 @@
 package qp.operators;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Date;
 import java.util.Vector;
 
 import qp.utils.Attribute;
 import qp.utils.Batch;
 import qp.utils.Tuple;
-
+import qp.utils.TupleReader;
+import qp.utils.TupleWriter;
+
+/**
+ * Implements the sort-merge join algorithm on the sorted left and right inputs. The right tuples sharing the same
+ * join attribute form a right partition, which is read again for every left tuple with that value. If the right
+ * input supports {@link Operator#mark()}, the partition is read again from the marked position of the right
+ * input; otherwise, it is buffered in (numOfBuffer - 2) pages of memory, and the rest of it is spilled into a file.
+ */
 public class SortMergeJoin extends Join {
     // The number of tuples per output batch.
     private int batchSize;
@@ -25,7 +35,7 @@ public class SortMergeJoin extends Join {
 
     // The tuple that is currently being processed from left input batch.
     private Tuple leftTuple = null;
-    // The tuple that is currently being processed from right input batch.
+    // The tuple that is currently being processed from right input batch (i.e., the head of the right input).
     private Tuple rightTuple = null;
 
     // Cursor for left side buffer.
@@ -33,10 +43,30 @@ public class SortMergeJoin extends Join {
     // Cursor for right side buffer.
     private int rightCursor = 0;
 
-    // The right partition that is currently being joined in.
+    // Whether the right input is marked at the start of each right partition, instead of buffering the partition.
+    private boolean isRightMarkable;
+    // Whether the current left tuple is being joined with the current right partition.
+    private boolean isJoining = false;
+    // The first tuple of the current right partition.
+    private Tuple partitionStart = null;
+    // The right buffer and the cursor in it right after the first tuple of the current right partition.
+    private Batch markBatch;
+    private int markCursor;
+    // The next tuple of the current right partition, or null if the partition is exhausted (only if marked).
+    private Tuple partitionTuple = null;
+
+    // The tuples of the right partition that is currently being joined in, which are kept in memory (only if not marked).
     private Vector<Tuple> rightPartition = new Vector<>();
-    // The index of the tuple that is currently being processed in the current right partition (0-based).
+    // The index of the next tuple to be joined in the current right partition (0-based).
     private int rightPartitionIndex = 0;
+    // The maximum number of tuples of a right partition kept in memory.
+    private int partitionCapacity;
+    // The file where the rest of the current right partition is spilled, or null if it fits in memory.
+    private String partitionFileName = null;
+    // File pointer to the spilled file, or null if it is not being read.
+    private TupleReader partitionIn = null;
+    // To get unique fileNum for this operation
+    private static int fileNum = 0;
     // The next right tuple (i.e., the first element of the next right partition).
     private Tuple nextRightTuple = null;
 
@@ -46,7 +76,7 @@ public class SortMergeJoin extends Join {
     private boolean eosRight = false;
 
     /**
-     * Instantiates a new join operator using block-based nested loop algorithm.
+     * Instantiates a new join operator using sort-merge join algorithm.
      *
      * @param jn is the base join operator.
      */
@@ -57,6 +87,17 @@ public class SortMergeJoin extends Join {
         numOfBuffer = jn.getNumOfBuffer();
     }
 
+    /**
+     * Provides the number of buffers available to the last merge pass of each sorted input, which are merged on
+     * the fly at the same time while joining, so that each of them gets half of the buffers.
+     *
+     * @param numOfBuffer is the number of buffers available to the join.
+     * @return the number of buffers for merging each sorted input.
+     */
+    public static int getNumOfMergeBuffers(int numOfBuffer) {
+        return Math.max(numOfBuffer / 2, 1);
+    }
+
     /**
      * Opens this operator by performing the following operations:
      * 1. Sorts the left & right relation with external sort;
@@ -84,6 +125,11 @@ public class SortMergeJoin extends Join {
         // Gets the type of the join attribute.
         attrType = left.getSchema().typeOf(leftAttr);
 
+        // Marks the right input once to check whether it can be read again from a marked position.
+        isRightMarkable = right.mark();
+        int rightBatchSize = Batch.getPageSize() / right.getSchema().getTupleSize();
+        partitionCapacity = Math.max(numOfBuffer - 2, 1) * Math.max(rightBatchSize, 1);
+
         return super.open();
     }
 
@@ -101,119 +147,181 @@ public class SortMergeJoin extends Join {
         }
 
         // To handle the 1st run.
-        if (leftBatch == null) {
-            leftBatch = left.next();
-            if (leftBatch == null) {
-                eosLeft = true;
-                return null;
-            }
+        if (leftTuple == null) {
             leftTuple = readNextLeftTuple();
-            if (leftTuple == null) {
-                eosLeft = true;
-                return null;
-            }
-        }
-        if (rightBatch == null) {
-            rightBatch = right.next();
-            if (rightBatch == null) {
-                eosRight = true;
-                return null;
-            }
-            rightPartition = createNextRightPartition();
-            if (rightPartition.isEmpty()) {
+            rightTuple = readNextRightTuple();
+            if (leftTuple == null || rightTuple == null) {
                 eosRight = true;
+                close();
                 return null;
             }
-            rightPartitionIndex = 0;
-            rightTuple = rightPartition.elementAt(rightPartitionIndex);
         }
 
         // The output buffer.
         Batch outBatch = new Batch(batchSize);
 
         while (!outBatch.isFull()) {
-            int comparisionResult = compareTuples(leftTuple, rightTuple, leftIndex, rightIndex);
-            if (comparisionResult == 0) {
-                outBatch.add(leftTuple.joinWith(rightTuple));
+            if (isJoining) {
+                Tuple partitionTuple = nextPartitionTuple();
+                if (partitionTuple != null) {
+                    outBatch.add(leftTuple.joinWith(partitionTuple));
+                    continue;
+                }
+
+                // The left tuple has been joined with all tuples in the current right partition.
+                Tuple nextLeftTuple = readNextLeftTuple();
+                if (nextLeftTuple == null) {
+                    break;
+                }
+                int comparisionResult = compareTuples(leftTuple, nextLeftTuple, leftIndex, leftIndex);
+                leftTuple = nextLeftTuple;
 
-                // Left tuple remains unchanged if it has not attempted to match with all tuples in the current right partition.
-                if (rightPartitionIndex < rightPartition.size() - 1) {
-                    rightPartitionIndex++;
-                    rightTuple = rightPartition.elementAt(rightPartitionIndex);
+                // Moves back to the beginning of right partition if the next left tuple remains the same value as the current one.
+                if (comparisionResult == 0) {
+                    restartPartition();
                 } else {
-                    Tuple nextLeftTuple = readNextLeftTuple();
-                    if (nextLeftTuple == null) {
-                        eosLeft = true;
+                    // Proceeds to the right tuple after the right partition otherwise.
+                    isJoining = false;
+                    rightTuple = nextRightTuple;
+                    if (rightTuple == null) {
+                        eosRight = true;
                         break;
                     }
-                    comparisionResult = compareTuples(leftTuple, nextLeftTuple, leftIndex, leftIndex);
-                    leftTuple = nextLeftTuple;
-
-                    // Moves back to the beginning of right partition if the next left tuple remains the same value as the current one.
-                    if (comparisionResult == 0) {
-                        rightPartitionIndex = 0;
-                        rightTuple = rightPartition.elementAt(0);
-                    } else {
-                        // Proceeds and creates a new right partition otherwise.
-                        rightPartition = createNextRightPartition();
-                        if (rightPartition.isEmpty()) {
-                            eosRight = true;
-                            break;
-                        }
-
-                        // Updates the right tuple.
-                        rightPartitionIndex = 0;
-                        rightTuple = rightPartition.elementAt(rightPartitionIndex);
-                    }
                 }
-            } else if (comparisionResult < 0) {
+                continue;
+            }
+
+            int comparisionResult = compareTuples(leftTuple, rightTuple, leftIndex, rightIndex);
+            if (comparisionResult < 0) {
                 leftTuple = readNextLeftTuple();
                 if (leftTuple == null) {
-                    eosLeft = true;
                     break;
                 }
-            } else {
-                rightPartition = createNextRightPartition();
-                if (rightPartition.isEmpty()) {
+            } else if (comparisionResult > 0) {
+                rightTuple = readNextRightTuple();
+                if (rightTuple == null) {
                     eosRight = true;
                     break;
                 }
-
-                rightPartitionIndex = 0;
-                rightTuple = rightPartition.elementAt(rightPartitionIndex);
+            } else {
+                startPartition();
+                isJoining = true;
             }
         }
 
+        if (outBatch.isEmpty()) {
+            close();
+            return null;
+        }
         return outBatch;
     }
 
     /**
-     * Creates the next partition from the right input batch based on the current right cursor value.
+     * Starts a new right partition from the current right tuple. The right input is marked right after it if
+     * possible; otherwise, all tuples in the partition are read, where those beyond the memory available to the
+     * partition are spilled into a file.
+     */
+    private void startPartition() {
+        partitionStart = rightTuple;
+        if (isRightMarkable) {
+            markBatch = rightBatch;
+            markCursor = rightCursor;
+            right.mark();
+            partitionTuple = rightTuple;
+            return;
+        }
+
+        deletePartitionFile();
+        rightPartition = new Vector<>();
+        rightPartitionIndex = 0;
+        TupleWriter out = null;
+        try {
+            nextRightTuple = rightTuple;
+            while (nextRightTuple != null && compareTuples(rightTuple, nextRightTuple, rightIndex, rightIndex) == 0) {
+                if (rightPartition.size() < partitionCapacity) {
+                    rightPartition.add(nextRightTuple);
+                } else {
+                    // Spills the tuples beyond the memory of the partition.
+                    if (out == null) {
+                        fileNum++;
+                        partitionFileName = "SMJtemp-" + fileNum;
+                        out = new TupleWriter(partitionFileName, right.getSchema());
+                    }
+                    out.write(nextRightTuple);
+                }
+                nextRightTuple = readNextRightTuple();
+            }
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException io) {
+            System.out.println("SortMergeJoin: writing the temporary file error");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the next tuple in the current right partition. Once the partition is exhausted, the right tuple
+     * after it is left in nextRightTuple.
      *
-     * @return a vector containing all tuples in the next right partition.
+     * @return the next tuple in the right partition, or null if it is exhausted.
      */
-    private Vector<Tuple> createNextRightPartition() {
-        Vector<Tuple> partition = new Vector<>();
-        int comparisionResult = 0;
-        if (nextRightTuple == null) {
-            nextRightTuple = readNextRightTuple();
-            if (nextRightTuple == null) {
-                return partition;
+    private Tuple nextPartitionTuple() {
+        if (!isRightMarkable) {
+            if (rightPartitionIndex < rightPartition.size()) {
+                return rightPartition.elementAt(rightPartitionIndex++);
+            } else if (partitionFileName == null) {
+                return null;
+            }
+
+            // Reads the rest of the partition from the spilled file.
+            try {
+                if (partitionIn == null) {
+                    partitionIn = new TupleReader(partitionFileName, right.getSchema());
+                }
+                return partitionIn.read();
+            } catch (IOException io) {
+                System.out.println("SortMergeJoin: temporary file reading error");
+                System.exit(1);
+                return null;
             }
         }
 
-        // Continues until the next tuple carries a different value.
-        while (comparisionResult == 0) {
-            partition.add(nextRightTuple);
+        if (partitionTuple == null) {
+            return null;
+        }
+        Tuple tuple = partitionTuple;
+        nextRightTuple = readNextRightTuple();
+        boolean isSamePartition = nextRightTuple != null && compareTuples(tuple, nextRightTuple, rightIndex, rightIndex) == 0;
+        partitionTuple = isSamePartition ? nextRightTuple : null;
+        return tuple;
+    }
 
-            nextRightTuple = readNextRightTuple();
-            if (nextRightTuple == null) {
-                break;
+    /**
+     * Moves back to the first tuple of the current right partition, by restoring the marked position of the
+     * right input if it is marked, or otherwise by reading the partition from memory and the spilled file again.
+     */
+    private void restartPartition() {
+        if (!isRightMarkable) {
+            rightPartitionIndex = 0;
+            if (partitionIn != null) {
+                try {
+                    partitionIn.seekPage(0);
+                } catch (IOException io) {
+                    System.out.println("SortMergeJoin: temporary file reading error");
+                    System.exit(1);
+                }
             }
-            comparisionResult = compareTuples(partition.elementAt(0), nextRightTuple, rightIndex, rightIndex);
+            return;
         }
 
-        return partition;
+        rightBatch = markBatch;
+        rightCursor = markCursor;
+        if (!right.restore()) {
+            System.err.println("SortMergeJoin: cannot read the right partition again");
+            System.exit(1);
+        }
+        partitionTuple = partitionStart;
     }
 
     /**
@@ -223,24 +331,17 @@ public class SortMergeJoin extends Join {
      */
     private Tuple readNextLeftTuple() {
         // Reads in another batch if necessary.
-        if (leftBatch == null) {
-            eosLeft = true;
-            return null;
-        } else if (leftCursor == leftBatch.size()) {
+        while (leftBatch == null || leftCursor == leftBatch.size()) {
             leftBatch = left.next();
             leftCursor = 0;
-        }
-
-        // Checks whether the left batch still has tuples left.
-        if (leftBatch == null || leftBatch.size() <= leftCursor) {
-            eosLeft = true;
-            return null;
+            if (leftBatch == null) {
+                eosLeft = true;
+                return null;
+            }
         }
 
         // Reads in the next tuple from left batch.
-        Tuple nextLeftTuple = leftBatch.elementAt(leftCursor);
-        leftCursor++;
-        return nextLeftTuple;
+        return leftBatch.elementAt(leftCursor++);
     }
 
     /**
@@ -250,22 +351,16 @@ public class SortMergeJoin extends Join {
      */
     private Tuple readNextRightTuple() {
         // Reads another batch if necessary.
-        if (rightBatch == null) {
-            return null;
-        } else if (rightCursor == rightBatch.size()) {
+        while (rightBatch == null || rightCursor == rightBatch.size()) {
             rightBatch = right.next();
             rightCursor = 0;
-        }
-
-        // Checks whether the right batch still has tuples left.
-        if (rightBatch == null || rightBatch.size() <= rightCursor) {
-            return null;
+            if (rightBatch == null) {
+                return null;
+            }
         }
 
         // Reads the next tuple.
-        Tuple next = rightBatch.elementAt(rightCursor);
-        rightCursor++;
-        return next;
+        return rightBatch.elementAt(rightCursor++);
     }
 
     /**
@@ -300,8 +395,28 @@ public class SortMergeJoin extends Join {
      */
     @Override
     public boolean close() {
+        deletePartitionFile();
         left.close();
         right.close();
         return super.close();
     }
+
+    /**
+     * Closes and deletes the file where the current right partition is spilled, if any.
+     */
+    private void deletePartitionFile() {
+        if (partitionIn != null) {
+            try {
+                partitionIn.close();
+            } catch (IOException io) {
+                System.out.println("SortMergeJoin: closing the temporary file error");
+            }
+            partitionIn = null;
+        }
+        if (partitionFileName != null) {
+            File f = new File(partitionFileName);
+            f.delete();
+            partitionFileName = null;
+        }
+    }
 }
@@ -0,0 +1,274 @@
+package qp.operators;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Vector;
+
+import qp.utils.Attribute;
+import qp.utils.Batch;
+import qp.utils.Schema;
+import qp.utils.Tuple;
+
+/**
+ * Defines the operator for the ORDERBY and LIMIT clauses, which returns the first n tuples of the input in
+ * the given order. If the n tuples fit into the buffer pages available, they are kept in a bounded heap while
+ * the input is read in one pass, and nothing is written to disk. Otherwise, the input is sorted externally.
+ */
+public class TopN extends Operator {
+    // The attributes to order by, which may be empty if there is only a LIMIT clause.
+    private final Vector attrList;
+    // Whether to order in descending order.
+    private final boolean isDescending;
+    // The maximum number of tuples to return, or -1 if there is no limit.
+    private final int limit;
+    // The base operator.
+    private Operator base;
+    // The number of buffers available.
+    private int numOfBuffer;
+
+    // The indices of the attributes to order by.
+    private final Vector<Integer> attrIndices = new Vector<>();
+    // The number of tuples per batch.
+    private int batchSize;
+    // The first n tuples in order if they fit into memory, and the position of the next one to return.
+    private Tuple[] topTuples;
+    private int topCursor;
+    // The sort operator applied on the base operator if the first n tuples do not fit into memory.
+    private Sort sortedBase;
+    // The operator from which the tuples are returned (unless they are kept in memory).
+    private Operator input;
+    // The input batch, and the position of the next tuple in it.
+    private Batch inBatch;
+    private int inCursor;
+    // The number of tuples returned so far.
+    private int numOfOutTuples;
+    // Records whether we have reached end-of-stream.
+    private boolean eos;
+
+    /**
+     * Creates a new top-n operator.
+     *
+     * @param base         is the base operator.
+     * @param attrList     are the attributes to order by.
+     * @param isDescending is whether to order in descending order.
+     * @param limit        is the maximum number of tuples to return, or -1 if there is no limit.
+     */
+    public TopN(Operator base, Vector attrList, boolean isDescending, int limit) {
+        super(OpType.TOP_N);
+        this.base = base;
+        this.attrList = attrList;
+        this.isDescending = isDescending;
+        this.limit = limit;
+    }
+
+    /**
+     * Checks whether the first n tuples fit into the buffer pages available, leaving one page for the input
+     * and one page for the output.
+     *
+     * @param limit       is the maximum number of tuples to return, or -1 if there is no limit.
+     * @param tupleSize   is the size (in bytes) of each tuple.
+     * @param numOfBuffer is the number of buffer pages available.
+     * @return true if the tuples can be kept in a bounded heap.
+     */
+    public static boolean fitsInMemory(int limit, int tupleSize, int numOfBuffer) {
+        int batchSize = Batch.getPageSize() / tupleSize;
+        return limit >= 0 && limit <= (long) Math.max(numOfBuffer - 2, 1) * batchSize;
+    }
+
+    /**
+     * Opens the operator, and finds the first n tuples in one pass if they fit into memory.
+     *
+     * @return true if the operator is opened successfully.
+     */
+    @Override
+    public boolean open() {
+        batchSize = Batch.getPageSize() / schema.getTupleSize();
+        // Starts afresh, since the operator is opened again whenever it is rewound.
+        attrIndices.clear();
+        for (int i = 0; i < attrList.size(); i++) {
+            Attribute attribute = (Attribute) attrList.elementAt(i);
+            attrIndices.add(schema.indexOf(attribute));
+        }
+        numOfOutTuples = 0;
+        eos = false;
+        // Drops the state of the previous run, which may have stopped early at the limit.
+        topTuples = null;
+        sortedBase = null;
+        inBatch = null;
+        inCursor = 0;
+
+        if (attrList.isEmpty()) {
+            // Only the LIMIT clause is present, so the input is passed through.
+            input = base;
+            return base.open();
+        } else if (!fitsInMemory(limit, schema.getTupleSize(), numOfBuffer)) {
+            sortedBase = new Sort(base, attrList, numOfBuffer, isDescending);
+            input = sortedBase;
+            return sortedBase.open();
+        }
+
+        if (!base.open()) {
+            return false;
+        }
+        // A max-heap of the first n tuples seen so far, whose root is the first one to be pushed out.
+        Comparator<Tuple> order = this::compareTuples;
+        PriorityQueue<Tuple> heap = new PriorityQueue<>(Math.max(limit, 1), order.reversed());
+        for (Batch batch = base.next(); batch != null && limit > 0; batch = base.next()) {
+            for (int i = 0; i < batch.size(); i++) {
+                Tuple tuple = batch.elementAt(i);
+                if (heap.size() < limit) {
+                    heap.add(tuple);
+                } else if (compareTuples(tuple, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(tuple);
+                }
+            }
+        }
+        base.close();
+
+        // Empties the heap from the back, since the root is always the last tuple in order.
+        topTuples = new Tuple[heap.size()];
+        for (int i = topTuples.length - 1; i >= 0; i--) {
+            topTuples[i] = heap.poll();
+        }
+        topCursor = 0;
+        return true;
+    }
+
+    /**
+     * @return the next page of the first n tuples in order.
+     */
+    @Override
+    public Batch next() {
+        if (eos) {
+            close();
+            return null;
+        }
+
+        Batch outBatch = new Batch(batchSize);
+        while (!outBatch.isFull()) {
+            Tuple tuple = nextTuple();
+            if (tuple == null) {
+                eos = true;
+                break;
+            }
+            outBatch.add(tuple);
+            numOfOutTuples++;
+        }
+
+        if (outBatch.isEmpty()) {
+            close();
+            return null;
+        }
+        return outBatch;
+    }
+
+    /**
+     * @return the next tuple to return, or null if the limit or the end of the input is reached.
+     */
+    private Tuple nextTuple() {
+        if (limit >= 0 && numOfOutTuples >= limit) {
+            return null;
+        } else if (topTuples != null) {
+            return topCursor < topTuples.length ? topTuples[topCursor++] : null;
+        }
+
+        while (inBatch == null || inCursor == inBatch.size()) {
+            inBatch = input.next();
+            inCursor = 0;
+            if (inBatch == null) {
+                return null;
+            }
+        }
+        return inBatch.elementAt(inCursor++);
+    }
+
+    /**
+     * Compares two tuples based on the attributes to order by.
+     *
+     * @param tuple1 is the first tuple.
+     * @param tuple2 is the second tuple.
+     * @return an integer indicating the comparision result, compatible with the {@link java.util.Comparator} interface.
+     */
+    private int compareTuples(Tuple tuple1, Tuple tuple2) {
+        for (int index : attrIndices) {
+            int result = Tuple.compareTuples(tuple1, tuple2, index);
+            if (result != 0) {
+                return isDescending ? -result : result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Closes the operator, which stops reading the input early if the limit is reached.
+     *
+     * @return true if the operator is closed successfully.
+     */
+    @Override
+    public boolean close() {
+        topTuples = null;
+        if (input != null) {
+            Operator opened = input;
+            input = null;
+            return opened.close();
+        }
+        return true;
+    }
+
+    /**
+     * Setter for numOfBuffer.
+     *
+     * @param numOfBuffer is the number of buffer pages available.
+     */
+    public void setNumOfBuffer(int numOfBuffer) {
+        this.numOfBuffer = numOfBuffer;
+    }
+
+    /**
+     * Getter for base.
+     *
+     * @return the base operator.
+     */
+    public Operator getBase() {
+        return base;
+    }
+
+    /**
+     * Setter for base.
+     *
+     * @param base is the base operator.
+     */
+    public void setBase(Operator base) {
+        this.base = base;
+    }
+
+    /**
+     * @return the maximum number of tuples to return, or -1 if there is no limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return true if there are attributes to order by.
+     */
+    public boolean isOrdered() {
+        return !attrList.isEmpty();
+    }
+
+    @Override
+    public Object clone() {
+        Operator newBase = (Operator) base.clone();
+        Vector<Attribute> newAttrList = new Vector<>();
+        for (int i = 0; i < attrList.size(); i++) {
+            Attribute attribute = (Attribute) ((Attribute) attrList.elementAt(i)).clone();
+            newAttrList.add(attribute);
+        }
+
+        TopN newTopN = new TopN(newBase, newAttrList, isDescending, limit);
+        Schema newSchema = newBase.getSchema();
+        newTopN.setSchema(newSchema);
+        return newTopN;
+    }
+}
@@ -5,9 +5,16 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.Hashtable;
 import java.util.StringTokenizer;
+import java.util.Vector;
 
+import qp.operators.ColumnarScan;
 import qp.operators.Distinct;
 import qp.operators.Groupby;
+import qp.operators.HashDistinct;
+import qp.operators.HashGroupby;
+import qp.operators.HashJoin;
+import qp.operators.IndexNestedJoin;
+import qp.operators.IndexScan;
 import qp.operators.Join;
 import qp.operators.JoinType;
 import qp.operators.OpType;
@@ -15,7 +22,11 @@ import qp.operators.Operator;
 import qp.operators.Project;
 import qp.operators.Scan;
 import qp.operators.Select;
+import qp.operators.Sort;
+import qp.operators.SortMergeJoin;
+import qp.operators.TopN;
 import qp.utils.Attribute;
+import qp.utils.BPlusTree;
 import qp.utils.Batch;
 import qp.utils.Condition;
 import qp.utils.Schema;
@@ -33,6 +44,8 @@ public class PlanCost {
     private boolean isFeasible;
     // A mapping from attribute name to the number of distinct values for this attribute.
     private Hashtable<Attribute, Integer> ht;
+    // The height & leaf capacity of each index read so far, keyed by the name of the index file.
+    private static final Hashtable<String, int[]> indexShapes = new Hashtable<>();
 
     /**
      * Constructor of PlanCost.
@@ -70,10 +83,16 @@ public class PlanCost {
             return getStatistics((Project) node);
         } else if (node.getOpType() == OpType.SCAN) {
             return getStatistics((Scan) node);
+        } else if (node.getOpType() == OpType.INDEX_SCAN) {
+            return getStatistics((IndexScan) node);
+        } else if (node.getOpType() == OpType.COLUMNAR_SCAN) {
+            return getStatistics((ColumnarScan) node);
         } else if (node.getOpType() == OpType.DISTINCT) {
             return getStatistics((Distinct) node);
         } else if (node.getOpType() == OpType.GROUPBY) {
             return getStatistics((Groupby) node);
+        } else if (node.getOpType() == OpType.TOP_N) {
+            return getStatistics((TopN) node);
         }
         return -1;
     }
@@ -143,22 +162,30 @@ public class PlanCost {
 
         switch (joinType) {
             case JoinType.PAGE_NESTED_JOIN:
-                joinCost = leftPages * rightPages;
+                // The right input is scanned from memory if it fits, so that it is read only once by its child.
+                joinCost = Join.canCacheInner(rightPages, numOfBuffer) ? 0 : leftPages * rightPages;
                 break;
             case JoinType.BLOCK_NESTED_JOIN:
-                int leftBlocks = (int) Math.ceil(leftPages / (numOfBuffer - 2));
-                joinCost = leftBlocks * rightPages;
+                int leftBlocks = (int) Math.ceil(1.0 * leftPages / Math.max(numOfBuffer - 2, 1));
+                joinCost = Join.canCacheInner(rightPages, numOfBuffer) ? 0 : leftBlocks * rightPages;
                 break;
             case JoinType.SORT_MERGE_JOIN:
-                int leftSortCost = getExternalSortCost(leftPages, numOfBuffer);
-                int rightSortCost = getExternalSortCost(rightPages, numOfBuffer);
+                // Both inputs are merged on the fly during the join, each with half of the buffers.
+                int numOfMergeBuffer = SortMergeJoin.getNumOfMergeBuffers(numOfBuffer);
+                int leftSortCost = getExternalSortCost(leftPages, numOfBuffer, numOfMergeBuffer);
+                int rightSortCost = getExternalSortCost(rightPages, numOfBuffer, numOfMergeBuffer);
                 joinCost = leftSortCost + rightSortCost + rightPages;
                 break;
             case JoinType.HASH_JOIN:
-                joinCost = 0;
+                joinCost = getHashJoinCost(leftPages, rightPages, numOfBuffer - 1, numOfBuffer);
+                break;
+            case JoinType.HYBRID_HASH_JOIN:
+                joinCost = getHybridHashJoinCost(leftPages, rightPages, numOfBuffer);
                 break;
             case JoinType.INDEX_NESTED_JOIN:
-                joinCost = 0;
+                joinCost = getIndexNestedJoinCost(node.getRight(), rightJoinAttr, leftTuples, rightTuples, rightAttrDistNum);
+                // The right table is accessed through the index instead of the scan costed above.
+                joinCost -= rightPages;
                 break;
             default:
                 joinCost = 0;
@@ -184,29 +211,21 @@ public class PlanCost {
             return Integer.MAX_VALUE;
         }
 
-        Condition condition = node.getCondition();
-        Schema schema = node.getSchema();
-
-        // Gets the attribute on the left side of the condition.
-        Attribute attr = condition.getLeft();
-        int index = schema.indexOf(attr);
-        Attribute fullAttr = schema.getAttribute(index);
-
-        // Gets the number of distinct values of selection attributes.
-        int numDistinct = ht.get(fullAttr);
-        int numOfOutTuple;
+        return getSelectionStatistics(node.getCondition(), node.getSchema(), numOfInTuple);
+    }
 
+    /**
+     * Gets the number of tuples satisfying a select condition, and modifies the statistics of
+     * the attributes accordingly.
+     *
+     * @param condition    is the select condition.
+     * @param schema       is the schema of the input.
+     * @param numOfInTuple is the number of input tuples.
+     * @return the number of output tuples.
+     */
+    private int getSelectionStatistics(Condition condition, Schema schema, int numOfInTuple) {
         // Calculates the number of tuples in result.
-        switch (condition.getOperator()) {
-            case Condition.EQUAL:
-                numOfOutTuple = (int) Math.ceil(1.0 * numOfInTuple / numDistinct);
-                break;
-            case Condition.NOTEQUAL:
-                numOfOutTuple = (int) Math.ceil(numOfInTuple - 1.0 * numOfInTuple / numDistinct);
-                break;
-            default:
-                numOfOutTuple = (int) Math.ceil(0.5 * numOfInTuple);
-        }
+        int numOfOutTuple = (int) Math.ceil(numOfInTuple * getSelectivity(condition, schema));
 
         // Modifies the number of distinct values of each attribute. Assuming the values are
         // distributed uniformly along the entire relation.
@@ -219,6 +238,63 @@ public class PlanCost {
         return numOfOutTuple;
     }
 
+    /**
+     * Estimates the fraction of the tuples from a plan which satisfy a select condition.
+     *
+     * @param condition is the select condition.
+     * @param base      is the plan which the condition is applied on.
+     * @return the selectivity of the condition.
+     */
+    double getSelectivity(Condition condition, Operator base) {
+        calculateCost(base);
+        return getSelectivity(condition, base.getSchema());
+    }
+
+    /**
+     * Estimates the selectivity of a select condition from the number of distinct values of the attributes,
+     * assuming the values are distributed uniformly and the attributes are independent.
+     *
+     * @param condition is the select condition.
+     * @param schema    is the schema of the input.
+     * @return the selectivity of the condition.
+     */
+    private double getSelectivity(Condition condition, Schema schema) {
+        switch (condition.getOperator()) {
+            case Condition.AND: {
+                double selectivity = 1;
+                for (Condition child : condition.getChildren()) {
+                    selectivity *= getSelectivity(child, schema);
+                }
+                return selectivity;
+            }
+            case Condition.OR: {
+                double unselectivity = 1;
+                for (Condition child : condition.getChildren()) {
+                    unselectivity *= 1 - getSelectivity(child, schema);
+                }
+                return 1 - unselectivity;
+            }
+            case Condition.EQUAL:
+                return 1.0 / getNumOfDistinct(condition.getLeft(), schema);
+            case Condition.NOTEQUAL:
+                return 1 - 1.0 / getNumOfDistinct(condition.getLeft(), schema);
+            default:
+                return 0.5;
+        }
+    }
+
+    /**
+     * Gets the number of distinct values of an attribute.
+     *
+     * @param attr   is the attribute.
+     * @param schema is the schema of the input.
+     * @return the number of distinct values.
+     */
+    private int getNumOfDistinct(Attribute attr, Schema schema) {
+        Attribute fullAttr = schema.getAttribute(schema.indexOf(attr));
+        return Math.max(ht.get(fullAttr), 1);
+    }
+
     /**
      * The statistics file <tablename>.stat is to find the statistics about the table, which
      * contains number of tuples in the table, and number of distinct values of each attribute.
@@ -227,8 +303,66 @@ public class PlanCost {
      * @return the cost of the plan.
      */
     private int getStatistics(Scan node) {
-        String fileName = node.getTableName() + ".stat";
         Schema schema = node.getSchema();
+        int numOfTuples = readStatistics(node.getTableName(), schema);
+
+        // Number of tuples per page.
+        int tupleSize = schema.getTupleSize();
+        int pageSize = Batch.getPageSize() / tupleSize;
+        int numOfPages = (int) Math.ceil(1.0 * numOfTuples / pageSize);
+        cost += numOfPages;
+
+        return numOfTuples;
+    }
+
+    /**
+     * The columnar scan only reads the column files of the attributes in its schema, where each
+     * column file has as many values per page as fit in a page. See {@link #getStatistics(Scan)}
+     * for the statistics.
+     *
+     * @param node is the plan for ColumnarScan Operator.
+     * @return the number of tuples in the table.
+     */
+    private int getStatistics(ColumnarScan node) {
+        Schema schema = node.getSchema();
+        int numOfTuples = readStatistics(node.getTableName(), node.getTableSchema());
+
+        for (int i = 0; i < schema.getNumCols(); i++) {
+            int pageSize = Math.max(Batch.getPageSize() / schema.getAttribute(i).getAttrSize(), 1);
+            cost += (int) Math.ceil(1.0 * numOfTuples / pageSize);
+        }
+        return numOfTuples;
+    }
+
+    /**
+     * The index scan only reads the internal levels of the index and the leaf pages holding the
+     * entries which satisfy the select condition, plus one table page for each of those entries
+     * since the index is unclustered. See {@link #getStatistics(Scan)} for the statistics.
+     *
+     * @param node is the plan for IndexScan Operator.
+     * @return the number of tuples satisfying the select condition.
+     */
+    private int getStatistics(IndexScan node) {
+        Schema schema = node.getSchema();
+        int numOfInTuple = readStatistics(node.getTableName(), schema);
+        int numOfOutTuple = getSelectionStatistics(node.getCondition(), schema, numOfInTuple);
+
+        int[] shape = getIndexShape(node.getCondition().getLeft());
+        int leafPages = Math.max((int) Math.ceil(1.0 * numOfOutTuple / shape[1]), 1);
+        cost += shape[0] - 1 + leafPages + numOfOutTuple;
+
+        return numOfOutTuple;
+    }
+
+    /**
+     * Reads the statistics file <tablename>.stat, and records the number of distinct values of each attribute.
+     *
+     * @param tableName is the name of the table.
+     * @param schema    is the schema of the table.
+     * @return the number of tuples in the table.
+     */
+    private int readStatistics(String tableName, Schema schema) {
+        String fileName = tableName + ".stat";
         int numOfAttr = schema.getNumCols();
 
         // Opens the file.
@@ -277,12 +411,6 @@ public class PlanCost {
             ht.put(attr, distinctValues);
         }
 
-        // Number of tuples per page.
-        int tupleSize = schema.getTupleSize();
-        int pageSize = Batch.getPageSize() / tupleSize;
-        int numOfPages = (int) Math.ceil(1.0 * numOfTuples / pageSize);
-        cost += numOfPages;
-
         // Closes the stream opened.
         try {
             in.close();
@@ -295,24 +423,160 @@ public class PlanCost {
     }
 
     /**
-     * Gets the cost of a distinct node.
+     * Gets the cost of a distinct node. A logical distinct node is charged with the cheaper one of the sort-based
+     * and hash-based strategies, see {@link #isHashDistinctCheaper(Distinct)}. The number of distinct tuples is estimated
+     * from the numbers of distinct values of the attributes in the project list (or all attributes if it is empty).
      *
      * @param node is the plan for Distinct Operator.
      * @return the number of tuples after DISTINCT.
      */
     private int getStatistics(Distinct node) {
-        // TODO: calculates the number of distinct tuples here for output.
-        return getSort(node.getBase());
+        Operator base = node.getBase();
+        int numOfInTuples = calculateCost(base);
+        int capacity = Batch.getPageSize() / base.getSchema().getTupleSize();
+        int numOfInPages = (int) Math.ceil(1.0 * numOfInTuples / capacity);
+        int numOfOutTuples = getNumOfDistinctTuples(node.getKeyList(), base.getSchema(), numOfInTuples);
+        int numOfOutPages = (int) Math.ceil(1.0 * numOfOutTuples / capacity);
+
+        int numOfBuffer = BufferManager.getBuffersPerJoin();
+        int hashCost = getHashingCost(numOfInPages, numOfOutPages, numOfBuffer);
+        if (node instanceof HashDistinct) {
+            cost += hashCost;
+        } else {
+            cost += Math.min(getDistinctSortCost(numOfInPages, numOfOutPages, numOfBuffer), hashCost);
+        }
+        return numOfOutTuples;
     }
 
     /**
-     * Gets the cost of a GROUP_BY node.
+     * Decides whether a distinct node should be executed by hashing rather than by sorting.
+     *
+     * @param node is the plan for Distinct Operator.
+     * @return true if the hash-based strategy is estimated to be cheaper.
+     */
+    boolean isHashDistinctCheaper(Distinct node) {
+        isFeasible = true;
+        Operator base = node.getBase();
+        int numOfInTuples = calculateCost(base);
+        int capacity = Batch.getPageSize() / base.getSchema().getTupleSize();
+        int numOfInPages = (int) Math.ceil(1.0 * numOfInTuples / capacity);
+        int numOfOutPages = (int) Math.ceil(1.0 * getNumOfDistinctTuples(node.getKeyList(), base.getSchema(), numOfInTuples) / capacity);
+
+        int numOfBuffer = BufferManager.getBuffersPerJoin();
+        return getHashingCost(numOfInPages, numOfOutPages, numOfBuffer) < getDistinctSortCost(numOfInPages, numOfOutPages, numOfBuffer);
+    }
+
+    /**
+     * Estimates the number of distinct combinations of some attributes as the product of their numbers of
+     * distinct values, assuming the attributes are independent.
+     *
+     * @param keyList       are the attributes.
+     * @param schema        is the schema of the input.
+     * @param numOfInTuples is the number of input tuples.
+     * @return the number of distinct combinations.
+     */
+    private int getNumOfDistinctTuples(Vector keyList, Schema schema, int numOfInTuples) {
+        double numOfDistinct = 1;
+        for (int i = 0; i < keyList.size() && numOfDistinct < numOfInTuples; i++) {
+            Attribute attr = schema.getAttribute(schema.indexOf((Attribute) keyList.elementAt(i)));
+            Integer numOfValues = ht.get(attr);
+            numOfDistinct *= numOfValues == null ? numOfInTuples : Math.max(numOfValues, 1);
+        }
+        return (int) Math.min(numOfDistinct, numOfInTuples);
+    }
+
+    /**
+     * Gets the cost of a GROUP_BY node. A logical GROUP_BY node is charged with the cheaper one of the sort-based
+     * and hash-based strategies, see {@link #isHashGroupbyCheaper(Groupby)}. The number of groups is estimated
+     * from the numbers of distinct values of the attributes to group by. A partial GROUP_BY below a join is
+     * costed in the same way, and pays off when the join (and the final GROUP_BY) above it gets cheaper by
+     * reading one partial aggregate per group instead of all its tuples.
      *
      * @param node is the plan for GROUP_BY Operator.
      * @return the number of tuples after GROUP_BY.
      */
     private int getStatistics(Groupby node) {
-        return getSort(node.getBase());
+        Operator base = node.getBase();
+        int numOfInTuples = calculateCost(base);
+        int numOfGroups = getNumOfDistinctTuples(node.getGroupbyList(), base.getSchema(), numOfInTuples);
+
+        int sortCost = getGroupbySortCost(node, numOfInTuples);
+        int hashCost = getGroupbyHashCost(node, numOfInTuples, numOfGroups);
+        cost += node instanceof HashGroupby ? hashCost : Math.min(sortCost, hashCost);
+
+        // Each aggregated attribute (or partial aggregate, or number of tuples) takes at most one value per group.
+        for (Attribute attr : node.getSchema().attributes) {
+            if (!node.getGroupbyList().contains(attr)) {
+                ht.put(attr, Math.max(numOfGroups, 1));
+            }
+        }
+        return numOfGroups;
+    }
+
+    /**
+     * Decides whether a GROUP_BY node should be executed by hashing rather than by sorting.
+     *
+     * @param node is the plan for GROUP_BY Operator.
+     * @return true if the hash-based strategy is estimated to be cheaper.
+     */
+    boolean isHashGroupbyCheaper(Groupby node) {
+        isFeasible = true;
+        Operator base = node.getBase();
+        int numOfInTuples = calculateCost(base);
+        int numOfGroups = getNumOfDistinctTuples(node.getGroupbyList(), base.getSchema(), numOfInTuples);
+        return getGroupbyHashCost(node, numOfInTuples, numOfGroups) < getGroupbySortCost(node, numOfInTuples);
+    }
+
+    /**
+     * Calculates the cost of grouping by sorting. No cost involved if there is no attribute to group by, since
+     * the whole input is one group.
+     *
+     * @param node          is the plan for GROUP_BY Operator.
+     * @param numOfInTuples is the number of input tuples.
+     * @return the cost of sorting the input.
+     */
+    private int getGroupbySortCost(Groupby node, int numOfInTuples) {
+        if (node.getGroupbyList().isEmpty()) {
+            return 0;
+        }
+        int capacity = Batch.getPageSize() / node.getBase().getSchema().getTupleSize();
+        int numOfInPages = (int) Math.ceil(1.0 * numOfInTuples / capacity);
+        return getExternalSortCost(numOfInPages, BufferManager.getBuffersPerJoin());
+    }
+
+    /**
+     * Calculates the cost of grouping by hashing, where each group is measured by the size of its result tuple.
+     *
+     * @param node          is the plan for GROUP_BY Operator.
+     * @param numOfInTuples is the number of input tuples.
+     * @param numOfGroups   is the number of groups.
+     * @return the cost of hashing the input.
+     */
+    private int getGroupbyHashCost(Groupby node, int numOfInTuples, int numOfGroups) {
+        int inCapacity = Batch.getPageSize() / node.getBase().getSchema().getTupleSize();
+        int numOfInPages = (int) Math.ceil(1.0 * numOfInTuples / inCapacity);
+        int outCapacity = Batch.getPageSize() / node.getSchema().getTupleSize();
+        int numOfOutPages = (int) Math.ceil(1.0 * numOfGroups / outCapacity);
+        return getHashingCost(numOfInPages, numOfOutPages, BufferManager.getBuffersPerJoin());
+    }
+
+    /**
+     * Gets the cost of a top-n node. No cost involved if the first n tuples fit into memory, since they
+     * are found in one pass over the input.
+     *
+     * @param node is the plan for the top-n Operator.
+     * @return the number of tuples after ORDERBY and LIMIT.
+     */
+    private int getStatistics(TopN node) {
+        Operator base = node.getBase();
+        int numOfBuffer = BufferManager.getBuffersPerJoin();
+        int numOfInTuples;
+        if (!node.isOrdered() || TopN.fitsInMemory(node.getLimit(), base.getSchema().getTupleSize(), numOfBuffer)) {
+            numOfInTuples = calculateCost(base);
+        } else {
+            numOfInTuples = getSort(base);
+        }
+        return node.getLimit() < 0 ? numOfInTuples : Math.min(numOfInTuples, node.getLimit());
     }
 
     private int getSort(Operator base) {
@@ -329,15 +593,206 @@ public class PlanCost {
     }
 
     /**
-     * Calculates the cost of performing an external sort.
+     * Calculates the cost of eliminating duplicates (or grouping) by hashing. No cost involved if the distinct
+     * tuples (or groups) fit into (numOfBuffer - 2) pages. Otherwise, each partitioning pass writes out and reads
+     * back the input once, and another pass is needed whenever a partition still cannot fit.
+     *
+     * @param numOfInPages  is the number of input pages.
+     * @param numOfOutPages is the number of pages of distinct tuples (or groups).
+     * @param numOfBuffer   is the number of buffer pages available.
+     * @return the cost of this hash-based duplicate elimination (or grouping).
+     */
+    private int getHashingCost(int numOfInPages, int numOfOutPages, int numOfBuffer) {
+        int memoryPages = Math.max(numOfBuffer - 2, 1);
+        int numOfPartitions = Math.max(numOfBuffer - 1, 2);
+        int numOfPasses = 0;
+        double partitionPages = numOfOutPages;
+        while (partitionPages > memoryPages && numOfPasses < 3) {
+            partitionPages = partitionPages / numOfPartitions;
+            numOfPasses++;
+        }
+        return 2 * numOfInPages * numOfPasses;
+    }
+
+    /**
+     * Calculates the cost of performing a (grace) hash join. Each partitioning pass writes out and reads back
+     * both inputs once. Another pass is needed whenever a left partition cannot fit into (numOfBuffer - 2) pages.
+     *
+     * @param leftPages       is the number of pages in the left input.
+     * @param rightPages      is the number of pages in the right input.
+     * @param numOfPartitions is the number of partitions in the first pass.
+     * @param numOfBuffer     is the number of buffer pages available.
+     * @return the cost of this hash join.
+     */
+    private int getHashJoinCost(int leftPages, int rightPages, int numOfPartitions, int numOfBuffer) {
+        int numOfPasses = 1;
+        double partitionPages = 1.0 * leftPages / numOfPartitions;
+        while (partitionPages > numOfBuffer - 2 && numOfPasses <= 3) {
+            partitionPages = partitionPages / (numOfBuffer - 1);
+            numOfPasses++;
+        }
+        return 2 * (leftPages + rightPages) * numOfPasses;
+    }
+
+    /**
+     * Calculates the cost of performing a hybrid hash join. Only the spilled partitions are written out and
+     * read back, while the resident partition is joined in memory. See {@link HashJoin#getNumOfSpilledPartitions}.
+     *
+     * @param leftPages   is the number of pages in the left input.
+     * @param rightPages  is the number of pages in the right input.
+     * @param numOfBuffer is the number of buffer pages available.
+     * @return the cost of this hybrid hash join.
+     */
+    private int getHybridHashJoinCost(int leftPages, int rightPages, int numOfBuffer) {
+        int numOfSpilled = HashJoin.getNumOfSpilledPartitions(leftPages, numOfBuffer);
+        if (numOfSpilled == 0) {
+            return 0;
+        }
+
+        int numOfResidentPages = Math.max(numOfBuffer - 2 - numOfSpilled, 0);
+        double spilledFraction = 1 - 1.0 * numOfResidentPages / leftPages;
+        int spilledLeftPages = (int) Math.ceil(spilledFraction * leftPages);
+        int spilledRightPages = (int) Math.ceil(spilledFraction * rightPages);
+        return getHashJoinCost(spilledLeftPages, spilledRightPages, numOfSpilled, numOfBuffer);
+    }
+
+    /**
+     * Calculates the cost of performing an index nested loop join. For each left tuple, we traverse the internal
+     * levels of the index, and then read the leaf pages holding its matching entries and one right table page for
+     * each of them. The plan is not feasible if there is no index on the join attribute of the right table.
+     *
+     * @param right            is the right input.
+     * @param rightJoinAttr    is the join attribute of the right input.
+     * @param leftTuples       is the number of tuples in the left input.
+     * @param rightTuples      is the number of tuples in the right input.
+     * @param rightAttrDistNum is the number of distinct values of the right join attribute.
+     * @return the cost of this index nested loop join.
+     */
+    private int getIndexNestedJoinCost(Operator right, Attribute rightJoinAttr, int leftTuples, int rightTuples, int rightAttrDistNum) {
+        if (!IndexNestedJoin.isApplicable(right, rightJoinAttr)) {
+            isFeasible = false;
+            return 0;
+        }
+
+        int[] shape = getIndexShape(rightJoinAttr);
+        int numOfMatches = (int) Math.ceil(1.0 * rightTuples / Math.max(rightAttrDistNum, 1));
+        int leafPages = Math.max((int) Math.ceil(1.0 * numOfMatches / shape[1]), 1);
+        int probeCost = shape[0] - 1 + leafPages + numOfMatches;
+        return leftTuples * probeCost;
+    }
+
+    /**
+     * Reads the height & leaf capacity of the index on an attribute. They are only read from the index file
+     * the first time, since every plan considered by the optimizer is costed with them.
+     *
+     * @param attr is the indexed attribute.
+     * @return the height and the leaf capacity of the index.
+     */
+    private static int[] getIndexShape(Attribute attr) {
+        String fileName = BPlusTree.getFileName(attr.getTabName(), attr.getColName());
+        int[] shape = indexShapes.get(fileName);
+        if (shape != null) {
+            return shape;
+        }
+
+        try {
+            BPlusTree index = BPlusTree.open(attr.getTabName(), attr.getColName());
+            shape = new int[]{index.getHeight(), index.getLeafCapacity()};
+            index.close();
+        } catch (IOException io) {
+            System.err.printf("PlanCost: error in opening index on %s due to %s\n", attr.getColName(), io.toString());
+            System.exit(1);
+        }
+        indexShapes.put(fileName, shape);
+        return shape;
+    }
+
+    /**
+     * Estimates the number of pages in the result of a plan.
+     *
+     * @param root is the root of query plan tree.
+     * @return the estimated number of pages.
+     */
+    int getNumOfPages(Operator root) {
+        isFeasible = true;
+        int numOfTuples = calculateCost(root);
+        int capacity = Batch.getPageSize() / root.getSchema().getTupleSize();
+        return (int) Math.ceil(1.0 * numOfTuples / capacity);
+    }
+
+    /**
+     * Calculates the cost of performing an external sort in the distinct mode, where the duplicates are dropped
+     * while generating and merging the sorted runs. See {@link #getExternalSortCost(int, int)} for the passes.
+     * A sorted run never holds more pages than the distinct tuples, so the runs stop growing from pass to pass
+     * once they hold all the distinct tuples.
+     *
+     * @param numOfPages    is the number of input pages.
+     * @param numOfOutPages is the number of pages of distinct tuples.
+     * @param numOfBuffer   is the number of buffer pages available.
+     * @return the cost of this sorting process.
+     */
+    private int getDistinctSortCost(int numOfPages, int numOfOutPages, int numOfBuffer) {
+        int runLength = Sort.getRunLength(numOfBuffer);
+        int fanIn = Sort.getMergeFanIn(numOfBuffer);
+        int numOfSortedRuns = (int) Math.ceil(1.0 * numOfPages / runLength);
+        double runPages = Math.min(Math.min(runLength, numOfPages), numOfOutPages);
+
+        // Each pass but the last one writes out and reads back its sorted runs.
+        double sortCost = 2 * numOfSortedRuns * runPages;
+        while (numOfSortedRuns > fanIn) {
+            numOfSortedRuns = (int) Math.ceil(1.0 * numOfSortedRuns / fanIn);
+            runPages = Math.min(runPages * fanIn, numOfOutPages);
+            sortCost += 2 * numOfSortedRuns * runPages;
+        }
+        if (numOfSortedRuns > 1) {
+            int numOfRanges = Sort.getNumOfMerges(numOfBuffer, numOfSortedRuns);
+            sortCost += 2 * numOfOutPages - 2.0 * numOfOutPages / numOfRanges;
+        }
+        return (int) Math.ceil(sortCost);
+    }
+
+    /**
+     * Calculates the cost of performing an external sort. Replacement selection keeps (B - 2) pages of
+     * tuples in memory, and generates sorted runs of 2 * (B - 2) pages on average. In the parallel mode, the
+     * (B - 2) pages are split across the chunks sorted at the same time, and each chunk is sorted into a run
+     * instead (see {@link Sort#getRunLength(int)}). Each merge pass then merges as many runs at a time as
+     * {@link Sort#getMergeFanIn(int)} allows. The last pass is merged on the fly as the sorted result is read,
+     * which saves writing out and reading back the result. In the parallel mode, only the first of the key
+     * ranges of the last pass is merged on the fly, while the others are written out in the background (see
+     * {@link Sort#getNumOfMerges(int, int)}).
      *
      * @param numOfPages is the number of input pages.
      * @param numOfBuffer is the number of buffer pages available.
      * @return the cost of this sorting process.
      */
     private int getExternalSortCost(int numOfPages, int numOfBuffer) {
-        int numOfSortedRuns = (int) Math.ceil(1.0 * numOfPages / numOfBuffer);
-        int numOfPasses = (int) Math.ceil(Math.log(numOfSortedRuns) / Math.log(numOfBuffer - 1)) + 1;
-        return 2 * numOfPages * numOfPasses;
+        return getExternalSortCost(numOfPages, numOfBuffer, numOfBuffer);
+    }
+
+    /**
+     * Calculates the cost of performing an external sort whose last pass is merged on the fly with fewer
+     * buffers than the other passes (see {@link Sort#setNumOfMergeBuffers(int)}), so that the runs are merged
+     * until they fit into those buffers.
+     *
+     * @param numOfPages       is the number of input pages.
+     * @param numOfBuffer      is the number of buffer pages available.
+     * @param numOfMergeBuffer is the number of buffer pages available to the last pass.
+     * @return the cost of this sorting process.
+     */
+    private int getExternalSortCost(int numOfPages, int numOfBuffer, int numOfMergeBuffer) {
+        int runLength = Sort.getRunLength(numOfBuffer);
+        int numOfSortedRuns = (int) Math.ceil(1.0 * numOfPages / runLength);
+        if (numOfSortedRuns <= 1) {
+            return 2 * numOfPages;
+        }
+
+        // Counts the passes generating and merging the runs, up to the last pass merged on the fly.
+        int numOfPasses = 2;
+        while (numOfSortedRuns > Sort.getMergeFanIn(numOfMergeBuffer)) {
+            numOfSortedRuns = (int) Math.ceil(1.0 * numOfSortedRuns / Sort.getMergeFanIn(numOfBuffer));
+            numOfPasses++;
+        }
+        int numOfRanges = Sort.getNumOfMerges(numOfMergeBuffer, numOfSortedRuns);
+        return 2 * numOfPages * numOfPasses - 2 * numOfPages / numOfRanges;
     }
 }
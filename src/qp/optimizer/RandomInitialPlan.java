@@ -5,9 +5,12 @@ import java.io.ObjectInputStream;
 import java.util.BitSet;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.Vector;
 
+import qp.operators.ColumnarScan;
 import qp.operators.Distinct;
 import qp.operators.Groupby;
+import qp.operators.IndexScan;
 import qp.operators.Join;
 import qp.operators.JoinType;
 import qp.operators.OpType;
@@ -15,6 +18,7 @@ import qp.operators.Operator;
 import qp.operators.Project;
 import qp.operators.Scan;
 import qp.operators.Select;
+import qp.operators.TopN;
 import qp.utils.Attribute;
 import qp.utils.Condition;
 import qp.utils.RandomNum;
@@ -56,39 +60,49 @@ public class RandomInitialPlan {
     Operator prepareInitialPlan() {
         tableNameToOperator = new Hashtable<>();
 
-        // Follows the execution order: SCAN -> WHERE -> JOIN -> GROUPBY -> PROJECT -> DISTINCT.
+        // Follows the execution order: SCAN -> WHERE -> JOIN -> GROUPBY -> PROJECT -> DISTINCT -> ORDERBY.
         createScanOperators();
         createSelectOperators();
         createJoinOperators();
         createGroupbyOperator();
         createProjectOperator();
         createDistinctOperator();
+        createTopNOperator();
 
         return root;
     }
 
     /**
-     * Creates Scan Operator for each of the table mentioned in fromList.
+     * Creates Scan Operator for each of the table mentioned in fromList. If a table is also stored
+     * column by column, a ColumnarScan reading only the attributes used by the query is created instead.
      */
     private void createScanOperators() {
-        Scan tempOp = null;
+        Operator tempOp = null;
 
         for (Object table: sqlQuery.getFromList()) {
             String tableName = (String) table;
-            Scan operator = new Scan(tableName);
-            tempOp = operator;
 
             // Reads the schema of the table from tableName.md file. md stands for metadata.
             String fileName = tableName + ".md";
+            Schema schema = null;
             try {
                 ObjectInputStream inStream = new ObjectInputStream(new FileInputStream(fileName));
-                Schema schema = (Schema) inStream.readObject();
-                operator.setSchema(schema);
+                schema = (Schema) inStream.readObject();
                 inStream.close();
             } catch (Exception e) {
                 System.err.printf("RandomInitialPlan: error reading schema of the table %s due to %s", fileName, e.toString());
                 System.exit(1);
             }
+
+            Operator operator;
+            Vector<Attribute> attrList = getUsedAttributes(schema);
+            if (!attrList.isEmpty() && attrList.size() < schema.getNumCols() && ColumnarScan.exists(tableName, schema)) {
+                operator = new ColumnarScan(tableName, schema, attrList);
+            } else {
+                operator = new Scan(tableName);
+                operator.setSchema(schema);
+            }
+            tempOp = operator;
             tableNameToOperator.put(tableName, operator);
         }
 
@@ -100,26 +114,107 @@ public class RandomInitialPlan {
     }
 
     /**
-     * Creates Selection Operators for each of the selection condition mentioned in the
-     * condition list.
+     * Finds the attributes of a table which are used by the query, i.e., those in the project list, the
+     * selection conditions, the join conditions, the group by list and the order by list.
+     *
+     * @param schema is the schema of the table.
+     * @return the used attributes in the order of the table, or all of them if every attribute is projected.
+     */
+    private Vector<Attribute> getUsedAttributes(Schema schema) {
+        Vector<Attribute> usedAttrs = new Vector<>();
+        if (sqlQuery.getProjectList() == null || sqlQuery.getProjectList().isEmpty()) {
+            usedAttrs.addAll(schema.attributes);
+            return usedAttrs;
+        }
+
+        for (Object attr: sqlQuery.getProjectList()) {
+            usedAttrs.add(((Attribute) attr).getBaseAttribute());
+        }
+        for (Object cond: sqlQuery.getSelectionList()) {
+            usedAttrs.addAll(((Condition) cond).getAttributes());
+        }
+        for (Object cond: sqlQuery.getJoinList()) {
+            usedAttrs.add(((Condition) cond).getLeft());
+            usedAttrs.add((Attribute) ((Condition) cond).getRight());
+        }
+        if (sqlQuery.getGroupByList() != null) {
+            usedAttrs.addAll(sqlQuery.getGroupByList());
+        }
+        if (sqlQuery.getOrderByList() != null) {
+            usedAttrs.addAll(sqlQuery.getOrderByList());
+        }
+
+        Vector<Attribute> attrList = new Vector<>();
+        for (Attribute attr: schema.attributes) {
+            if (usedAttrs.contains(attr)) {
+                attrList.add(attr);
+            }
+        }
+        return attrList;
+    }
+
+    /**
+     * Creates one Selection Operator for each table mentioned in the selection conditions, which
+     * evaluates all the conditions on that table in one pass. The conditions are ordered by their
+     * estimated selectivity, so that the most selective one is tested first. The most selective
+     * condition on an indexed attribute is answered by an index scan instead if it is estimated
+     * to be cheaper.
      */
     private void createSelectOperators() {
         if (sqlQuery.getSelectionList().size() == 0) {
             return;
         }
 
-        Operator operator = null;
+        // Groups the selection conditions by table.
+        Vector<String> tableNames = new Vector<>();
+        Hashtable<String, Vector<Condition>> tableNameToConditions = new Hashtable<>();
         for (Object cond: sqlQuery.getSelectionList()) {
             Condition condition = (Condition) cond;
             if (condition.getCondType() != Condition.SELECT) {
                 continue;
             }
-
             String tableName = condition.getLeft().getTabName();
-            Operator base = tableNameToOperator.get(tableName);
-            operator = new Select(base, condition, OpType.SELECT);
+            if (!tableNameToConditions.containsKey(tableName)) {
+                tableNames.add(tableName);
+                tableNameToConditions.put(tableName, new Vector<>());
+            }
+            tableNameToConditions.get(tableName).add(condition);
+        }
 
+        Operator operator = null;
+        for (String tableName: tableNames) {
+            Operator base = tableNameToOperator.get(tableName);
+            Vector<Condition> conditions = orderBySelectivity(tableNameToConditions.get(tableName), base);
+            operator = new Select(base, makeConjunction(conditions), OpType.SELECT);
             operator.setSchema(base.getSchema());
+
+            // Reads the table through the index instead if it is cheaper. The index holds whole tuples.
+            boolean isScan = base.getOpType() == OpType.SCAN || base.getOpType() == OpType.COLUMNAR_SCAN;
+            for (int i = 0; isScan && i < conditions.size(); i++) {
+                Condition condition = conditions.elementAt(i);
+                if (!IndexScan.isApplicable(condition)) {
+                    continue;
+                }
+
+                Operator indexPlan = new IndexScan(tableName, condition);
+                if (base.getOpType() == OpType.COLUMNAR_SCAN) {
+                    indexPlan.setSchema(((ColumnarScan) base).getTableSchema());
+                } else {
+                    indexPlan.setSchema(base.getSchema());
+                }
+                Vector<Condition> residuals = new Vector<>(conditions);
+                residuals.remove(i);
+                if (!residuals.isEmpty()) {
+                    Operator indexScan = indexPlan;
+                    indexPlan = new Select(indexScan, makeConjunction(residuals), OpType.SELECT);
+                    indexPlan.setSchema(indexScan.getSchema());
+                }
+
+                if (new PlanCost().getCost(indexPlan) < new PlanCost().getCost(operator)) {
+                    operator = indexPlan;
+                }
+                break;
+            }
             modifyHashtable(base, operator);
         }
 
@@ -127,6 +222,44 @@ public class RandomInitialPlan {
         root = operator;
     }
 
+    /**
+     * Orders the selection conditions on a table by their estimated selectivity. Among the conditions
+     * with the same selectivity, the one with fewer simple conditions in it is cheaper to test first.
+     *
+     * @param conditions are the selection conditions.
+     * @param base       is the operator which the conditions are applied on.
+     * @return the conditions in increasing order of selectivity.
+     */
+    private Vector<Condition> orderBySelectivity(Vector<Condition> conditions, Operator base) {
+        Hashtable<Condition, Double> selectivities = new Hashtable<>();
+        for (Condition condition: conditions) {
+            selectivities.put(condition, new PlanCost().getSelectivity(condition, base));
+        }
+
+        Vector<Condition> ordered = new Vector<>(conditions);
+        ordered.sort((c1, c2) -> {
+            int result = Double.compare(selectivities.get(c1), selectivities.get(c2));
+            if (result != 0) {
+                return result;
+            }
+            return Integer.compare(c1.getAttributes().size(), c2.getAttributes().size());
+        });
+        return ordered;
+    }
+
+    /**
+     * Combines the selection conditions on a table into one condition.
+     *
+     * @param conditions are the selection conditions in the order to be tested.
+     * @return the only condition, or the conjunction of the conditions.
+     */
+    private static Condition makeConjunction(Vector<Condition> conditions) {
+        if (conditions.size() == 1) {
+            return conditions.elementAt(0);
+        }
+        return new Condition(Condition.AND, conditions);
+    }
+
     /**
      * Creates join operators.
      */
@@ -199,14 +332,54 @@ public class RandomInitialPlan {
     }
 
     /**
-     * Creates a groupby operator.
+     * Creates a top-n operator for the ORDERBY and LIMIT clauses. If the attributes to order by are not
+     * projected, the operator is put below the project operator instead.
+     */
+    private void createTopNOperator() {
+        if (!sqlQuery.isOrderBy() && sqlQuery.getLimit() < 0) {
+            return;
+        }
+        Vector orderByList = sqlQuery.isOrderBy() ? sqlQuery.getOrderByList() : new Vector();
+
+        Operator base = root;
+        boolean isProjected = true;
+        for (Object attr : orderByList) {
+            if (base.getSchema().indexOf((Attribute) attr) < 0) {
+                isProjected = false;
+            }
+        }
+        if (!isProjected && base.getOpType() == OpType.PROJECT) {
+            Project project = (Project) base;
+            TopN operator = new TopN(project.getBase(), orderByList, sqlQuery.getIsDescending(), sqlQuery.getLimit());
+            operator.setSchema(project.getBase().getSchema());
+            project.setBase(operator);
+            return;
+        }
+
+        TopN operator = new TopN(base, orderByList, sqlQuery.getIsDescending(), sqlQuery.getLimit());
+        operator.setSchema(base.getSchema());
+        root = operator;
+    }
+
+    /**
+     * Creates a groupby operator, which computes the aggregate functions in the project list for each group.
+     * Without a GROUPBY clause, the whole input is one group, so every projected attribute must be aggregated.
      */
     private void createGroupbyOperator() {
-        if (sqlQuery.isGroupby()) {
-            Groupby operator = new Groupby(root, sqlQuery.getGroupByList());
-            operator.setSchema(root.getSchema());
-            root = operator;
+        if (!sqlQuery.isGroupby() && !sqlQuery.isAggregated()) {
+            return;
+        }
+
+        Vector groupbyList = sqlQuery.isGroupby() ? sqlQuery.getGroupByList() : new Vector();
+        for (Object attr : sqlQuery.getProjectList()) {
+            if (!sqlQuery.isGroupby() && !((Attribute) attr).isAggregated()) {
+                System.err.printf("RandomInitialPlan: attribute %s presented in project list, but not aggregated\n", ((Attribute) attr).getColName());
+                System.exit(1);
+            }
         }
+        Groupby operator = new Groupby(root, groupbyList, sqlQuery.getAggregateList());
+        operator.setSchema(operator.getGroupSchema(root.getSchema()));
+        root = operator;
     }
 
     /**
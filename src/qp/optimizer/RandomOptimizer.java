@@ -6,6 +6,10 @@ import qp.operators.BlockNestedJoin;
 import qp.operators.Debug;
 import qp.operators.Distinct;
 import qp.operators.Groupby;
+import qp.operators.HashDistinct;
+import qp.operators.HashGroupby;
+import qp.operators.HashJoin;
+import qp.operators.IndexNestedJoin;
 import qp.operators.Join;
 import qp.operators.JoinType;
 import qp.operators.OpType;
@@ -15,6 +19,7 @@ import qp.operators.Project;
 import qp.operators.Select;
 import qp.operators.Sort;
 import qp.operators.SortMergeJoin;
+import qp.operators.TopN;
 import qp.utils.Attribute;
 import qp.utils.RandomNum;
 import qp.utils.SQLQuery;
@@ -31,8 +36,10 @@ public abstract class RandomOptimizer {
     private static final int COMMUTATIVE = 1;
     // Selects neighbor by rearranging the operators by associative rule.
     private static final int ASSOCIATIVE = 2;
+    // Selects neighbor by adding (or removing) a partial groupby below a join.
+    private static final int EAGER_AGGREGATION = 3;
     // Number of alternative methods available for a node as specified above.
-    private static final int NUM_OF_CHOICES = 3;
+    private static final int NUM_OF_CHOICES = 4;
 
     // Vector of Vectors of Select + From + Where + GroupBy.
     SQLQuery sqlQuery;
@@ -65,8 +72,10 @@ public abstract class RandomOptimizer {
     Operator getNeighbor(Operator root) {
         // Randomly selects a node to be altered to get the neighbour.
         int nodeNum = RandomNum.randInt(0, numOfJoin - 1);
-        // Randomly selects type of alteration: Change Method / Associative / Commutative.
-        int changeType = RandomNum.randInt(0, NUM_OF_CHOICES - 1);
+        // Randomly selects type of alteration: Change Method / Associative / Commutative / Eager Aggregation.
+        // Eager aggregation is only applicable if the query groups (or aggregates) the joined tuples.
+        boolean isGrouped = sqlQuery.isGroupby() || sqlQuery.isAggregated();
+        int changeType = RandomNum.randInt(0, (isGrouped ? NUM_OF_CHOICES : EAGER_AGGREGATION) - 1);
 
         switch (changeType) {
             case METHOD_CHOICE:
@@ -76,6 +85,8 @@ public abstract class RandomOptimizer {
                 return Transformations.neighborCommutativity(root, nodeNum);
             case ASSOCIATIVE:
                 return Transformations.neighborAssociativity(root, nodeNum);
+            case EAGER_AGGREGATION:
+                return Transformations.neighborEagerAggregation(root, nodeNum);
             default:
                 return root;
         }
@@ -114,27 +125,43 @@ public abstract class RandomOptimizer {
                 case JoinType.SORT_MERGE_JOIN:
                     SortMergeJoin smj = new SortMergeJoin((Join) node);
 
+                    // Both sorted inputs are merged on the fly while joining, sharing the buffers of the join.
                     Vector<Attribute> leftAttrs = new Vector<>();
                     leftAttrs.add(smj.getCondition().getLeft());
-                    smj.setLeft(new Sort(left, leftAttrs, numOfBuff));
+                    Sort leftSort = new Sort(left, leftAttrs, numOfBuff);
+                    leftSort.setNumOfMergeBuffers(SortMergeJoin.getNumOfMergeBuffers(numOfBuff));
+                    smj.setLeft(leftSort);
 
                     Vector<Attribute> rightAttrs = new Vector<>();
                     rightAttrs.add((Attribute) smj.getCondition().getRight());
-                    smj.setRight(new Sort(right, rightAttrs, numOfBuff));
+                    Sort rightSort = new Sort(right, rightAttrs, numOfBuff);
+                    rightSort.setNumOfMergeBuffers(SortMergeJoin.getNumOfMergeBuffers(numOfBuff));
+                    smj.setRight(rightSort);
 
                     smj.setNumOfBuffer(numOfBuff);
                     return smj;
 
                 case JoinType.HASH_JOIN:
-                    PageNestedJoin hj = new PageNestedJoin((Join) node);
-                    // Add other code here.
-
+                    HashJoin hj = new HashJoin((Join) node);
+                    hj.setLeft(left);
+                    hj.setRight(right);
+                    hj.setNumOfBuffer(numOfBuff);
                     return hj;
 
-                case JoinType.INDEX_NESTED_JOIN:
-                    PageNestedJoin inj = new PageNestedJoin((Join) node);
-                    // Add other code here.
+                case JoinType.HYBRID_HASH_JOIN:
+                    HashJoin hhj = new HashJoin((Join) node);
+                    hhj.setLeft(left);
+                    hhj.setRight(right);
+                    hhj.setNumOfBuffer(numOfBuff);
+                    hhj.setHybrid(true);
+                    hhj.setNumOfLeftPages(new PlanCost().getNumOfPages(left));
+                    return hhj;
 
+                case JoinType.INDEX_NESTED_JOIN:
+                    IndexNestedJoin inj = new IndexNestedJoin((Join) node);
+                    inj.setLeft(left);
+                    inj.setRight(right);
+                    inj.setNumOfBuffer(numOfBuff);
                     return inj;
 
                 default:
@@ -151,12 +178,20 @@ public abstract class RandomOptimizer {
         } else if (node.getOpType() == OpType.DISTINCT) {
             Distinct operator = (Distinct) node;
             operator.setNumOfBuffer(numOfBuff);
+            boolean isHashBased = new PlanCost().isHashDistinctCheaper(operator);
             Operator base = makeExecPlan(operator.getBase());
             operator.setBase(base);
-            return node;
+            return isHashBased ? new HashDistinct(operator) : node;
         } else if (node.getOpType() == OpType.GROUPBY) {
             Groupby operator = (Groupby) node;
             operator.setNumOfBuffer(numOfBuff);
+            boolean isHashBased = new PlanCost().isHashGroupbyCheaper(operator);
+            Operator base = makeExecPlan(operator.getBase());
+            operator.setBase(base);
+            return isHashBased ? new HashGroupby(operator) : node;
+        } else if (node.getOpType() == OpType.TOP_N) {
+            TopN operator = (TopN) node;
+            operator.setNumOfBuffer(numOfBuff);
             Operator base = makeExecPlan(operator.getBase());
             operator.setBase(base);
             return node;
@@ -10,9 +10,11 @@ import qp.operators.OpType;
 import qp.operators.Operator;
 import qp.operators.Project;
 import qp.operators.Select;
+import qp.operators.TopN;
 import qp.utils.Attribute;
 import qp.utils.Condition;
 import qp.utils.RandomNum;
+import qp.utils.Schema;
 
 /**
  * Defines all the legal transformation rules.
@@ -193,6 +195,140 @@ class Transformations {
         }
     }
 
+    /**
+     * Applies eager aggregation on one input of the join numbered with joinNum. i.e., the plan
+     * GROUPBY(A X a1b1 B) is changed to GROUPBY(A X a1b1 PARTIAL_GROUPBY(B)), where the partial groupby
+     * groups B by its attributes used above it (b1 and the attributes to group by), and computes the partial
+     * aggregates of the aggregated attributes of B. If the input is a partial groupby already, it is removed
+     * instead, so that the search can also undo this transformation.
+     *
+     * @param root    is the root of the query plan tree.
+     * @param joinNum is the randomly selected node number.
+     * @return the modified plan.
+     */
+    static Operator neighborEagerAggregation(Operator root, int joinNum) {
+        System.out.println("------------------neighbor by eager aggregation----------------");
+
+        Groupby groupby = findGroupby(root);
+        if (groupby == null) {
+            // There is no groupby above the joins, therefore eager aggregation is not applicable.
+            return root;
+        }
+
+        // Finds the node to be altered, and one of its inputs randomly.
+        Join node = (Join) findNodeAt(root, joinNum);
+        boolean isLeft = RandomNum.flipCoin();
+        Operator input = isLeft ? node.getLeft() : node.getRight();
+        Operator newInput;
+        if (input.getOpType() == OpType.GROUPBY) {
+            newInput = ((Groupby) input).getBase();
+        } else if (!hasGroupby(groupby.getBase())) {
+            // At most one input is pre-aggregated, so that every joined tuple carries one number of tuples.
+            newInput = createPartialGroupby(groupby, input);
+        } else {
+            return root;
+        }
+
+        if (isLeft) {
+            node.setLeft(newInput);
+        } else {
+            node.setRight(newInput);
+        }
+
+        // Modifies the schema before returning the root.
+        modifySchema(root);
+        return root;
+    }
+
+    /**
+     * Creates a partial groupby on an input of a join below the given groupby.
+     *
+     * @param groupby is the groupby above the joins.
+     * @param input   is the input to be pre-aggregated.
+     * @return the partial groupby.
+     */
+    private static Groupby createPartialGroupby(Groupby groupby, Operator input) {
+        Schema schema = input.getSchema();
+
+        // Groups by the attributes which are still needed above the input.
+        Vector<Attribute> joinAttrs = new Vector<>();
+        findJoinAttributes(groupby.getBase(), input, joinAttrs);
+        Vector<Attribute> keys = new Vector<>();
+        for (Attribute attr : schema.attributes) {
+            if (joinAttrs.contains(attr) || groupby.getGroupbyList().contains(attr)) {
+                keys.add(attr);
+            }
+        }
+
+        Vector<Attribute> aggregates = new Vector<>();
+        for (Attribute attr : groupby.getAggregateList()) {
+            if (schema.contains(attr.getBaseAttribute())) {
+                aggregates.add(attr);
+            }
+        }
+
+        Groupby partial = new Groupby(input, keys, aggregates);
+        partial.setPartial(true);
+        partial.setSchema(partial.getGroupSchema(schema));
+        return partial;
+    }
+
+    /**
+     * Collects the attributes in the conditions of the joins in a query plan, except those below a given node.
+     *
+     * @param node     is the query plan.
+     * @param excluded is the node whose joins are skipped.
+     * @param attrs    is where the attributes are collected.
+     */
+    private static void findJoinAttributes(Operator node, Operator excluded, Vector<Attribute> attrs) {
+        if (node == excluded || node.getOpType() != OpType.JOIN) {
+            return;
+        }
+        Condition condition = ((Join) node).getCondition();
+        attrs.add(condition.getLeft());
+        attrs.add((Attribute) condition.getRight());
+        findJoinAttributes(((Join) node).getLeft(), excluded, attrs);
+        findJoinAttributes(((Join) node).getRight(), excluded, attrs);
+    }
+
+    /**
+     * Traverses through the query plan and returns the groupby above the joins.
+     *
+     * @param node is the query plan.
+     * @return the groupby, or null if there is none.
+     */
+    private static Groupby findGroupby(Operator node) {
+        switch (node.getOpType()) {
+            case OpType.GROUPBY:
+                return (Groupby) node;
+            case OpType.PROJECT:
+                return findGroupby(((Project) node).getBase());
+            case OpType.DISTINCT:
+                return findGroupby(((Distinct) node).getBase());
+            case OpType.TOP_N:
+                return findGroupby(((TopN) node).getBase());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Checks whether there is a partial groupby among the joins of a query plan.
+     *
+     * @param node is the query plan.
+     * @return true if there is a partial groupby.
+     */
+    private static boolean hasGroupby(Operator node) {
+        switch (node.getOpType()) {
+            case OpType.GROUPBY:
+                return true;
+            case OpType.JOIN:
+                return hasGroupby(((Join) node).getLeft()) || hasGroupby(((Join) node).getRight());
+            default:
+                return false;
+        }
+    }
+
     /**
      * Traverses through the query plan and returns the node specified by joinNum.
      *
@@ -222,6 +358,8 @@ class Transformations {
             return findNodeAt(((Distinct) node).getBase(), joinNum);
         } else if (node.getOpType() == OpType.GROUPBY) {
             return findNodeAt(((Groupby) node).getBase(), joinNum);
+        } else if (node.getOpType() == OpType.TOP_N) {
+            return findNodeAt(((TopN) node).getBase(), joinNum);
         } else {
             return null;
         }
@@ -264,6 +402,11 @@ class Transformations {
             case OpType.GROUPBY:
                 base = ((Groupby) node).getBase();
                 modifySchema(base);
+                node.setSchema(((Groupby) node).getGroupSchema(base.getSchema()));
+                break;
+            case OpType.TOP_N:
+                base = ((TopN) node).getBase();
+                modifySchema(base);
                 node.setSchema(base.getSchema());
                 break;
         }
@@ -2,6 +2,7 @@ package qp.parser;
 
 import java_cup.runtime.Symbol;
 
+
 public class Scanner implements java_cup.runtime.Scanner {
 	private final int YY_BUFFER_SIZE = 512;
 	private final int YY_F = -1;
@@ -231,27 +232,27 @@ public class Scanner implements java_cup.runtime.Scanner {
 		/* 19 */ YY_NO_ANCHOR,
 		/* 20 */ YY_NO_ANCHOR,
 		/* 21 */ YY_NO_ANCHOR,
-		/* 22 */ YY_NOT_ACCEPT,
+		/* 22 */ YY_NO_ANCHOR,
 		/* 23 */ YY_NO_ANCHOR,
-		/* 24 */ YY_NOT_ACCEPT,
+		/* 24 */ YY_NO_ANCHOR,
 		/* 25 */ YY_NO_ANCHOR,
-		/* 26 */ YY_NOT_ACCEPT,
+		/* 26 */ YY_NO_ANCHOR,
 		/* 27 */ YY_NO_ANCHOR,
-		/* 28 */ YY_NOT_ACCEPT,
+		/* 28 */ YY_NO_ANCHOR,
 		/* 29 */ YY_NO_ANCHOR,
-		/* 30 */ YY_NOT_ACCEPT,
+		/* 30 */ YY_NO_ANCHOR,
 		/* 31 */ YY_NO_ANCHOR,
 		/* 32 */ YY_NO_ANCHOR,
 		/* 33 */ YY_NO_ANCHOR,
-		/* 34 */ YY_NO_ANCHOR,
+		/* 34 */ YY_NOT_ACCEPT,
 		/* 35 */ YY_NO_ANCHOR,
-		/* 36 */ YY_NO_ANCHOR,
+		/* 36 */ YY_NOT_ACCEPT,
 		/* 37 */ YY_NO_ANCHOR,
-		/* 38 */ YY_NO_ANCHOR,
+		/* 38 */ YY_NOT_ACCEPT,
 		/* 39 */ YY_NO_ANCHOR,
-		/* 40 */ YY_NO_ANCHOR,
+		/* 40 */ YY_NOT_ACCEPT,
 		/* 41 */ YY_NO_ANCHOR,
-		/* 42 */ YY_NO_ANCHOR,
+		/* 42 */ YY_NOT_ACCEPT,
 		/* 43 */ YY_NO_ANCHOR,
 		/* 44 */ YY_NO_ANCHOR,
 		/* 45 */ YY_NO_ANCHOR,
@@ -261,34 +262,83 @@ public class Scanner implements java_cup.runtime.Scanner {
 		/* 49 */ YY_NO_ANCHOR,
 		/* 50 */ YY_NO_ANCHOR,
 		/* 51 */ YY_NO_ANCHOR,
-		/* 52 */ YY_NO_ANCHOR
+		/* 52 */ YY_NO_ANCHOR,
+		/* 53 */ YY_NO_ANCHOR,
+		/* 54 */ YY_NO_ANCHOR,
+		/* 55 */ YY_NO_ANCHOR,
+		/* 56 */ YY_NO_ANCHOR,
+		/* 57 */ YY_NO_ANCHOR,
+		/* 58 */ YY_NO_ANCHOR,
+		/* 59 */ YY_NO_ANCHOR,
+		/* 60 */ YY_NO_ANCHOR,
+		/* 61 */ YY_NO_ANCHOR,
+		/* 62 */ YY_NO_ANCHOR,
+		/* 63 */ YY_NO_ANCHOR,
+		/* 64 */ YY_NO_ANCHOR,
+		/* 65 */ YY_NO_ANCHOR,
+		/* 66 */ YY_NO_ANCHOR,
+		/* 67 */ YY_NO_ANCHOR,
+		/* 68 */ YY_NO_ANCHOR,
+		/* 69 */ YY_NO_ANCHOR,
+		/* 70 */ YY_NO_ANCHOR,
+		/* 71 */ YY_NO_ANCHOR,
+		/* 72 */ YY_NO_ANCHOR,
+		/* 73 */ YY_NO_ANCHOR,
+		/* 74 */ YY_NO_ANCHOR,
+		/* 75 */ YY_NO_ANCHOR,
+		/* 76 */ YY_NO_ANCHOR,
+		/* 77 */ YY_NO_ANCHOR,
+		/* 78 */ YY_NO_ANCHOR,
+		/* 79 */ YY_NO_ANCHOR,
+		/* 80 */ YY_NO_ANCHOR,
+		/* 81 */ YY_NO_ANCHOR,
+		/* 82 */ YY_NO_ANCHOR,
+		/* 83 */ YY_NO_ANCHOR,
+		/* 84 */ YY_NO_ANCHOR,
+		/* 85 */ YY_NO_ANCHOR,
+		/* 86 */ YY_NO_ANCHOR,
+		/* 87 */ YY_NO_ANCHOR
 	};
 	private int yy_cmap[] = unpackFromString(1,130,
-"0:9,21:2,0,21:2,0:18,25,26,24,27:3,36,29,27:2,20,27,31,27,38,27,23:10,27,33" +
-",34,32,35,27:2,22,15,4,17,2,6,12,11,18,22:2,3,9,19,8,14,22,7,1,5,13,22,10,2" +
-"2,16,22,27,28,27:2,22,27,22:13,30,22:5,30,22:6,27,37,27:2,0,39:2")[0];
+"0:9,26:2,0,26:2,0:18,30,31,29,32:3,41,34,23,24,25,32,36,32,43,32,28:10,32,3" +
+"8,39,37,40,32:2,20,15,4,17,2,6,12,11,18,27:2,3,9,19,8,14,27,7,1,5,13,22,10," +
+"21,16,27,32,33,32:2,27,32,27:13,35,27:5,35,27:6,32,42,32:2,0,44:2")[0];
 
-	private int yy_rmap[] = unpackFromString(1,53,
-"0,1,2,3,2:3,4,5,2:8,6:5,7,8,9,10,11,12,13,14,15,16,17,18,19,20,21,22,23,24," +
-"25,26,27,28,6,29,30,31,32,33,6,34,35")[0];
+	private int yy_rmap[] = unpackFromString(1,88,
+"0,1,2:3,3,4,2:3,5,6,2:8,7:14,8,9,10,7,11,12,13,14,15,16,17,18,19,20,21,22,2" +
+"3,24,25,26,27,28,29,30,31,32,33,34,35,36,37,38,39,40,41,42,43,7,44,45,46,47" +
+",48,49,50,51,52,53,54,55,56,57,58,59")[0];
 
-	private int yy_nxt[][] = unpackFromString(36,40,
-"-1,1,50:4,37,50:3,42,50,51,50:4,52,50:2,2,3,50,-1,22,3,24,-1:3,50,4,5,6,7,8" +
-",26,28,9,10,-1,50,43,50:17,-1:2,50,44,-1:6,50,-1:70,3,-1:3,3,-1:46,13,-1:39" +
-",14,-1:8,50:19,-1:2,50,44,-1:6,50,-1:10,22:20,-1,22:2,11,22:3,30,-1,22:9,-1" +
-":2,50:8,17,50:10,-1:2,50,44,-1:6,50,-1:41,12,-1:8,50,18,50:17,-1:2,50,44,-1" +
-":6,50,-1:45,15,-1:4,50:4,19,50:14,-1:2,50,44,-1:6,50,-1:46,16,-1:3,50:15,20" +
-",50:3,-1:2,50,44,-1:6,50,-1:33,22,-1:3,22:3,-1:10,50:4,21,50:14,-1:2,50,44," +
-"-1:6,50,-1:10,50:7,23,50:11,-1:2,50,44,-1:6,50,-1:10,50:6,25,50:12,-1:2,50," +
-"44,-1:6,50,-1:10,50:3,27,50:15,-1:2,50,44,-1:6,50,-1:10,50:14,29,50:4,-1:2," +
-"50,44,-1:6,50,-1:10,50:3,31,50:15,-1:2,50,44,-1:6,50,-1:10,50:6,32,50:12,-1" +
-":2,50,44,-1:6,50,-1:10,50,33,50:17,-1:2,50,44,-1:6,50,-1:10,50,34,50:17,-1:" +
-"2,50,44,-1:6,50,-1:10,50:13,35,50:5,-1:2,50,44,-1:6,50,-1:10,50:18,36,-1:2," +
-"50,44,-1:6,50,-1:10,50:10,38,50:8,-1:2,50,44,-1:6,50,-1:10,50:2,39,50:16,-1" +
-":2,50,44,-1:6,50,-1:10,50:7,47,50:11,-1:2,50,44,-1:6,50,-1:10,48,50:18,-1:2" +
-",50,44,-1:6,50,-1:10,50:12,40,50:6,-1:2,50,44,-1:6,50,-1:10,50:4,49,50:14,-" +
-"1:2,50,44,-1:6,50,-1:10,50:17,41,50,-1:2,50,44,-1:6,50,-1:10,50:6,45,50:12," +
-"-1:2,50,44,-1:6,50,-1:10,50:17,46,50,-1:2,50,44,-1:6,50,-1:9");
+	private int yy_nxt[][] = unpackFromString(60,45,
+"-1,1,71,77,78,71,79,71,80,81,82,71,83,71:4,84,71:2,85,71:2,2,3,4,5,71,6,34," +
+"5,36,-1:3,71,7,8,9,10,11,38,40,12,13,-1,71,86,71:10,35,71:9,-1:4,71,37,-1:6" +
+",71,-1:80,5,-1:3,5,-1:42,6,-1:53,16,-1:44,17,-1:8,71:22,-1:4,71,37,-1:6,71," +
+"-1:10,34:25,-1,34:2,14,34:3,42,-1,34:9,-1:2,71:8,20,71:13,-1:4,71,37,-1:6,7" +
+"1,-1:46,15,-1:48,18,-1:4,71:8,51,71:13,-1:4,71,37,-1:6,71,-1:51,19,-1:3,71:" +
+"12,52,71:9,-1:4,71,37,-1:6,71,-1:38,34,-1:3,34:3,-1:10,71:7,53,71:14,-1:4,7" +
+"1,37,-1:6,71,-1:10,71:16,87,71:5,-1:4,71,37,-1:6,71,-1:10,71:18,21,71:3,-1:" +
+"4,71,37,-1:6,71,-1:10,71:20,22,71,-1:4,71,37,-1:6,71,-1:10,71,54,71:20,-1:4" +
+",71,37,-1:6,71,-1:10,56,71:21,-1:4,71,37,-1:6,71,-1:10,71:3,23,71:18,-1:4,7" +
+"1,37,-1:6,71,-1:10,71:11,24,71:10,-1:4,71,37,-1:6,71,-1:10,71:17,59,71:4,-1" +
+":4,71,37,-1:6,71,-1:10,71:18,60,71:3,-1:4,71,37,-1:6,71,-1:10,71:8,25,71:13" +
+",-1:4,71,37,-1:6,71,-1:10,71:6,61,71:15,-1:4,71,37,-1:6,71,-1:10,71:12,62,7" +
+"1:9,-1:4,71,37,-1:6,71,-1:10,71:3,26,71:18,-1:4,71,37,-1:6,71,-1:10,71:4,63" +
+",71:17,-1:4,71,37,-1:6,71,-1:10,71:3,64,71:18,-1:4,71,37,-1:6,71,-1:10,71:4" +
+",27,71:17,-1:4,71,37,-1:6,71,-1:10,71:4,28,71:17,-1:4,71,37,-1:6,71,-1:10,7" +
+"1,29,71:20,-1:4,71,37,-1:6,71,-1:10,71:13,76,71:8,-1:4,71,37,-1:6,71,-1:10," +
+"71:17,66,71:4,-1:4,71,37,-1:6,71,-1:10,71:4,30,71:17,-1:4,71,37,-1:6,71,-1:" +
+"10,71:14,67,71:7,-1:4,71,37,-1:6,71,-1:10,71:18,69,71:3,-1:4,71,37,-1:6,71," +
+"-1:10,71:15,31,71:6,-1:4,71,37,-1:6,71,-1:10,71:15,32,71:6,-1:4,71,37,-1:6," +
+"71,-1:10,71:3,70,71:18,-1:4,71,37,-1:6,71,-1:10,71:4,33,71:17,-1:4,71,37,-1" +
+":6,71,-1:10,71:7,55,71:14,-1:4,71,37,-1:6,71,-1:10,71,58,71:20,-1:4,71,37,-" +
+"1:6,71,-1:10,57,71:21,-1:4,71,37,-1:6,71,-1:10,71:6,65,71:15,-1:4,71,37,-1:" +
+"6,71,-1:10,71:14,68,71:7,-1:4,71,37,-1:6,71,-1:10,71:17,39,71:4,-1:4,71,37," +
+"-1:6,71,-1:10,71:7,41,71:14,-1:4,71,37,-1:6,71,-1:10,71:6,43,71:15,-1:4,71," +
+"37,-1:6,71,-1:10,71:6,44,71:15,-1:4,71,37,-1:6,71,-1:10,71:17,45,71,46,71:2" +
+",-1:4,71,37,-1:6,71,-1:10,71:10,47,71:11,-1:4,71,37,-1:6,71,-1:10,71:6,72,7" +
+"1:15,-1:4,71,37,-1:6,71,-1:10,71,48,71:15,74,71:4,-1:4,71,37,-1:6,71,-1:10," +
+"49,71:20,50,-1:4,71,37,-1:6,71,-1:10,71:2,73,71:19,-1:4,71,37,-1:6,71,-1:10" +
+",71,75,71:20,-1:4,71,37,-1:6,71,-1:9");
 
 	public java_cup.runtime.Symbol next_token ()
 		throws java.io.IOException {
@@ -344,245 +394,245 @@ public class Scanner implements java_cup.runtime.Scanner {
 						break;
 					case 2:
 						{
-    yybegin(YYINITIAL);
-    return new Symbol(sym.STAR,yyline,yychar,new TokenValue(yytext()));
+  yybegin(YYINITIAL);
+  return new Symbol(sym.LPAREN,yyline,yychar,new TokenValue(yytext()));
 }
 					case -3:
 						break;
 					case 3:
-						{ 
+						{
+  yybegin(YYINITIAL);
+  return new Symbol(sym.RPAREN,yyline,yychar,new TokenValue(yytext()));
 }
 					case -4:
 						break;
 					case 4:
 						{
-  yybegin(NEGATE); 
-  return new Symbol(sym.COMMA, yyline,yychar,new TokenValue(yytext())); 
+    yybegin(YYINITIAL);
+    return new Symbol(sym.STAR,yyline,yychar,new TokenValue(yytext()));
 }
 					case -5:
 						break;
 					case 5:
-						{
-  yybegin(NEGATE); 
-  return new Symbol(sym.EQUAL, yyline,yychar,new TokenValue(yytext()));
+						{ 
 }
 					case -6:
 						break;
 					case 6:
 						{
-  yybegin(YYINITIAL); 
-  return new Symbol(sym.SEMI, yyline,yychar,new TokenValue(yytext()));
+  yybegin(YYINITIAL);
+  return new Symbol(sym.INTLIT,yyline,yychar,new TokenValue(yytext()));
 }
 					case -7:
 						break;
 					case 7:
-						{ 
-  yybegin(NEGATE);
-  return new Symbol(sym.LESSTHAN,yyline,yychar,new TokenValue(yytext()));
+						{
+  yybegin(NEGATE); 
+  return new Symbol(sym.COMMA, yyline,yychar,new TokenValue(yytext())); 
 }
 					case -8:
 						break;
 					case 8:
-						{ 
-  yybegin(NEGATE);
-  return new Symbol(sym.GREATERTHAN,yyline,yychar,new TokenValue(yytext()));
+						{
+  yybegin(NEGATE); 
+  return new Symbol(sym.EQUAL, yyline,yychar,new TokenValue(yytext()));
 }
 					case -9:
 						break;
 					case 9:
 						{
-  yybegin(YYINITIAL);
-   return new Symbol(sym.DOT,yyline,yychar,new TokenValue(yytext()));
+  yybegin(YYINITIAL); 
+  return new Symbol(sym.SEMI, yyline,yychar,new TokenValue(yytext()));
 }
 					case -10:
 						break;
 					case 10:
-						
+						{ 
+  yybegin(NEGATE);
+  return new Symbol(sym.LESSTHAN,yyline,yychar,new TokenValue(yytext()));
+}
 					case -11:
 						break;
 					case 11:
 						{ 
-  yybegin(YYINITIAL); 
-    return new Symbol(sym.STRINGLIT,yyline,yychar, new TokenValue(yytext().substring(1,yytext().length()-1))); 
-  }
+  yybegin(NEGATE);
+  return new Symbol(sym.GREATERTHAN,yyline,yychar,new TokenValue(yytext()));
+}
 					case -12:
 						break;
 					case 12:
-						{ 
-  yybegin(NEGATE);
-  return new Symbol(sym.NOTEQUAL, yyline,yychar,new TokenValue(yytext()));
+						{
+  yybegin(YYINITIAL);
+   return new Symbol(sym.DOT,yyline,yychar,new TokenValue(yytext()));
 }
 					case -13:
 						break;
 					case 13:
-						{ 
-  yybegin(NEGATE);
-  return new Symbol(sym.LTOE,yyline,yychar,new TokenValue(yytext()));
-}
+						
 					case -14:
 						break;
 					case 14:
 						{ 
-  yybegin(NEGATE);
-  return new Symbol(sym.GTOE, yyline,yychar,new TokenValue(yytext()));
-}
+  yybegin(YYINITIAL); 
+    return new Symbol(sym.STRINGLIT,yyline,yychar, new TokenValue(yytext().substring(1,yytext().length()-1))); 
+  }
 					case -15:
 						break;
 					case 15:
 						{ 
   yybegin(NEGATE);
-  return new Symbol(sym.AND, yyline,yychar,new TokenValue(yytext()));
+  return new Symbol(sym.NOTEQUAL, yyline,yychar,new TokenValue(yytext()));
 }
 					case -16:
 						break;
 					case 16:
 						{ 
   yybegin(NEGATE);
-  return new Symbol(sym.OR,yyline,yychar,new TokenValue(yytext()));
+  return new Symbol(sym.LTOE,yyline,yychar,new TokenValue(yytext()));
 }
 					case -17:
 						break;
 					case 17:
-						{
-  yybegin(YYINITIAL);
-  return new Symbol(sym.FROM,yyline,yychar,new TokenValue(yytext()));
+						{ 
+  yybegin(NEGATE);
+  return new Symbol(sym.GTOE, yyline,yychar,new TokenValue(yytext()));
 }
 					case -18:
 						break;
 					case 18:
-						{
-  yybegin(YYINITIAL);
-  return new Symbol(sym.WHERE,yyline,yychar,new TokenValue(yytext()));
+						{ 
+  yybegin(NEGATE);
+  return new Symbol(sym.AND, yyline,yychar,new TokenValue(yytext()));
 }
 					case -19:
 						break;
 					case 19:
-						{
-  yybegin(YYINITIAL);
-  return new Symbol(sym.SELECT,yyline,yychar,new TokenValue(yytext()));
+						{ 
+  yybegin(NEGATE);
+  return new Symbol(sym.OR,yyline,yychar,new TokenValue(yytext()));
 }
 					case -20:
 						break;
 					case 20:
 						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.GROUPBY,yyline,yychar,new TokenValue(yytext()));
+  return new Symbol(sym.SUM,yyline,yychar,new TokenValue(yytext()));
 }
 					case -21:
 						break;
 					case 21:
 						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.DISTINCT,yyline,yychar,new TokenValue(yytext()));
+  return new Symbol(sym.MIN,yyline,yychar,new TokenValue(yytext()));
 }
 					case -22:
 						break;
-					case 23:
-						{ 
+					case 22:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.MAX,yyline,yychar,new TokenValue(yytext()));
 }
 					case -23:
 						break;
-					case 25:
-						{ 
+					case 23:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.ASC,yyline,yychar,new TokenValue(yytext()));
 }
 					case -24:
 						break;
-					case 27:
-						{ 
+					case 24:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.AVG,yyline,yychar,new TokenValue(yytext()));
 }
 					case -25:
 						break;
-					case 29:
-						{ 
+					case 25:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.FROM,yyline,yychar,new TokenValue(yytext()));
 }
 					case -26:
 						break;
-					case 31:
-						{ 
+					case 26:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.DESC,yyline,yychar,new TokenValue(yytext()));
 }
 					case -27:
 						break;
-					case 32:
-						{ 
+					case 27:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.LIMIT,yyline,yychar,new TokenValue(yytext()));
 }
 					case -28:
 						break;
-					case 33:
-						{ 
+					case 28:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.COUNT,yyline,yychar,new TokenValue(yytext()));
 }
 					case -29:
 						break;
-					case 34:
-						{ 
+					case 29:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.WHERE,yyline,yychar,new TokenValue(yytext()));
 }
 					case -30:
 						break;
-					case 35:
-						{ 
+					case 30:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.SELECT,yyline,yychar,new TokenValue(yytext()));
 }
 					case -31:
 						break;
-					case 36:
-						{ 
+					case 31:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.ORDERBY,yyline,yychar,new TokenValue(yytext()));
 }
 					case -32:
 						break;
-					case 37:
-						{ 
+					case 32:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.GROUPBY,yyline,yychar,new TokenValue(yytext()));
 }
 					case -33:
 						break;
-					case 38:
-						{ 
+					case 33:
+						{
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+  return new Symbol(sym.DISTINCT,yyline,yychar,new TokenValue(yytext()));
 }
 					case -34:
 						break;
-					case 39:
+					case 35:
 						{ 
   yybegin(YYINITIAL);
   return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
 }
 					case -35:
 						break;
-					case 40:
+					case 37:
 						{ 
   yybegin(YYINITIAL);
   return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
 }
 					case -36:
 						break;
-					case 41:
+					case 39:
 						{ 
   yybegin(YYINITIAL);
   return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
 }
 					case -37:
 						break;
-					case 42:
+					case 41:
 						{ 
   yybegin(YYINITIAL);
   return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
@@ -655,10 +705,255 @@ public class Scanner implements java_cup.runtime.Scanner {
 					case 52:
 						{ 
   yybegin(YYINITIAL);
-  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext()));
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
 }
 					case -48:
 						break;
+					case 53:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -49:
+						break;
+					case 54:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -50:
+						break;
+					case 55:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -51:
+						break;
+					case 56:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -52:
+						break;
+					case 57:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -53:
+						break;
+					case 58:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -54:
+						break;
+					case 59:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -55:
+						break;
+					case 60:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -56:
+						break;
+					case 61:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -57:
+						break;
+					case 62:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -58:
+						break;
+					case 63:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -59:
+						break;
+					case 64:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -60:
+						break;
+					case 65:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -61:
+						break;
+					case 66:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -62:
+						break;
+					case 67:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -63:
+						break;
+					case 68:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -64:
+						break;
+					case 69:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -65:
+						break;
+					case 70:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -66:
+						break;
+					case 71:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -67:
+						break;
+					case 72:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -68:
+						break;
+					case 73:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -69:
+						break;
+					case 74:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -70:
+						break;
+					case 75:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -71:
+						break;
+					case 76:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -72:
+						break;
+					case 77:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -73:
+						break;
+					case 78:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -74:
+						break;
+					case 79:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -75:
+						break;
+					case 80:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -76:
+						break;
+					case 81:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -77:
+						break;
+					case 82:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -78:
+						break;
+					case 83:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -79:
+						break;
+					case 84:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -80:
+						break;
+					case 85:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -81:
+						break;
+					case 86:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -82:
+						break;
+					case 87:
+						{ 
+  yybegin(YYINITIAL);
+  return new Symbol(sym.ID,yyline,yychar,new TokenValue(yytext())); 
+}
+					case -83:
+						break;
 					default:
 						yy_error(YY_E_INTERNAL,false);
 					case -1:
@@ -1,20 +1,19 @@
 
 //----------------------------------------------------
 // The following code was generated by CUP v0.10k
-// Sat Mar 30 17:31:28 SGT 2019
+// Sat Oct 17 20:27:04 UTC 2026
 //----------------------------------------------------
 
 package qp.parser;
 
 import java.util.Vector;
-
 import java_cup.runtime.Symbol;
 import qp.utils.Attribute;
 import qp.utils.Condition;
 import qp.utils.SQLQuery;
 
 /** CUP v0.10k generated parser.
-  * @version Sat Mar 30 17:31:28 SGT 2019
+  * @version Sat Oct 17 20:27:04 UTC 2026
   */
 public class parser extends java_cup.runtime.lr_parser {
 
@@ -27,15 +26,21 @@ public class parser extends java_cup.runtime.lr_parser {
   /** Production table. */
   protected static final short _production_table[][] = 
     unpackFromStrings(new String[] {
-    "\000\034\000\002\003\005\000\002\002\004\000\002\003" +
-    "\010\000\002\003\010\000\002\003\006\000\002\003\006" +
-    "\000\002\003\011\000\002\003\011\000\002\003\007\000" +
-    "\002\003\007\000\002\004\005\000\002\004\003\000\002" +
-    "\006\005\000\002\006\003\000\002\007\005\000\002\007" +
-    "\003\000\002\010\005\000\002\010\005\000\002\010\004" +
-    "\000\002\010\004\000\002\005\005\000\002\005\004\000" +
-    "\002\011\003\000\002\011\003\000\002\011\003\000\002" +
-    "\011\003\000\002\011\003\000\002\011\003" });
+    "\000\056\000\002\003\005\000\002\002\004\000\002\003" +
+    "\005\000\002\003\006\000\002\003\006\000\002\003\005" +
+    "\000\002\003\010\000\002\003\010\000\002\003\006\000" +
+    "\002\003\006\000\002\003\011\000\002\003\011\000\002" +
+    "\003\007\000\002\003\007\000\002\004\005\000\002\004" +
+    "\003\000\002\006\005\000\002\006\003\000\002\007\003" +
+    "\000\002\007\006\000\002\010\003\000\002\010\003\000" +
+    "\002\010\003\000\002\010\003\000\002\010\003\000\002" +
+    "\011\005\000\002\011\003\000\002\012\005\000\002\012" +
+    "\003\000\002\013\003\000\002\014\005\000\002\014\003" +
+    "\000\002\015\005\000\002\015\003\000\002\016\005\000" +
+    "\002\016\005\000\002\016\004\000\002\016\004\000\002" +
+    "\005\005\000\002\005\004\000\002\017\003\000\002\017" +
+    "\003\000\002\017\003\000\002\017\003\000\002\017\003" +
+    "\000\002\017\003" });
 
   /** Access to production table. */
   public short[][] production_table() {return _production_table;}
@@ -43,45 +48,77 @@ public class parser extends java_cup.runtime.lr_parser {
   /** Parse-action table. */
   protected static final short[][] _action_table = 
     unpackFromStrings(new String[] {
-    "\000\065\000\004\021\005\001\002\000\006\002\066\024" +
-    "\065\001\002\000\010\004\007\010\010\025\006\001\002" +
-    "\000\006\004\007\010\053\001\002\000\006\003\050\007" +
-    "\051\001\002\000\004\022\044\001\002\000\006\005\013" +
-    "\022\014\001\002\000\012\002\ufff6\005\ufff6\022\ufff6\024" +
-    "\ufff6\001\002\000\004\004\007\001\002\000\004\004\015" +
-    "\001\002\000\012\002\ufff4\005\ufff4\023\ufff4\024\ufff4\001" +
-    "\002\000\012\002\ufffd\005\017\023\020\024\ufffd\001\002" +
-    "\000\004\004\042\001\002\000\006\003\022\004\007\001" +
-    "\002\000\010\002\uffff\005\040\024\uffff\001\002\000\004" +
-    "\026\037\001\002\000\020\003\026\011\030\012\032\013" +
-    "\033\014\025\015\027\016\031\001\002\000\010\002\ufff2" +
-    "\005\ufff2\024\ufff2\001\002\000\006\004\uffe8\026\uffe8\001" +
-    "\002\000\010\002\uffef\005\uffef\024\uffef\001\002\000\006" +
-    "\004\uffe6\026\uffe6\001\002\000\006\004\uffeb\026\uffeb\001" +
-    "\002\000\006\004\uffe7\026\uffe7\001\002\000\006\004\uffea" +
-    "\026\uffea\001\002\000\006\004\uffe9\026\uffe9\001\002\000" +
-    "\006\004\007\026\036\001\002\000\010\002\ufff0\005\ufff0" +
-    "\024\ufff0\001\002\000\010\002\ufff1\005\ufff1\024\ufff1\001" +
-    "\002\000\010\002\uffee\005\uffee\024\uffee\001\002\000\006" +
-    "\003\022\004\007\001\002\000\010\002\ufff3\005\ufff3\024" +
-    "\ufff3\001\002\000\012\002\ufff5\005\ufff5\023\ufff5\024\ufff5" +
-    "\001\002\000\012\002\ufff7\005\ufff7\022\ufff7\024\ufff7\001" +
-    "\002\000\004\004\015\001\002\000\012\002\ufffc\005\017" +
-    "\023\046\024\ufffc\001\002\000\006\003\022\004\007\001" +
-    "\002\000\010\002\ufffe\005\040\024\ufffe\001\002\000\030" +
-    "\002\uffec\003\uffec\005\uffec\011\uffec\012\uffec\013\uffec\014" +
-    "\uffec\015\uffec\016\uffec\022\uffec\024\uffec\001\002\000\004" +
-    "\004\052\001\002\000\030\002\uffed\003\uffed\005\uffed\011" +
-    "\uffed\012\uffed\013\uffed\014\uffed\015\uffed\016\uffed\022\uffed" +
-    "\024\uffed\001\002\000\004\022\061\001\002\000\006\005" +
-    "\013\022\055\001\002\000\004\004\015\001\002\000\012" +
-    "\002\ufff9\005\017\023\057\024\ufff9\001\002\000\006\003" +
-    "\022\004\007\001\002\000\010\002\ufffb\005\040\024\ufffb" +
-    "\001\002\000\004\004\015\001\002\000\012\002\ufff8\005" +
-    "\017\023\063\024\ufff8\001\002\000\006\003\022\004\007" +
-    "\001\002\000\010\002\ufffa\005\040\024\ufffa\001\002\000" +
-    "\004\004\007\001\002\000\004\002\000\001\002\000\010" +
-    "\002\001\005\013\024\001\001\002" });
+    "\000\117\000\004\023\005\001\002\000\012\002\111\026" +
+    "\110\030\107\033\106\001\002\000\022\004\020\010\015" +
+    "\027\016\034\021\035\014\036\006\037\013\040\007\001" +
+    "\002\000\004\011\uffeb\001\002\000\004\011\uffe9\001\002" +
+    "\000\004\011\103\001\002\000\006\005\065\024\077\001" +
+    "\002\000\006\005\uffef\024\uffef\001\002\000\004\011\uffea" +
+    "\001\002\000\004\011\uffec\001\002\000\004\024\073\001" +
+    "\002\000\020\004\020\010\026\034\021\035\014\036\006" +
+    "\037\013\040\007\001\002\000\006\005\ufff0\024\ufff0\001" +
+    "\002\000\006\003\022\007\023\001\002\000\004\011\uffed" +
+    "\001\002\000\046\002\uffda\003\uffda\005\uffda\012\uffda\013" +
+    "\uffda\014\uffda\015\uffda\016\uffda\017\uffda\020\uffda\021\uffda" +
+    "\022\uffda\024\uffda\026\uffda\030\uffda\031\uffda\032\uffda\033" +
+    "\uffda\001\002\000\004\004\024\001\002\000\046\002\uffdb" +
+    "\003\uffdb\005\uffdb\012\uffdb\013\uffdb\014\uffdb\015\uffdb\016" +
+    "\uffdb\017\uffdb\020\uffdb\021\uffdb\022\uffdb\024\uffdb\026\uffdb" +
+    "\030\uffdb\031\uffdb\032\uffdb\033\uffdb\001\002\000\006\005" +
+    "\065\024\066\001\002\000\004\024\027\001\002\000\004" +
+    "\004\030\001\002\000\016\002\uffe7\005\uffe7\025\uffe7\026" +
+    "\uffe7\030\uffe7\033\uffe7\001\002\000\016\002\ufff4\005\032" +
+    "\025\033\026\ufff4\030\ufff4\033\ufff4\001\002\000\004\004" +
+    "\064\001\002\000\006\003\037\004\020\001\002\000\014" +
+    "\002\ufff6\005\062\026\ufff6\030\ufff6\033\ufff6\001\002\000" +
+    "\014\002\uffe5\005\uffe5\026\uffe5\030\uffe5\033\uffe5\001\002" +
+    "\000\020\002\uffe2\005\uffe2\021\045\022\uffe2\026\uffe2\030" +
+    "\uffe2\033\uffe2\001\002\000\004\041\061\001\002\000\020" +
+    "\003\050\013\052\014\054\015\055\016\047\017\051\020" +
+    "\053\001\002\000\016\002\uffe4\005\uffe4\022\043\026\uffe4" +
+    "\030\uffe4\033\uffe4\001\002\000\020\002\uffe0\005\uffe0\021" +
+    "\uffe0\022\uffe0\026\uffe0\030\uffe0\033\uffe0\001\002\000\006" +
+    "\003\037\004\020\001\002\000\020\002\uffe3\005\uffe3\021" +
+    "\045\022\uffe3\026\uffe3\030\uffe3\033\uffe3\001\002\000\006" +
+    "\003\037\004\020\001\002\000\020\002\uffe1\005\uffe1\021" +
+    "\uffe1\022\uffe1\026\uffe1\030\uffe1\033\uffe1\001\002\000\006" +
+    "\004\uffd6\041\uffd6\001\002\000\020\002\uffdd\005\uffdd\021" +
+    "\uffdd\022\uffdd\026\uffdd\030\uffdd\033\uffdd\001\002\000\006" +
+    "\004\uffd4\041\uffd4\001\002\000\006\004\uffd9\041\uffd9\001" +
+    "\002\000\006\004\uffd5\041\uffd5\001\002\000\006\004\uffd8" +
+    "\041\uffd8\001\002\000\006\004\uffd7\041\uffd7\001\002\000" +
+    "\006\004\020\041\060\001\002\000\020\002\uffde\005\uffde" +
+    "\021\uffde\022\uffde\026\uffde\030\uffde\033\uffde\001\002\000" +
+    "\020\002\uffdf\005\uffdf\021\uffdf\022\uffdf\026\uffdf\030\uffdf" +
+    "\033\uffdf\001\002\000\020\002\uffdc\005\uffdc\021\uffdc\022" +
+    "\uffdc\026\uffdc\030\uffdc\033\uffdc\001\002\000\006\003\037" +
+    "\004\020\001\002\000\014\002\uffe6\005\uffe6\026\uffe6\030" +
+    "\uffe6\033\uffe6\001\002\000\016\002\uffe8\005\uffe8\025\uffe8" +
+    "\026\uffe8\030\uffe8\033\uffe8\001\002\000\016\004\020\034" +
+    "\021\035\014\036\006\037\013\040\007\001\002\000\004" +
+    "\004\030\001\002\000\016\002\ufff5\005\032\025\070\026" +
+    "\ufff5\030\ufff5\033\ufff5\001\002\000\006\003\037\004\020" +
+    "\001\002\000\014\002\ufff7\005\062\026\ufff7\030\ufff7\033" +
+    "\ufff7\001\002\000\006\005\ufff1\024\ufff1\001\002\000\004" +
+    "\004\030\001\002\000\016\002\ufff8\005\032\025\075\026" +
+    "\ufff8\030\ufff8\033\ufff8\001\002\000\006\003\037\004\020" +
+    "\001\002\000\014\002\ufffa\005\062\026\ufffa\030\ufffa\033" +
+    "\ufffa\001\002\000\004\004\030\001\002\000\016\002\ufff9" +
+    "\005\032\025\101\026\ufff9\030\ufff9\033\ufff9\001\002\000" +
+    "\006\003\037\004\020\001\002\000\014\002\ufffb\005\062" +
+    "\026\ufffb\030\ufffb\033\ufffb\001\002\000\004\004\020\001" +
+    "\002\000\004\012\105\001\002\000\006\005\uffee\024\uffee" +
+    "\001\002\000\004\042\121\001\002\000\004\004\020\001" +
+    "\002\000\004\004\020\001\002\000\004\002\000\001\002" +
+    "\000\014\002\001\005\114\026\001\030\001\033\001\001" +
+    "\002\000\020\002\ufff2\005\ufff2\026\ufff2\030\ufff2\031\ufff2" +
+    "\032\ufff2\033\ufff2\001\002\000\004\004\020\001\002\000" +
+    "\020\002\ufff3\005\ufff3\026\ufff3\030\ufff3\031\ufff3\032\ufff3" +
+    "\033\ufff3\001\002\000\020\002\uffff\005\114\026\uffff\030" +
+    "\uffff\031\117\032\120\033\uffff\001\002\000\012\002\ufffe" +
+    "\026\ufffe\030\ufffe\033\ufffe\001\002\000\012\002\ufffd\026" +
+    "\ufffd\030\ufffd\033\ufffd\001\002\000\012\002\ufffc\026\ufffc" +
+    "\030\ufffc\033\ufffc\001\002" });
 
   /** Access to parse-action table. */
   public short[][] action_table() {return _action_table;}
@@ -89,27 +126,40 @@ public class parser extends java_cup.runtime.lr_parser {
   /** <code>reduce_goto</code> table. */
   protected static final short[][] _reduce_table = 
     unpackFromStrings(new String[] {
-    "\000\065\000\004\003\003\001\001\000\002\001\001\000" +
-    "\006\004\010\005\011\001\001\000\006\004\053\005\011" +
+    "\000\117\000\004\003\003\001\001\000\002\001\001\000" +
+    "\012\005\011\006\010\007\016\010\007\001\001\000\002" +
     "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
-    "\001\000\002\001\001\000\004\005\042\001\001\000\004" +
-    "\006\015\001\001\000\002\001\001\000\002\001\001\000" +
-    "\002\001\001\000\010\005\022\007\020\010\023\001\001" +
-    "\000\002\001\001\000\002\001\001\000\004\011\033\001" +
     "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
-    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
-    "\002\001\001\000\002\001\001\000\004\005\034\001\001" +
-    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
-    "\006\005\022\010\040\001\001\000\002\001\001\000\002" +
-    "\001\001\000\002\001\001\000\004\006\044\001\001\000" +
-    "\002\001\001\000\010\005\022\007\046\010\023\001\001" +
-    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
-    "\002\001\001\000\002\001\001\000\002\001\001\000\004" +
-    "\006\055\001\001\000\002\001\001\000\010\005\022\007" +
-    "\057\010\023\001\001\000\002\001\001\000\004\006\061" +
-    "\001\001\000\002\001\001\000\010\005\022\007\063\010" +
-    "\023\001\001\000\002\001\001\000\006\004\066\005\011" +
-    "\001\001\000\002\001\001\000\002\001\001" });
+    "\000\002\001\001\000\012\005\011\006\024\007\016\010" +
+    "\007\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
+    "\001\000\002\001\001\000\002\001\001\000\004\011\030" +
+    "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
+    "\001\000\016\005\037\012\033\013\034\014\040\015\035" +
+    "\016\041\001\001\000\002\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001\000\004\017\055\001\001" +
+    "\000\002\001\001\000\002\001\001\000\010\005\037\015" +
+    "\043\016\041\001\001\000\002\001\001\000\006\005\037" +
+    "\016\045\001\001\000\002\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\001\001\000\002\001\001\000\002\001\001\000\004\005" +
+    "\056\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\001\001\000\014\005\037\013\062\014\040\015\035\016" +
+    "\041\001\001\000\002\001\001\000\002\001\001\000\010" +
+    "\005\011\007\071\010\007\001\001\000\004\011\066\001" +
+    "\001\000\002\001\001\000\016\005\037\012\070\013\034" +
+    "\014\040\015\035\016\041\001\001\000\002\001\001\000" +
+    "\002\001\001\000\004\011\073\001\001\000\002\001\001" +
+    "\000\016\005\037\012\075\013\034\014\040\015\035\016" +
+    "\041\001\001\000\002\001\001\000\004\011\077\001\001" +
+    "\000\002\001\001\000\016\005\037\012\101\013\034\014" +
+    "\040\015\035\016\041\001\001\000\002\001\001\000\004" +
+    "\005\103\001\001\000\002\001\001\000\002\001\001\000" +
+    "\002\001\001\000\006\004\115\005\112\001\001\000\006" +
+    "\004\111\005\112\001\001\000\002\001\001\000\002\001" +
+    "\001\000\002\001\001\000\004\005\114\001\001\000\002" +
+    "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
+    "\001\000\002\001\001" });
 
   /** Access to <code>reduce_goto</code> table. */
   public short[][] reduce_table() {return _reduce_table;}
@@ -165,6 +215,33 @@ public class parser extends java_cup.runtime.lr_parser {
     public void syntax_error(Symbol cur_token) {
     }
 
+    // Combines the conjunctions in a disjunction into a single select condition.
+    public static Condition makeDisjunction(Vector disjuncts) {
+        Vector<Condition> children = new Vector<>();
+        for (Object disjunct : disjuncts) {
+            // The nonterminals are raw vectors, so the conditions are cast once here into a typed conjunction.
+            Vector<Condition> conjuncts = new Vector<>();
+            for (Object conjunct : (Vector) disjunct) {
+                Condition condition = (Condition) conjunct;
+                if (condition.getCondType() != Condition.SELECT) {
+                    System.out.println("syntax error: join condition in disjunction");
+                    System.exit(0);
+                }
+                conjuncts.add(condition);
+            }
+            children.add(conjuncts.size() == 1 ? conjuncts.elementAt(0) : new Condition(Condition.AND, conjuncts));
+        }
+
+        Condition c = new Condition(Condition.OR, children);
+        for (Attribute at : c.getAttributes()) {
+            if (!at.getTabName().equals(c.getLeft().getTabName())) {
+                System.out.println("syntax error: disjunction on more than one table");
+                System.exit(0);
+            }
+        }
+        return c;
+    }
+
 }
 
 /** Cup generated class to encapsulate user supplied action code.*/
@@ -194,73 +271,73 @@ class CUP$parser$actions {
       switch (CUP$parser$act_num)
         {
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 27: // op ::= EQUAL 
+          case 45: // op ::= EQUAL 
             {
               Condition RESULT = null;
 		
         RESULT = new Condition(Condition.EQUAL);
     
-              CUP$parser$result = new java_cup.runtime.Symbol(7/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(13/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 26: // op ::= NOTEQUAL 
+          case 44: // op ::= NOTEQUAL 
             {
               Condition RESULT = null;
 		
         RESULT = new Condition(Condition.NOTEQUAL);
     
-              CUP$parser$result = new java_cup.runtime.Symbol(7/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(13/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 25: // op ::= GTOE 
+          case 43: // op ::= GTOE 
             {
               Condition RESULT = null;
 		
         RESULT = new Condition(Condition.GTOE);
     
-              CUP$parser$result = new java_cup.runtime.Symbol(7/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(13/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 24: // op ::= LTOE 
+          case 42: // op ::= LTOE 
             {
               Condition RESULT = null;
 		
         RESULT = new Condition(Condition.LTOE);
     
-              CUP$parser$result = new java_cup.runtime.Symbol(7/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(13/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 23: // op ::= GREATERTHAN 
+          case 41: // op ::= GREATERTHAN 
             {
               Condition RESULT = null;
 		
         RESULT = new Condition(Condition.GREATER_THAN);
     
-              CUP$parser$result = new java_cup.runtime.Symbol(7/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(13/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 22: // op ::= LESSTHAN 
+          case 40: // op ::= LESSTHAN 
             {
               Condition RESULT = null;
 		
         RESULT = new Condition(Condition.LESS_THAN);
     
-              CUP$parser$result = new java_cup.runtime.Symbol(7/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(13/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 21: // attribute ::= ID error 
+          case 39: // attribute ::= ID error 
             {
               Attribute RESULT = null;
 		int ileft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -278,7 +355,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 20: // attribute ::= ID DOT ID 
+          case 38: // attribute ::= ID DOT ID 
             {
               Attribute RESULT = null;
 		int i1left = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -295,7 +372,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 19: // condition ::= error STRINGLIT 
+          case 37: // condition ::= error STRINGLIT 
             {
               Condition RESULT = null;
 		int pleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -308,12 +385,12 @@ class CUP$parser$actions {
         System.out.println("syntax error: incorrect condition:"+s.text());
         System.exit(0);
     
-              CUP$parser$result = new java_cup.runtime.Symbol(6/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(12/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 18: // condition ::= attribute error 
+          case 36: // condition ::= attribute error 
             {
               Condition RESULT = null;
 		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -326,12 +403,12 @@ class CUP$parser$actions {
         System.out.println("syntax error: incorrect condition");
         System.exit(0);
     
-              CUP$parser$result = new java_cup.runtime.Symbol(6/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(12/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 17: // condition ::= attribute op attribute 
+          case 35: // condition ::= attribute op attribute 
             {
               Condition RESULT = null;
 		int a1left = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -348,12 +425,12 @@ class CUP$parser$actions {
         c.setCondType(Condition.JOIN);
         RESULT = c;
     
-              CUP$parser$result = new java_cup.runtime.Symbol(6/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(12/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 16: // condition ::= attribute op STRINGLIT 
+          case 34: // condition ::= attribute op STRINGLIT 
             {
               Condition RESULT = null;
 		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -370,12 +447,12 @@ class CUP$parser$actions {
         c.setCondType(Condition.SELECT);
         RESULT = c;
     
-              CUP$parser$result = new java_cup.runtime.Symbol(6/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(12/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 15: // conditionlist ::= condition 
+          case 33: // conjunction ::= condition 
             {
               Vector RESULT = null;
 		int cleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
@@ -386,12 +463,12 @@ class CUP$parser$actions {
         clist.add(c);
         RESULT = clist;
     
-              CUP$parser$result = new java_cup.runtime.Symbol(5/*conditionlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(11/*conjunction*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 14: // conditionlist ::= conditionlist COMMA condition 
+          case 32: // conjunction ::= conjunction AND condition 
             {
               Vector RESULT = null;
 		int clistleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -404,12 +481,99 @@ class CUP$parser$actions {
         clist.add(c);
         RESULT = clist;
     
-              CUP$parser$result = new java_cup.runtime.Symbol(5/*conditionlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(11/*conjunction*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 13: // tablelist ::= ID 
+          case 31: // disjunction ::= conjunction 
+            {
+              Vector RESULT = null;
+		int cleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int cright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Vector c = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+        Vector d = new Vector();
+        d.add(c);
+        RESULT = d;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(10/*disjunction*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 30: // disjunction ::= disjunction OR conjunction 
+            {
+              Vector RESULT = null;
+		int dleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
+		int dright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).right;
+		Vector d = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-2)).value;
+		int cleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int cright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Vector c = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+        d.add(c);
+        RESULT = d;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(10/*disjunction*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 29: // predicate ::= disjunction 
+            {
+              Vector RESULT = null;
+		int dleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int dright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Vector d = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+        // A conjunction is flattened into the condition list, just like a comma-separated list.
+        if (d.size() == 1) {
+            RESULT = (Vector) d.elementAt(0);
+        } else {
+            Vector clist = new Vector();
+            clist.add(parser.makeDisjunction(d));
+            RESULT = clist;
+        }
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(9/*predicate*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 28: // conditionlist ::= predicate 
+            {
+              Vector RESULT = null;
+		int pleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int pright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Vector p = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+        RESULT = p;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(8/*conditionlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 27: // conditionlist ::= conditionlist COMMA predicate 
+            {
+              Vector RESULT = null;
+		int clistleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
+		int clistright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).right;
+		Vector clist = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-2)).value;
+		int pleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int pright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Vector p = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+        clist.addAll(p);
+        RESULT = clist;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(8/*conditionlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 26: // tablelist ::= ID 
             {
               Vector RESULT = null;
 		int ileft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
@@ -420,12 +584,12 @@ class CUP$parser$actions {
         tlist.add(i.text());
         RESULT = tlist;
     
-              CUP$parser$result = new java_cup.runtime.Symbol(4/*tablelist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(7/*tablelist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 12: // tablelist ::= tablelist COMMA ID 
+          case 25: // tablelist ::= tablelist COMMA ID 
             {
               Vector RESULT = null;
 		int tlistleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -438,12 +602,133 @@ class CUP$parser$actions {
         tlist.add(i.text());
         RESULT = tlist;
     
-              CUP$parser$result = new java_cup.runtime.Symbol(4/*tablelist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(7/*tablelist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 24: // aggregate ::= AVG 
+            {
+              Integer RESULT = null;
+		
+        RESULT = Attribute.AVG;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(6/*aggregate*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 23: // aggregate ::= COUNT 
+            {
+              Integer RESULT = null;
+		
+        RESULT = Attribute.COUNT;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(6/*aggregate*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 22: // aggregate ::= SUM 
+            {
+              Integer RESULT = null;
+		
+        RESULT = Attribute.SUM;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(6/*aggregate*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 21: // aggregate ::= MAX 
+            {
+              Integer RESULT = null;
+		
+        RESULT = Attribute.MAX;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(6/*aggregate*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 20: // aggregate ::= MIN 
+            {
+              Integer RESULT = null;
+		
+        RESULT = Attribute.MIN;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(6/*aggregate*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 11: // attlist ::= attribute 
+          case 19: // projection ::= aggregate LPAREN attribute RPAREN 
+            {
+              Attribute RESULT = null;
+		int gleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left;
+		int gright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).right;
+		Integer g = (Integer)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-3)).value;
+		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
+		int atright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).right;
+		Attribute at = (Attribute)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
+		
+        at.setAggType(g.intValue());
+        RESULT = at;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(5/*projection*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 18: // projection ::= attribute 
+            {
+              Attribute RESULT = null;
+		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int atright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Attribute at = (Attribute)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+        RESULT = at;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(5/*projection*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 17: // projectlist ::= projection 
+            {
+              Vector RESULT = null;
+		int pleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int pright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Attribute p = (Attribute)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+        Vector v = new Vector();
+        v.add(p);
+        RESULT = v;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(4/*projectlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 16: // projectlist ::= projectlist COMMA projection 
+            {
+              Vector RESULT = null;
+		int psleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
+		int psright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).right;
+		Vector ps = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-2)).value;
+		int pleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int pright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Attribute p = (Attribute)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+        ps.add(p);
+        RESULT = ps;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(4/*projectlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 15: // attlist ::= attribute 
             {
               Vector RESULT = null;
 		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
@@ -459,7 +744,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 10: // attlist ::= attlist COMMA attribute 
+          case 14: // attlist ::= attlist COMMA attribute 
             {
               Vector RESULT = null;
 		int asleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -477,7 +762,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 9: // sqlquery ::= SELECT DISTINCT STAR FROM tablelist 
+          case 13: // sqlquery ::= SELECT DISTINCT STAR FROM tablelist 
             {
               SQLQuery RESULT = null;
 		int tleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
@@ -495,7 +780,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 8: // sqlquery ::= SELECT DISTINCT attlist FROM tablelist 
+          case 12: // sqlquery ::= SELECT DISTINCT projectlist FROM tablelist 
             {
               SQLQuery RESULT = null;
 		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -515,7 +800,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 7: // sqlquery ::= SELECT DISTINCT STAR FROM tablelist WHERE conditionlist 
+          case 11: // sqlquery ::= SELECT DISTINCT STAR FROM tablelist WHERE conditionlist 
             {
               SQLQuery RESULT = null;
 		int tleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -536,7 +821,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 6: // sqlquery ::= SELECT DISTINCT attlist FROM tablelist WHERE conditionlist 
+          case 10: // sqlquery ::= SELECT DISTINCT projectlist FROM tablelist WHERE conditionlist 
             {
               SQLQuery RESULT = null;
 		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-4)).left;
@@ -559,7 +844,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 5: // sqlquery ::= SELECT STAR FROM tablelist 
+          case 9: // sqlquery ::= SELECT STAR FROM tablelist 
             {
               SQLQuery RESULT = null;
 		int tleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
@@ -576,7 +861,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 4: // sqlquery ::= SELECT attlist FROM tablelist 
+          case 8: // sqlquery ::= SELECT projectlist FROM tablelist 
             {
               SQLQuery RESULT = null;
 		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -595,7 +880,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 3: // sqlquery ::= SELECT STAR FROM tablelist WHERE conditionlist 
+          case 7: // sqlquery ::= SELECT STAR FROM tablelist WHERE conditionlist 
             {
               SQLQuery RESULT = null;
 		int tleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -615,7 +900,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 2: // sqlquery ::= SELECT attlist FROM tablelist WHERE conditionlist 
+          case 6: // sqlquery ::= SELECT projectlist FROM tablelist WHERE conditionlist 
             {
               SQLQuery RESULT = null;
 		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-4)).left;
@@ -636,6 +921,83 @@ class CUP$parser$actions {
             }
           return CUP$parser$result;
 
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 5: // sqlquery ::= sqlquery LIMIT INTLIT 
+            {
+              SQLQuery RESULT = null;
+		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
+		int sright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).right;
+		SQLQuery s = (SQLQuery)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-2)).value;
+		int nleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int nright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		TokenValue n = (TokenValue)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+        s.setLimit(Integer.parseInt(n.text()));
+        parser.query = s;
+        RESULT = s;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(1/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 4: // sqlquery ::= sqlquery ORDERBY attlist DESC 
+            {
+              SQLQuery RESULT = null;
+		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left;
+		int sright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).right;
+		SQLQuery s = (SQLQuery)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-3)).value;
+		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
+		int aright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).right;
+		Vector a = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
+		
+        s.setOrderByList(a);
+        s.setIsDescending(true);
+        parser.query = s;
+        RESULT = s;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(1/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 3: // sqlquery ::= sqlquery ORDERBY attlist ASC 
+            {
+              SQLQuery RESULT = null;
+		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left;
+		int sright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).right;
+		SQLQuery s = (SQLQuery)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-3)).value;
+		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
+		int aright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).right;
+		Vector a = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
+		
+        s.setOrderByList(a);
+        parser.query = s;
+        RESULT = s;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(1/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 2: // sqlquery ::= sqlquery ORDERBY attlist 
+            {
+              SQLQuery RESULT = null;
+		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
+		int sright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).right;
+		SQLQuery s = (SQLQuery)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-2)).value;
+		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int aright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Vector a = (Vector)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+        s.setOrderByList(a);
+        parser.query = s;
+        RESULT = s;
+    
+              CUP$parser$result = new java_cup.runtime.Symbol(1/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
           /*. . . . . . . . . . . . . . . . . . . .*/
           case 1: // $START ::= sqlquery EOF 
             {
@@ -663,6 +1025,7 @@ class CUP$parser$actions {
 		
         s.setGroupByList(a);
         parser.query = s;
+        RESULT = s;
     
               CUP$parser$result = new java_cup.runtime.Symbol(1/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
@@ -1,7 +1,7 @@
 
 //----------------------------------------------------
 // The following code was generated by CUP v0.10k
-// Sat Mar 30 17:31:28 SGT 2019
+// Sat Oct 17 18:35:35 UTC 2026
 //----------------------------------------------------
 
 package qp.parser;
@@ -9,26 +9,38 @@ package qp.parser;
 /** CUP generated class containing symbol constants. */
 public class sym {
   /* terminals */
-  public static final int WHERE = 17;
-  public static final int FROM = 16;
-  public static final int AND = 13;
-  public static final int GROUPBY = 18;
-  public static final int SELECT = 15;
-  public static final int OR = 14;
-  public static final int EQUAL = 11;
+  public static final int ORDERBY = 22;
+  public static final int WHERE = 19;
+  public static final int FROM = 18;
+  public static final int AND = 15;
+  public static final int GROUPBY = 20;
+  public static final int DESC = 24;
+  public static final int SELECT = 17;
+  public static final int OR = 16;
+  public static final int RPAREN = 8;
+  public static final int EQUAL = 13;
   public static final int SEMI = 4;
-  public static final int NOTEQUAL = 12;
-  public static final int LTOE = 9;
+  public static final int NOTEQUAL = 14;
+  public static final int SUM = 28;
+  public static final int LTOE = 11;
   public static final int STAR = 6;
+  public static final int LPAREN = 7;
   public static final int ID = 2;
-  public static final int GTOE = 10;
+  public static final int LIMIT = 25;
+  public static final int GTOE = 12;
+  public static final int INTLIT = 32;
   public static final int COMMA = 3;
-  public static final int LESSTHAN = 7;
+  public static final int LESSTHAN = 9;
   public static final int EOF = 0;
-  public static final int STRINGLIT = 20;
-  public static final int DISTINCT = 19;
+  public static final int STRINGLIT = 31;
+  public static final int DISTINCT = 21;
+  public static final int AVG = 30;
   public static final int error = 1;
   public static final int DOT = 5;
-  public static final int GREATERTHAN = 8;
+  public static final int MIN = 26;
+  public static final int ASC = 23;
+  public static final int MAX = 27;
+  public static final int COUNT = 29;
+  public static final int GREATERTHAN = 10;
 }
 
@@ -7,6 +7,9 @@ import java.util.Objects;
  * Defines some metadata about an attribute (i.e., a column).
  */
 public class Attribute implements Serializable {
+    // Keeps the metadata files written before aggregate functions were added readable.
+    private static final long serialVersionUID = -7988534108333359383L;
+
     // Data types of an attribute.
     public static final int INT = 1;
     public static final int STRING = 2;
@@ -17,6 +20,14 @@ public class Attribute implements Serializable {
     public static final int PK = 1; // primary key
     public static final int FK = 2; // Foreign key
 
+    // Aggregate functions applied on an attribute.
+    public static final int NONE = 0;
+    public static final int MIN = 1;
+    public static final int MAX = 2;
+    public static final int SUM = 3;
+    public static final int COUNT = 4;
+    public static final int AVG = 5;
+
     // The name of the table to which this attribute belongs.
     private String tableName;
     // The column name of this attribute.
@@ -27,6 +38,8 @@ public class Attribute implements Serializable {
     private int key = -1;
     // The size (in bytes) of this attribute.
     private int attrSize;
+    // The aggregate function applied on this attribute (NONE if it is a plain column).
+    private int aggType = NONE;
 
     /**
      * Creates a new attribute.
@@ -188,11 +201,93 @@ public class Attribute implements Serializable {
         return type;
     }
 
+    /**
+     * Setter for aggregate function.
+     *
+     * @param agg is the aggregate function.
+     */
+    public void setAggType(int agg) {
+        aggType = agg;
+    }
+
+    /**
+     * Getter for aggregate function.
+     *
+     * @return the aggregate function, or NONE if this attribute is a plain column.
+     */
+    public int getAggType() {
+        return aggType;
+    }
+
+    /**
+     * @return whether an aggregate function is applied on this attribute.
+     */
+    public boolean isAggregated() {
+        return aggType != NONE;
+    }
+
+    /**
+     * @return the name of the aggregate function applied on this attribute, or null if there is none.
+     */
+    public String getAggName() {
+        switch (aggType) {
+            case MIN:
+                return "MIN";
+            case MAX:
+                return "MAX";
+            case SUM:
+                return "SUM";
+            case COUNT:
+                return "COUNT";
+            case AVG:
+                return "AVG";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the plain column on which the aggregate function (if any) is applied.
+     */
+    public Attribute getBaseAttribute() {
+        Attribute baseAttr = (Attribute) clone();
+        baseAttr.setAggType(NONE);
+        return baseAttr;
+    }
+
+    /**
+     * Creates the attribute holding the result of an aggregate function on this attribute. COUNT gives an INT
+     * and AVG gives a REAL, while the other functions keep the getData type of this attribute.
+     *
+     * @param agg is the aggregate function.
+     * @return the aggregated attribute, or null if the function cannot be applied on the getData type.
+     */
+    public Attribute getAggregated(int agg) {
+        Attribute aggAttr = (Attribute) clone();
+        aggAttr.setAggType(agg);
+        aggAttr.setKeyType(-1);
+        switch (agg) {
+            case COUNT:
+                aggAttr.setType(INT);
+                aggAttr.setAttrSize(Integer.BYTES);
+                return aggAttr;
+            case AVG:
+                aggAttr.setType(REAL);
+                aggAttr.setAttrSize(Integer.BYTES);
+                return type == INT || type == REAL ? aggAttr : null;
+            case SUM:
+                return type == INT || type == REAL ? aggAttr : null;
+            default:
+                return aggAttr;
+        }
+    }
+
     /**
      * Checks the equality with another object.
      *
      * @param other is the other object to be compared with.
-     * @return true if the other object is also of {@link Attribute} type and has the same table name & column name.
+     * @return true if the other object is also of {@link Attribute} type and has the same table name & column name
+     * (with the same aggregate function applied, if any).
      */
     @Override
     public boolean equals(Object other) {
@@ -200,7 +295,8 @@ public class Attribute implements Serializable {
             return false;
         } else if (other instanceof Attribute) {
             Attribute otherAttr = (Attribute) other;
-            return tableName.equals(otherAttr.tableName) && colName.equals(otherAttr.colName);
+            return tableName.equals(otherAttr.tableName) && colName.equals(otherAttr.colName)
+                    && aggType == otherAttr.aggType;
         } else {
             return false;
         }
@@ -208,7 +304,7 @@ public class Attribute implements Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(tableName, colName);
+        return Objects.hash(tableName, colName, aggType);
     }
 
     /**
@@ -224,6 +320,7 @@ public class Attribute implements Serializable {
         newAttr.setType(type);
         newAttr.setKeyType(key);
         newAttr.setAttrSize(attrSize);
+        newAttr.setAggType(aggType);
         return newAttr;
     }
 }
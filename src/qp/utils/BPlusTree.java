@@ -0,0 +1,473 @@
+package qp.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Vector;
+
+/**
+ * Defines a disk-resident B+-tree index on one attribute of a table. The index is bulk-loaded offline
+ * from the entries of the table sorted on the key attribute, and stored in <tablename>.<colname>.idx.
+ *
+ * The index file is a sequence of fixed-size pages, where the first page holds the header. The leaves hold
+ * (key, rid) entries (i.e., alternative 2), where the rid is the position of the tuple in the table file
+ * (i.e., page * records per page + slot, see {@link TupleReader#seekPosition}). An internal node holds
+ * (key, child) entries, where the key is the smallest key under the child. The keys are stored in the same
+ * fixed-length format as in the table file (see {@link TupleLayout}).
+ */
+public class BPlusTree {
+    // The magic number at the start of every index file.
+    private static final int MAGIC = 0x42505432;
+    // The size (in bytes) of the header of each node, i.e., whether it is a leaf, the number of entries in it
+    // and the page of the next leaf.
+    private static final int NODE_HEADER_SIZE = 3 * Integer.BYTES;
+
+    // The name of the index file.
+    private final String fileName;
+    // The index file, which is accessed randomly.
+    private final RandomAccessFile file;
+    // The size (in bytes) of each page.
+    private final int pageSize;
+    // The layout of the keys.
+    private final TupleLayout keyLayout;
+    // The number of levels in the tree, including the leaf level.
+    private final int height;
+    // The number of leaf nodes (i.e., pages) in the tree.
+    private final int numOfLeaves;
+    // The maximum number of entries in each leaf node.
+    private final int leafCapacity;
+    // The number of entries in the tree.
+    private final int numOfEntries;
+    // The root node, which is kept in memory.
+    private final ByteBuffer root;
+
+    /**
+     * Opens an existing index file.
+     *
+     * @param fileName is the name of the index file.
+     * @throws IOException if the file cannot be read or is not an index file.
+     */
+    private BPlusTree(String fileName) throws IOException {
+        this.fileName = fileName;
+        file = new RandomAccessFile(fileName, "r");
+        if (file.readInt() != MAGIC) {
+            file.close();
+            throw new IOException(fileName + " is not an index file");
+        }
+        pageSize = file.readInt();
+        keyLayout = getKeyLayout(file.readInt(), file.readInt());
+        height = file.readInt();
+        numOfLeaves = file.readInt();
+        leafCapacity = file.readInt();
+        numOfEntries = file.readInt();
+        root = readNode(file.readInt());
+    }
+
+    /**
+     * Gets the name of the index file on a given attribute.
+     *
+     * @param tableName is the name of the table.
+     * @param colName   is the name of the key attribute.
+     * @return the name of the index file.
+     */
+    public static String getFileName(String tableName, String colName) {
+        return tableName + "." + colName + ".idx";
+    }
+
+    /**
+     * Checks whether an index has been built on a given attribute.
+     *
+     * @param tableName is the name of the table.
+     * @param colName   is the name of the key attribute.
+     * @return true if the index file exists.
+     */
+    public static boolean exists(String tableName, String colName) {
+        return new File(getFileName(tableName, colName)).isFile();
+    }
+
+    /**
+     * Opens the index on a given attribute.
+     *
+     * @param tableName is the name of the table.
+     * @param colName   is the name of the key attribute.
+     * @return the opened index.
+     * @throws IOException if the index file cannot be read.
+     */
+    public static BPlusTree open(String tableName, String colName) throws IOException {
+        return new BPlusTree(getFileName(tableName, colName));
+    }
+
+    /**
+     * Getter for height.
+     *
+     * @return the number of levels in the tree, including the leaf level.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Getter for numOfLeaves.
+     *
+     * @return the number of leaf pages.
+     */
+    public int getNumOfLeaves() {
+        return numOfLeaves;
+    }
+
+    /**
+     * Getter for leafCapacity.
+     *
+     * @return the maximum number of entries in a leaf page.
+     */
+    public int getLeafCapacity() {
+        return leafCapacity;
+    }
+
+    /**
+     * Getter for numOfEntries.
+     *
+     * @return the number of entries in the tree.
+     */
+    public int getNumOfEntries() {
+        return numOfEntries;
+    }
+
+    /**
+     * Finds all the entries whose key is equal to a given value.
+     *
+     * @param key is the value to search for.
+     * @return the rids of the matching tuples, in the order of the leaves.
+     * @throws IOException if the index file cannot be read.
+     */
+    public Vector<Long> search(Object key) throws IOException {
+        Vector<Long> result = new Vector<>();
+        Cursor cursor = seek(key);
+        for (long rid = cursor.next(); rid >= 0; rid = cursor.next()) {
+            if (Tuple.compareValues(cursor.getKey(), key) != 0) {
+                break;
+            }
+            result.add(rid);
+        }
+        return result;
+    }
+
+    /**
+     * Positions a cursor at the first entry whose key is not smaller than a given value.
+     *
+     * @param key is the lower bound of the keys, or null to start from the first entry.
+     * @return the cursor which iterates through the entries in the order of their keys.
+     * @throws IOException if the index file cannot be read.
+     */
+    public Cursor seek(Object key) throws IOException {
+        ByteBuffer node = root;
+        while (node.getInt(0) == 0) {
+            // Goes to the rightmost child whose smallest key is smaller than the key, since duplicates can span
+            // over leaves.
+            int child = 0;
+            while (key != null && child + 1 < node.getInt(Integer.BYTES)
+                    && Tuple.compareValues(readKey(node, child + 1, Integer.BYTES), key) < 0) {
+                child++;
+            }
+            node = readNode(node.getInt(getEntryOffset(child, Integer.BYTES) + keyLayout.getRecordSize()));
+        }
+
+        int position = 0;
+        while (key != null && position < node.getInt(Integer.BYTES)
+                && Tuple.compareValues(readKey(node, position, Long.BYTES), key) < 0) {
+            position++;
+        }
+        return new Cursor(node, position);
+    }
+
+    /**
+     * Closes the index file.
+     */
+    public void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            System.err.println("BPlusTree: error closing " + fileName);
+        }
+    }
+
+    /**
+     * Reads a node from the index file.
+     *
+     * @param pageIndex is the index of the page holding the node.
+     * @return the page holding the node.
+     * @throws IOException if the index file cannot be read.
+     */
+    private ByteBuffer readNode(int pageIndex) throws IOException {
+        byte[] bytes = new byte[pageSize];
+        file.seek((long) pageIndex * pageSize);
+        file.readFully(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Computes the offset of an entry in a node.
+     *
+     * @param index     is the index of the entry.
+     * @param valueSize is the size (in bytes) of the value after the key, i.e., a rid or a child page.
+     * @return the offset of the entry.
+     */
+    private int getEntryOffset(int index, int valueSize) {
+        return NODE_HEADER_SIZE + index * (keyLayout.getRecordSize() + valueSize);
+    }
+
+    /**
+     * Decodes the key of an entry in a node.
+     *
+     * @param node      is the page holding the node.
+     * @param index     is the index of the entry.
+     * @param valueSize is the size (in bytes) of the value after the key.
+     * @return the key of the entry.
+     */
+    private Object readKey(ByteBuffer node, int index, int valueSize) {
+        return keyLayout.read(node, getEntryOffset(index, valueSize), 0);
+    }
+
+    /**
+     * Creates the layout of the keys.
+     *
+     * @param keyType is the type of the key attribute.
+     * @param keySize is the size of the key attribute.
+     * @return the layout of a record with only the key.
+     */
+    private static TupleLayout getKeyLayout(int keyType, int keySize) {
+        Vector<Attribute> attrList = new Vector<>();
+        Attribute keyAttr = new Attribute("", "", keyType);
+        keyAttr.setAttrSize(keySize);
+        attrList.add(keyAttr);
+        return new TupleLayout(new Schema(attrList));
+    }
+
+    /**
+     * Iterates through the entries in the leaves, following the sibling pointers.
+     */
+    public class Cursor {
+        // The current leaf node.
+        private ByteBuffer leaf;
+        // The position of the next entry in the current leaf.
+        private int position;
+        // The key of the entry returned last.
+        private Object key;
+
+        /**
+         * Creates a new cursor.
+         *
+         * @param leaf     is the leaf to start from.
+         * @param position is the position of the first entry in the leaf.
+         */
+        private Cursor(ByteBuffer leaf, int position) {
+            this.leaf = leaf;
+            this.position = position;
+        }
+
+        /**
+         * @return the rid of the next entry, or -1 if the end of the index is reached.
+         * @throws IOException if the index file cannot be read.
+         */
+        public long next() throws IOException {
+            while (position == leaf.getInt(Integer.BYTES)) {
+                int next = leaf.getInt(2 * Integer.BYTES);
+                if (next < 0) {
+                    return -1;
+                }
+                leaf = readNode(next);
+                position = 0;
+            }
+            key = readKey(leaf, position, Long.BYTES);
+            long rid = leaf.getLong(getEntryOffset(position, Long.BYTES) + keyLayout.getRecordSize());
+            position++;
+            return rid;
+        }
+
+        /**
+         * @return the key of the entry returned last by {@link #next()}.
+         */
+        public Object getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Bulk-loads a new index file from entries sorted on the key attribute. The leaves are written out
+     * as they are filled, after which the internal levels are built bottom-up.
+     */
+    public static class Builder {
+        // The index file being written.
+        private final RandomAccessFile file;
+        // The size (in bytes) of each page.
+        private final int pageSize;
+        // The type & size of the key attribute.
+        private final int keyType;
+        private final int keySize;
+        // The layout of the keys.
+        private final TupleLayout keyLayout;
+        // The maximum number of entries in each leaf node.
+        private final int leafCapacity;
+        // The maximum number of children of each internal node.
+        private final int fanout;
+
+        // The leaf node currently being filled, and the number of entries in it.
+        private final ByteBuffer leaf;
+        private int numOfLeafEntries = 0;
+        // The index of the next page to be written.
+        private int nextPage = 1;
+        // The first key & page of each node in the level being built.
+        private Vector<Object> levelKeys = new Vector<>();
+        private Vector<Integer> levelPages = new Vector<>();
+        // The key of the last entry added, to check that the input is sorted.
+        private Object lastKey;
+        // The number of entries added.
+        private int numOfEntries = 0;
+
+        /**
+         * Creates a new index file.
+         *
+         * @param fileName is the name of the index file.
+         * @param schema   is the schema of the table.
+         * @param keyIndex is the index of the key attribute.
+         * @param pageSize is the size of each page (in bytes).
+         * @throws IOException if the file cannot be written, or the page is too small for the key.
+         */
+        public Builder(String fileName, Schema schema, int keyIndex, int pageSize) throws IOException {
+            this.pageSize = pageSize;
+            keyType = schema.getAttribute(keyIndex).getType();
+            keySize = schema.getAttribute(keyIndex).getAttrSize();
+            keyLayout = getKeyLayout(keyType, keySize);
+            leafCapacity = (pageSize - NODE_HEADER_SIZE) / (keyLayout.getRecordSize() + Long.BYTES);
+            fanout = (pageSize - NODE_HEADER_SIZE) / (keyLayout.getRecordSize() + Integer.BYTES);
+            if (leafCapacity < 1 || fanout < 2) {
+                throw new IOException("page size " + pageSize + " is too small for the key");
+            }
+
+            file = new RandomAccessFile(fileName, "rw");
+            file.setLength(0);
+            leaf = ByteBuffer.allocate(pageSize);
+        }
+
+        /**
+         * Adds an entry into the index. Entries must be added in the order of their keys.
+         *
+         * @param key is the key of the tuple.
+         * @param rid is the position of the tuple in the table file.
+         * @throws IOException if the file cannot be written.
+         */
+        public void add(Object key, long rid) throws IOException {
+            if (lastKey != null && Tuple.compareValues(lastKey, key) > 0) {
+                throw new IOException("entries are not sorted on the key attribute");
+            }
+            lastKey = key;
+
+            if (numOfLeafEntries == leafCapacity) {
+                // Since the leaves are written consecutively, the next leaf is the next page.
+                writeLeaf(nextPage + 1);
+            }
+            int offset = NODE_HEADER_SIZE + numOfLeafEntries * (keyLayout.getRecordSize() + Long.BYTES);
+            writeKey(leaf, offset, key);
+            leaf.putLong(offset + keyLayout.getRecordSize(), rid);
+            numOfLeafEntries++;
+            numOfEntries++;
+        }
+
+        /**
+         * Writes out the remaining nodes and the header, and closes the index file.
+         *
+         * @throws IOException if the file cannot be written.
+         */
+        public void finish() throws IOException {
+            writeLeaf(-1);
+            int numOfLeaves = levelPages.size();
+
+            // Builds the internal levels until a single root remains.
+            int height = 1;
+            while (levelPages.size() > 1) {
+                Vector<Object> parentKeys = new Vector<>();
+                Vector<Integer> parentPages = new Vector<>();
+                int start = 0;
+                while (start < levelPages.size()) {
+                    int end = Math.min(start + fanout, levelPages.size());
+                    // Avoids leaving a single child for the last node.
+                    if (levelPages.size() - end == 1) {
+                        end--;
+                    }
+                    ByteBuffer node = ByteBuffer.allocate(pageSize);
+                    node.putInt(0, 0);
+                    node.putInt(Integer.BYTES, end - start);
+                    node.putInt(2 * Integer.BYTES, -1);
+                    for (int i = start; i < end; i++) {
+                        int offset = NODE_HEADER_SIZE + (i - start) * (keyLayout.getRecordSize() + Integer.BYTES);
+                        writeKey(node, offset, levelKeys.elementAt(i));
+                        node.putInt(offset + keyLayout.getRecordSize(), levelPages.elementAt(i));
+                    }
+                    parentKeys.add(levelKeys.elementAt(start));
+                    parentPages.add(writeNode(node));
+                    start = end;
+                }
+                levelKeys = parentKeys;
+                levelPages = parentPages;
+                height++;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(pageSize);
+            header.putInt(MAGIC);
+            header.putInt(pageSize);
+            header.putInt(keyType);
+            header.putInt(keySize);
+            header.putInt(height);
+            header.putInt(numOfLeaves);
+            header.putInt(leafCapacity);
+            header.putInt(numOfEntries);
+            header.putInt(levelPages.elementAt(0));
+            file.seek(0);
+            file.write(header.array());
+            file.close();
+        }
+
+        /**
+         * Writes out the current leaf, and starts a new one.
+         *
+         * @param next is the page of the next leaf, or -1 for the last leaf.
+         * @throws IOException if the file cannot be written.
+         */
+        private void writeLeaf(int next) throws IOException {
+            leaf.putInt(0, 1);
+            leaf.putInt(Integer.BYTES, numOfLeafEntries);
+            leaf.putInt(2 * Integer.BYTES, next);
+            levelKeys.add(numOfLeafEntries == 0 ? null : keyLayout.read(leaf, NODE_HEADER_SIZE, 0));
+            levelPages.add(writeNode(leaf));
+            numOfLeafEntries = 0;
+        }
+
+        /**
+         * Writes a node into the next page of the index file.
+         *
+         * @param node is the page holding the node.
+         * @return the index of the page.
+         * @throws IOException if the file cannot be written.
+         */
+        private int writeNode(ByteBuffer node) throws IOException {
+            file.seek((long) nextPage * pageSize);
+            file.write(node.array());
+            nextPage++;
+            return nextPage - 1;
+        }
+
+        /**
+         * Encodes a key into a node.
+         *
+         * @param node   is the page holding the node.
+         * @param offset is the offset of the entry in the node.
+         * @param key    is the key.
+         */
+        private void writeKey(ByteBuffer node, int offset, Object key) {
+            Vector<Object> data = new Vector<>();
+            data.add(key);
+            keyLayout.write(new Tuple(data), node, offset);
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package qp.utils;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * Represents a page of tuples stored column by column in primitive arrays: an INT column is an int[], a REAL
+ * column is a float[], a TIME column is a long[] of milliseconds, and a STRING column is an int[] of codes into
+ * a dictionary of the distinct strings in the page. A selection vector records which rows are still part of the
+ * page, so that filtering and projection never have to copy or box the values.
+ */
+public class ColumnBatch {
+    // The schema of the tuples.
+    private final Schema schema;
+    // The data type of each column.
+    private final int[] types;
+    // The values of each column, i.e., an int[], a float[] or a long[].
+    private final Object[] columns;
+    // The dictionary of each STRING column, or null for the other columns.
+    private final Dictionary[] dictionaries;
+    // The maximum number of rows.
+    private final int capacity;
+    // The number of rows stored.
+    private int numOfRows;
+    // The indices of the selected rows, in increasing order.
+    private final int[] selection;
+    // The number of selected rows.
+    private int numOfSelected;
+
+    /**
+     * Creates an empty page.
+     *
+     * @param schema   is the schema of the tuples.
+     * @param capacity is the maximum number of rows.
+     */
+    public ColumnBatch(Schema schema, int capacity) {
+        this.schema = schema;
+        this.capacity = capacity;
+        types = new int[schema.getNumCols()];
+        columns = new Object[types.length];
+        dictionaries = new Dictionary[types.length];
+        selection = new int[capacity];
+
+        for (int i = 0; i < types.length; i++) {
+            types[i] = schema.typeOf(i);
+            switch (types[i]) {
+                case Attribute.REAL:
+                    columns[i] = new float[capacity];
+                    break;
+                case Attribute.TIME:
+                    columns[i] = new long[capacity];
+                    break;
+                case Attribute.STRING:
+                    columns[i] = new int[capacity];
+                    dictionaries[i] = new Dictionary();
+                    break;
+                default:
+                    columns[i] = new int[capacity];
+            }
+        }
+    }
+
+    /**
+     * Creates a page which shares the columns of another page.
+     *
+     * @param schema is the schema of the tuples.
+     * @param base   is the page to share the columns from.
+     * @param attrIndex are the indices of the shared columns in the other page.
+     */
+    private ColumnBatch(Schema schema, ColumnBatch base, int[] attrIndex) {
+        this.schema = schema;
+        capacity = base.capacity;
+        types = new int[attrIndex.length];
+        columns = new Object[attrIndex.length];
+        dictionaries = new Dictionary[attrIndex.length];
+        for (int i = 0; i < attrIndex.length; i++) {
+            types[i] = base.types[attrIndex[i]];
+            columns[i] = base.columns[attrIndex[i]];
+            dictionaries[i] = base.dictionaries[attrIndex[i]];
+        }
+
+        numOfRows = base.numOfRows;
+        selection = base.selection.clone();
+        numOfSelected = base.numOfSelected;
+    }
+
+    /**
+     * Converts a page of tuples into columns.
+     *
+     * @param batch  is the page of tuples.
+     * @param schema is the schema of the tuples.
+     * @return the page stored column by column.
+     */
+    public static ColumnBatch fromBatch(Batch batch, Schema schema) {
+        ColumnBatch columnBatch = new ColumnBatch(schema, Math.max(batch.size(), 1));
+        for (int i = 0; i < batch.size(); i++) {
+            Tuple tuple = batch.elementAt(i);
+            for (int j = 0; j < columnBatch.types.length; j++) {
+                columnBatch.set(j, i, tuple.dataAt(j));
+            }
+        }
+        columnBatch.setNumOfRows(batch.size());
+        return columnBatch;
+    }
+
+    /**
+     * Converts a constant in a condition to the type used by the columns.
+     *
+     * @param value    is the constant.
+     * @param dataType is the type of the attribute.
+     * @return an Integer, a Float, a Long (for TIME) or a String.
+     */
+    public static Object parseValue(String value, int dataType) {
+        switch (dataType) {
+            case Attribute.INT:
+                return Integer.parseInt(value);
+            case Attribute.REAL:
+                return Float.parseFloat(value);
+            case Attribute.TIME:
+                return (long) Integer.parseInt(value);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Getter for schema.
+     *
+     * @return the schema of the tuples.
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return the maximum number of rows.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of selected rows.
+     */
+    public int size() {
+        return numOfSelected;
+    }
+
+    /**
+     * @return true if no row is selected.
+     */
+    public boolean isEmpty() {
+        return numOfSelected == 0;
+    }
+
+    /**
+     * Sets the number of rows stored after the columns are filled, and selects all of them.
+     *
+     * @param numOfRows is the number of rows.
+     */
+    public void setNumOfRows(int numOfRows) {
+        this.numOfRows = numOfRows;
+        for (int i = 0; i < numOfRows; i++) {
+            selection[i] = i;
+        }
+        numOfSelected = numOfRows;
+    }
+
+    /**
+     * Stores an INT value.
+     *
+     * @param column is the index of the column.
+     * @param row    is the index of the row.
+     * @param value  is the value.
+     */
+    public void setInt(int column, int row, int value) {
+        ((int[]) columns[column])[row] = value;
+    }
+
+    /**
+     * Stores a REAL value.
+     *
+     * @param column is the index of the column.
+     * @param row    is the index of the row.
+     * @param value  is the value.
+     */
+    public void setFloat(int column, int row, float value) {
+        ((float[]) columns[column])[row] = value;
+    }
+
+    /**
+     * Stores a TIME value.
+     *
+     * @param column is the index of the column.
+     * @param row    is the index of the row.
+     * @param value  is the value in milliseconds.
+     */
+    public void setTime(int column, int row, long value) {
+        ((long[]) columns[column])[row] = value;
+    }
+
+    /**
+     * Stores a STRING value.
+     *
+     * @param column is the index of the column.
+     * @param row    is the index of the row.
+     * @param value  is the value.
+     */
+    public void setString(int column, int row, String value) {
+        ((int[]) columns[column])[row] = dictionaries[column].encode(value);
+    }
+
+    /**
+     * Stores a value of any type.
+     *
+     * @param column is the index of the column.
+     * @param row    is the index of the row.
+     * @param value  is the value.
+     */
+    private void set(int column, int row, Object value) {
+        switch (types[column]) {
+            case Attribute.REAL:
+                setFloat(column, row, (Float) value);
+                break;
+            case Attribute.TIME:
+                setTime(column, row, ((Date) value).getTime());
+                break;
+            case Attribute.STRING:
+                setString(column, row, (String) value);
+                break;
+            default:
+                setInt(column, row, (Integer) value);
+        }
+    }
+
+    /**
+     * Retrieves a value as an object, in the same type as in a {@link Tuple}.
+     *
+     * @param column is the index of the column.
+     * @param row    is the index of the row.
+     * @return the value.
+     */
+    private Object get(int column, int row) {
+        switch (types[column]) {
+            case Attribute.REAL:
+                return ((float[]) columns[column])[row];
+            case Attribute.TIME:
+                return new Date(((long[]) columns[column])[row]);
+            case Attribute.STRING:
+                return dictionaries[column].decode(((int[]) columns[column])[row]);
+            default:
+                return ((int[]) columns[column])[row];
+        }
+    }
+
+    /**
+     * Materializes one selected row as a tuple.
+     *
+     * @param i is the position of the row among the selected rows.
+     * @return the tuple.
+     */
+    public Tuple elementAt(int i) {
+        int row = selection[i];
+        Vector<Object> data = new Vector<>(types.length);
+        for (int j = 0; j < types.length; j++) {
+            data.add(get(j, row));
+        }
+        return new Tuple(data);
+    }
+
+    /**
+     * Materializes the selected rows as a page of tuples.
+     *
+     * @return the page of tuples.
+     */
+    public Batch toBatch() {
+        Batch batch = new Batch(capacity);
+        for (int i = 0; i < numOfSelected; i++) {
+            batch.add(elementAt(i));
+        }
+        return batch;
+    }
+
+    /**
+     * Projects some of the columns. The columns are shared rather than copied.
+     *
+     * @param schema    is the schema of the result.
+     * @param attrIndex are the indices of the projected columns.
+     * @return the projected page.
+     */
+    public ColumnBatch project(Schema schema, int[] attrIndex) {
+        return new ColumnBatch(schema, this, attrIndex);
+    }
+
+    /**
+     * Keeps only the selected rows satisfying a comparison with a constant. The comparison is evaluated in a
+     * tight loop over the primitive column; for a STRING column, it is evaluated once per dictionary entry.
+     *
+     * @param column   is the index of the column.
+     * @param operator is the comparison operator in {@link Condition}.
+     * @param value    is the constant, converted by {@link #parseValue(String, int)}.
+     */
+    public void select(int column, int operator, Object value) {
+        int count = 0;
+        switch (types[column]) {
+            case Attribute.REAL: {
+                float[] values = (float[]) columns[column];
+                float key = (Float) value;
+                for (int i = 0; i < numOfSelected; i++) {
+                    int row = selection[i];
+                    if (matches(Float.compare(values[row], key), operator)) {
+                        selection[count++] = row;
+                    }
+                }
+                break;
+            }
+            case Attribute.TIME: {
+                long[] values = (long[]) columns[column];
+                long key = (Long) value;
+                for (int i = 0; i < numOfSelected; i++) {
+                    int row = selection[i];
+                    if (matches(Long.compare(values[row], key), operator)) {
+                        selection[count++] = row;
+                    }
+                }
+                break;
+            }
+            case Attribute.STRING: {
+                int[] codes = (int[]) columns[column];
+                boolean[] isMatched = dictionaries[column].evaluate(operator, (String) value);
+                for (int i = 0; i < numOfSelected; i++) {
+                    int row = selection[i];
+                    if (isMatched[codes[row]]) {
+                        selection[count++] = row;
+                    }
+                }
+                break;
+            }
+            default: {
+                int[] values = (int[]) columns[column];
+                int key = (Integer) value;
+                for (int i = 0; i < numOfSelected; i++) {
+                    int row = selection[i];
+                    if (matches(Integer.compare(values[row], key), operator)) {
+                        selection[count++] = row;
+                    }
+                }
+            }
+        }
+        numOfSelected = count;
+    }
+
+    /**
+     * Finds the next selected row whose value in a column equals a join key. This is the probe kernel of
+     * the nested loop joins, which scans the primitive column without materializing any tuple.
+     *
+     * @param column is the index of the column.
+     * @param key    is the join key, in the same type as in a {@link Tuple}.
+     * @param from   is the position among the selected rows to start from.
+     * @return the position of the next matching row among the selected rows, or -1 if there is none.
+     */
+    public int nextMatch(int column, Object key, int from) {
+        switch (types[column]) {
+            case Attribute.REAL: {
+                float[] values = (float[]) columns[column];
+                int bits = Float.floatToIntBits((Float) key);
+                for (int i = from; i < numOfSelected; i++) {
+                    if (Float.floatToIntBits(values[selection[i]]) == bits) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            case Attribute.TIME: {
+                long[] values = (long[]) columns[column];
+                long millis = ((Date) key).getTime();
+                for (int i = from; i < numOfSelected; i++) {
+                    if (values[selection[i]] == millis) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            case Attribute.STRING: {
+                int code = dictionaries[column].lookup((String) key);
+                return code < 0 ? -1 : nextMatch((int[]) columns[column], code, from);
+            }
+            default:
+                return nextMatch((int[]) columns[column], (Integer) key, from);
+        }
+    }
+
+    /**
+     * Finds the next selected row whose value in an int[] column equals a key.
+     *
+     * @param values is the column.
+     * @param key    is the key.
+     * @param from   is the position among the selected rows to start from.
+     * @return the position of the next matching row among the selected rows, or -1 if there is none.
+     */
+    private int nextMatch(int[] values, int key, int from) {
+        for (int i = from; i < numOfSelected; i++) {
+            if (values[selection[i]] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks a comparison result against a comparison operator.
+     *
+     * @param flag     is the comparison result, compatible with the {@link java.util.Comparator} interface.
+     * @param operator is the comparison operator in {@link Condition}.
+     * @return true if the comparison is satisfied.
+     */
+    static boolean matches(int flag, int operator) {
+        switch (operator) {
+            case Condition.LESS_THAN:
+                return flag < 0;
+            case Condition.GREATER_THAN:
+                return flag > 0;
+            case Condition.LTOE:
+                return flag <= 0;
+            case Condition.GTOE:
+                return flag >= 0;
+            case Condition.EQUAL:
+                return flag == 0;
+            case Condition.NOTEQUAL:
+                return flag != 0;
+            default:
+                System.out.println("ColumnBatch: incorrect condition operator");
+                return false;
+        }
+    }
+
+    /**
+     * Encodes the distinct strings of a STRING column as consecutive integer codes.
+     */
+    private static class Dictionary {
+        // The strings, indexed by their codes.
+        private final Vector<String> values = new Vector<>();
+        // The codes, indexed by the strings.
+        private final HashMap<String, Integer> codes = new HashMap<>();
+
+        /**
+         * @return the code of a string, which is assigned if the string is new.
+         */
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        /**
+         * @return the string of a code.
+         */
+        String decode(int code) {
+            return values.elementAt(code);
+        }
+
+        /**
+         * @return the code of a string, or -1 if the string is not in the dictionary.
+         */
+        int lookup(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        /**
+         * @return whether each string in the dictionary satisfies a comparison with a constant.
+         */
+        boolean[] evaluate(int operator, String value) {
+            boolean[] isMatched = new boolean[values.size()];
+            for (int i = 0; i < isMatched.length; i++) {
+                isMatched[i] = matches(values.elementAt(i).compareTo(value), operator);
+            }
+            return isMatched;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package qp.utils;
 
+import java.util.Date;
+import java.util.Vector;
+import java.util.function.Predicate;
+
 /**
- * Represents the join or select condition in a {@link SQLQuery}.
+ * Represents the join or select condition in a {@link SQLQuery}. A select condition may also be a conjunction
+ * (AND) or a disjunction (OR) of other select conditions on the same table.
  */
 public class Condition {
     // The operator in a condition.
@@ -11,6 +16,8 @@ public class Condition {
     public static final int GTOE = 4;
     public static final int EQUAL = 5;
     public static final int NOTEQUAL = 6;
+    public static final int AND = 7;
+    public static final int OR = 8;
 
     // The type of a condition (either select condition or join condition).
     public static final int SELECT = 1;
@@ -24,6 +31,8 @@ public class Condition {
     private int condType;
     // The operator in this condition, such as >, <, =, etc.
     private int operator;
+    // The operands of a conjunction or disjunction.
+    private Vector<Condition> children;
 
     /**
      * Creates a new condition.
@@ -47,6 +56,20 @@ public class Condition {
         this.operator = operator;
     }
 
+    /**
+     * Creates a new conjunction or disjunction of select conditions. Its left side is the left side of
+     * the first operand, which identifies the table it is applied on.
+     *
+     * @param operator is either AND or OR.
+     * @param children are the operands.
+     */
+    public Condition(int operator, Vector<Condition> children) {
+        this.operator = operator;
+        this.children = children;
+        this.left = children.elementAt(0).getLeft();
+        this.condType = SELECT;
+    }
+
     /**
      * Getter for left side.
      *
@@ -119,6 +142,39 @@ public class Condition {
         return right;
     }
 
+    /**
+     * @return true if this condition is a conjunction or disjunction.
+     */
+    public boolean isCompound() {
+        return operator == AND || operator == OR;
+    }
+
+    /**
+     * Getter for children.
+     *
+     * @return the operands of a conjunction or disjunction.
+     */
+    public Vector<Condition> getChildren() {
+        return children;
+    }
+
+    /**
+     * Collects the attributes compared in this condition.
+     *
+     * @return the left side of every simple condition within this condition.
+     */
+    public Vector<Attribute> getAttributes() {
+        Vector<Attribute> attrs = new Vector<>();
+        if (isCompound()) {
+            for (Condition child : children) {
+                attrs.addAll(child.getAttributes());
+            }
+        } else {
+            attrs.add(left);
+        }
+        return attrs;
+    }
+
     /**
      * Flips a join condition by changing its left & right side.
      *
@@ -133,6 +189,125 @@ public class Condition {
         right = temp;
     }
 
+    /**
+     * Compiles this select condition into a predicate on the tuples of a given schema. The index of the
+     * attribute and the constant are resolved once here, and each combination of data type and operator
+     * gets its own lambda, so that evaluating the predicate involves no lookup, parsing or branching.
+     *
+     * @param schema is the schema of the tuples.
+     * @return the predicate which is true for the tuples satisfying this condition.
+     * @implNote this is only applicable for a select condition.
+     */
+    public Predicate<Tuple> compile(Schema schema) {
+        if (isCompound()) {
+            return compileCompound(schema);
+        }
+
+        int index = schema.indexOf(left);
+        int dataType = schema.typeOf(index);
+        Object value = ColumnBatch.parseValue((String) right, dataType);
+
+        if (dataType == Attribute.INT) {
+            int checkVal = (Integer) value;
+            switch (operator) {
+                case LESS_THAN:
+                    return tuple -> (Integer) tuple.dataAt(index) < checkVal;
+                case GREATER_THAN:
+                    return tuple -> (Integer) tuple.dataAt(index) > checkVal;
+                case LTOE:
+                    return tuple -> (Integer) tuple.dataAt(index) <= checkVal;
+                case GTOE:
+                    return tuple -> (Integer) tuple.dataAt(index) >= checkVal;
+                case EQUAL:
+                    return tuple -> (Integer) tuple.dataAt(index) == checkVal;
+                case NOTEQUAL:
+                    return tuple -> (Integer) tuple.dataAt(index) != checkVal;
+            }
+        } else if (dataType == Attribute.REAL) {
+            float checkVal = (Float) value;
+            switch (operator) {
+                case LESS_THAN:
+                    return tuple -> (Float) tuple.dataAt(index) < checkVal;
+                case GREATER_THAN:
+                    return tuple -> (Float) tuple.dataAt(index) > checkVal;
+                case LTOE:
+                    return tuple -> (Float) tuple.dataAt(index) <= checkVal;
+                case GTOE:
+                    return tuple -> (Float) tuple.dataAt(index) >= checkVal;
+                case EQUAL:
+                    return tuple -> (Float) tuple.dataAt(index) == checkVal;
+                case NOTEQUAL:
+                    return tuple -> (Float) tuple.dataAt(index) != checkVal;
+            }
+        } else if (dataType == Attribute.TIME) {
+            long checkVal = (Long) value;
+            switch (operator) {
+                case LESS_THAN:
+                    return tuple -> ((Date) tuple.dataAt(index)).getTime() < checkVal;
+                case GREATER_THAN:
+                    return tuple -> ((Date) tuple.dataAt(index)).getTime() > checkVal;
+                case LTOE:
+                    return tuple -> ((Date) tuple.dataAt(index)).getTime() <= checkVal;
+                case GTOE:
+                    return tuple -> ((Date) tuple.dataAt(index)).getTime() >= checkVal;
+                case EQUAL:
+                    return tuple -> ((Date) tuple.dataAt(index)).getTime() == checkVal;
+                case NOTEQUAL:
+                    return tuple -> ((Date) tuple.dataAt(index)).getTime() != checkVal;
+            }
+        } else {
+            String checkVal = (String) value;
+            switch (operator) {
+                case LESS_THAN:
+                    return tuple -> ((String) tuple.dataAt(index)).compareTo(checkVal) < 0;
+                case GREATER_THAN:
+                    return tuple -> ((String) tuple.dataAt(index)).compareTo(checkVal) > 0;
+                case LTOE:
+                    return tuple -> ((String) tuple.dataAt(index)).compareTo(checkVal) <= 0;
+                case GTOE:
+                    return tuple -> ((String) tuple.dataAt(index)).compareTo(checkVal) >= 0;
+                case EQUAL:
+                    return tuple -> tuple.dataAt(index).equals(checkVal);
+                case NOTEQUAL:
+                    return tuple -> !tuple.dataAt(index).equals(checkVal);
+            }
+        }
+        System.out.println("Condition: incorrect condition operator");
+        return tuple -> false;
+    }
+
+    /**
+     * Compiles a conjunction or disjunction, whose operands are tested in order until the result is known.
+     *
+     * @param schema is the schema of the tuples.
+     * @return the predicate which is true for the tuples satisfying this condition.
+     */
+    private Predicate<Tuple> compileCompound(Schema schema) {
+        Vector<Predicate<Tuple>> predicates = new Vector<>();
+        for (Condition child : children) {
+            predicates.add(child.compile(schema));
+        }
+
+        if (operator == AND) {
+            return tuple -> {
+                for (Predicate<Tuple> test : predicates) {
+                    if (!test.test(tuple)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+        return tuple -> {
+            for (Predicate<Tuple> test : predicates) {
+                if (test.test(tuple)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
     /**
      * Creates a copy of this condition.
      *
@@ -140,6 +315,14 @@ public class Condition {
      */
     @Override
     public Object clone() {
+        if (isCompound()) {
+            Vector<Condition> newChildren = new Vector<>();
+            for (Condition child : children) {
+                newChildren.add((Condition) child.clone());
+            }
+            return new Condition(operator, newChildren);
+        }
+
         Attribute newLeft = (Attribute) left.clone();
         Object newRight;
         if (condType == SELECT) {
@@ -0,0 +1,124 @@
+package qp.utils;
+
+import java.util.Comparator;
+
+/**
+ * Implements a tree of losers for k-way merging. Each leaf holds the current head tuple of one input, and each
+ * internal node holds the input which lost the comparison there, so that the overall winner (i.e., the smallest
+ * head) is at the root. Replacing the head of the winner replays only the path from its leaf to the root, which
+ * takes about log2(k) comparisons and allocates nothing.
+ */
+public class LoserTree {
+    // The comparator of the tuples.
+    private final Comparator<Tuple> comparator;
+    // The number of inputs.
+    private final int numOfInputs;
+    // The head tuple of each input, or null if the input is exhausted.
+    private final Tuple[] heads;
+    // The input which wins overall at index 0, and the input which loses at each internal node otherwise.
+    private final int[] tree;
+
+    /**
+     * Creates a new loser tree.
+     *
+     * @param heads      are the first tuples of the inputs, where null stands for an empty input.
+     * @param comparator is the comparator of the tuples.
+     */
+    public LoserTree(Tuple[] heads, Comparator<Tuple> comparator) {
+        this.comparator = comparator;
+        this.heads = heads;
+        numOfInputs = heads.length;
+        tree = new int[Math.max(numOfInputs, 1)];
+
+        // Plays every leaf against a virtual input (which beats everything) to build up the tree.
+        for (int i = 0; i < tree.length; i++) {
+            tree[i] = numOfInputs;
+        }
+        for (int i = numOfInputs - 1; i >= 0; i--) {
+            replay(i);
+        }
+    }
+
+    /**
+     * @return true if all the inputs are exhausted.
+     */
+    public boolean isEmpty() {
+        return numOfInputs == 0 || heads[tree[0]] == null;
+    }
+
+    /**
+     * @return the input whose head is the smallest.
+     */
+    public int getWinner() {
+        return tree[0];
+    }
+
+    /**
+     * @return the smallest head tuple.
+     */
+    public Tuple peek() {
+        return heads[tree[0]];
+    }
+
+    /**
+     * @param input is the input.
+     * @return the head tuple of the input, or null if it is exhausted.
+     */
+    public Tuple getHead(int input) {
+        return heads[input];
+    }
+
+    /**
+     * Replaces the head of the winner with its next tuple.
+     *
+     * @param next is the next tuple of the winner, or null if the winner is exhausted.
+     */
+    public void replaceWinner(Tuple next) {
+        int winner = tree[0];
+        heads[winner] = next;
+        replay(winner);
+    }
+
+    /**
+     * Replays the matches from the leaf of an input up to the root.
+     *
+     * @param input is the input whose head has changed.
+     */
+    private void replay(int input) {
+        int winner = input;
+        for (int node = (input + numOfInputs) / 2; node > 0; node /= 2) {
+            if (beats(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    /**
+     * Compares the heads of two inputs. An exhausted input loses to any other input, and ties are broken by the
+     * index of the inputs so that the merge is stable.
+     *
+     * @param input1 is the first input.
+     * @param input2 is the second input.
+     * @return true if the first input wins.
+     */
+    private boolean beats(int input1, int input2) {
+        if (input1 == numOfInputs) {
+            return true;
+        } else if (input2 == numOfInputs) {
+            return false;
+        }
+
+        Tuple tuple1 = heads[input1];
+        Tuple tuple2 = heads[input2];
+        if (tuple1 == null) {
+            return false;
+        } else if (tuple2 == null) {
+            return true;
+        }
+        int result = comparator.compare(tuple1, tuple2);
+        return result < 0 || (result == 0 && input1 < input2);
+    }
+}
@@ -0,0 +1,150 @@
+package qp.utils;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a sorted run tuple by tuple. In the prefetching mode, the reader is double-buffered: while the tuples of
+ * one page are being consumed, the next page is read in the background, so that I/O overlaps with the merge.
+ */
+public class RunReader {
+    // The single daemon thread reading pages in the background, shared by all readers. The reads are queued on it
+    // rather than run on a thread each, so that a merge of many runs does not spawn as many threads.
+    private static final ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "run-prefetcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The stream of the sorted run.
+    private final TupleReader in;
+    // The number of tuples per batch.
+    private final int batchSize;
+    // Whether the next page is read ahead in the background.
+    private final boolean isPrefetching;
+    // The page being consumed, and the position of the next tuple in it.
+    private Batch current;
+    private int cursor;
+    // The page being read in the background.
+    private Future<Batch> pending;
+    // Records whether the sorted run has reached its end-of-stream.
+    private boolean eos;
+    // The index of the next tuple to be returned in the sorted run.
+    private long position;
+
+    /**
+     * Opens a sorted run for reading.
+     *
+     * @param fileName      is the name of the sorted run.
+     * @param schema        is the schema of the sorted run.
+     * @param batchSize     is the number of tuples per batch.
+     * @param isPrefetching is whether to read the next page ahead in the background.
+     */
+    public RunReader(String fileName, Schema schema, int batchSize, boolean isPrefetching) throws IOException {
+        this(fileName, schema, batchSize, isPrefetching, 0L);
+    }
+
+    /**
+     * Opens a sorted run for reading from a given tuple onwards.
+     *
+     * @param fileName      is the name of the sorted run.
+     * @param schema        is the schema of the sorted run.
+     * @param batchSize     is the number of tuples per batch.
+     * @param isPrefetching is whether to read the next page ahead in the background.
+     * @param startPosition is the index of the first tuple to read (see {@link #getPosition}).
+     */
+    public RunReader(String fileName, Schema schema, int batchSize, boolean isPrefetching, long startPosition) throws IOException {
+        this.in = new TupleReader(fileName, schema);
+        if (startPosition > 0) {
+            in.seekPosition(startPosition);
+        }
+        this.position = startPosition;
+        this.batchSize = batchSize;
+        this.isPrefetching = isPrefetching;
+        this.eos = false;
+        if (isPrefetching) {
+            pending = prefetcher.submit(() -> in.readBatch(batchSize));
+        }
+    }
+
+    /**
+     * @return the next tuple of the sorted run, or null if it reaches its end-of-stream.
+     */
+    public Tuple next() throws IOException {
+        if (current == null || cursor == current.size()) {
+            if (eos) {
+                return null;
+            }
+            current = nextBatch();
+            cursor = 0;
+            if (current == null || current.isEmpty()) {
+                eos = true;
+                return null;
+            }
+        }
+        position++;
+        return current.elementAt(cursor++);
+    }
+
+    /**
+     * @return the index of the next tuple to be returned in the sorted run, from which it can be opened again.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Takes the page read ahead and starts reading the page after it.
+     *
+     * @return the next page of the sorted run, or null if it reaches its end-of-stream.
+     */
+    private Batch nextBatch() throws IOException {
+        if (!isPrefetching) {
+            return in.readBatch(batchSize);
+        }
+
+        Batch batch = awaitPending();
+        if (batch != null && batch.isFull()) {
+            pending = prefetcher.submit(() -> in.readBatch(batchSize));
+        }
+        return batch;
+    }
+
+    /**
+     * Waits for the page being read in the background.
+     *
+     * @return the page read, or null if there is no page being read.
+     */
+    private Batch awaitPending() throws IOException {
+        if (pending == null) {
+            return null;
+        }
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            pending = null;
+        }
+    }
+
+    /**
+     * Closes the sorted run after the page being read in the background (if any) is done.
+     */
+    public void close() throws IOException {
+        try {
+            awaitPending();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -25,6 +25,13 @@ public class SQLQuery {
     // Indicates whether DISTINCT appears in the SELECT clause.
     private boolean isDistinct = false;
 
+    // List of attributes in the ORDER_BY clause.
+    private Vector orderByList;
+    // Indicates whether the ORDER_BY clause is in descending order.
+    private boolean isDescending = false;
+    // The maximum number of tuples in the LIMIT clause, or -1 if there is no LIMIT clause.
+    private int limit = -1;
+
     /**
      * Constructs a new SQL query object. Uses this constructor when there is no GROUP_BY clause.
      *
@@ -121,10 +128,10 @@ public class SQLQuery {
             groupBySet.add(attr);
         }
 
-        // Checks whether each attribute in projectList is also in groupByList.
+        // Checks whether each attribute in projectList (other than the aggregates) is also in groupByList.
         for (int i = 0; i < projectList.size(); i++) {
             Attribute attr = (Attribute) projectList.elementAt(i);
-            if (!groupBySet.contains(attr)) {
+            if (!attr.isAggregated() && !groupBySet.contains(attr)) {
                 System.err.printf("SQLQuery: attribute %s presented in project list, but not in groupBy list\n", attr.getColName());
                 System.exit(1);
             }
@@ -142,6 +149,27 @@ public class SQLQuery {
         return groupByList;
     }
 
+    /**
+     * @return the attributes in the project list with an aggregate function applied, without duplicates.
+     */
+    public Vector<Attribute> getAggregateList() {
+        Vector<Attribute> aggregates = new Vector<>();
+        for (int i = 0; i < projectList.size(); i++) {
+            Attribute attr = (Attribute) projectList.elementAt(i);
+            if (attr.isAggregated() && !aggregates.contains(attr)) {
+                aggregates.add(attr);
+            }
+        }
+        return aggregates;
+    }
+
+    /**
+     * @return whether any aggregate function is present in the SELECT clause.
+     */
+    public boolean isAggregated() {
+        return !getAggregateList().isEmpty();
+    }
+
     /**
      * @return the number of joins in this SQL query.
      */
@@ -177,4 +205,76 @@ public class SQLQuery {
     public boolean isGroupby() {
         return groupByList != null && !groupByList.isEmpty();
     }
+
+    /**
+     * Setter for orderBy list.
+     *
+     * @param list is the orderBy list.
+     */
+    public void setOrderByList(Vector list) {
+        // Checks whether each attribute in orderByList is also in projectList if duplicates are eliminated.
+        if (isDistinct && !projectList.isEmpty()) {
+            for (int i = 0; i < list.size(); i++) {
+                Attribute attr = (Attribute) list.elementAt(i);
+                if (!projectList.contains(attr)) {
+                    System.err.printf("SQLQuery: attribute %s presented in orderBy list, but not in project list\n", attr.getColName());
+                    System.exit(1);
+                }
+            }
+        }
+
+        orderByList = list;
+    }
+
+    /**
+     * Getter for orderBy list.
+     *
+     * @return the orderBy list.
+     */
+    public Vector getOrderByList() {
+        return orderByList;
+    }
+
+    /**
+     * @return whether ORDERBY is present in the query.
+     */
+    public boolean isOrderBy() {
+        return orderByList != null && !orderByList.isEmpty();
+    }
+
+    /**
+     * Setter for isDescending.
+     *
+     * @param isDescending means whether DESC is present in the ORDERBY clause.
+     */
+    public void setIsDescending(boolean isDescending) {
+        this.isDescending = isDescending;
+    }
+
+    /**
+     * Getter for isDescending.
+     *
+     * @return whether DESC is present in the ORDERBY clause.
+     */
+    public boolean getIsDescending() {
+        return isDescending;
+    }
+
+    /**
+     * Setter for limit.
+     *
+     * @param limit is the maximum number of tuples in the result.
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Getter for limit.
+     *
+     * @return the maximum number of tuples in the result, or -1 if LIMIT is not present in the query.
+     */
+    public int getLimit() {
+        return limit;
+    }
 }
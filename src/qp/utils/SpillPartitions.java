@@ -0,0 +1,227 @@
+package qp.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * Distributes tuples into a number of spill files, using one output buffer per partition. It is shared by the
+ * operators which partition their input by hashing, where the caller decides the partition of each tuple. On an
+ * I/O error, the error is reported on behalf of the operator and the program exits, as the operators do.
+ */
+public class SpillPartitions {
+    // The name of the operator spilling the partitions, which is used in the error messages.
+    private final String owner;
+    // The schema of the tuples.
+    private final Schema schema;
+    // The output stream for each partition, which holds the output buffer of that partition.
+    private final TupleWriter[] outStreams;
+    // The spill file for each partition.
+    private final String[] fileNames;
+    // The number of pages written to each partition.
+    private final int[] numOfPages;
+
+    /**
+     * Creates the spill files of the partitions, which are named by a given prefix followed by their indices.
+     *
+     * @param owner           is the name of the operator spilling the partitions.
+     * @param filePrefix      is the prefix of the spill files, which should be unique.
+     * @param schema          is the schema of the tuples.
+     * @param numOfPartitions is the number of partitions.
+     */
+    public SpillPartitions(String owner, String filePrefix, Schema schema, int numOfPartitions) {
+        this.owner = owner;
+        this.schema = schema;
+        outStreams = new TupleWriter[numOfPartitions];
+        fileNames = new String[numOfPartitions];
+        numOfPages = new int[numOfPartitions];
+        try {
+            for (int i = 0; i < numOfPartitions; i++) {
+                fileNames[i] = filePrefix + "-" + i;
+                outStreams[i] = new TupleWriter(fileNames[i], schema);
+            }
+        } catch (IOException io) {
+            System.out.println(owner + ": writing the temporary file error");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Adds a tuple into a given partition.
+     *
+     * @param tuple     is the tuple.
+     * @param partition is the index of the partition.
+     */
+    public void add(Tuple tuple, int partition) {
+        try {
+            outStreams[partition].write(tuple);
+        } catch (IOException io) {
+            System.out.println(owner + ": writing the temporary file error");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Flushes all non-empty output buffers and closes the spill files.
+     */
+    public void finish() {
+        for (int i = 0; i < outStreams.length; i++) {
+            try {
+                outStreams[i].close();
+            } catch (IOException io) {
+                System.out.println(owner + ": writing the temporary file error");
+                System.exit(1);
+            }
+            numOfPages[i] = outStreams[i].getNumOfPages();
+        }
+    }
+
+    /**
+     * Adds the finished partitions to a list of pending partitions, and deletes the spill files of those
+     * which turn out to be empty.
+     *
+     * @param pending is the list of pending partitions.
+     * @param depth   is the number of times the tuples in the partitions have been partitioned.
+     */
+    public void addTo(Deque<Partition> pending, int depth) {
+        for (int i = 0; i < fileNames.length; i++) {
+            if (numOfPages[i] == 0) {
+                new File(fileNames[i]).delete();
+            } else {
+                pending.push(new Partition(fileNames[i], depth));
+            }
+        }
+    }
+
+    /**
+     * @return the number of partitions.
+     */
+    public int getNumOfPartitions() {
+        return outStreams.length;
+    }
+
+    /**
+     * @param partition is the index of the partition.
+     * @return the spill file of the partition.
+     */
+    public String getFileName(int partition) {
+        return fileNames[partition];
+    }
+
+    /**
+     * @param partition is the index of the partition.
+     * @return the number of pages written to the partition, which is only known after {@link #finish()}.
+     */
+    public int getNumOfPages(int partition) {
+        return numOfPages[partition];
+    }
+
+    /**
+     * @return the schema of the tuples.
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Opens a spill file for reading.
+     *
+     * @param owner    is the name of the operator reading the spill file.
+     * @param fileName is the name of the spill file.
+     * @param schema   is the schema of the tuples in the spill file.
+     * @return the input stream.
+     */
+    public static TupleReader openStream(String owner, String fileName, Schema schema) {
+        try {
+            return new TupleReader(fileName, schema);
+        } catch (IOException io) {
+            System.err.println(owner + ": error in reading the file " + fileName);
+            System.exit(1);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next page from a spill file.
+     *
+     * @param owner  is the name of the operator reading the spill file.
+     * @param in     is the input stream of the spill file.
+     * @param schema is the schema of the tuples in the spill file.
+     * @return the next page; null if end-of-stream has been reached.
+     */
+    public static Batch readBatch(String owner, TupleReader in, Schema schema) {
+        try {
+            return in.readBatch(Batch.getPageSize() / schema.getTupleSize());
+        } catch (IOException io) {
+            System.out.println(owner + ": temporary file reading error");
+            System.exit(1);
+        }
+        return null;
+    }
+
+    /**
+     * Closes an input stream opened on a spill file.
+     *
+     * @param owner is the name of the operator reading the spill file.
+     * @param in    is the input stream.
+     */
+    public static void closeStream(String owner, TupleReader in) {
+        try {
+            in.close();
+        } catch (IOException io) {
+            System.out.println(owner + ": error in temporary file reading");
+        }
+    }
+
+    /**
+     * Deletes the spill files of some pending partitions, and clears the list of them.
+     *
+     * @param pending is the list of pending partitions, or null if there is none.
+     */
+    public static void deleteAll(Collection<Partition> pending) {
+        if (pending == null) {
+            return;
+        }
+        for (Partition partition : pending) {
+            partition.delete();
+        }
+        pending.clear();
+    }
+
+    /**
+     * Defines a spill file holding the tuples of one partition.
+     */
+    public static class Partition {
+        // The spill file of the partition.
+        private final String fileName;
+        // The number of times the tuples in this partition have been partitioned.
+        private final int depth;
+
+        public Partition(String fileName, int depth) {
+            this.fileName = fileName;
+            this.depth = depth;
+        }
+
+        /**
+         * @return the spill file of the partition.
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * @return the number of times the tuples in this partition have been partitioned.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Deletes the spill file of the partition.
+         */
+        public void delete() {
+            new File(fileName).delete();
+        }
+    }
+}
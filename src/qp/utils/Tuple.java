@@ -1,16 +1,29 @@
 package qp.utils;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.Vector;
 
 /**
- * Represents a tuple (i.e., a row).
+ * Represents a tuple (i.e., a row). A tuple read from a memory-mapped file is only a view over its
+ * record, whose attributes are decoded lazily when they are accessed.
  */
 public class Tuple implements Serializable {
-    // The data of this tuple.
+    // Pinned for tuples written with Java serialization. The tables, spill files and index files no longer are, since
+    // they use the binary page format (see TupleWriter) and the index leaves hold rids instead of tuples.
+    private static final long serialVersionUID = 315247897212264626L;
+
+    // The data of this tuple, or null if it has not been decoded yet.
     private Vector _data;
 
+    // The buffer holding the encoded record, and the position & layout of the record in it.
+    private transient ByteBuffer buffer;
+    private transient int offset;
+    private transient TupleLayout layout;
+
     /**
      * Creates a new tuple.
      *
@@ -21,11 +34,29 @@ public class Tuple implements Serializable {
     }
 
     /**
-     * Getter for data.
+     * Creates a new tuple as a view over an encoded record.
+     *
+     * @param layout is the layout of the record.
+     * @param buffer is the buffer holding the record, which must not be modified afterwards.
+     * @param offset is the position of the record in the buffer.
+     */
+    Tuple(TupleLayout layout, ByteBuffer buffer, int offset) {
+        this.layout = layout;
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /**
+     * Getter for data. All attributes are decoded if this tuple is a view over an encoded record.
      *
      * @return the data.
      */
     public Vector getData() {
+        if (_data == null) {
+            _data = layout.readData(buffer, offset);
+            buffer = null;
+            layout = null;
+        }
         return _data;
     }
 
@@ -36,6 +67,9 @@ public class Tuple implements Serializable {
      * @return the data at the given index.
      */
     public Object dataAt(int index) {
+        if (_data == null) {
+            return layout.read(buffer, offset, index);
+        }
         return _data.elementAt(index);
     }
 
@@ -89,9 +123,17 @@ public class Tuple implements Serializable {
      * @return the comparision result.
      */
     private static int compareTuples(Tuple left, Tuple right, int leftIndex, int rightIndex) {
-        Object leftValue = left.dataAt(leftIndex);
-        Object rightValue = right.dataAt(rightIndex);
+        return compareValues(left.dataAt(leftIndex), right.dataAt(rightIndex));
+    }
 
+    /**
+     * Compare two values of the same attribute type.
+     *
+     * @param leftValue is the left value.
+     * @param rightValue is the right value.
+     * @return the comparision result.
+     */
+    public static int compareValues(Object leftValue, Object rightValue) {
         if (leftValue instanceof Integer) {
             return ((Integer) leftValue).compareTo((Integer) rightValue);
         } else if (leftValue instanceof String) {
@@ -106,4 +148,15 @@ public class Tuple implements Serializable {
             return 0;
         }
     }
+
+    /**
+     * Decodes all attributes before this tuple is serialized.
+     *
+     * @param out is the output stream.
+     * @throws IOException if the tuple cannot be written.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getData();
+        out.defaultWriteObject();
+    }
 }
@@ -0,0 +1,177 @@
+package qp.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Vector;
+
+/**
+ * Defines the fixed-length binary layout of a tuple with a given schema. Each attribute is stored at a
+ * fixed offset in the record: an INT or a REAL takes 4 bytes, a TIME takes 8 bytes, and a STRING takes
+ * a 2-byte length followed by at most attrSize bytes of its UTF-8 encoding.
+ */
+public class TupleLayout {
+    // The getData type of each attribute.
+    private final int[] types;
+    // The offset of each attribute in the record.
+    private final int[] offsets;
+    // The maximum number of bytes of each STRING attribute.
+    private final int[] maxLengths;
+    // The size (in bytes) of each record.
+    private final int recordSize;
+
+    /**
+     * Creates the layout of tuples with a given schema.
+     *
+     * @param schema is the schema of the tuples.
+     */
+    public TupleLayout(Schema schema) {
+        int numOfAttrs = schema.getNumCols();
+        types = new int[numOfAttrs];
+        offsets = new int[numOfAttrs];
+        maxLengths = new int[numOfAttrs];
+
+        int offset = 0;
+        for (int i = 0; i < numOfAttrs; i++) {
+            Attribute attr = schema.getAttribute(i);
+            types[i] = attr.getType();
+            offsets[i] = offset;
+            switch (types[i]) {
+                case Attribute.INT:
+                case Attribute.REAL:
+                    offset += Integer.BYTES;
+                    break;
+                case Attribute.TIME:
+                    offset += Long.BYTES;
+                    break;
+                case Attribute.STRING:
+                    maxLengths[i] = attr.getAttrSize();
+                    offset += Short.BYTES + maxLengths[i];
+                    break;
+                default:
+                    System.err.println("TupleLayout: invalid getData type " + types[i]);
+                    System.exit(1);
+            }
+        }
+        recordSize = offset;
+    }
+
+    /**
+     * Getter for recordSize.
+     *
+     * @return the size (in bytes) of each record.
+     */
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    /**
+     * @return the number of attributes in each record.
+     */
+    public int getNumOfAttrs() {
+        return types.length;
+    }
+
+    /**
+     * Encodes a tuple into a buffer.
+     *
+     * @param tuple  is the tuple to be encoded.
+     * @param buffer is the buffer.
+     * @param offset is the position of the record in the buffer.
+     */
+    public void write(Tuple tuple, ByteBuffer buffer, int offset) {
+        for (int i = 0; i < types.length; i++) {
+            Object value = tuple.dataAt(i);
+            int position = offset + offsets[i];
+            switch (types[i]) {
+                case Attribute.INT:
+                    buffer.putInt(position, (Integer) value);
+                    break;
+                case Attribute.REAL:
+                    buffer.putFloat(position, (Float) value);
+                    break;
+                case Attribute.TIME:
+                    buffer.putLong(position, ((Date) value).getTime());
+                    break;
+                default:
+                    byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    if (bytes.length > maxLengths[i]) {
+                        System.err.printf("TupleLayout: string \"%s\" is longer than %d bytes\n", value, maxLengths[i]);
+                        System.exit(1);
+                    }
+                    buffer.putShort(position, (short) bytes.length);
+                    for (int j = 0; j < bytes.length; j++) {
+                        buffer.put(position + Short.BYTES + j, bytes[j]);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Decodes one attribute of a record from a buffer.
+     *
+     * @param buffer is the buffer.
+     * @param offset is the position of the record in the buffer.
+     * @param index  is the index of the attribute.
+     * @return the value of the attribute.
+     */
+    public Object read(ByteBuffer buffer, int offset, int index) {
+        int position = offset + offsets[index];
+        switch (types[index]) {
+            case Attribute.INT:
+                return buffer.getInt(position);
+            case Attribute.REAL:
+                return buffer.getFloat(position);
+            case Attribute.TIME:
+                return new Date(buffer.getLong(position));
+            default:
+                byte[] bytes = new byte[buffer.getShort(position)];
+                for (int j = 0; j < bytes.length; j++) {
+                    bytes[j] = buffer.get(position + Short.BYTES + j);
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Decodes one attribute of a record from a buffer into a column of a {@link ColumnBatch}, without boxing.
+     *
+     * @param buffer is the buffer.
+     * @param offset is the position of the record in the buffer.
+     * @param index  is the index of the attribute.
+     * @param batch  is the page stored column by column.
+     * @param column is the index of the column in the page.
+     * @param row    is the index of the row in the page.
+     */
+    public void readInto(ByteBuffer buffer, int offset, int index, ColumnBatch batch, int column, int row) {
+        int position = offset + offsets[index];
+        switch (types[index]) {
+            case Attribute.INT:
+                batch.setInt(column, row, buffer.getInt(position));
+                break;
+            case Attribute.REAL:
+                batch.setFloat(column, row, buffer.getFloat(position));
+                break;
+            case Attribute.TIME:
+                batch.setTime(column, row, buffer.getLong(position));
+                break;
+            default:
+                batch.setString(column, row, (String) read(buffer, offset, index));
+        }
+    }
+
+    /**
+     * Decodes all attributes of a record from a buffer.
+     *
+     * @param buffer is the buffer.
+     * @param offset is the position of the record in the buffer.
+     * @return the values of the attributes.
+     */
+    public Vector<Object> readData(ByteBuffer buffer, int offset) {
+        Vector<Object> data = new Vector<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            data.add(read(buffer, offset, i));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,261 @@
+package qp.utils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads tuples sequentially from a file written by {@link TupleWriter}, one page at a time. In memory-mapped
+ * mode, the whole file is mapped instead, and the tuples returned are views over the mapped records, which
+ * are only decoded when their attributes are accessed.
+ */
+public class TupleReader {
+    // The name of the file being read.
+    private final String fileName;
+    // The layout of the records.
+    private final TupleLayout layout;
+    // The channel of the file being read.
+    private final FileChannel channel;
+    // The size (in bytes) of each page.
+    private final int pageBytes;
+    // The maximum number of records per page.
+    private final int recordsPerPage;
+    // The buffer holding the current page, which is the whole file in memory-mapped mode.
+    private final ByteBuffer page;
+    // Whether the file is memory-mapped.
+    private final boolean isMapped;
+    // The position of the current page in the buffer.
+    private int pageOffset = 0;
+    // The position of the next page in the buffer (only used in memory-mapped mode).
+    private int nextPageOffset = TupleWriter.HEADER_SIZE;
+    // The index of the current page, or the index of the next page minus one if no page is loaded.
+    private int pageIndex = -1;
+    // The number of records in the current page.
+    private int numOfRecords = 0;
+    // The position of the next record in the current page.
+    private int cursor = 0;
+    // Whether end of file is reached.
+    private boolean eof = false;
+
+    /**
+     * Opens a file in the binary page format.
+     *
+     * @param fileName is the name of the file.
+     * @param schema   is the schema of the tuples.
+     * @throws IOException if the file cannot be read, or it does not match the schema.
+     */
+    public TupleReader(String fileName, Schema schema) throws IOException {
+        this(fileName, schema, false);
+    }
+
+    /**
+     * Opens a file in the binary page format.
+     *
+     * @param fileName is the name of the file.
+     * @param schema   is the schema of the tuples.
+     * @param isMapped is whether the file should be memory-mapped; it is ignored if the file is larger than 2GB.
+     * @throws IOException if the file cannot be read, or it does not match the schema.
+     */
+    public TupleReader(String fileName, Schema schema, boolean isMapped) throws IOException {
+        this.fileName = fileName;
+        layout = new TupleLayout(schema);
+        channel = new FileInputStream(fileName).getChannel();
+
+        ByteBuffer header = ByteBuffer.allocate(TupleWriter.HEADER_SIZE);
+        if (!readFully(header) || header.getInt(0) != TupleWriter.MAGIC) {
+            channel.close();
+            throw new IOException(fileName + " is not in the binary page format");
+        }
+        recordsPerPage = header.getInt(Integer.BYTES);
+        if (header.getInt(2 * Integer.BYTES) != layout.getRecordSize()
+                || header.getInt(3 * Integer.BYTES) != layout.getNumOfAttrs()) {
+            channel.close();
+            throw new IOException(fileName + " does not match the schema");
+        }
+        pageBytes = TupleWriter.getPageBytes(recordsPerPage, layout.getRecordSize());
+
+        this.isMapped = isMapped && channel.size() <= Integer.MAX_VALUE;
+        if (this.isMapped) {
+            page = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } else {
+            page = ByteBuffer.allocate(pageBytes);
+        }
+    }
+
+    /**
+     * Reads the next tuple.
+     *
+     * @return the next tuple, or null if end of file is reached.
+     * @throws IOException if the file cannot be read.
+     */
+    public Tuple read() throws IOException {
+        if (!hasNextRecord()) {
+            return null;
+        }
+
+        int offset = pageOffset + TupleWriter.PAGE_HEADER_SIZE + cursor * layout.getRecordSize();
+        cursor++;
+        if (isMapped) {
+            return new Tuple(layout, page, offset);
+        }
+        return new Tuple(layout.readData(page, offset));
+    }
+
+    /**
+     * Reads the next batch of tuples.
+     *
+     * @param capacity is the maximum number of tuples in the batch.
+     * @return the next batch, or null if end of file is reached.
+     * @throws IOException if the file cannot be read.
+     */
+    public Batch readBatch(int capacity) throws IOException {
+        Batch batch = new Batch(capacity);
+        while (!batch.isFull()) {
+            Tuple tuple = read();
+            if (tuple == null) {
+                break;
+            }
+            batch.add(tuple);
+        }
+        return batch.isEmpty() ? null : batch;
+    }
+
+    /**
+     * Moves to the start of a given page, so that the next tuple read is the first record in that page.
+     *
+     * @param pageIndex is the index of the page (0-based).
+     * @throws IOException if the file cannot be read.
+     */
+    public void seekPage(int pageIndex) throws IOException {
+        long position = TupleWriter.HEADER_SIZE + (long) pageIndex * pageBytes;
+        if (isMapped) {
+            nextPageOffset = (int) Math.min(position, page.limit());
+        } else {
+            channel.position(position);
+        }
+        this.pageIndex = pageIndex - 1;
+        numOfRecords = 0;
+        cursor = 0;
+        eof = false;
+    }
+
+    /**
+     * Gets the position of the next record to be read, which can be passed to {@link #seekPosition} later.
+     *
+     * @return the index of the next record in the file (0-based).
+     */
+    public long getPosition() {
+        if (cursor == numOfRecords) {
+            return (long) (pageIndex + 1) * recordsPerPage;
+        }
+        return (long) pageIndex * recordsPerPage + cursor;
+    }
+
+    /**
+     * Moves to a given record, so that the next tuple read is that record. The page is not read again if it is
+     * the current page.
+     *
+     * @param position is the index of the record in the file (0-based).
+     * @throws IOException if the file cannot be read.
+     */
+    public void seekPosition(long position) throws IOException {
+        int offset = (int) (position % recordsPerPage);
+        if (position / recordsPerPage == pageIndex && numOfRecords > 0) {
+            cursor = Math.min(offset, numOfRecords);
+            return;
+        }
+        seekPage((int) (position / recordsPerPage));
+        if (offset > 0 && hasNextRecord()) {
+            cursor = Math.min(offset, numOfRecords);
+        }
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the first attribute of the next records into a column of a {@link ColumnBatch}.
+     *
+     * @param batch   is the page stored column by column.
+     * @param column  is the index of the column in the page.
+     * @param maxRows is the maximum number of records to read.
+     * @return the number of records read, which is smaller than maxRows only at the end of file.
+     * @throws IOException if the file cannot be read.
+     */
+    public int readColumn(ColumnBatch batch, int column, int maxRows) throws IOException {
+        int row = 0;
+        while (row < maxRows && hasNextRecord()) {
+            int offset = pageOffset + TupleWriter.PAGE_HEADER_SIZE + cursor * layout.getRecordSize();
+            layout.readInto(page, offset, 0, batch, column, row);
+            cursor++;
+            row++;
+        }
+        return row;
+    }
+
+    /**
+     * Moves the cursor to the next page if the current page is exhausted.
+     *
+     * @return true if there is a next record.
+     * @throws IOException if the file cannot be read.
+     */
+    private boolean hasNextRecord() throws IOException {
+        while (cursor == numOfRecords) {
+            if (eof || !loadNextPage()) {
+                eof = true;
+                return false;
+            }
+            numOfRecords = page.getInt(pageOffset);
+            cursor = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Moves on to the next page, which is read into memory unless the file is memory-mapped.
+     *
+     * @return true if there is a next page.
+     * @throws IOException if the file cannot be read.
+     */
+    private boolean loadNextPage() throws IOException {
+        if (!isMapped) {
+            if (!readFully(page)) {
+                return false;
+            }
+        } else if (nextPageOffset + pageBytes > page.limit()) {
+            return false;
+        } else {
+            pageOffset = nextPageOffset;
+            nextPageOffset += pageBytes;
+        }
+        pageIndex++;
+        return true;
+    }
+
+    /**
+     * Fills up a buffer from the file.
+     *
+     * @param buffer is the buffer.
+     * @return true if the buffer is filled; false if end of file is reached first.
+     * @throws IOException if the file cannot be read, or ends in the middle of the buffer.
+     */
+    private boolean readFully(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (buffer.position() == 0) {
+                    return false;
+                }
+                throw new IOException(fileName + " ends in the middle of a page");
+            }
+        }
+        return true;
+    }
+}
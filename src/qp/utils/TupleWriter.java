@@ -0,0 +1,165 @@
+package qp.utils;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes tuples into a file in the binary page format. The file starts with a header, followed by pages of
+ * the same size. Each page holds the number of records in it, followed by the fixed-length records (see
+ * {@link TupleLayout}). As many records are put into a page as fit into the page size together with the page
+ * header, or one record if it is larger than that. Since a record may be larger than the tuple size, a page on
+ * disk may hold fewer tuples than a {@link Batch}; readers always go by the records per page in the file header.
+ */
+public class TupleWriter {
+    // The magic number at the start of every file in the binary page format.
+    static final int MAGIC = 0x54504C31;
+    // The size (in bytes) of the file header.
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+    // The size (in bytes) of the page header.
+    static final int PAGE_HEADER_SIZE = Integer.BYTES;
+
+    // The name of the file being written.
+    private final String fileName;
+    // The layout of the records.
+    private final TupleLayout layout;
+    // The maximum number of records per page.
+    private final int recordsPerPage;
+    // The channel of the file being written.
+    private final FileChannel channel;
+    // The page being filled.
+    private final ByteBuffer page;
+    // The number of records in the page being filled.
+    private int numOfRecords = 0;
+    // The number of pages written.
+    private int numOfPages = 0;
+
+    /**
+     * Creates a new file with the page size from {@link Batch#getPageSize()}.
+     *
+     * @param fileName is the name of the file.
+     * @param schema   is the schema of the tuples.
+     * @throws IOException if the file cannot be created.
+     */
+    public TupleWriter(String fileName, Schema schema) throws IOException {
+        this(fileName, schema, Batch.getPageSize());
+    }
+
+    /**
+     * Creates a new file.
+     *
+     * @param fileName is the name of the file.
+     * @param schema   is the schema of the tuples.
+     * @param pageSize is the page size (in bytes).
+     * @throws IOException if the file cannot be created.
+     */
+    public TupleWriter(String fileName, Schema schema, int pageSize) throws IOException {
+        this.fileName = fileName;
+        layout = new TupleLayout(schema);
+        recordsPerPage = Math.max((pageSize - PAGE_HEADER_SIZE) / layout.getRecordSize(), 1);
+        channel = new FileOutputStream(fileName).getChannel();
+        page = ByteBuffer.allocate(getPageBytes(recordsPerPage, layout.getRecordSize()));
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(recordsPerPage);
+        header.putInt(layout.getRecordSize());
+        header.putInt(layout.getNumOfAttrs());
+        header.flip();
+        writeFully(header);
+    }
+
+    /**
+     * Computes the size (in bytes) of each page on disk.
+     *
+     * @param recordsPerPage is the maximum number of records per page.
+     * @param recordSize     is the size (in bytes) of each record.
+     * @return the size of each page.
+     */
+    static int getPageBytes(int recordsPerPage, int recordSize) {
+        return PAGE_HEADER_SIZE + recordsPerPage * recordSize;
+    }
+
+    /**
+     * Getter for numOfPages.
+     *
+     * @return the number of pages written so far.
+     */
+    public int getNumOfPages() {
+        return numOfPages;
+    }
+
+    /**
+     * Getter for fileName.
+     *
+     * @return the name of the file.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Appends a tuple to the file.
+     *
+     * @param tuple is the tuple to be written.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Tuple tuple) throws IOException {
+        layout.write(tuple, page, PAGE_HEADER_SIZE + numOfRecords * layout.getRecordSize());
+        numOfRecords++;
+        if (numOfRecords == recordsPerPage) {
+            flush();
+        }
+    }
+
+    /**
+     * Appends all tuples in a batch to the file.
+     *
+     * @param batch is the batch to be written.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Batch batch) throws IOException {
+        for (int i = 0; i < batch.size(); i++) {
+            write(batch.elementAt(i));
+        }
+    }
+
+    /**
+     * Writes out the last page (if any), and closes the file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void close() throws IOException {
+        if (numOfRecords > 0) {
+            flush();
+        }
+        channel.close();
+    }
+
+    /**
+     * Writes out the page being filled. The unused space is left as it is, since it is never read.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    private void flush() throws IOException {
+        page.putInt(0, numOfRecords);
+        page.clear();
+        writeFully(page);
+        page.clear();
+        numOfRecords = 0;
+        numOfPages++;
+    }
+
+    /**
+     * Writes out all remaining bytes in a buffer.
+     *
+     * @param buffer is the buffer.
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package qp.operators;
+
+import static org.junit.Assert.assertEquals;
+import static qp.utils.TestTuples.tupleOf;
+
+import java.util.Vector;
+
+import org.junit.Test;
+
+import qp.utils.Attribute;
+import qp.utils.Schema;
+import qp.utils.Tuple;
+
+public class AccumulatorsTest {
+    private static final Attribute G = new Attribute("T", "g", Attribute.INT, 0, 4);
+    private static final Attribute X = new Attribute("T", "x", Attribute.INT, 0, 4);
+    private static final Attribute Y = new Attribute("T", "y", Attribute.REAL, 0, 4);
+    private static final Attribute S = new Attribute("T", "s", Attribute.STRING, 0, 8);
+
+    private static final int NUM_OF_TUPLES = 60;
+    private static final int NUM_OF_GROUPS = 20;
+
+    @Test
+    public void aggregateInputTuples() {
+        Accumulators accumulators = new Accumulators(makeAggregates(), makeInSchema());
+        for (int g = 0; g < NUM_OF_GROUPS; g++) {
+            assertEquals(g, accumulators.addGroup());
+        }
+        for (int i = 0; i < NUM_OF_TUPLES; i++) {
+            accumulators.add(i % NUM_OF_GROUPS, makeTuple(i));
+        }
+
+        assertEquals(NUM_OF_GROUPS, accumulators.getNumOfGroups());
+        for (int g = 0; g < NUM_OF_GROUPS; g++) {
+            assertEquals(getExpected(g), accumulators.getResults(g));
+        }
+
+        accumulators.clear();
+        assertEquals(0, accumulators.getNumOfGroups());
+        assertEquals(0, accumulators.addGroup());
+        accumulators.add(0, makeTuple(7));
+        assertEquals(7, accumulators.getResults(0).elementAt(0));
+    }
+
+    @Test
+    public void reportEmptyGroup() {
+        Accumulators accumulators = new Accumulators(makeAggregates(), makeInSchema());
+        accumulators.addGroup();
+        accumulators.add(0, makeTuple(7));
+        // The values of the previous group in the same slot are not carried over.
+        accumulators.clear();
+        accumulators.addGroup();
+
+        Vector<Object> expected = new Vector<>();
+        expected.add(0);
+        expected.add(0);
+        expected.add(0);
+        expected.add(0);
+        expected.add(0f);
+        expected.add("");
+        expected.add("");
+        assertEquals(expected, accumulators.getResults(0));
+    }
+
+    @Test
+    public void averageBeyondIntRange() {
+        Vector<Attribute> aggregates = new Vector<>();
+        aggregates.add(X.getAggregated(Attribute.AVG));
+        Accumulators accumulators = new Accumulators(aggregates, makeInSchema());
+        accumulators.addGroup();
+        for (int i = 0; i < 3; i++) {
+            Vector<Object> data = new Vector<>(makeTuple(0).getData());
+            data.set(1, Integer.MAX_VALUE - i);
+            accumulators.add(0, new Tuple(data));
+        }
+        // The sum overflows an INT, but not the running value it is kept in.
+        assertEquals((float) (Integer.MAX_VALUE - 1.0), accumulators.getResults(0).elementAt(0));
+    }
+
+    @Test
+    public void mergePartialAggregates() {
+        // Aggregates each half of the input separately, and then merges the partial aggregates of the halves.
+        Vector<Attribute> keys = new Vector<>();
+        keys.add(G);
+        Schema partialSchema = Accumulators.getPartialSchema(keys, makeAggregates(), makeInSchema());
+        Accumulators merged = new Accumulators(makeAggregates(), partialSchema);
+        for (int g = 0; g < NUM_OF_GROUPS; g++) {
+            merged.addGroup();
+        }
+
+        for (int half = 0; half < 2; half++) {
+            Accumulators partial = new Accumulators(makeAggregates(), makeInSchema());
+            for (int g = 0; g < NUM_OF_GROUPS; g++) {
+                partial.addGroup();
+            }
+            for (int i = half * NUM_OF_TUPLES / 2; i < (half + 1) * NUM_OF_TUPLES / 2; i++) {
+                partial.add(i % NUM_OF_GROUPS, makeTuple(i));
+            }
+            for (int g = 0; g < NUM_OF_GROUPS; g++) {
+                Vector<Object> data = new Vector<>();
+                data.add(g);
+                data.addAll(partial.getPartials(g));
+                merged.add(g, new Tuple(data));
+            }
+        }
+
+        for (int g = 0; g < NUM_OF_GROUPS; g++) {
+            assertEquals(getExpected(g), merged.getResults(g));
+        }
+    }
+
+    @Test
+    public void weightTuplesByTheirCount() {
+        // Each input tuple stands for 3 tuples, as if it were joined with a partial aggregate.
+        Schema inSchema = makeInSchema();
+        inSchema.add(Accumulators.getCountAttribute());
+        Accumulators accumulators = new Accumulators(makeAggregates(), inSchema);
+        accumulators.addGroup();
+
+        Tuple tuple = makeWeightedTuple(4, 3);
+        accumulators.add(0, tuple);
+        accumulators.add(0, makeWeightedTuple(10, 3));
+        Vector<Object> results = accumulators.getResults(0);
+        assertEquals(4, results.elementAt(0));
+        assertEquals(10, results.elementAt(1));
+        assertEquals(3 * (4 + 10), results.elementAt(2));
+        assertEquals(6, results.elementAt(3));
+        assertEquals((4 / 2.0f + 10 / 2.0f) / 2, results.elementAt(4));
+
+        // The partials of a single tuple are the same as those of a group holding only that tuple.
+        Accumulators single = new Accumulators(makeAggregates(), inSchema);
+        single.addGroup();
+        single.add(0, tuple);
+        assertEquals(single.getPartials(0), accumulators.getPartials(tuple));
+    }
+
+    private static Vector<Attribute> makeAggregates() {
+        Vector<Attribute> aggregates = new Vector<>();
+        aggregates.add(X.getAggregated(Attribute.MIN));
+        aggregates.add(X.getAggregated(Attribute.MAX));
+        aggregates.add(X.getAggregated(Attribute.SUM));
+        aggregates.add(X.getAggregated(Attribute.COUNT));
+        aggregates.add(Y.getAggregated(Attribute.AVG));
+        aggregates.add(S.getAggregated(Attribute.MIN));
+        aggregates.add(S.getAggregated(Attribute.MAX));
+        return aggregates;
+    }
+
+    private static Schema makeInSchema() {
+        Vector<Attribute> attrList = new Vector<>();
+        attrList.add(G);
+        attrList.add(X);
+        attrList.add(Y);
+        attrList.add(S);
+        return new Schema(attrList);
+    }
+
+    private static Tuple makeTuple(int i) {
+        return tupleOf(i % NUM_OF_GROUPS, i, i / 2.0f, "s" + (i * 7 % 10));
+    }
+
+    private static Tuple makeWeightedTuple(int i, int count) {
+        Vector<Object> data = new Vector<>(makeTuple(i).getData());
+        data.add(count);
+        return new Tuple(data);
+    }
+
+    private static Vector<Object> getExpected(int g) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int sum = 0;
+        int count = 0;
+        float sumY = 0;
+        String minS = null;
+        String maxS = null;
+        for (int i = g; i < NUM_OF_TUPLES; i += NUM_OF_GROUPS) {
+            Tuple tuple = makeTuple(i);
+            min = Math.min(min, i);
+            max = Math.max(max, i);
+            sum += i;
+            count++;
+            sumY += (Float) tuple.dataAt(2);
+            String s = (String) tuple.dataAt(3);
+            minS = minS == null || s.compareTo(minS) < 0 ? s : minS;
+            maxS = maxS == null || s.compareTo(maxS) > 0 ? s : maxS;
+        }
+
+        Vector<Object> expected = new Vector<>();
+        expected.add(min);
+        expected.add(max);
+        expected.add(sum);
+        expected.add(count);
+        expected.add(sumY / count);
+        expected.add(minS);
+        expected.add(maxS);
+        return expected;
+    }
+}
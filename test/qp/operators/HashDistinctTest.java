@@ -0,0 +1,107 @@
+package qp.operators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static qp.utils.TestTuples.makeIntSchema;
+import static qp.utils.TestTuples.tupleOf;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import qp.utils.Batch;
+import qp.utils.Schema;
+import qp.utils.Tuple;
+
+public class HashDistinctTest {
+    // With 2 INT attributes, a page holds 4 tuples, so that 3 buffers keep 4 distinct tuples in memory.
+    private static final int PAGE_SIZE = 32;
+    // The number of times each tuple is repeated in the input.
+    private static final int NUM_OF_COPIES = 3;
+
+    private int oldPageSize;
+    // Whether a new spill file has been seen while reading the output.
+    private boolean hasSpilled;
+
+    @Before
+    public void setPageSize() {
+        oldPageSize = Batch.getPageSize();
+        Batch.setPageSize(PAGE_SIZE);
+    }
+
+    @After
+    public void restorePageSize() {
+        Batch.setPageSize(oldPageSize);
+    }
+
+    @Test
+    public void keepsDistinctTuplesInMemory() {
+        assertDistinct(10, 20);
+        assertFalse(hasSpilled);
+    }
+
+    @Test
+    public void spillsWhenDistinctTuplesOverflow() {
+        assertDistinct(4, 20);
+        assertTrue("the distinct tuples should be spilled", hasSpilled);
+    }
+
+    @Test
+    public void repartitionsUpToMaxDepth() {
+        // With 2 partitions per pass, about 8 distinct tuples are left in each partition at the maximum depth.
+        assertDistinct(3, 64);
+        assertTrue("the distinct tuples should be spilled", hasSpilled);
+    }
+
+    /**
+     * Deduplicates an input where each tuple (key, key % 3) is repeated a few times in a shuffled order, and
+     * checks that each tuple is returned exactly once and no spill file is left behind.
+     *
+     * @param numOfBuffer is the number of buffers available to the distinct operator.
+     * @param numOfKeys   is the number of distinct tuples.
+     */
+    private void assertDistinct(int numOfBuffer, int numOfKeys) {
+        Schema schema = makeIntSchema("T", "key", "group");
+        Vector<Tuple> tuples = new Vector<>();
+        for (int copy = 0; copy < NUM_OF_COPIES; copy++) {
+            for (int key = 0; key < numOfKeys; key++) {
+                tuples.add(tupleOf((key * 7 + copy) % numOfKeys, (key * 7 + copy) % numOfKeys % 3));
+            }
+        }
+        Distinct distinct = new Distinct(new ListOperator(schema, tuples), new Vector<>());
+        distinct.setSchema(schema);
+        distinct.setNumOfBuffer(numOfBuffer);
+        HashDistinct hashDistinct = new HashDistinct(distinct);
+
+        Set<String> oldTempFiles = getTempFiles();
+        assertTrue(hashDistinct.open());
+        hasSpilled = !oldTempFiles.containsAll(getTempFiles());
+        Vector<Integer> results = new Vector<>();
+        for (Batch outBatch = hashDistinct.next(); outBatch != null; outBatch = hashDistinct.next()) {
+            for (int i = 0; i < outBatch.size(); i++) {
+                Tuple tuple = outBatch.elementAt(i);
+                assertEquals(tuple.dataAt(0) + " is in the wrong group", (int) tuple.dataAt(0) % 3, tuple.dataAt(1));
+                results.add((Integer) tuple.dataAt(0));
+            }
+            hasSpilled |= !oldTempFiles.containsAll(getTempFiles());
+        }
+        hashDistinct.close();
+
+        Collections.sort(results);
+        Vector<Integer> expected = new Vector<>();
+        for (int key = 0; key < numOfKeys; key++) {
+            expected.add(key);
+        }
+        assertEquals(expected, results);
+        assertEquals(oldTempFiles, getTempFiles());
+    }
+
+    private static Set<String> getTempFiles() {
+        return TestOperators.getTempFiles("HDtemp-");
+    }
+}
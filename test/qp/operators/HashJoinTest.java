@@ -0,0 +1,106 @@
+package qp.operators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static qp.operators.TestOperators.getExpected;
+import static qp.operators.TestOperators.getTempFiles;
+import static qp.operators.TestOperators.makeJoin;
+import static qp.operators.TestOperators.readAll;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import qp.utils.Batch;
+
+public class HashJoinTest {
+    // With 2 INT attributes per input, a page holds 4 input tuples.
+    private static final int PAGE_SIZE = 32;
+    private static final int NUM_OF_BUFFERS = 4;
+
+    private int oldPageSize;
+
+    @Before
+    public void setPageSize() {
+        oldPageSize = Batch.getPageSize();
+        Batch.setPageSize(PAGE_SIZE);
+    }
+
+    @After
+    public void restorePageSize() {
+        Batch.setPageSize(oldPageSize);
+    }
+
+    @Test
+    public void joinPartitions() {
+        assertJoin(makeKeys(200, 50, 1), makeKeys(150, 50, 2), false, 0);
+    }
+
+    @Test
+    public void joinPartitionOfOneKey() {
+        // The partition of the same key cannot be split by partitioning it again, so it is joined chunk by chunk.
+        int[] leftKeys = new int[60];
+        Arrays.fill(leftKeys, 7);
+        assertJoin(leftKeys, new int[]{7, 3, 7}, false, 0);
+    }
+
+    @Test
+    public void joinHybrid() {
+        int[] leftKeys = makeKeys(200, 50, 3);
+        assertJoin(leftKeys, makeKeys(150, 50, 4), true, getNumOfPages(leftKeys));
+    }
+
+    @Test
+    public void joinHybridWithUnderestimatedLeft() {
+        // The resident partition overflows its buffers, and is spilled like the other partitions.
+        assertJoin(makeKeys(200, 50, 5), makeKeys(150, 50, 6), true, 1);
+    }
+
+    @Test
+    public void joinHybridInMemory() {
+        int[] leftKeys = {4, 1, 4};
+        Set<String> oldTempFiles = getTempFiles("HJtemp-");
+        assertJoin(leftKeys, makeKeys(40, 6, 7), true, getNumOfPages(leftKeys));
+        assertEquals(0, HashJoin.getNumOfSpilledPartitions(getNumOfPages(leftKeys), NUM_OF_BUFFERS));
+        assertEquals(oldTempFiles, getTempFiles("HJtemp-"));
+    }
+
+    /**
+     * Joins two inputs by hashing, and checks the result against a nested loop join regardless of the order.
+     */
+    private static void assertJoin(int[] leftKeys, int[] rightKeys, boolean isHybrid, int numOfLeftPages) {
+        Set<String> oldTempFiles = getTempFiles("HJtemp-");
+        ListOperator left = new ListOperator("L", leftKeys);
+        ListOperator right = new ListOperator("R", rightKeys);
+        HashJoin join = new HashJoin(makeJoin(left, right, JoinType.HASH_JOIN, NUM_OF_BUFFERS));
+        join.setHybrid(isHybrid);
+        join.setNumOfLeftPages(numOfLeftPages);
+        assertTrue(join.open());
+
+        Vector<String> results = readAll(join);
+        Vector<String> expected = getExpected(leftKeys, rightKeys);
+        Collections.sort(results);
+        Collections.sort(expected);
+        assertEquals(expected, results);
+        assertEquals(oldTempFiles, getTempFiles("HJtemp-"));
+    }
+
+    private static int[] makeKeys(int numOfTuples, int numOfKeys, long seed) {
+        Random random = new Random(seed);
+        int[] keys = new int[numOfTuples];
+        for (int i = 0; i < numOfTuples; i++) {
+            keys[i] = random.nextInt(numOfKeys);
+        }
+        return keys;
+    }
+
+    private static int getNumOfPages(int[] keys) {
+        return (keys.length + 3) / 4;
+    }
+}
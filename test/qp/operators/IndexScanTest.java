@@ -0,0 +1,155 @@
+package qp.operators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static qp.utils.TestTuples.makeIntSchema;
+import static qp.utils.TestTuples.tupleOf;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import qp.utils.Attribute;
+import qp.utils.BPlusTree;
+import qp.utils.Batch;
+import qp.utils.Condition;
+import qp.utils.Schema;
+import qp.utils.Tuple;
+import qp.utils.TupleWriter;
+
+public class IndexScanTest {
+    // With 2 INT attributes, a page holds 4 tuples, and a node of the index 4 entries.
+    private static final int PAGE_SIZE = 64;
+    private static final int NUM_OF_TUPLES = 300;
+    private static final int NUM_OF_KEYS = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int oldPageSize;
+    private String tableName;
+    private Schema schema;
+    // The key of each tuple in the table, by its id.
+    private int[] keys;
+
+    @Before
+    public void buildTable() throws IOException {
+        oldPageSize = Batch.getPageSize();
+        Batch.setPageSize(PAGE_SIZE);
+
+        // The table holds the keys in a random order, and the index is bulk-loaded as by BuildIndex.
+        tableName = folder.getRoot().getPath() + "/T";
+        schema = makeIntSchema(tableName, "id", "k");
+        keys = new int[NUM_OF_TUPLES];
+        Random random = new Random(1);
+        TupleWriter out = new TupleWriter(tableName + ".tbl", schema);
+        for (int i = 0; i < NUM_OF_TUPLES; i++) {
+            keys[i] = random.nextInt(NUM_OF_KEYS);
+            out.write(tupleOf(i, keys[i]));
+        }
+        out.close();
+
+        Vector<Integer> order = new Vector<>();
+        for (int i = 0; i < NUM_OF_TUPLES; i++) {
+            order.add(i);
+        }
+        order.sort((i1, i2) -> Integer.compare(keys[i1], keys[i2]));
+        BPlusTree.Builder builder = new BPlusTree.Builder(BPlusTree.getFileName(tableName, "k"), schema, 1, PAGE_SIZE);
+        for (int i : order) {
+            // The rid of a tuple is its position in the table file.
+            builder.add(keys[i], i);
+        }
+        builder.finish();
+    }
+
+    @After
+    public void restorePageSize() {
+        Batch.setPageSize(oldPageSize);
+    }
+
+    @Test
+    public void isApplicable() {
+        assertTrue(IndexScan.isApplicable(makeCondition(Condition.LTOE, 3)));
+        assertFalse(IndexScan.isApplicable(makeCondition(Condition.NOTEQUAL, 3)));
+        Condition other = new Condition(new Attribute(tableName, "id"), Condition.EQUAL, "3");
+        other.setCondType(Condition.SELECT);
+        assertFalse(IndexScan.isApplicable(other));
+    }
+
+    @Test
+    public void scanEquality() {
+        assertScan(Condition.EQUAL, 20);
+        assertScan(Condition.EQUAL, 0);
+        assertScan(Condition.EQUAL, NUM_OF_KEYS);
+    }
+
+    @Test
+    public void scanRanges() {
+        for (int operator : new int[]{Condition.LESS_THAN, Condition.LTOE, Condition.GREATER_THAN, Condition.GTOE}) {
+            assertScan(operator, 20);
+            assertScan(operator, -1);
+            assertScan(operator, NUM_OF_KEYS - 1);
+        }
+    }
+
+    /**
+     * Scans the tuples satisfying a condition on the key, and checks that they are exactly those of the table
+     * satisfying it, in the order of the keys.
+     */
+    private void assertScan(int operator, int value) {
+        IndexScan scan = new IndexScan(tableName, makeCondition(operator, value));
+        scan.setSchema(schema);
+        assertTrue(scan.open());
+        Vector<Integer> ids = new Vector<>();
+        int lastKey = Integer.MIN_VALUE;
+        for (Batch outBatch = scan.next(); outBatch != null; outBatch = scan.next()) {
+            for (int i = 0; i < outBatch.size(); i++) {
+                Tuple tuple = outBatch.elementAt(i);
+                int id = (Integer) tuple.dataAt(0);
+                assertEquals(keys[id], tuple.dataAt(1));
+                assertTrue(keys[id] >= lastKey);
+                lastKey = keys[id];
+                ids.add(id);
+            }
+        }
+        scan.close();
+
+        Vector<Integer> expected = new Vector<>();
+        for (int i = 0; i < NUM_OF_TUPLES; i++) {
+            if (satisfies(keys[i], operator, value)) {
+                expected.add(i);
+            }
+        }
+        Collections.sort(ids);
+        assertEquals(expected, ids);
+    }
+
+    private Condition makeCondition(int operator, int value) {
+        Condition condition = new Condition(schema.getAttribute(1), operator, String.valueOf(value));
+        condition.setCondType(Condition.SELECT);
+        return condition;
+    }
+
+    private static boolean satisfies(int key, int operator, int value) {
+        switch (operator) {
+            case Condition.LESS_THAN:
+                return key < value;
+            case Condition.LTOE:
+                return key <= value;
+            case Condition.GREATER_THAN:
+                return key > value;
+            case Condition.GTOE:
+                return key >= value;
+            default:
+                return key == value;
+        }
+    }
+}
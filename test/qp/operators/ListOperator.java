@@ -0,0 +1,100 @@
+package qp.operators;
+
+import static qp.utils.TestTuples.makeIntSchema;
+import static qp.utils.TestTuples.tupleOf;
+
+import java.util.Vector;
+
+import qp.utils.Batch;
+import qp.utils.Schema;
+import qp.utils.Tuple;
+
+/**
+ * Defines an input of the operators under test, whose tuples are kept in memory and returned page by page in
+ * the given order. It cannot be marked, and it is rewindable only if set so.
+ */
+class ListOperator extends Operator {
+    // The tuples to be returned.
+    private final Vector<Tuple> tuples;
+    // The index of the next tuple to be returned.
+    private int cursor;
+    // Whether this input is rewindable, as a scan on a base table is.
+    private boolean isRewindable;
+    // The number of times this input has been rewound.
+    private int numOfRewinds;
+
+    /**
+     * Creates an input of some given tuples.
+     *
+     * @param schema is the schema of the tuples, whose tuple size must be set.
+     * @param tuples are the tuples.
+     */
+    ListOperator(Schema schema, Vector<Tuple> tuples) {
+        super(OpType.SCAN);
+        this.schema = schema;
+        this.tuples = tuples;
+    }
+
+    /**
+     * Creates an input of tuples (key, id) with INT attributes, where the i-th tuple holds the i-th key and i.
+     *
+     * @param tableName is the name of the table.
+     * @param keys      are the keys of the tuples.
+     */
+    ListOperator(String tableName, int[] keys) {
+        this(makeIntSchema(tableName, "key", "id"), new Vector<>());
+        for (int i = 0; i < keys.length; i++) {
+            tuples.add(tupleOf(keys[i], i));
+        }
+    }
+
+    /**
+     * Setter for isRewindable.
+     *
+     * @param isRewindable is whether this input is rewindable.
+     */
+    void setRewindable(boolean isRewindable) {
+        this.isRewindable = isRewindable;
+    }
+
+    /**
+     * Getter for numOfRewinds.
+     *
+     * @return the number of times this input has been rewound.
+     */
+    int getNumOfRewinds() {
+        return numOfRewinds;
+    }
+
+    @Override
+    public boolean open() {
+        cursor = 0;
+        numOfRewinds = 0;
+        return true;
+    }
+
+    @Override
+    public Batch next() {
+        if (cursor == tuples.size()) {
+            return null;
+        }
+        int batchSize = Batch.getPageSize() / schema.getTupleSize();
+        Batch batch = new Batch(batchSize);
+        while (!batch.isFull() && cursor < tuples.size()) {
+            batch.add(tuples.elementAt(cursor++));
+        }
+        return batch;
+    }
+
+    @Override
+    public boolean isRewindable() {
+        return isRewindable;
+    }
+
+    @Override
+    public boolean rewind() {
+        cursor = 0;
+        numOfRewinds++;
+        return true;
+    }
+}
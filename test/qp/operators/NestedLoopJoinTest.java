@@ -0,0 +1,137 @@
+package qp.operators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static qp.operators.TestOperators.getExpected;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import qp.utils.Batch;
+
+public class NestedLoopJoinTest {
+    // With 2 INT attributes per input, a page holds 4 input tuples.
+    private static final int PAGE_SIZE = 32;
+
+    private int oldPageSize;
+    // Whether the right input has been materialized into a file when the join is opened.
+    private boolean hasMaterialized;
+
+    @Before
+    public void setPageSize() {
+        oldPageSize = Batch.getPageSize();
+        Batch.setPageSize(PAGE_SIZE);
+    }
+
+    @After
+    public void restorePageSize() {
+        Batch.setPageSize(oldPageSize);
+    }
+
+    @Test
+    public void probesOneLeftPagePerBlock() {
+        // With 3 buffers, the right input does not fit, and the block holds a single left page.
+        assertJoin(JoinType.BLOCK_NESTED_JOIN, makeKeys(24, 5), makeKeys(20, 7), 3);
+        assertTrue("the right input should be materialized", hasMaterialized);
+    }
+
+    @Test
+    public void probesManyLeftPagesPerBlock() {
+        // With 5 buffers, the block holds 3 left pages, the last block of which is not full.
+        assertJoin(JoinType.BLOCK_NESTED_JOIN, makeKeys(26, 5), makeKeys(20, 7), 5);
+        assertTrue("the right input should be materialized", hasMaterialized);
+    }
+
+    @Test
+    public void materializesRightPagesOfPageNestedJoin() {
+        assertJoin(JoinType.PAGE_NESTED_JOIN, makeKeys(24, 5), makeKeys(20, 7), 3);
+        assertTrue("the right input should be materialized", hasMaterialized);
+    }
+
+    @Test
+    public void keepsRightPagesInMemory() {
+        // Out of 4 buffers, the 2 right pages fit into those left after one for the left input and one for the output.
+        assertJoin(JoinType.PAGE_NESTED_JOIN, makeKeys(24, 5), makeKeys(8, 3), 4);
+        assertFalse(hasMaterialized);
+        assertJoin(JoinType.BLOCK_NESTED_JOIN, makeKeys(24, 5), makeKeys(8, 3), 4);
+        assertFalse(hasMaterialized);
+    }
+
+    @Test
+    public void rescansRewindableRightInput() {
+        int[] rightKeys = makeKeys(20, 7);
+        ListOperator right = new ListOperator("R", rightKeys);
+        right.setRewindable(true);
+        assertJoin(JoinType.PAGE_NESTED_JOIN, makeKeys(24, 5), rightKeys, right, 3);
+        assertFalse(hasMaterialized);
+        // The right input is rescanned once for each of the 6 left pages.
+        assertEquals(6, right.getNumOfRewinds());
+
+        right = new ListOperator("R", rightKeys);
+        right.setRewindable(true);
+        assertJoin(JoinType.BLOCK_NESTED_JOIN, makeKeys(26, 5), rightKeys, right, 5);
+        assertFalse(hasMaterialized);
+        // The right input is rescanned once for each block of 3 out of the 7 left pages.
+        assertEquals(3, right.getNumOfRewinds());
+    }
+
+    /**
+     * Joins two inputs of tuples (key, id), and checks that the joined tuples are the same as those of a nested
+     * loop over the tuples (in any order), and that no file is left behind.
+     *
+     * @param joinType    is the type of the nested loop join.
+     * @param leftKeys    are the keys of the left input.
+     * @param rightKeys   are the keys of the right input.
+     * @param numOfBuffer is the number of buffers available to the join.
+     */
+    private void assertJoin(int joinType, int[] leftKeys, int[] rightKeys, int numOfBuffer) {
+        assertJoin(joinType, leftKeys, rightKeys, new ListOperator("R", rightKeys), numOfBuffer);
+    }
+
+    /**
+     * Joins an input of tuples (key, id) with a given right input, and checks the joined tuples as
+     * {@link #assertJoin(int, int[], int[], int)} does.
+     *
+     * @param joinType    is the type of the nested loop join.
+     * @param leftKeys    are the keys of the left input.
+     * @param rightKeys   are the keys of the right input.
+     * @param right       is the right input.
+     * @param numOfBuffer is the number of buffers available to the join.
+     */
+    private void assertJoin(int joinType, int[] leftKeys, int[] rightKeys, ListOperator right, int numOfBuffer) {
+        ListOperator left = new ListOperator("L", leftKeys);
+        Join base = TestOperators.makeJoin(left, right, joinType, numOfBuffer);
+        Join join = joinType == JoinType.PAGE_NESTED_JOIN ? new PageNestedJoin(base) : new BlockNestedJoin(base);
+        String tempPrefix = joinType == JoinType.PAGE_NESTED_JOIN ? "PNJtemp-" : "BNJtemp-";
+
+        Set<String> oldTempFiles = TestOperators.getTempFiles(tempPrefix);
+        assertTrue(join.open());
+        hasMaterialized = !oldTempFiles.containsAll(TestOperators.getTempFiles(tempPrefix));
+        Vector<String> results = TestOperators.readAll(join);
+
+        Vector<String> expected = getExpected(leftKeys, rightKeys);
+        Collections.sort(expected);
+        Collections.sort(results);
+        assertEquals(expected, results);
+        assertEquals(oldTempFiles, TestOperators.getTempFiles(tempPrefix));
+    }
+
+    /**
+     * @param numOfTuples is the number of tuples.
+     * @param numOfKeys   is the number of distinct keys.
+     * @return the keys of the tuples, which repeat every numOfKeys tuples.
+     */
+    private static int[] makeKeys(int numOfTuples, int numOfKeys) {
+        int[] keys = new int[numOfTuples];
+        for (int i = 0; i < numOfTuples; i++) {
+            keys[i] = i % numOfKeys;
+        }
+        return keys;
+    }
+}
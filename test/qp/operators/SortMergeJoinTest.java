@@ -0,0 +1,133 @@
+package qp.operators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static qp.operators.TestOperators.describe;
+import static qp.operators.TestOperators.getExpected;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import qp.utils.Batch;
+
+public class SortMergeJoinTest {
+    // With 2 INT attributes per input, a page holds 4 right tuples, so that 3 buffers keep 4 tuples of a partition.
+    private static final int PAGE_SIZE = 32;
+    private static final int NUM_OF_BUFFERS = 3;
+    // The join value shared by most of the right tuples, whose partition is too large to be kept in memory.
+    private static final int SKEWED_KEY = 2;
+    private static final int NUM_OF_SKEWED = 11;
+
+    private int oldPageSize;
+    // Whether a new spill file has been seen while reading the output of the join.
+    private boolean hasSpilled;
+
+    @Before
+    public void setPageSize() {
+        oldPageSize = Batch.getPageSize();
+        Batch.setPageSize(PAGE_SIZE);
+    }
+
+    @After
+    public void restorePageSize() {
+        Batch.setPageSize(oldPageSize);
+    }
+
+    @Test
+    public void spillsAndReplaysSkewedPartition() {
+        int[] leftKeys = {0, 1, SKEWED_KEY, SKEWED_KEY, SKEWED_KEY, 3, 5, 5};
+        Vector<Integer> rightKeyList = new Vector<>(Arrays.asList(1, 1));
+        for (int i = 0; i < NUM_OF_SKEWED; i++) {
+            rightKeyList.add(SKEWED_KEY);
+        }
+        rightKeyList.addAll(Arrays.asList(4, 5));
+        int[] rightKeys = rightKeyList.stream().mapToInt(Integer::intValue).toArray();
+
+        Set<String> oldTempFiles = getTempFiles();
+        SortMergeJoin join = makeJoin(leftKeys, rightKeys);
+        assertTrue(join.open());
+        Vector<String> results = readAll(join, oldTempFiles);
+        join.close();
+
+        assertTrue("the skewed partition should be spilled", hasSpilled);
+        assertEquals(getExpected(leftKeys, rightKeys), results);
+        assertEquals(oldTempFiles, getTempFiles());
+    }
+
+    @Test
+    public void replaysSkewedPartitionFromMark() {
+        int[] leftKeys = {0, 1, SKEWED_KEY, SKEWED_KEY, SKEWED_KEY, 3, 5, 5};
+        int[] rightKeys = new int[NUM_OF_SKEWED + 2];
+        for (int i = 0; i < NUM_OF_SKEWED; i++) {
+            rightKeys[i + 1] = SKEWED_KEY;
+        }
+        rightKeys[0] = 1;
+        rightKeys[NUM_OF_SKEWED + 1] = 5;
+
+        // The sorted right input is marked at the skewed partition and restored for each left tuple in it.
+        Set<String> oldTempFiles = getTempFiles();
+        Set<String> oldRuns = TestOperators.getTempFiles("Sort-run-");
+        ListOperator right = new ListOperator("R", rightKeys);
+        Vector<Object> sortKeys = new Vector<>();
+        sortKeys.add(right.getSchema().getAttribute(0));
+        Sort sortedRight = new Sort(right, sortKeys, NUM_OF_BUFFERS);
+        SortMergeJoin join = new SortMergeJoin(TestOperators.makeJoin(new ListOperator("L", leftKeys), sortedRight,
+                JoinType.SORT_MERGE_JOIN, NUM_OF_BUFFERS));
+        assertTrue(join.open());
+        Vector<String> results = readAll(join, oldTempFiles);
+        join.close();
+
+        // The sort is not stable, so that the right tuples with the same key may come in any order.
+        Vector<String> expected = getExpected(leftKeys, rightKeys);
+        Collections.sort(expected);
+        Collections.sort(results);
+        assertFalse("the skewed partition should not be spilled", hasSpilled);
+        assertEquals(expected, results);
+        assertEquals(oldTempFiles, getTempFiles());
+        assertEquals(oldRuns, TestOperators.getTempFiles("Sort-run-"));
+    }
+
+    @Test
+    public void keepsSmallPartitionsInMemory() {
+        int[] leftKeys = {1, SKEWED_KEY, SKEWED_KEY};
+        int[] rightKeys = {SKEWED_KEY, SKEWED_KEY, 3};
+
+        Set<String> oldTempFiles = getTempFiles();
+        SortMergeJoin join = makeJoin(leftKeys, rightKeys);
+        assertTrue(join.open());
+        assertEquals(getExpected(leftKeys, rightKeys), readAll(join, oldTempFiles));
+        join.close();
+        assertFalse(hasSpilled);
+        assertEquals(oldTempFiles, getTempFiles());
+    }
+
+    /**
+     * Reads all output tuples, and checks for new spill files after each page.
+     */
+    private Vector<String> readAll(SortMergeJoin join, Set<String> oldTempFiles) {
+        Vector<String> results = new Vector<>();
+        hasSpilled = false;
+        for (Batch outBatch = join.next(); outBatch != null; outBatch = join.next()) {
+            results.addAll(describe(outBatch));
+            hasSpilled |= !oldTempFiles.containsAll(getTempFiles());
+        }
+        return results;
+    }
+
+    private static SortMergeJoin makeJoin(int[] leftKeys, int[] rightKeys) {
+        ListOperator left = new ListOperator("L", leftKeys);
+        ListOperator right = new ListOperator("R", rightKeys);
+        return new SortMergeJoin(TestOperators.makeJoin(left, right, JoinType.SORT_MERGE_JOIN, NUM_OF_BUFFERS));
+    }
+
+    private static Set<String> getTempFiles() {
+        return TestOperators.getTempFiles("SMJtemp-");
+    }
+}
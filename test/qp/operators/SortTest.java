@@ -0,0 +1,290 @@
+package qp.operators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import qp.utils.Batch;
+import qp.utils.Tuple;
+
+public class SortTest {
+    // With 2 INT attributes, a page holds 4 tuples.
+    private static final int PAGE_SIZE = 32;
+    private static final int NUM_OF_TUPLES = 500;
+    // With 20 buffers, replacement selection keeps 18 pages in memory, and up to 9 runs are merged at a time.
+    private static final int NUM_OF_BUFFERS = 20;
+    private static final int NUM_OF_TUPLES_IN_MEMORY = 18 * 4;
+
+    private int oldPageSize;
+    private boolean oldParallel;
+
+    @Before
+    public void setPageSize() {
+        oldPageSize = Batch.getPageSize();
+        oldParallel = Sort.isParallel();
+        Batch.setPageSize(PAGE_SIZE);
+    }
+
+    @After
+    public void restorePageSize() {
+        Batch.setPageSize(oldPageSize);
+        Sort.setParallel(oldParallel);
+    }
+
+    @Test
+    public void sortSequentially() {
+        Sort.setParallel(false);
+        assertSorted(4);
+        assertSorted(NUM_OF_BUFFERS);
+    }
+
+    @Test
+    public void sortInParallel() {
+        Sort.setParallel(true);
+        // A few buffers make several merge passes, while many buffers split the last pass into key ranges.
+        assertSorted(4);
+        assertSorted(NUM_OF_BUFFERS);
+    }
+
+    @Test
+    public void mergesInParallelShareTheBuffers() {
+        Sort.setParallel(true);
+        for (int numOfBuffers = 3; numOfBuffers <= 64; numOfBuffers++) {
+            int pagesPerRun = numOfBuffers >= 5 ? 2 : 1;
+            for (int numOfRuns = 2; numOfRuns <= Sort.getMergeFanIn(numOfBuffers); numOfRuns++) {
+                int numOfMerges = Sort.getNumOfMerges(numOfBuffers, numOfRuns);
+                assertTrue(numOfMerges == 1 || numOfMerges * (pagesPerRun * numOfRuns + 1) <= numOfBuffers);
+            }
+        }
+    }
+
+    @Test
+    public void generateRunsByReplacementSelection() {
+        Sort.setParallel(false);
+        int[] ascending = new int[NUM_OF_TUPLES];
+        int[] descending = new int[NUM_OF_TUPLES];
+        for (int i = 0; i < NUM_OF_TUPLES; i++) {
+            ascending[i] = i;
+            descending[i] = NUM_OF_TUPLES - i;
+        }
+        int numOfChunks = (NUM_OF_TUPLES + NUM_OF_TUPLES_IN_MEMORY - 1) / NUM_OF_TUPLES_IN_MEMORY;
+
+        // A sorted input makes a single run, while a reversed one makes runs of the tuples in memory.
+        assertEquals(1, countRuns(ascending));
+        assertEquals(numOfChunks, countRuns(descending));
+        // A random input makes runs longer than the tuples in memory (about twice as long on average).
+        int numOfRuns = countRuns(makeShuffledKeys(1));
+        assertTrue(numOfRuns > 1 && numOfRuns < numOfChunks);
+    }
+
+    @Test
+    public void pipelineLastMergePass() {
+        Sort.setParallel(false);
+        assertPipelined(4, 4);
+        assertPipelined(NUM_OF_BUFFERS, NUM_OF_BUFFERS);
+        // Fewer buffers for the last pass make more runs be merged beforehand, here into a single one.
+        assertPipelined(NUM_OF_BUFFERS, 3);
+    }
+
+    @Test
+    public void dropDuplicates() {
+        for (boolean isParallel : new boolean[]{false, true}) {
+            Sort.setParallel(isParallel);
+            assertDistinct(4, 37);
+            assertDistinct(NUM_OF_BUFFERS, 37);
+            assertDistinct(4, 1);
+        }
+
+        // The duplicates are dropped while generating the runs, so that the same keys make a single run.
+        Sort.setParallel(false);
+        int[] keys = new int[NUM_OF_TUPLES];
+        Sort sort = makeSort(keys, 4);
+        sort.setDistinct(true);
+        Set<String> oldTempFiles = getTempFiles();
+        assertTrue(sort.open());
+        Set<String> runs = getTempFiles();
+        runs.removeAll(oldTempFiles);
+        assertEquals(1, runs.size());
+        sort.close();
+        assertEquals(oldTempFiles, getTempFiles());
+    }
+
+    @Test
+    public void restoreMarkedPosition() {
+        int[] ascending = new int[NUM_OF_TUPLES];
+        for (int i = 0; i < NUM_OF_TUPLES; i++) {
+            ascending[i] = i;
+        }
+        for (boolean isParallel : new boolean[]{false, true}) {
+            Sort.setParallel(isParallel);
+            // The runs are merged on the fly (or in key ranges in the parallel mode), or read from a single run.
+            for (int numOfPagesBeforeMark : new int[]{0, 60, NUM_OF_TUPLES / 4 - 1}) {
+                assertMarkRestore(makeShuffledKeys(numOfPagesBeforeMark), 4, numOfPagesBeforeMark);
+                assertMarkRestore(makeShuffledKeys(numOfPagesBeforeMark), NUM_OF_BUFFERS, numOfPagesBeforeMark);
+                assertMarkRestore(ascending, NUM_OF_BUFFERS, numOfPagesBeforeMark);
+            }
+        }
+    }
+
+    /**
+     * Marks the sorted result after some pages and reads on, and checks that the result is read again from the
+     * mark each time it is restored, and that no sorted run is left once the operator is closed.
+     */
+    private static void assertMarkRestore(int[] keys, int numOfBuffers, int numOfPagesBeforeMark) {
+        Set<String> oldTempFiles = getTempFiles();
+        Sort sort = makeSort(keys, numOfBuffers);
+        assertTrue(sort.open());
+        int markKey = readKeys(sort, numOfPagesBeforeMark, 0);
+        assertTrue(sort.mark());
+        readKeys(sort, 10, markKey);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(sort.restore());
+            assertEquals(NUM_OF_TUPLES, readKeys(sort, Integer.MAX_VALUE, markKey));
+        }
+        sort.close();
+        assertEquals(oldTempFiles, getTempFiles());
+    }
+
+    /**
+     * Reads up to a number of pages from a sort on keys 0, 1, 2, ..., and checks that the keys read follow on
+     * from a given key.
+     *
+     * @return the key following the last one read.
+     */
+    private static int readKeys(Sort sort, int numOfPages, int firstKey) {
+        int key = firstKey;
+        for (int i = 0; i < numOfPages; i++) {
+            Batch outBatch = sort.next();
+            if (outBatch == null) {
+                break;
+            }
+            for (int j = 0; j < outBatch.size(); j++) {
+                assertEquals(key++, outBatch.elementAt(j).dataAt(0));
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Sorts an input holding each of some keys many times in the distinct mode, and checks that each key is
+     * returned once in order.
+     */
+    private static void assertDistinct(int numOfBuffers, int numOfKeys) {
+        int[] keys = makeShuffledKeys(numOfKeys);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] %= numOfKeys;
+        }
+        Set<String> oldTempFiles = getTempFiles();
+        Sort sort = makeSort(keys, numOfBuffers);
+        sort.setDistinct(true);
+        assertTrue(sort.open());
+        int numOfTuples = 0;
+        for (Batch outBatch = sort.next(); outBatch != null; outBatch = sort.next()) {
+            for (int i = 0; i < outBatch.size(); i++) {
+                assertEquals(numOfTuples++, outBatch.elementAt(i).dataAt(0));
+            }
+        }
+        sort.close();
+        assertEquals(numOfKeys, numOfTuples);
+        assertEquals(oldTempFiles, getTempFiles());
+    }
+
+    /**
+     * Sorts a shuffled input, and checks that the runs of a single pass are left to be merged on the fly, as
+     * many as the buffers of the last pass allow, and that the sorted result is never written out.
+     */
+    private static void assertPipelined(int numOfBuffers, int numOfMergeBuffers) {
+        Set<String> oldTempFiles = getTempFiles();
+        Sort sort = makeSort(makeShuffledKeys(numOfMergeBuffers), numOfBuffers);
+        sort.setNumOfMergeBuffers(numOfMergeBuffers);
+        assertTrue(sort.open());
+        Set<String> runs = getTempFiles();
+        runs.removeAll(oldTempFiles);
+        assertTrue(!runs.isEmpty() && runs.size() <= Sort.getMergeFanIn(numOfMergeBuffers));
+        Set<String> passes = new HashSet<>();
+        for (String run : runs) {
+            // The name of a run ends with its pass and its index.
+            String[] parts = run.split("-");
+            passes.add(parts[parts.length - 2]);
+        }
+        assertEquals(1, passes.size());
+
+        int numOfTuples = 0;
+        for (Batch outBatch = sort.next(); outBatch != null; outBatch = sort.next()) {
+            for (int i = 0; i < outBatch.size(); i++) {
+                assertEquals(numOfTuples++, outBatch.elementAt(i).dataAt(0));
+            }
+            Set<String> tempFiles = getTempFiles();
+            tempFiles.removeAll(oldTempFiles);
+            assertTrue(runs.containsAll(tempFiles));
+        }
+        sort.close();
+        assertEquals(NUM_OF_TUPLES, numOfTuples);
+        assertEquals(oldTempFiles, getTempFiles());
+    }
+
+    /**
+     * Counts the sorted runs generated from an input, which are all merged in the last pass.
+     */
+    private static int countRuns(int[] keys) {
+        Set<String> oldTempFiles = getTempFiles();
+        Sort sort = makeSort(keys, NUM_OF_BUFFERS);
+        assertTrue(sort.open());
+        Set<String> runs = getTempFiles();
+        runs.removeAll(oldTempFiles);
+        sort.close();
+        assertEquals(oldTempFiles, getTempFiles());
+        return runs.size();
+    }
+
+    private static int[] makeShuffledKeys(long seed) {
+        Vector<Integer> keys = new Vector<>();
+        for (int i = 0; i < NUM_OF_TUPLES; i++) {
+            keys.add(i);
+        }
+        Collections.shuffle(keys, new Random(seed));
+        return keys.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Sorts a shuffled input on its first attribute, and checks the result and that no sorted run is left.
+     */
+    private static void assertSorted(int numOfBuffers) {
+        int[] keys = makeShuffledKeys(numOfBuffers);
+        Set<String> oldTempFiles = getTempFiles();
+        Sort sort = makeSort(keys, numOfBuffers);
+        assertTrue(sort.open());
+        int numOfTuples = 0;
+        for (Batch outBatch = sort.next(); outBatch != null; outBatch = sort.next()) {
+            for (int i = 0; i < outBatch.size(); i++) {
+                Tuple tuple = outBatch.elementAt(i);
+                assertEquals(numOfTuples, tuple.dataAt(0));
+                assertEquals(numOfTuples, keys[(Integer) tuple.dataAt(1)]);
+                numOfTuples++;
+            }
+        }
+        sort.close();
+        assertEquals(NUM_OF_TUPLES, numOfTuples);
+        assertEquals(oldTempFiles, getTempFiles());
+    }
+
+    private static Sort makeSort(int[] keys, int numOfBuffers) {
+        ListOperator base = new ListOperator("T", keys);
+        Vector<Object> sortKeys = new Vector<>();
+        sortKeys.add(base.getSchema().getAttribute(0));
+        return new Sort(base, sortKeys, numOfBuffers);
+    }
+
+    private static Set<String> getTempFiles() {
+        return TestOperators.getTempFiles("Sort-run-");
+    }
+}
@@ -0,0 +1,107 @@
+package qp.operators;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Vector;
+
+import qp.utils.Batch;
+import qp.utils.Condition;
+import qp.utils.Tuple;
+
+/**
+ * Holds the helpers shared by the operator tests. The joins are over inputs of tuples (key, id) joined on their
+ * keys (see {@link ListOperator#ListOperator(String, int[])}), and a joined tuple is described as
+ * "key-left id-right id".
+ */
+final class TestOperators {
+    private TestOperators() {
+    }
+
+    /**
+     * Creates the base join of two inputs on their first attributes.
+     *
+     * @param left        is the left input.
+     * @param right       is the right input.
+     * @param joinType    is the type of the join.
+     * @param numOfBuffer is the number of buffers available to the join.
+     * @return the base join, to be passed to the constructor of the join operator.
+     */
+    static Join makeJoin(Operator left, Operator right, int joinType, int numOfBuffer) {
+        Condition condition = new Condition(left.getSchema().getAttribute(0), Condition.EQUAL,
+                right.getSchema().getAttribute(0));
+        condition.setCondType(Condition.JOIN);
+
+        Join join = new Join(left, right, condition, OpType.JOIN);
+        join.setSchema(left.getSchema().joinWith(right.getSchema()));
+        join.setJoinType(joinType);
+        join.setNumOfBuffer(numOfBuffer);
+        return join;
+    }
+
+    /**
+     * Joins the tuples of both inputs by the left tuples first, i.e., in the order of a nested loop join.
+     *
+     * @param leftKeys  are the keys of the left input.
+     * @param rightKeys are the keys of the right input.
+     * @return the joined tuples.
+     */
+    static Vector<String> getExpected(int[] leftKeys, int[] rightKeys) {
+        Vector<String> expected = new Vector<>();
+        for (int i = 0; i < leftKeys.length; i++) {
+            for (int j = 0; j < rightKeys.length; j++) {
+                if (leftKeys[i] == rightKeys[j]) {
+                    expected.add(leftKeys[i] + "-" + i + "-" + j);
+                }
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Reads all tuples of an opened join, and closes it.
+     *
+     * @param join is the join operator.
+     * @return the joined tuples in the order they are returned.
+     */
+    static Vector<String> readAll(Operator join) {
+        Vector<String> results = new Vector<>();
+        for (Batch outBatch = join.next(); outBatch != null; outBatch = join.next()) {
+            results.addAll(describe(outBatch));
+        }
+        join.close();
+        return results;
+    }
+
+    /**
+     * @param outBatch is a page of joined tuples.
+     * @return the joined tuples in the page.
+     */
+    static Vector<String> describe(Batch outBatch) {
+        Vector<String> results = new Vector<>();
+        for (int i = 0; i < outBatch.size(); i++) {
+            Tuple tuple = outBatch.elementAt(i);
+            results.add(tuple.dataAt(0) + "-" + tuple.dataAt(1) + "-" + tuple.dataAt(3));
+        }
+        return results;
+    }
+
+    /**
+     * Lists the temporary files in the working directory, so that a test can check that none is left behind.
+     *
+     * @param prefix is the prefix of the temporary files.
+     * @return the names of the temporary files.
+     */
+    static Set<String> getTempFiles(String prefix) {
+        Set<String> fileNames = new HashSet<>();
+        String[] names = new File(".").list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(prefix)) {
+                    fileNames.add(name);
+                }
+            }
+        }
+        return fileNames;
+    }
+}
@@ -1,6 +1,7 @@
 package qp.parser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.StringReader;
@@ -161,6 +162,63 @@ public class ParserTest {
         assertTrue(query.getIsDistinct());
     }
 
+    @Test
+    public void selectWithAggregatesAndGroupBy() throws Exception {
+        SQLQuery query = parseString("SELECT customers.name, COUNT(customers.id), AVG(customers.age) FROM customers GROUPBY customers.name");
+        assertEquals(3, query.getProjectList().size());
+        assertAttributeName(query.getProjectList(), 1, "id");
+        assertEquals(Attribute.NONE, ((Attribute) query.getProjectList().elementAt(0)).getAggType());
+        assertEquals(Attribute.COUNT, ((Attribute) query.getProjectList().elementAt(1)).getAggType());
+        assertEquals(Attribute.AVG, ((Attribute) query.getProjectList().elementAt(2)).getAggType());
+        assertEquals(2, query.getAggregateList().size());
+        assertEquals(1, query.getGroupByList().size());
+        assertTrue(query.isAggregated());
+    }
+
+    @Test
+    public void selectWithWhereConjunction() throws Exception {
+        SQLQuery query = parseString("SELECT customers.name FROM customers WHERE customers.age > \"25\" && customers.size = \"100\"");
+        assertEquals(2, query.getSelectionList().size());
+        assertSelectCondition(query.getSelectionList(), 0, "age", "25", Condition.GREATER_THAN);
+        assertSelectCondition(query.getSelectionList(), 1, "size", "100", Condition.EQUAL);
+        assertEquals(0, query.getNumJoin());
+    }
+
+    @Test
+    public void selectWithWhereDisjunction() throws Exception {
+        SQLQuery query = parseString("SELECT customers.name FROM customers WHERE customers.age > \"25\" || customers.age < \"5\" && customers.size = \"100\"");
+        assertEquals(1, query.getSelectionList().size());
+        Condition condition = (Condition) query.getSelectionList().elementAt(0);
+        assertEquals(Condition.SELECT, condition.getCondType());
+        assertEquals(Condition.OR, condition.getOperator());
+        assertEquals(2, condition.getChildren().size());
+        assertSelectCondition(condition.getChildren(), 0, "age", "25", Condition.GREATER_THAN);
+        Condition conjunction = condition.getChildren().elementAt(1);
+        assertEquals(Condition.AND, conjunction.getOperator());
+        assertSelectCondition(conjunction.getChildren(), 0, "age", "5", Condition.LESS_THAN);
+        assertSelectCondition(conjunction.getChildren(), 1, "size", "100", Condition.EQUAL);
+    }
+
+    @Test
+    public void selectWithOrderByDescAndLimit() throws Exception {
+        SQLQuery query = parseString("SELECT customers.name FROM customers WHERE customers.age > \"25\" ORDERBY customers.age DESC LIMIT 100");
+        assertEquals(1, query.getSelectionList().size());
+        assertEquals(1, query.getOrderByList().size());
+        assertAttributeName(query.getOrderByList(), 0, "age");
+        assertTrue(query.getIsDescending());
+        assertEquals(100, query.getLimit());
+    }
+
+    @Test
+    public void selectWithOrderByWithoutLimit() throws Exception {
+        SQLQuery query = parseString("SELECT customers.name FROM customers ORDERBY customers.age, customers.name");
+        assertEquals(2, query.getOrderByList().size());
+        assertAttributeName(query.getOrderByList(), 0, "age");
+        assertAttributeName(query.getOrderByList(), 1, "name");
+        assertFalse(query.getIsDescending());
+        assertEquals(-1, query.getLimit());
+    }
+
     private SQLQuery parseString(String input) throws Exception {
         StringReader reader = new StringReader(input);
         Scanner scanner = new Scanner(reader);
@@ -0,0 +1,157 @@
+package qp.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Vector;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BPlusTreeTest {
+    // With 64-byte pages and INT keys, a leaf holds 4 entries and an internal node 6 children.
+    private static final int PAGE_SIZE = 64;
+    private static final int NUM_OF_ENTRIES = 500;
+    // Each key appears this many times, so that duplicates span over leaves.
+    private static final int NUM_OF_DUPLICATES = 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shape() throws Exception {
+        BPlusTree index = buildIntIndex();
+        assertEquals(4, index.getLeafCapacity());
+        assertEquals(NUM_OF_ENTRIES / 4, index.getNumOfLeaves());
+        assertEquals(NUM_OF_ENTRIES, index.getNumOfEntries());
+        assertTrue("tree should have several internal levels", index.getHeight() >= 3);
+        index.close();
+    }
+
+    @Test
+    public void search() throws Exception {
+        BPlusTree index = buildIntIndex();
+        for (int key = 0; key < NUM_OF_ENTRIES / NUM_OF_DUPLICATES; key++) {
+            Vector<Long> rids = index.search(key);
+            assertEquals(NUM_OF_DUPLICATES, rids.size());
+            for (int i = 0; i < NUM_OF_DUPLICATES; i++) {
+                assertEquals(getRid(key * NUM_OF_DUPLICATES + i), (long) rids.elementAt(i));
+            }
+        }
+        assertTrue(index.search(-1).isEmpty());
+        assertTrue(index.search(NUM_OF_ENTRIES).isEmpty());
+        index.close();
+    }
+
+    @Test
+    public void scanFromStart() throws Exception {
+        BPlusTree index = buildIntIndex();
+        BPlusTree.Cursor cursor = index.seek(null);
+        for (int i = 0; i < NUM_OF_ENTRIES; i++) {
+            assertEquals(getRid(i), cursor.next());
+            assertEquals(i / NUM_OF_DUPLICATES, cursor.getKey());
+        }
+        assertEquals(-1, cursor.next());
+        index.close();
+    }
+
+    @Test
+    public void seekLowerBound() throws Exception {
+        BPlusTree index = buildIntIndex();
+        for (int key = -1; key <= NUM_OF_ENTRIES / NUM_OF_DUPLICATES; key++) {
+            BPlusTree.Cursor cursor = index.seek(key);
+            int first = Math.max(key, 0) * NUM_OF_DUPLICATES;
+            if (first < NUM_OF_ENTRIES) {
+                assertEquals(getRid(first), cursor.next());
+                assertEquals(Math.max(key, 0), cursor.getKey());
+            } else {
+                assertEquals(-1, cursor.next());
+            }
+        }
+        index.close();
+    }
+
+    @Test
+    public void stringKeys() throws Exception {
+        Schema schema = makeSchema(Attribute.STRING, 6);
+        String[] keys = {"apple", "apple", "banana", "cherry", "date", "date", "date", "fig"};
+        BPlusTree.Builder builder = new BPlusTree.Builder(getFileName(), schema, 1, PAGE_SIZE);
+        for (int i = 0; i < keys.length; i++) {
+            builder.add(keys[i], i);
+        }
+        builder.finish();
+
+        BPlusTree index = openIndex();
+        assertEquals(3, index.search("date").size());
+        assertEquals(3L, (long) index.search("cherry").elementAt(0));
+        assertTrue(index.search("coconut").isEmpty());
+        BPlusTree.Cursor cursor = index.seek("coconut");
+        assertEquals(4L, cursor.next());
+        assertEquals("date", cursor.getKey());
+        index.close();
+    }
+
+    @Test
+    public void emptyIndex() throws Exception {
+        new BPlusTree.Builder(getFileName(), makeSchema(Attribute.INT, 4), 1, PAGE_SIZE).finish();
+        BPlusTree index = openIndex();
+        assertEquals(1, index.getHeight());
+        assertEquals(-1, index.seek(null).next());
+        assertTrue(index.search(0).isEmpty());
+        index.close();
+    }
+
+    @Test
+    public void rejectsUnsortedEntries() throws Exception {
+        BPlusTree.Builder builder = new BPlusTree.Builder(getFileName(), makeSchema(Attribute.INT, 4), 1, PAGE_SIZE);
+        builder.add(2, 0);
+        try {
+            builder.add(1, 1);
+            fail("entries out of order should be rejected");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rejectsTooSmallPages() {
+        try {
+            new BPlusTree.Builder(getFileName(), makeSchema(Attribute.STRING, 100), 1, PAGE_SIZE);
+            fail("a page which cannot hold a key should be rejected");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private BPlusTree buildIntIndex() throws IOException {
+        BPlusTree.Builder builder = new BPlusTree.Builder(getFileName(), makeSchema(Attribute.INT, 4), 1, PAGE_SIZE);
+        for (int i = 0; i < NUM_OF_ENTRIES; i++) {
+            builder.add(i / NUM_OF_DUPLICATES, getRid(i));
+        }
+        builder.finish();
+        return openIndex();
+    }
+
+    private static long getRid(int i) {
+        // The rids of the same key need not be adjacent.
+        return 7L * i + 3;
+    }
+
+    private String getFileName() {
+        return BPlusTree.getFileName(folder.getRoot().getPath() + "/T", "k");
+    }
+
+    private BPlusTree openIndex() throws IOException {
+        return BPlusTree.open(folder.getRoot().getPath() + "/T", "k");
+    }
+
+    private static Schema makeSchema(int keyType, int keySize) {
+        Vector<Attribute> attrList = new Vector<>();
+        attrList.add(new Attribute("T", "id", Attribute.INT, 0, 4));
+        attrList.add(new Attribute("T", "k", keyType, 0, keySize));
+        return new Schema(attrList);
+    }
+}
@@ -0,0 +1,93 @@
+package qp.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static qp.utils.TestTuples.NAMES;
+import static qp.utils.TestTuples.assertTuple;
+import static qp.utils.TestTuples.makeSchema;
+import static qp.utils.TestTuples.makeTuple;
+
+import java.util.Date;
+import java.util.Vector;
+
+import org.junit.Test;
+
+public class ColumnBatchTest {
+    private static final int NUM_OF_ROWS = 20;
+
+    @Test
+    public void roundTrip() {
+        ColumnBatch columns = ColumnBatch.fromBatch(makeBatch(), makeSchema());
+        assertEquals(NUM_OF_ROWS, columns.size());
+        Batch batch = columns.toBatch();
+        assertEquals(NUM_OF_ROWS, batch.size());
+        for (int i = 0; i < NUM_OF_ROWS; i++) {
+            assertTuple(i, batch.elementAt(i));
+        }
+    }
+
+    @Test
+    public void selectOnEachType() {
+        ColumnBatch columns = ColumnBatch.fromBatch(makeBatch(), makeSchema());
+        columns.select(0, Condition.LESS_THAN, 15);
+        columns.select(1, Condition.NOTEQUAL, NAMES[1]);
+        columns.select(2, Condition.GTOE, 2.0f);
+        columns.select(3, Condition.LTOE, 12000L);
+
+        Vector<Integer> expected = new Vector<>();
+        for (int i = 0; i < NUM_OF_ROWS; i++) {
+            if (i < 15 && i % 3 != 1 && i / 2.0f >= 2.0f && 1000L * i <= 12000L) {
+                expected.add(i);
+            }
+        }
+        assertEquals(expected.size(), columns.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTuple(expected.elementAt(i), columns.elementAt(i));
+        }
+
+        columns.select(1, Condition.GREATER_THAN, "zzz");
+        assertTrue(columns.isEmpty());
+    }
+
+    @Test
+    public void projectKeepsSelection() {
+        ColumnBatch columns = ColumnBatch.fromBatch(makeBatch(), makeSchema());
+        columns.select(1, Condition.EQUAL, NAMES[2]);
+
+        Vector<Attribute> attrList = new Vector<>();
+        attrList.add(makeSchema().getAttribute(2));
+        attrList.add(makeSchema().getAttribute(0));
+        ColumnBatch projected = columns.project(new Schema(attrList), new int[]{2, 0});
+        assertEquals(columns.size(), projected.size());
+        for (int i = 0; i < projected.size(); i++) {
+            int row = 3 * i + 2;
+            assertEquals(row / 2.0f, projected.elementAt(i).dataAt(0));
+            assertEquals(row, projected.elementAt(i).dataAt(1));
+        }
+    }
+
+    @Test
+    public void nextMatch() {
+        ColumnBatch columns = ColumnBatch.fromBatch(makeBatch(), makeSchema());
+        assertEquals(7, columns.nextMatch(0, 7, 0));
+        assertEquals(-1, columns.nextMatch(0, 7, 8));
+        assertEquals(1, columns.nextMatch(1, NAMES[1], 0));
+        assertEquals(4, columns.nextMatch(1, NAMES[1], 2));
+        assertEquals(-1, columns.nextMatch(1, "dan", 0));
+        assertEquals(6, columns.nextMatch(2, 3.0f, 0));
+        assertEquals(9, columns.nextMatch(3, new Date(9000L), 0));
+
+        // Positions are among the selected rows only.
+        columns.select(0, Condition.GTOE, 10);
+        assertEquals(0, columns.nextMatch(1, NAMES[1], 0));
+        assertEquals(3, columns.nextMatch(1, NAMES[1], 1));
+    }
+
+    private static Batch makeBatch() {
+        Batch batch = new Batch(NUM_OF_ROWS);
+        for (int i = 0; i < NUM_OF_ROWS; i++) {
+            batch.add(makeTuple(i));
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,99 @@
+package qp.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static qp.utils.TestTuples.tupleOf;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.Vector;
+
+import org.junit.Test;
+
+public class LoserTreeTest {
+    // Orders the tuples on their first attribute only, so that the second one tells which input a tuple came from.
+    private static final Comparator<Tuple> ORDER = (t1, t2) -> Tuple.compareTuples(t1, t2, 0);
+
+    @Test
+    public void noInputs() {
+        LoserTree tree = new LoserTree(new Tuple[0], ORDER);
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    public void allInputsEmpty() {
+        LoserTree tree = new LoserTree(new Tuple[3], ORDER);
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    public void mergeIsSortedAndStable() {
+        Random random = new Random(3223);
+        for (int numOfInputs = 1; numOfInputs <= 9; numOfInputs++) {
+            int[][] inputs = new int[numOfInputs][];
+            for (int i = 0; i < numOfInputs; i++) {
+                // Some inputs are empty, and the keys repeat across the inputs.
+                inputs[i] = new int[random.nextInt(20)];
+                for (int j = 0; j < inputs[i].length; j++) {
+                    inputs[i][j] = random.nextInt(10);
+                }
+                Arrays.sort(inputs[i]);
+            }
+            assertMerge(inputs);
+        }
+    }
+
+    @Test
+    public void getHead() {
+        Tuple[] heads = {tupleOf(5, 0), null, tupleOf(2, 2)};
+        LoserTree tree = new LoserTree(heads, ORDER);
+        assertEquals(2, tree.getWinner());
+        assertEquals(5, tree.getHead(0).dataAt(0));
+        assertNull(tree.getHead(1));
+
+        tree.replaceWinner(null);
+        assertEquals(0, tree.getWinner());
+        assertNull(tree.getHead(2));
+        tree.replaceWinner(null);
+        assertTrue(tree.isEmpty());
+    }
+
+    private static void assertMerge(int[][] inputs) {
+        int[] cursors = new int[inputs.length];
+        Tuple[] heads = new Tuple[inputs.length];
+        int numOfTuples = 0;
+        for (int i = 0; i < inputs.length; i++) {
+            heads[i] = nextTuple(inputs, cursors, i);
+            numOfTuples += inputs[i].length;
+        }
+
+        LoserTree tree = new LoserTree(heads, ORDER);
+        Vector<Tuple> merged = new Vector<>();
+        while (!tree.isEmpty()) {
+            assertEquals(tree.getHead(tree.getWinner()), tree.peek());
+            merged.add(tree.peek());
+            tree.replaceWinner(nextTuple(inputs, cursors, tree.getWinner()));
+        }
+
+        assertEquals(numOfTuples, merged.size());
+        for (int i = 1; i < merged.size(); i++) {
+            int key1 = (Integer) merged.elementAt(i - 1).dataAt(0);
+            int key2 = (Integer) merged.elementAt(i).dataAt(0);
+            assertTrue("merged tuples should be sorted", key1 <= key2);
+            if (key1 == key2) {
+                int input1 = (Integer) merged.elementAt(i - 1).dataAt(1);
+                int input2 = (Integer) merged.elementAt(i).dataAt(1);
+                assertTrue("equal tuples should come in the order of their inputs", input1 <= input2);
+            }
+        }
+    }
+
+    private static Tuple nextTuple(int[][] inputs, int[] cursors, int input) {
+        if (cursors[input] == inputs[input].length) {
+            return null;
+        }
+        return tupleOf(inputs[input][cursors[input]++], input);
+    }
+}
@@ -0,0 +1,75 @@
+package qp.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Vector;
+
+/**
+ * Creates the tuples shared by the tests. The sample table T(id, name, score, time) has one attribute of each
+ * type, and its i-th tuple is derived from i alone, so that a test only needs to know the index of a tuple to
+ * check it.
+ */
+public final class TestTuples {
+    // The names cycled through by the sample tuples, the last of which takes more bytes than characters in UTF-8.
+    public static final String[] NAMES = {"ann", "bob", "cl\u00e9o"};
+
+    private TestTuples() {
+    }
+
+    /**
+     * @return the schema of the sample table, i.e., INT + (2 + 10) STRING + REAL + TIME.
+     */
+    public static Schema makeSchema() {
+        Vector<Attribute> attrList = new Vector<>();
+        attrList.add(new Attribute("T", "id", Attribute.INT, 0, 4));
+        attrList.add(new Attribute("T", "name", Attribute.STRING, 0, 10));
+        attrList.add(new Attribute("T", "score", Attribute.REAL, 0, 4));
+        attrList.add(new Attribute("T", "time", Attribute.TIME, 0, 4));
+        return new Schema(attrList);
+    }
+
+    /**
+     * @param i is the index of the tuple.
+     * @return the i-th tuple of the sample table.
+     */
+    public static Tuple makeTuple(int i) {
+        return tupleOf(i, NAMES[i % NAMES.length], i / 2.0f, new Date(1000L * i));
+    }
+
+    /**
+     * Checks a tuple against the i-th tuple of the sample table.
+     *
+     * @param i     is the index of the expected tuple.
+     * @param tuple is the actual tuple.
+     */
+    public static void assertTuple(int i, Tuple tuple) {
+        assertEquals(makeTuple(i).getData(), tuple.getData());
+    }
+
+    /**
+     * Creates a schema of INT attributes, whose tuple size is set so that it can be paged.
+     *
+     * @param tableName is the name of the table.
+     * @param colNames  are the names of the attributes.
+     * @return the schema.
+     */
+    public static Schema makeIntSchema(String tableName, String... colNames) {
+        Vector<Attribute> attrList = new Vector<>();
+        for (String colName : colNames) {
+            attrList.add(new Attribute(tableName, colName, Attribute.INT, 0, Integer.BYTES));
+        }
+        Schema schema = new Schema(attrList);
+        schema.setTupleSize(colNames.length * Integer.BYTES);
+        return schema;
+    }
+
+    /**
+     * @param values are the values of the attributes.
+     * @return the tuple holding the given values.
+     */
+    public static Tuple tupleOf(Object... values) {
+        return new Tuple(new Vector<>(Arrays.asList(values)));
+    }
+}
@@ -0,0 +1,128 @@
+package qp.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static qp.utils.TestTuples.assertTuple;
+import static qp.utils.TestTuples.makeSchema;
+import static qp.utils.TestTuples.makeTuple;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TupleReaderWriterTest {
+    // INT + (2 + 10) STRING + REAL + TIME, so that 3 records and the page header fit into 100 bytes.
+    private static final int RECORD_SIZE = 28;
+    private static final int PAGE_SIZE = 100;
+    private static final int RECORDS_PER_PAGE = 3;
+    private static final int NUM_OF_TUPLES = 25;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void layoutRecordSize() {
+        assertEquals(RECORD_SIZE, new TupleLayout(makeSchema()).getRecordSize());
+    }
+
+    @Test
+    public void writerKeepsPagesWithinPageSize() throws Exception {
+        File file = writeTuples();
+        int pageBytes = TupleWriter.getPageBytes(RECORDS_PER_PAGE, RECORD_SIZE);
+        assertTrue(pageBytes <= PAGE_SIZE);
+        assertTrue(TupleWriter.getPageBytes(RECORDS_PER_PAGE + 1, RECORD_SIZE) > PAGE_SIZE);
+
+        int numOfPages = (NUM_OF_TUPLES + RECORDS_PER_PAGE - 1) / RECORDS_PER_PAGE;
+        assertEquals(TupleWriter.HEADER_SIZE + numOfPages * pageBytes, file.length());
+    }
+
+    @Test
+    public void roundTripBuffered() throws Exception {
+        assertRoundTrip(false);
+    }
+
+    @Test
+    public void roundTripMapped() throws Exception {
+        assertRoundTrip(true);
+    }
+
+    @Test
+    public void readBatchWithPartialLastPage() throws Exception {
+        TupleReader in = new TupleReader(writeTuples().getPath(), makeSchema());
+        int numOfTuples = 0;
+        for (Batch batch = in.readBatch(4); batch != null; batch = in.readBatch(4)) {
+            for (int i = 0; i < batch.size(); i++) {
+                assertTuple(numOfTuples, batch.elementAt(i));
+                numOfTuples++;
+            }
+            assertEquals(Math.min(4, NUM_OF_TUPLES - numOfTuples + batch.size()), batch.size());
+        }
+        assertEquals(NUM_OF_TUPLES, numOfTuples);
+        in.close();
+    }
+
+    @Test
+    public void seekBuffered() throws Exception {
+        assertSeek(false);
+    }
+
+    @Test
+    public void seekMapped() throws Exception {
+        assertSeek(true);
+    }
+
+    private void assertRoundTrip(boolean isMapped) throws IOException {
+        TupleReader in = new TupleReader(writeTuples().getPath(), makeSchema(), isMapped);
+        for (int i = 0; i < NUM_OF_TUPLES; i++) {
+            assertTuple(i, in.read());
+        }
+        assertNull(in.read());
+        assertNull(in.read());
+        in.close();
+    }
+
+    private void assertSeek(boolean isMapped) throws IOException {
+        TupleReader in = new TupleReader(writeTuples().getPath(), makeSchema(), isMapped);
+        assertEquals(0, in.getPosition());
+
+        in.seekPage(2);
+        assertTuple(2 * RECORDS_PER_PAGE, in.read());
+        assertEquals(2 * RECORDS_PER_PAGE + 1, in.getPosition());
+
+        // Seeks backwards and forwards, within the current page and to other pages.
+        for (int position : new int[]{13, 12, 14, 0, NUM_OF_TUPLES - 1, 7}) {
+            in.seekPosition(position);
+            assertEquals(position, in.getPosition());
+            assertTuple(position, in.read());
+        }
+
+        // The position after the last record of a page is the first record of the next page.
+        in.seekPosition(RECORDS_PER_PAGE - 1);
+        in.read();
+        assertEquals(RECORDS_PER_PAGE, in.getPosition());
+        assertTuple(RECORDS_PER_PAGE, in.read());
+
+        in.seekPosition(NUM_OF_TUPLES);
+        assertNull(in.read());
+        in.seekPage(NUM_OF_TUPLES);
+        assertNull(in.read());
+        in.seekPosition(1);
+        assertTuple(1, in.read());
+        in.close();
+    }
+
+    private File writeTuples() throws IOException {
+        File file = new File(folder.getRoot(), "tuples.tbl");
+        TupleWriter out = new TupleWriter(file.getPath(), makeSchema(), PAGE_SIZE);
+        for (int i = 0; i < NUM_OF_TUPLES; i++) {
+            out.write(makeTuple(i));
+        }
+        out.close();
+        assertEquals((NUM_OF_TUPLES + RECORDS_PER_PAGE - 1) / RECORDS_PER_PAGE, out.getNumOfPages());
+        return file;
+    }
+}
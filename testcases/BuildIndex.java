@@ -0,0 +1,81 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Vector;
+
+import qp.utils.Attribute;
+import qp.utils.BPlusTree;
+import qp.utils.Schema;
+import qp.utils.Tuple;
+import qp.utils.TupleReader;
+
+/**
+ * Builds a B+-tree index on one attribute of a table, which generates <pre>XXXX.YYYY.idx</pre> next to the
+ * <pre>XXXX.tbl</pre> file. The keys & rids of the tuples are sorted in memory before they are bulk-loaded into
+ * the index.
+ */
+public class BuildIndex {
+    // The default size (in bytes) of each node in the index.
+    private static final int DEFAULT_PAGE_SIZE = 4096;
+
+    /**
+     * The entry point of this BuildIndex class.
+     *
+     * @param args are the CLI arguments supplied by the user.
+     * @throws IOException if there is an exception caused by file I/O.
+     */
+    public static void main(String[] args) throws IOException {
+        // Premature exit if the number of supplied arguments is wrong.
+        if (args.length != 2 && args.length != 3) {
+            System.out.println("usage: java BuildIndex <tablename> <colname> [pagesize] \n creates <tablename>.<colname>.idx files");
+            System.exit(1);
+        }
+
+        String tblName = args[0];
+        String colName = args[1];
+        int pageSize = args.length == 3 ? Integer.parseInt(args[2]) : DEFAULT_PAGE_SIZE;
+
+        // Reads the schema from the metadata file.
+        Schema schema = null;
+        try {
+            ObjectInputStream ins = new ObjectInputStream(new FileInputStream(tblName + ".md"));
+            schema = (Schema) ins.readObject();
+            ins.close();
+        } catch (ClassNotFoundException ce) {
+            System.out.println("class not found exception --- error in schema object file");
+            System.exit(1);
+        }
+        int keyIndex = schema.indexOf(new Attribute(tblName, colName));
+        if (keyIndex < 0) {
+            System.out.println("attribute " + colName + " does not exist in " + tblName);
+            System.exit(1);
+        }
+
+        // Reads the key & the position of every tuple in the table.
+        Vector<Object> keys = new Vector<>();
+        Vector<Long> rids = new Vector<>();
+        TupleReader in = new TupleReader(tblName + ".tbl", schema);
+        for (long rid = in.getPosition(); ; rid = in.getPosition()) {
+            Tuple tuple = in.read();
+            if (tuple == null) {
+                break;
+            }
+            keys.add(tuple.dataAt(keyIndex));
+            rids.add(rid);
+        }
+        in.close();
+
+        // Bulk-loads the index from the entries sorted on the key. The sort is stable, so the rids of the same
+        // key stay in the order of the table file.
+        Vector<Integer> order = new Vector<>();
+        for (int i = 0; i < keys.size(); i++) {
+            order.add(i);
+        }
+        order.sort((i1, i2) -> Tuple.compareValues(keys.elementAt(i1), keys.elementAt(i2)));
+        BPlusTree.Builder builder = new BPlusTree.Builder(BPlusTree.getFileName(tblName, colName), schema, keyIndex, pageSize);
+        for (int i : order) {
+            builder.add(keys.elementAt(i), rids.elementAt(i));
+        }
+        builder.finish();
+    }
+}
@@ -0,0 +1,72 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Vector;
+
+import qp.operators.ColumnarScan;
+import qp.utils.Attribute;
+import qp.utils.Schema;
+import qp.utils.Tuple;
+import qp.utils.TupleReader;
+import qp.utils.TupleWriter;
+
+/**
+ * Stores a table column by column, which generates one <pre>XXXX.YYYY.col</pre> file for each attribute from
+ * the <pre>XXXX.tbl</pre> file. Each column file is in the binary page format with a single attribute.
+ */
+public class ConvertTblToCol {
+    // The default page size (in bytes) of the .col files.
+    private static final int DEFAULT_PAGE_SIZE = 4096;
+
+    /**
+     * The entry point of this ConvertTblToCol class.
+     *
+     * @param args are the CLI arguments supplied by the user.
+     * @throws IOException if there is an exception caused by file I/O.
+     */
+    public static void main(String[] args) throws IOException {
+        // Premature exit if the number of supplied arguments is wrong.
+        if (args.length != 1 && args.length != 2) {
+            System.out.println("usage: java ConvertTblToCol <tablename> [pagesize] \n creates <tablename>.<colname>.col files");
+            System.exit(1);
+        }
+
+        String tblName = args[0];
+        int pageSize = args.length == 2 ? Integer.parseInt(args[1]) : DEFAULT_PAGE_SIZE;
+
+        // Reads the schema from the metadata file.
+        Schema schema = null;
+        try {
+            ObjectInputStream ins = new ObjectInputStream(new FileInputStream(tblName + ".md"));
+            schema = (Schema) ins.readObject();
+            ins.close();
+        } catch (ClassNotFoundException ce) {
+            System.out.println("class not found exception --- error in schema object file");
+            System.exit(1);
+        }
+
+        // Opens one output file for each attribute.
+        TupleWriter[] outCols = new TupleWriter[schema.getNumCols()];
+        for (int i = 0; i < outCols.length; i++) {
+            Attribute attr = schema.getAttribute(i);
+            String colFile = ColumnarScan.getFileName(tblName, attr.getColName());
+            outCols[i] = new TupleWriter(colFile, ColumnarScan.getColumnSchema(schema, attr), pageSize);
+        }
+
+        // Splits each tuple in the table into its attributes.
+        TupleReader in = new TupleReader(tblName + ".tbl", schema);
+        for (Tuple tuple = in.read(); tuple != null; tuple = in.read()) {
+            for (int i = 0; i < outCols.length; i++) {
+                Vector<Object> data = new Vector<>();
+                data.add(tuple.dataAt(i));
+                outCols[i].write(new Tuple(data));
+            }
+        }
+
+        // Closes all streams gracefully.
+        in.close();
+        for (TupleWriter outCol : outCols) {
+            outCol.close();
+        }
+    }
+}
@@ -1,10 +1,8 @@
 import java.io.BufferedReader;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.sql.Time;
 import java.util.Date;
 import java.util.StringTokenizer;
@@ -13,12 +11,17 @@ import java.util.Vector;
 import qp.utils.Attribute;
 import qp.utils.Schema;
 import qp.utils.Tuple;
+import qp.utils.TupleWriter;
 
 /**
  * Assume that the first line of the file contain the names of the attributes of the relation, and each subsequent line
  * represents 1 tuple of the relation. We also assume that the fields of each line is delimited by tabs ("\t").
+ * The tuples are written in the binary page format (see {@link TupleWriter}).
  */
 public class ConvertTxtToTbl {
+    // The default page size (in bytes) of the .tbl file.
+    private static final int DEFAULT_PAGE_SIZE = 4096;
+
     /**
      * The entry point of this RandomDB class.
      *
@@ -27,18 +30,18 @@ public class ConvertTxtToTbl {
      */
     public static void main(String[] args) throws IOException {
         // Premature exit if the number of supplied arguments is wrong.
-        if (args.length != 1) {
-            System.out.println("usage: java ConvertTxtToTbl <tablename> \n creats <tablename>.tbl files");
+        if (args.length != 1 && args.length != 2) {
+            System.out.println("usage: java ConvertTxtToTbl <tablename> [pagesize] \n creats <tablename>.tbl files");
             System.exit(1);
         }
 
         String tblName = args[0];
         String tblFile = tblName + ".tbl";
         String metaFile = tblName + ".md";
+        int pageSize = args.length == 2 ? Integer.parseInt(args[1]) : DEFAULT_PAGE_SIZE;
 
-        // Opens the input & output stream.
+        // Opens the input stream.
         BufferedReader in = new BufferedReader(new FileReader(tblName + ".txt"));
-        ObjectOutputStream outTbl = new ObjectOutputStream(new FileOutputStream(tblFile));
 
         // Reads the schema from the metadata file.
         Schema schema = null;
@@ -50,6 +53,9 @@ public class ConvertTxtToTbl {
             System.exit(1);
         }
 
+        // Opens the output file.
+        TupleWriter outTbl = new TupleWriter(tblFile, schema, pageSize);
+
         // Reads each line in the txt file.
         String line = in.readLine();
         while (line != null) {
@@ -80,7 +86,7 @@ public class ConvertTxtToTbl {
 
             // Writes out the attributes in the current row.
             Tuple tuple = new Tuple(data);
-            outTbl.writeObject(tuple);
+            outTbl.write(tuple);
             line = in.readLine();
         }
 